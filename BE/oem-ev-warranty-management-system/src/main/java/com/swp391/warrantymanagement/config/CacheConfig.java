@@ -0,0 +1,24 @@
+package com.swp391.warrantymanagement.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Bật Spring Cache (Caffeine) cho các lookup nóng trên đường xác thực.
+ * <p>
+ * CacheManager được Spring Boot auto-configure từ {@code spring.cache.*} trong application.properties
+ * (bounded size + TTL + recordStats). Nhờ {@code recordStats}, số hit/miss/eviction được publish
+ * qua actuator: {@code /actuator/metrics/cache.gets}, {@code /actuator/metrics/cache.evictions}.
+ * <p>
+ * Invalidation theo sự kiện: xem {@link com.swp391.warrantymanagement.event.UserCacheEvictionListener}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // username -> UserDetails (CustomUserDetailsService)
+    public static final String USER_DETAILS_CACHE = "userDetails";
+
+    // username -> role name (UserRepository.findRoleNameByUsername)
+    public static final String USER_ROLES_CACHE = "userRoles";
+}
@@ -4,6 +4,7 @@ import com.swp391.warrantymanagement.entity.Role;
 import com.swp391.warrantymanagement.entity.User;
 import com.swp391.warrantymanagement.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,6 +17,9 @@ import java.util.List;
 
 /**
  * Custom UserDetailsService để load user từ database
+ * <p>
+ * Kết quả được cache theo username ({@link CacheConfig#USER_DETAILS_CACHE}, bounded + TTL),
+ * bị evict khi có {@link com.swp391.warrantymanagement.event.UserSecurityChangedEvent}.
  */
 @Service
 @RequiredArgsConstructor
@@ -24,6 +28,7 @@ public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepository;
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.USER_DETAILS_CACHE, key = "#username")
     @Transactional(readOnly = true) // REFACTOR: Bọc trong transaction để cho phép lazy-loading role
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // REFACTOR: Chỉ cần một lần truy vấn DB để lấy cả User và Role (thông qua lazy-loading).
@@ -38,24 +43,39 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
 
         // Convert authority từ role (single role)
+        List<SimpleGrantedAuthority> authorities = toAuthorities(role.getRoleName());
+
+        // Return Spring Security UserDetails
+        // Tạm thời enabled/non-expired/non-locked = true do user không có field active (trong tương lai có thể thêm)
+        return new CachedUserDetails(user.getUsername(), user.getPassword(), authorities);
+    }
+
+    /**
+     * UserDetails được lưu trong cache và dùng chung giữa các request.
+     * <p>
+     * ProviderManager mặc định gọi {@code eraseCredentials()} lên principal sau khi login thành công;
+     * nếu không chặn, password hash của instance đang nằm trong cache sẽ bị set null và lần login sau sẽ thất bại.
+     */
+    static final class CachedUserDetails extends org.springframework.security.core.userdetails.User {
+        CachedUserDetails(String username, String password, List<SimpleGrantedAuthority> authorities) {
+            super(username, password, true, true, true, true, authorities);
+        }
+
+        @Override
+        public void eraseCredentials() {
+            // Không xóa: instance này được share qua cache (xem javadoc class)
+        }
+    }
+
+    /**
+     * Convert role name thành danh sách authority (single role).
+     * Dùng chung cho cả đường load từ database và đường xác thực bằng JWT claims.
+     */
+    static List<SimpleGrantedAuthority> toAuthorities(String roleName) {
         // FIX: Tự động thêm prefix "ROLE_" nếu chưa có để tương thích với Spring Security hasRole()
-        String roleName = role.getRoleName();
         if (!roleName.startsWith("ROLE_")) {
             roleName = "ROLE_" + roleName;
         }
-        List<SimpleGrantedAuthority> authorities = Collections.singletonList(
-                new SimpleGrantedAuthority(roleName)
-        );
-
-        // Return Spring Security UserDetails
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())
-                .authorities(authorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(false) // Tạm thời disable check này do user không có field active (trong tương lai có thể thêm)
-                .build();
+        return Collections.singletonList(new SimpleGrantedAuthority(roleName));
     }
 }
@@ -1,6 +1,10 @@
 package com.swp391.warrantymanagement.config;
 
 import com.swp391.warrantymanagement.service.JwtService;
+import com.swp391.warrantymanagement.service.TokenVersionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,6 +12,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -32,8 +37,9 @@ import java.io.IOException;
  * <ol>
  *     <li>Client gửi request với header: {@code Authorization: Bearer <JWT_TOKEN>}.</li>
  *     <li>Filter trích xuất token.</li>
- *     <li>{@link JwtService} xác thực token (chữ ký, thời gian hết hạn).</li>
- *     <li>Nếu hợp lệ, filter tải {@link UserDetails} từ database và thiết lập {@code SecurityContext}.</li>
+ *     <li>{@link JwtService#verifyToken(String)} xác thực token một lần duy nhất (chữ ký, thời gian hết hạn) và trả về claims.</li>
+ *     <li>Nếu hợp lệ, filter dựng {@link UserDetails} từ claims (userId, role) khi bật {@code jwt.claims-auth.enabled}
+ *     và token version còn hiện hành; ngược lại tải {@link UserDetails} từ database. Sau đó thiết lập {@code SecurityContext}.</li>
  *     <li>Nếu không hợp lệ, filter sẽ bỏ qua và cho request đi tiếp. Các lớp bảo vệ sau (ví dụ: {@code @PreAuthorize}) sẽ từ chối request nếu cần xác thực.</li>
  * </ol>
  * <p>
@@ -55,6 +61,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      */
     private final UserDetailsService userDetailsService;
 
+    /**
+     * Kiểm tra token version (revocation / đổi role) để quyết định có cần fallback về database hay không.
+     */
+    private final TokenVersionService tokenVersionService;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Bật xác thực chỉ bằng JWT claims (không query user + role mỗi request).
+     */
+    @Value("${jwt.claims-auth.enabled:false}")
+    private boolean claimsAuthEnabled;
+
+    private Counter claimsAuthCounter;
+    private Counter databaseAuthCounter;
+
+    @PostConstruct
+    void initMetrics() {
+        // auth.jwt.authentications{source=claims} = số lần xác thực KHÔNG cần database
+        claimsAuthCounter = meterRegistry.counter("auth.jwt.authentications", "source", "claims");
+        databaseAuthCounter = meterRegistry.counter("auth.jwt.authentications", "source", "database");
+    }
+
     /**
      * Phương thức cốt lõi, được gọi cho mọi HTTP request đi vào hệ thống.
      * @param request  Đối tượng {@link HttpServletRequest} từ client.
@@ -95,44 +124,49 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         logger.debug("📝 [JWT Filter] Token extracted (length: {})", jwt.length());
 
         try {
-            // Bước 4: Trích xuất username từ token.
-            username = jwtService.extractUsername(jwt);
+            // Bước 4: Xác thực token MỘT lần (chữ ký + thời hạn) và lấy toàn bộ claims.
+            // Token hợp lệ được cache theo digest nên request lặp lại không phải verify HMAC lại.
+            JwtService.VerifiedToken verifiedToken = jwtService.verifyToken(jwt);
+            username = verifiedToken.getUsername();
             logger.info("👤 [JWT Filter] Username extracted from token: {}", username);
 
             // Bước 5: Nếu có username và request này chưa được xác thực trước đó.
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 logger.info("🔐 [JWT Filter] Username found, proceeding to authenticate...");
 
-                // Bước 6: Tải thông tin chi tiết người dùng (bao gồm cả quyền) từ database.
-                // Việc này đảm bảo thông tin người dùng (ví dụ: quyền, trạng thái bị khóa) luôn được cập nhật.
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-                logger.info("📂 [JWT Filter] UserDetails loaded. Authorities: {}", userDetails.getAuthorities());
-
-                // Bước 7: Xác thực token (chữ ký, thời gian hết hạn).
-                boolean isValid = jwtService.isTokenValid(jwt);
-                logger.info("🔍 [JWT Filter] Token validation result: {}", isValid ? "VALID ✅" : "INVALID ❌");
-
-                if (isValid) {
-                    // Bước 8: Tạo đối tượng Authentication để Spring Security sử dụng.
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null, // credentials = null (không cần password sau khi authenticated)
-                            userDetails.getAuthorities() // roles/permissions
-                    );
-
-                    // Bước 9: Bổ sung các chi tiết của request (ví dụ: IP address) vào đối tượng Authentication.
-                    authToken.setDetails(
-                            new WebAuthenticationDetailsSource().buildDetails(request)
-                    );
-
-                    // Bước 10: Cập nhật SecurityContextHolder với thông tin xác thực mới.
-                    // Từ thời điểm này, request được coi là đã được xác thực.
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    logger.info("✅ [JWT Filter] Authentication SUCCESS! User '{}' authenticated with roles: {}",
-                            username, userDetails.getAuthorities());
+                // Bước 6: Dựng thông tin người dùng (bao gồm cả quyền).
+                // - Claims mode: dùng userId/role đã được ký trong token nếu token version còn hiện hành.
+                // - Fallback: tải từ database khi token stale (đổi role, logout, reset password...) hoặc thiếu claims.
+                UserDetails userDetails;
+                if (claimsAuthEnabled && verifiedToken.getRole() != null
+                        && tokenVersionService.isTokenCurrent(verifiedToken.getUserId(), verifiedToken.getTokenVersion())) {
+                    userDetails = buildUserDetailsFromClaims(verifiedToken);
+                    claimsAuthCounter.increment();
+                    logger.info("⚡ [JWT Filter] UserDetails built from token claims. Authorities: {}", userDetails.getAuthorities());
                 } else {
-                    logger.warn("❌ [JWT Filter] Token is INVALID (expired or signature mismatch)");
+                    userDetails = this.userDetailsService.loadUserByUsername(username);
+                    databaseAuthCounter.increment();
+                    logger.info("📂 [JWT Filter] UserDetails loaded. Authorities: {}", userDetails.getAuthorities());
                 }
+
+                // Bước 7: Token đã được xác thực ở bước 4 (verifyToken ném exception nếu sai chữ ký/hết hạn).
+                // Bước 8: Tạo đối tượng Authentication để Spring Security sử dụng.
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null, // credentials = null (không cần password sau khi authenticated)
+                        userDetails.getAuthorities() // roles/permissions
+                );
+
+                // Bước 9: Bổ sung các chi tiết của request (ví dụ: IP address) vào đối tượng Authentication.
+                authToken.setDetails(
+                        new WebAuthenticationDetailsSource().buildDetails(request)
+                );
+
+                // Bước 10: Cập nhật SecurityContextHolder với thông tin xác thực mới.
+                // Từ thời điểm này, request được coi là đã được xác thực.
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+                logger.info("✅ [JWT Filter] Authentication SUCCESS! User '{}' authenticated with roles: {}",
+                        username, userDetails.getAuthorities());
             } else if (username == null) {
                 logger.warn("⚠️  [JWT Filter] Username could not be extracted from token");
             } else {
@@ -152,4 +186,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         logger.info("🔚 [JWT Filter] {} {} - END (continuing filter chain)", requestMethod, requestPath);
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails buildUserDetailsFromClaims(JwtService.VerifiedToken verifiedToken) {
+        return org.springframework.security.core.userdetails.User.builder()
+                .username(verifiedToken.getUsername())
+                .password("") // Không có password trong token, và cũng không cần sau khi đã xác thực
+                .authorities(CustomUserDetailsService.toAuthorities(verifiedToken.getRole()))
+                .build();
+    }
 }
@@ -0,0 +1,16 @@
+package com.swp391.warrantymanagement.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật {@code @Scheduled} cho các job định kỳ (VD: dựng projection hết hạn bảo hành hằng đêm).
+ * <p>
+ * Dùng scheduler mặc định của Spring Boot với {@code spring.task.scheduling.pool.size} thread: job dài (projection đêm,
+ * ghi lịch sử km) không làm trễ flush km mỗi 2 giây. Mỗi job tự chặn chạy chồng lên chính nó (synchronized / cờ running).
+ * Lịch chạy được cấu hình bằng property của từng job.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,5 +1,6 @@
 package com.swp391.warrantymanagement.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -53,6 +54,9 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)) // Sử dụng JWT, không dùng session nên set policy là STATELESS để server không lưu session chỉ nên dùng session khi hệ thống cần lưu trạng thái người dùng (như web app truyền thống)
             .authorizeHttpRequests(auth -> auth
+                // Async dispatch (SSE /api/warranty-claims/events khi stream đóng): request gốc đã được xác thực,
+                // JWT filter không chạy lại cho async dispatch nên phải cho qua
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Public endpoints - không cần authentication
                 .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh",
                                 "/api/auth/forgot-password", "/api/auth/reset-password").permitAll() // Chỉ cho phép các endpoint công khai
@@ -66,8 +70,9 @@ public class SecurityConfig {
                 // Swagger UI endpoints
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**").permitAll()
 
-                // Health check
-                .requestMatchers("/actuator/**", "/health").permitAll()
+                // Health check - chỉ health là công khai; metrics/caches (đọc số liệu, xóa cache) chỉ dành cho ADMIN
+                .requestMatchers("/actuator/health", "/actuator/health/**", "/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                 // ADMIN - Quyền cao nhất, có thể làm tất cả
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -118,7 +123,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/recall-responses/**").hasAnyRole("ADMIN", "EVM_STAFF", "SC_STAFF", "CUSTOMER")
 
                 // Recall Dashboard - Statistics for Admin dashboard
-                .requestMatchers("/api/recalls/status", "/api/recalls/progress").hasAnyRole("ADMIN", "EVM_STAFF", "SC_STAFF")
+                .requestMatchers("/api/recalls/status", "/api/recalls/progress", "/api/recalls/jobs/**").hasAnyRole("ADMIN", "EVM_STAFF", "SC_STAFF")
 
                 // SC_TECHNICIAN - Kỹ thuật viên: xem và cập nhật service histories, warranty claims
                 // (Quyền đã được định nghĩa ở trên cùng với SC_STAFF)
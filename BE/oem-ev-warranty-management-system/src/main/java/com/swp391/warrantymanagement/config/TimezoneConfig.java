@@ -1,5 +1,6 @@
 package com.swp391.warrantymanagement.config;
 
+import com.swp391.warrantymanagement.util.DateTimeUtil;
 import jakarta.annotation.PostConstruct;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -27,7 +28,7 @@ public class TimezoneConfig {
     public void init() {
         // Set default timezone to Vietnam (UTC+7)
         // This affects ALL LocalDateTime.now() calls throughout the application
-        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Ho_Chi_Minh"));
+        TimeZone.setDefault(TimeZone.getTimeZone(DateTimeUtil.VIETNAM_ZONE));
         System.out.println("✅ Application timezone set to: " + TimeZone.getDefault().getID());
         System.out.println("   Current time: " + java.time.LocalDateTime.now());
     }
@@ -3,6 +3,10 @@ package com.swp391.warrantymanagement.controller;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.dto.response.ServiceCenterResponseDTO;
 import com.swp391.warrantymanagement.service.ServiceCenterService;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -10,6 +14,9 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 /**
  * Controller chịu trách nhiệm cung cấp các API công khai (Public API),
  * không yêu cầu người dùng phải xác thực (đăng nhập).
@@ -67,6 +74,26 @@ public class PublicController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Tìm các trung tâm bảo hành gần một vị trí nhất (k-nearest).
+     * Endpoint này là công khai và được tra cứu hoàn toàn trên spatial index in-memory, không quét bảng.
+     *
+     * @param latitude  Vĩ độ của vị trí tham chiếu.
+     * @param longitude Kinh độ của vị trí tham chiếu.
+     * @param limit     Số lượng trung tâm tối đa (mặc định 5, tối đa 50).
+     * @return {@link ResponseEntity} chứa danh sách trung tâm bảo hành sắp xếp từ gần đến xa.
+     */
+    @GetMapping("/service-centers/nearest")
+    public ResponseEntity<List<ServiceCenterResponseDTO>> findNearestServiceCenters(
+            @RequestParam @DecimalMin("-90.0") @DecimalMax("90.0") BigDecimal latitude,
+            @RequestParam @DecimalMin("-180.0") @DecimalMax("180.0") BigDecimal longitude,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(50) int limit) {
+
+        List<ServiceCenterResponseDTO> response = serviceCenterService
+                .findNearestServiceCenters(latitude, longitude, limit);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Lấy thông tin chi tiết của một trung tâm bảo hành dựa trên ID.
      * Endpoint này là công khai.
@@ -1,15 +1,20 @@
 package com.swp391.warrantymanagement.controller;
 
+import com.swp391.warrantymanagement.dto.response.RecallFanoutJobResponseDTO;
+import com.swp391.warrantymanagement.entity.RecallCampaignStats;
 import com.swp391.warrantymanagement.enums.RecallRequestStatus;
-import com.swp391.warrantymanagement.enums.RecallResponseStatus;
+import com.swp391.warrantymanagement.repository.RecallCampaignStatsRepository;
 import com.swp391.warrantymanagement.repository.RecallRequestRepository;
-import com.swp391.warrantymanagement.repository.RecallResponseRepository;
+import com.swp391.warrantymanagement.service.RecallFanoutService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -23,6 +28,8 @@ import java.util.*;
  *   <li>Provide aggregated statistics for Admin dashboard</li>
  *   <li>GET /api/recalls/status - Total recall campaigns count and breakdown by status</li>
  *   <li>GET /api/recalls/progress - Progress data for each active recall campaign</li>
+ *   <li>GET /api/recalls/jobs/{id} - Progress of a background RecallResponse creation job</li>
+ *   <li>POST /api/recalls/jobs/{id}/retry - Retry a FAILED RecallResponse creation job (Admin)</li>
  * </ul>
  */
 @RestController
@@ -32,14 +39,25 @@ public class RecallDashboardController {
 
     private static final Logger logger = LoggerFactory.getLogger(RecallDashboardController.class);
 
+    // Các status hiển thị trong statusBreakdown của /status
+    private static final List<RecallRequestStatus> DASHBOARD_STATUSES = List.of(
+        RecallRequestStatus.PENDING_ADMIN_APPROVAL,
+        RecallRequestStatus.APPROVED_BY_ADMIN,
+        RecallRequestStatus.WAITING_CUSTOMER_CONFIRM,
+        RecallRequestStatus.COMPLETED,
+        RecallRequestStatus.REJECTED_BY_ADMIN);
+
     private final RecallRequestRepository recallRequestRepository;
-    private final RecallResponseRepository recallResponseRepository;
+    private final RecallCampaignStatsRepository recallCampaignStatsRepository;
+    private final RecallFanoutService recallFanoutService;
 
     /**
      * Get recall campaign status summary.
      * <p>
      * Returns total count of recall campaigns and breakdown by status.
      * Used by Admin dashboard to show total recalls count.
+     * <p>
+     * One {@code GROUP BY status} query; the total is the sum of the groups.
      *
      * @return Map with totalElements and status breakdown
      */
@@ -48,7 +66,13 @@ public class RecallDashboardController {
     public ResponseEntity<Map<String, Object>> getRecallCampaignStatus() {
         logger.info("Getting recall campaign status summary");
 
-        long totalCampaigns = recallRequestRepository.count();
+        Map<RecallRequestStatus, Long> countsByStatus = new EnumMap<>(RecallRequestStatus.class);
+        long totalCampaigns = 0;
+        for (Object[] row : recallRequestRepository.countGroupByStatus()) {
+            long count = ((Number) row[1]).longValue();
+            countsByStatus.put((RecallRequestStatus) row[0], count);
+            totalCampaigns += count;
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("totalElements", totalCampaigns);
@@ -56,16 +80,9 @@ public class RecallDashboardController {
 
         // Add breakdown by status for additional insights
         Map<String, Long> statusBreakdown = new HashMap<>();
-        statusBreakdown.put("PENDING_ADMIN_APPROVAL",
-            recallRequestRepository.countByStatus(RecallRequestStatus.PENDING_ADMIN_APPROVAL));
-        statusBreakdown.put("APPROVED_BY_ADMIN",
-            recallRequestRepository.countByStatus(RecallRequestStatus.APPROVED_BY_ADMIN));
-        statusBreakdown.put("WAITING_CUSTOMER_CONFIRM",
-            recallRequestRepository.countByStatus(RecallRequestStatus.WAITING_CUSTOMER_CONFIRM));
-        statusBreakdown.put("COMPLETED",
-            recallRequestRepository.countByStatus(RecallRequestStatus.COMPLETED));
-        statusBreakdown.put("REJECTED_BY_ADMIN",
-            recallRequestRepository.countByStatus(RecallRequestStatus.REJECTED_BY_ADMIN));
+        for (RecallRequestStatus status : DASHBOARD_STATUSES) {
+            statusBreakdown.put(status.name(), countsByStatus.getOrDefault(status, 0L));
+        }
 
         response.put("statusBreakdown", statusBreakdown);
 
@@ -84,6 +101,9 @@ public class RecallDashboardController {
      * - Number pending response
      * - Number in progress (repair ongoing)
      * - Number completed
+     * <p>
+     * Two queries, O(campaigns) regardless of the number of responses: campaign summaries (part name joined)
+     * and the incrementally maintained {@link RecallCampaignStats} counters.
      *
      * @return List of campaign progress data
      */
@@ -93,44 +113,34 @@ public class RecallDashboardController {
         logger.info("Getting recall campaign progress data");
 
         // Get all active recall campaigns (not rejected)
-        var campaigns = recallRequestRepository.findAll().stream()
-            .filter(campaign -> campaign.getStatus() != RecallRequestStatus.REJECTED_BY_ADMIN)
-            .toList();
-
-        List<Map<String, Object>> progressData = new ArrayList<>();
-
-        for (var campaign : campaigns) {
-            Long campaignId = campaign.getRecallRequestId();
-
-            // Get all responses for this campaign
-            var responses = recallResponseRepository
-                .findByRecallRequest_RecallRequestId(campaignId);
-
-            long totalAffected = responses.size();
-            long pending = responses.stream()
-                .filter(r -> r.getStatus() == RecallResponseStatus.PENDING)
-                .count();
-            long accepted = responses.stream()
-                .filter(r -> r.getStatus() == RecallResponseStatus.ACCEPTED)
-                .count();
-            long declined = responses.stream()
-                .filter(r -> r.getStatus() == RecallResponseStatus.DECLINED)
-                .count();
-            long inProgress = responses.stream()
-                .filter(r -> r.getStatus() == RecallResponseStatus.IN_PROGRESS)
-                .count();
-            long completed = responses.stream()
-                .filter(r -> r.getStatus() == RecallResponseStatus.COMPLETED)
-                .count();
+        List<Object[]> campaigns = recallRequestRepository
+            .findCampaignSummariesExcludingStatus(RecallRequestStatus.REJECTED_BY_ADMIN);
+
+        Map<Long, RecallCampaignStats> statsByCampaign = new HashMap<>();
+        for (RecallCampaignStats stats : recallCampaignStatsRepository.findAll()) {
+            statsByCampaign.put(stats.getRecallRequestId(), stats);
+        }
+
+        List<Map<String, Object>> progressData = new ArrayList<>(campaigns.size());
+
+        for (Object[] campaign : campaigns) {
+            Long campaignId = (Long) campaign[0];
+            String campaignName = campaign[1] + " - " + campaign[2];
+            RecallCampaignStats stats = statsByCampaign.getOrDefault(campaignId, new RecallCampaignStats(campaignId));
+
+            long totalAffected = stats.getTotalCount();
+            long pending = stats.getPendingCount();
+            long accepted = stats.getAcceptedCount();
+            long declined = stats.getDeclinedCount();
+            long inProgress = stats.getInProgressCount();
+            long completed = stats.getCompletedCount();
 
             // Build campaign progress object
             Map<String, Object> campaignProgress = new HashMap<>();
             campaignProgress.put("campaignId", campaignId);
-            campaignProgress.put("campaignName",
-                campaign.getPart().getPartName() + " - " + campaign.getReason());
-            campaignProgress.put("name",
-                campaign.getPart().getPartName() + " - " + campaign.getReason());
-            campaignProgress.put("status", campaign.getStatus().name());
+            campaignProgress.put("campaignName", campaignName);
+            campaignProgress.put("name", campaignName);
+            campaignProgress.put("status", ((RecallRequestStatus) campaign[3]).name());
             campaignProgress.put("total", totalAffected);
             campaignProgress.put("totalAffected", totalAffected);
             campaignProgress.put("pending", pending);
@@ -149,4 +159,37 @@ public class RecallDashboardController {
         logger.info("Retrieved progress data for {} recall campaigns", progressData.size());
         return ResponseEntity.ok(progressData);
     }
+
+    /**
+     * Get progress of a recall fan-out job (created when a campaign is approved).
+     * <p>
+     * Returns rows processed, total rows, rows per second and ETA in seconds.
+     *
+     * @param id job ID returned as {@code fanoutJobId} by the approve API
+     * @return job progress
+     */
+    @GetMapping("/jobs/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EVM_STAFF', 'SC_STAFF')")
+    public ResponseEntity<RecallFanoutJobResponseDTO> getRecallFanoutJob(@PathVariable Long id) {
+        logger.info("Getting recall fan-out job progress: {}", id);
+        return ResponseEntity.ok(recallFanoutService.getJob(id));
+    }
+
+    /**
+     * Retry a FAILED recall fan-out job from its checkpoint.
+     *
+     * @param id job ID
+     * @return job progress (status QUEUED), or 409 if the job is not FAILED
+     */
+    @PostMapping("/jobs/{id}/retry")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RecallFanoutJobResponseDTO> retryRecallFanoutJob(@PathVariable Long id) {
+        logger.info("Retrying recall fan-out job: {}", id);
+        try {
+            return ResponseEntity.ok(recallFanoutService.retryJob(id));
+        } catch (IllegalStateException e) {
+            logger.warn("Retry recall fan-out job rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
 }
@@ -189,7 +189,7 @@ public class ServiceCenterController {
             @RequestParam @DecimalMin("-180.0") @DecimalMax("180.0") BigDecimal longitude,
             @RequestParam(defaultValue = "10.0") @Positive double radius) {
 
-        // Thiết kế: Logic tính toán khoảng cách địa lý phức tạp (sử dụng công thức Haversine)
+        // Thiết kế: Logic tính toán khoảng cách địa lý (spatial index + công thức Haversine)
         // được đóng gói hoàn toàn trong tầng Service, giúp Controller giữ được sự đơn giản.
         List<ServiceCenterResponseDTO> response = serviceCenterService
                 .findServiceCentersNearLocation(latitude, longitude, radius);
@@ -2,6 +2,7 @@ package com.swp391.warrantymanagement.controller;
 
 import com.swp391.warrantymanagement.dto.request.ServiceHistoryRequestDTO;
 import com.swp391.warrantymanagement.dto.response.ServiceHistoryResponseDTO;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.exception.AuthenticationRequiredException;
 import com.swp391.warrantymanagement.service.ServiceHistoryService;
@@ -88,6 +89,33 @@ public class ServiceHistoryController {
         return ResponseEntity.ok(historiesPage);
     }
 
+    /**
+     * Lấy danh sách tất cả các lịch sử bảo dưỡng theo cursor (keyset pagination), hỗ trợ tìm kiếm, không chạy COUNT.
+     * Dùng {@code nextCursor} của trang trước làm tham số {@code after} để lấy trang tiếp theo.
+     * Chỉ hỗ trợ sắp xếp theo thuộc tính trực tiếp của service history (không hỗ trợ vehicleVin, vehicleName).
+     *
+     * @param after   Cursor của trang trước (bỏ trống để lấy trang đầu).
+     * @param size    Số lượng phần tử trên mỗi trang (mặc định là 10).
+     * @param search  Từ khóa tìm kiếm (loại dịch vụ, mô tả, tên xe, VIN).
+     * @param sortBy  Trường để sắp xếp (mặc định: serviceDate).
+     * @param sortDir Hướng sắp xếp: ASC hoặc DESC (mặc định: DESC).
+     * @return {@link ResponseEntity} chứa một {@link CursorResponse} các lịch sử bảo dưỡng.
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SC_STAFF') or hasRole('SC_TECHNICIAN') or hasRole('EVM_STAFF')")
+    public ResponseEntity<CursorResponse<ServiceHistoryResponseDTO>> getAllServiceHistoriesCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = "serviceDate") String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDir) {
+        logger.info("Get all service histories (cursor) request: size={}, search={}, sortBy={}, sortDir={}", size, search, sortBy, sortDir);
+        CursorResponse<ServiceHistoryResponseDTO> histories = serviceHistoryService.getAllServiceHistoriesCursor(
+                search, sortBy, Sort.Direction.fromString(sortDir), after, size);
+        logger.info("Get all service histories (cursor) success, returned={}, hasNext={}", histories.getContent().size(), histories.isHasNext());
+        return ResponseEntity.ok(histories);
+    }
+
     /**
      * Lấy thông tin chi tiết của một lịch sử bảo dưỡng dựa trên ID.
      *
@@ -1,8 +1,13 @@
 package com.swp391.warrantymanagement.controller;
 
+import com.swp391.warrantymanagement.dto.request.MileageIngestionRequestDTO;
 import com.swp391.warrantymanagement.dto.request.VehicleRequestDTO;
+import com.swp391.warrantymanagement.dto.response.MileageHistoryResponseDTO;
+import com.swp391.warrantymanagement.dto.response.MileageIngestionResponseDTO;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.dto.response.VehicleResponseDTO;
+import com.swp391.warrantymanagement.service.MileageIngestionService;
+import com.swp391.warrantymanagement.service.VehicleMileageHistoryService;
 import com.swp391.warrantymanagement.service.VehicleService;
 import com.swp391.warrantymanagement.util.SecurityUtil;
 import jakarta.validation.Valid;
@@ -12,11 +17,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
@@ -37,6 +44,10 @@ public class VehicleController {
     private static final Logger logger = LoggerFactory.getLogger(VehicleController.class);
     @Autowired
     private VehicleService vehicleService;
+    @Autowired
+    private MileageIngestionService mileageIngestionService;
+    @Autowired
+    private VehicleMileageHistoryService vehicleMileageHistoryService;
 
     /**
      * Lấy danh sách tất cả các xe trong hệ thống với phân trang, tìm kiếm và sắp xếp.
@@ -112,6 +123,57 @@ public class VehicleController {
         }
     }
 
+    /**
+     * Nhận số km hàng loạt từ telematics gateway của OEM.
+     * <p>
+     * Số đo được gom trong bộ nhớ (chỉ giữ số đo mới nhất của mỗi xe) và ghi xuống DB theo JDBC batch vài giây một lần,
+     * nên trả về 202 Accepted. Số đo làm km giảm hoặc không hợp lệ được báo riêng trong {@code rejections},
+     * không làm hỏng cả batch.
+     *
+     * @param request các số đo (tối đa {@value MileageIngestionRequestDTO#MAX_ITEMS})
+     * @return {@link ResponseEntity} chứa {@link MileageIngestionResponseDTO} với số đo được nhận / bị từ chối.
+     */
+    @PostMapping("/mileage-readings")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EVM_STAFF')")
+    public ResponseEntity<MileageIngestionResponseDTO> ingestMileageReadings(
+            @Valid @RequestBody MileageIngestionRequestDTO request) {
+        logger.debug("Mileage ingestion request: {} readings", request.getReadings().size());
+        MileageIngestionResponseDTO response = mileageIngestionService.ingest(request.getReadings());
+        if (response.getRejected() > 0) {
+            logger.info("Mileage ingestion: received={}, rejected={}", response.getReceived(), response.getRejected());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * Lấy lịch sử công-tơ-mét của xe trong một khoảng thời gian.
+     * <p>
+     * Chỉ có điểm khi km thay đổi; km tại một thời điểm bất kỳ là km của điểm gần nhất trước đó.
+     *
+     * @param id   ID của xe.
+     * @param from Đầu khoảng (ISO date-time).
+     * @param to   Cuối khoảng (ISO date-time, mặc định: hiện tại).
+     * @return {@link ResponseEntity} chứa {@link MileageHistoryResponseDTO}, 400 nếu {@code from} sau {@code to}.
+     */
+    @GetMapping("/{id}/mileage-history")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EVM_STAFF') or hasRole('SC_STAFF') or hasRole('SC_TECHNICIAN')")
+    public ResponseEntity<MileageHistoryResponseDTO> getMileageHistory(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        logger.info("Get mileage history request: id={}, from={}, to={}", id, from, end);
+        try {
+            MileageHistoryResponseDTO history = vehicleMileageHistoryService.getMileageHistory(id, from, end);
+            logger.info("Get mileage history success: id={}, points={}, truncated={}",
+                    id, history.getPoints().size(), history.getTruncated());
+            return ResponseEntity.ok(history);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Get mileage history rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Cập nhật thông tin của một xe đã tồn tại.
      *
@@ -3,8 +3,10 @@ package com.swp391.warrantymanagement.controller;
 import com.swp391.warrantymanagement.dto.request.WarrantyClaimRequestDTO;
 import com.swp391.warrantymanagement.dto.request.WarrantyClaimStatusUpdateRequestDTO;
 import com.swp391.warrantymanagement.dto.response.WarrantyClaimResponseDTO;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.exception.AuthenticationRequiredException;
+import com.swp391.warrantymanagement.service.ClaimEventStreamService;
 import com.swp391.warrantymanagement.service.WarrantyClaimService;
 import com.swp391.warrantymanagement.util.SecurityUtil;
 import jakarta.validation.Valid;
@@ -13,9 +15,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +56,7 @@ public class WarrantyClaimController {
      * </ul>
      */
     private final WarrantyClaimService warrantyClaimService;
+    private final ClaimEventStreamService claimEventStreamService;
 
     /**
      * Helper method to map frontend sort fields to actual entity field paths
@@ -95,6 +100,31 @@ public class WarrantyClaimController {
         return ResponseEntity.ok(claimsPage);
     }
 
+    /**
+     * Lấy danh sách tất cả các yêu cầu bảo hành theo cursor (keyset pagination) - dành cho danh sách lớn / infinite scroll.
+     * Không trả về tổng số phần tử (không chạy COUNT); dùng {@code nextCursor} của trang trước làm tham số {@code after}.
+     * Chỉ hỗ trợ sắp xếp theo thuộc tính trực tiếp của claim (không hỗ trợ vehicleVin, partName).
+     *
+     * @param after   Cursor của trang trước (bỏ trống để lấy trang đầu).
+     * @param size    Số lượng phần tử trên mỗi trang (mặc định là 10).
+     * @param sortBy  Trường để sắp xếp (mặc định: warrantyClaimId).
+     * @param sortDir Hướng sắp xếp: ASC hoặc DESC (mặc định: DESC).
+     * @return {@link ResponseEntity} chứa một {@link CursorResponse} các yêu cầu bảo hành.
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SC_STAFF') or hasRole('EVM_STAFF') or hasRole('SC_TECHNICIAN')")
+    public ResponseEntity<CursorResponse<WarrantyClaimResponseDTO>> getAllClaimsCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "warrantyClaimId") String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDir) {
+        logger.info("Get all warranty claims (cursor) request: size={}, sortBy={}, sortDir={}", size, sortBy, sortDir);
+        CursorResponse<WarrantyClaimResponseDTO> claims = warrantyClaimService.getAllClaimsCursor(
+                mapSortField(sortBy), Sort.Direction.fromString(sortDir), after, size);
+        logger.info("Get all warranty claims (cursor) success, returned={}, hasNext={}", claims.getContent().size(), claims.isHasNext());
+        return ResponseEntity.ok(claims);
+    }
+
     /**
      * Lấy thông tin chi tiết của một yêu cầu bảo hành dựa trên ID.
      *
@@ -356,6 +386,46 @@ public class WarrantyClaimController {
         return ResponseEntity.ok(claimsPage);
     }
 
+    /**
+     * Kỹ thuật viên nhận claim kế tiếp trong hàng đợi của trung tâm mình (claim chờ xử lý chưa gán, cũ nhất trước).
+     * Thay cho việc tải {@code /tech-pending} rồi tranh nhau gán cùng một claim: mỗi lần gọi trả về một claim khác nhau.
+     *
+     * @return {@link ResponseEntity} chứa claim vừa được gán, hoặc 204 No Content nếu hàng đợi trống.
+     */
+    @PostMapping("/tech-pending/assign-next-to-me")
+    @PreAuthorize("hasRole('SC_TECHNICIAN')")
+    public ResponseEntity<WarrantyClaimResponseDTO> assignNextClaimToMe() {
+        String username = SecurityUtil.getCurrentUsername()
+                .orElseThrow(() -> new AuthenticationRequiredException("Authentication is required to assign a claim"));
+        logger.info("Assign next pending claim: user={}", username);
+        return warrantyClaimService.assignNextClaimToMe(username)
+                .map(claim -> {
+                    logger.info("Next claim assigned: claimId={}, assignedTo={}", claim.getWarrantyClaimId(), username);
+                    return ResponseEntity.ok(claim);
+                })
+                .orElseGet(() -> {
+                    logger.info("No pending claim to assign for user={}", username);
+                    return ResponseEntity.noContent().build();
+                });
+    }
+
+    /**
+     * Mở stream Server-Sent Events các sự kiện vòng đời claim (CREATED, ACCEPTED, ASSIGNED, STARTED, COMPLETED, REJECTED,
+     * STATUS_CHANGED), đã lọc theo role và service center của user.
+     * Frontend dùng stream này thay cho việc poll {@code /tech-pending}, {@code /admin-pending} và {@code /my-assigned-claims}:
+     * mỗi sự kiện chỉ chứa ID và trạng thái mới, client tải lại claim tương ứng khi cần.
+     *
+     * @return {@link SseEmitter} giữ kết nối mở.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'EVM_STAFF', 'SC_STAFF', 'SC_TECHNICIAN')")
+    public SseEmitter streamClaimEvents() {
+        String username = SecurityUtil.getCurrentUsername()
+                .orElseThrow(() -> new AuthenticationRequiredException("Authentication is required to subscribe to claim events"));
+        logger.info("Subscribe to claim events: user={}", username);
+        return claimEventStreamService.subscribe(username);
+    }
+
     /**
      * Cho phép Admin tự gán một yêu cầu bảo hành cho chính mình để xử lý.
      *
@@ -0,0 +1,69 @@
+package com.swp391.warrantymanagement.controller;
+
+import com.swp391.warrantymanagement.dto.response.WarrantyExpiryProjectionRunResponseDTO;
+import com.swp391.warrantymanagement.dto.response.WarrantyExpirySummaryResponseDTO;
+import com.swp391.warrantymanagement.enums.WarrantyExpiryScope;
+import com.swp391.warrantymanagement.service.WarrantyExpiryProjectionService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for precomputed warranty expiry statistics.
+ * <p>
+ * <strong>Purpose:</strong>
+ * <ul>
+ *   <li>GET /api/warranty-expiry/summary - Vehicles / active installed parts expiring within 30/60/90 days
+ *   for the whole system, a service center, a customer or a part (one primary-key read per bucket)</li>
+ *   <li>POST /api/warranty-expiry/projection/refresh - Rebuild the projection now (normally rebuilt nightly)</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/api/warranty-expiry")
+@RequiredArgsConstructor
+public class WarrantyExpiryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarrantyExpiryController.class);
+
+    private final WarrantyExpiryProjectionService warrantyExpiryProjectionService;
+
+    /**
+     * Get expiring warranty counts for a scope.
+     *
+     * @param scope ALL, SERVICE_CENTER, CUSTOMER or PART
+     * @param key   service center ID, customer ID (UUID) or part ID; ignored for ALL
+     * @return counts per window (days → count) as of the last projection build
+     */
+    @GetMapping("/summary")
+    @PreAuthorize("hasAnyRole('ADMIN', 'EVM_STAFF', 'SC_STAFF')")
+    public ResponseEntity<WarrantyExpirySummaryResponseDTO> getSummary(
+            @RequestParam(defaultValue = "ALL") WarrantyExpiryScope scope,
+            @RequestParam(required = false) String key) {
+        logger.info("Get warranty expiry summary: scope={}, key={}", scope, key);
+        return ResponseEntity.ok(warrantyExpiryProjectionService.getSummary(scope, key));
+    }
+
+    /**
+     * Rebuild the warranty expiry projection synchronously.
+     *
+     * @return build result, or 409 if a build is already running
+     */
+    @PostMapping("/projection/refresh")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<WarrantyExpiryProjectionRunResponseDTO> refreshProjection() {
+        logger.info("Manual warranty expiry projection refresh requested");
+        WarrantyExpiryProjectionRunResponseDTO result = warrantyExpiryProjectionService.refresh();
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,17 +1,23 @@
 package com.swp391.warrantymanagement.controller;
 
+import com.swp391.warrantymanagement.dto.request.BulkInstalledPartValidationRequestDTO;
+import com.swp391.warrantymanagement.dto.request.BulkVinValidationRequestDTO;
+import com.swp391.warrantymanagement.dto.response.BulkWarrantyValidationResponseDTO;
 import com.swp391.warrantymanagement.dto.response.WarrantyValidationResponseDTO;
 import com.swp391.warrantymanagement.service.WarrantyValidationService;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 /**
  * Controller xử lý các API liên quan đến kiểm tra và xác thực bảo hành.
@@ -22,6 +28,9 @@ import java.math.BigDecimal;
  *     <li>Kiểm tra tính hợp lệ của bảo hành linh kiện</li>
  *     <li>Tính toán phí bảo hành cho trường hợp quá hạn</li>
  *     <li>Cung cấp thông tin chi tiết về trạng thái bảo hành</li>
+ *     <li>Kết quả các API đơn lẻ được cache, key gồm ngày hiện tại và mọi giá trị quyết định kết quả (ngày bảo hành,
+ *     số km, cấu hình bảo hành của linh kiện...); {@code ?bypassCache=true} để tính lại</li>
+ *     <li>Kiểm tra bảo hành hàng loạt (tối đa 1000 VIN / linh kiện mỗi request) cho đại lý và đội xe</li>
  * </ul>
  * <p>
  * <strong>Quyền truy cập:</strong>
@@ -47,15 +56,17 @@ public class WarrantyValidationController {
      * trước khi tạo warranty claim.
      *
      * @param vehicleId ID của xe cần kiểm tra
+     * @param bypassCache {@code true} = bỏ qua cache kết quả (ví dụ ngay sau khi sửa dữ liệu ngoài hệ thống)
      * @return WarrantyValidationResponseDTO chứa thông tin chi tiết về bảo hành
      */
     @GetMapping("/vehicle/{vehicleId}")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('SC_STAFF') or hasRole('ADMIN')")
     public ResponseEntity<WarrantyValidationResponseDTO> validateVehicleWarranty(
-            @PathVariable @NotNull @Positive Long vehicleId) {
-        logger.info("Validate vehicle warranty request: vehicleId={}", vehicleId);
+            @PathVariable @NotNull @Positive Long vehicleId,
+            @RequestParam(defaultValue = "false") boolean bypassCache) {
+        logger.info("Validate vehicle warranty request: vehicleId={}, bypassCache={}", vehicleId, bypassCache);
 
-        WarrantyValidationResponseDTO response = warrantyValidationService.validateVehicleWarranty(vehicleId);
+        WarrantyValidationResponseDTO response = warrantyValidationService.validateVehicleWarranty(vehicleId, bypassCache);
 
         logger.info("Validate vehicle warranty success: vehicleId={}, status={}",
                 vehicleId, response.getWarrantyStatus());
@@ -63,21 +74,50 @@ public class WarrantyValidationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Kiểm tra bảo hành của xe tại một ngày trong quá khứ.
+     * <p>
+     * <strong>Use case:</strong> Claim được báo muộn - SC Staff cần biết xe còn dưới giới hạn km vào ngày hỏng hóc
+     * hay không, dù hôm nay xe đã chạy vượt giới hạn. Km được lấy từ lịch sử công-tơ-mét.
+     *
+     * @param vehicleId ID của xe cần kiểm tra
+     * @param date      ngày cần đánh giá (yyyy-MM-dd, không được ở tương lai)
+     * @return WarrantyValidationResponseDTO tại ngày đó, 400 nếu ngày ở tương lai
+     */
+    @GetMapping("/vehicle/{vehicleId}/as-of")
+    @PreAuthorize("hasRole('SC_STAFF') or hasRole('EVM_STAFF') or hasRole('ADMIN')")
+    public ResponseEntity<WarrantyValidationResponseDTO> validateVehicleWarrantyAsOf(
+            @PathVariable @NotNull @Positive Long vehicleId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        logger.info("Validate vehicle warranty as of date request: vehicleId={}, date={}", vehicleId, date);
+        try {
+            WarrantyValidationResponseDTO response = warrantyValidationService.validateVehicleWarrantyAsOf(vehicleId, date);
+            logger.info("Validate vehicle warranty as of date success: vehicleId={}, status={}, mileage={}",
+                    vehicleId, response.getWarrantyStatus(), response.getCurrentMileage());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Validate vehicle warranty as of date rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Kiểm tra tính hợp lệ của bảo hành cho một xe theo VIN.
      * <p>
      * <strong>Use case:</strong> Tra cứu nhanh bằng VIN thay vì phải biết vehicleId.
      *
      * @param vin VIN của xe (Vehicle Identification Number)
+     * @param bypassCache {@code true} = bỏ qua cache kết quả (ví dụ ngay sau khi sửa dữ liệu ngoài hệ thống)
      * @return WarrantyValidationResponseDTO chứa thông tin bảo hành
      */
     @GetMapping("/vehicle/vin/{vin}")
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('SC_STAFF') or hasRole('ADMIN')")
     public ResponseEntity<WarrantyValidationResponseDTO> validateVehicleWarrantyByVin(
-            @PathVariable @NotNull String vin) {
-        logger.info("Validate vehicle warranty by VIN request: vin={}", vin);
+            @PathVariable @NotNull String vin,
+            @RequestParam(defaultValue = "false") boolean bypassCache) {
+        logger.info("Validate vehicle warranty by VIN request: vin={}, bypassCache={}", vin, bypassCache);
 
-        WarrantyValidationResponseDTO response = warrantyValidationService.validateVehicleWarrantyByVin(vin);
+        WarrantyValidationResponseDTO response = warrantyValidationService.validateVehicleWarrantyByVin(vin, bypassCache);
 
         logger.info("Validate vehicle warranty by VIN success: vin={}, status={}",
                 vin, response.getWarrantyStatus());
@@ -85,6 +125,56 @@ public class WarrantyValidationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Kiểm tra bảo hành hàng loạt theo VIN.
+     * <p>
+     * <strong>Use case:</strong> Đại lý hoặc khách hàng đội xe tra cứu hàng trăm xe trong một lần gọi thay vì
+     * gọi {@code /vehicle/vin/{vin}} cho từng xe.
+     * <p>
+     * Trả về 200 kể cả khi một số VIN không tìm thấy: mỗi dòng trong {@code results} (đúng thứ tự đầu vào) có
+     * {@code success} và {@code error} riêng.
+     *
+     * @param request danh sách VIN (tối đa {@value BulkVinValidationRequestDTO#MAX_ITEMS})
+     * @return BulkWarrantyValidationResponseDTO với kết quả từng VIN
+     */
+    @PostMapping("/vehicles/vin/bulk")
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('SC_STAFF') or hasRole('ADMIN')")
+    public ResponseEntity<BulkWarrantyValidationResponseDTO> validateVehicleWarrantiesByVin(
+            @Valid @RequestBody BulkVinValidationRequestDTO request) {
+        logger.info("Bulk validate vehicle warranty request: {} VINs", request.getVins().size());
+
+        BulkWarrantyValidationResponseDTO response = warrantyValidationService.validateVehicleWarrantiesByVin(request.getVins());
+
+        logger.info("Bulk validate vehicle warranty success: requested={}, failed={}",
+                response.getRequested(), response.getFailed());
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Kiểm tra bảo hành hàng loạt theo linh kiện đã lắp đặt.
+     * <p>
+     * Trả về 200 kể cả khi một số linh kiện không tìm thấy: mỗi dòng trong {@code results} (đúng thứ tự đầu vào) có
+     * {@code success} và {@code error} riêng.
+     *
+     * @param request danh sách ID linh kiện (tối đa {@value BulkInstalledPartValidationRequestDTO#MAX_ITEMS})
+     * @return BulkWarrantyValidationResponseDTO với kết quả từng linh kiện
+     */
+    @PostMapping("/installed-parts/bulk")
+    @PreAuthorize("hasRole('SC_STAFF') or hasRole('SC_TECHNICIAN') or hasRole('ADMIN')")
+    public ResponseEntity<BulkWarrantyValidationResponseDTO> validateInstalledPartWarranties(
+            @Valid @RequestBody BulkInstalledPartValidationRequestDTO request) {
+        logger.info("Bulk validate installed part warranty request: {} installed parts", request.getInstalledPartIds().size());
+
+        BulkWarrantyValidationResponseDTO response = warrantyValidationService.validateInstalledPartWarranties(
+                request.getInstalledPartIds());
+
+        logger.info("Bulk validate installed part warranty success: requested={}, failed={}",
+                response.getRequested(), response.getFailed());
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Kiểm tra tính hợp lệ của bảo hành cho một linh kiện cụ thể.
      * <p>
@@ -92,15 +182,17 @@ public class WarrantyValidationController {
      * (ví dụ: battery, motor) trước khi tạo claim.
      *
      * @param installedPartId ID của linh kiện đã lắp đặt
+     * @param bypassCache {@code true} = bỏ qua cache kết quả (ví dụ ngay sau khi sửa dữ liệu ngoài hệ thống)
      * @return WarrantyValidationResponseDTO chứa thông tin bảo hành linh kiện
      */
     @GetMapping("/installed-part/{installedPartId}")
     @PreAuthorize("hasRole('SC_STAFF') or hasRole('SC_TECHNICIAN') or hasRole('ADMIN')")
     public ResponseEntity<WarrantyValidationResponseDTO> validateInstalledPartWarranty(
-            @PathVariable @NotNull @Positive Long installedPartId) {
-        logger.info("Validate installed part warranty request: installedPartId={}", installedPartId);
+            @PathVariable @NotNull @Positive Long installedPartId,
+            @RequestParam(defaultValue = "false") boolean bypassCache) {
+        logger.info("Validate installed part warranty request: installedPartId={}, bypassCache={}", installedPartId, bypassCache);
 
-        WarrantyValidationResponseDTO response = warrantyValidationService.validateInstalledPartWarranty(installedPartId);
+        WarrantyValidationResponseDTO response = warrantyValidationService.validateInstalledPartWarranty(installedPartId, bypassCache);
 
         logger.info("Validate installed part warranty success: installedPartId={}, status={}",
                 installedPartId, response.getWarrantyStatus());
@@ -120,18 +212,20 @@ public class WarrantyValidationController {
      *
      * @param vehicleId ID của xe
      * @param estimatedRepairCost Chi phí sửa chữa ước tính (VNĐ)
+     * @param bypassCache {@code true} = bỏ qua cache kết quả (ví dụ ngay sau khi sửa dữ liệu ngoài hệ thống)
      * @return WarrantyValidationResponseDTO với thông tin phí bảo hành
      */
     @GetMapping("/vehicle/{vehicleId}/calculate-fee")
     @PreAuthorize("hasRole('SC_STAFF') or hasRole('ADMIN')")
     public ResponseEntity<WarrantyValidationResponseDTO> calculatePaidWarrantyFee(
             @PathVariable @NotNull @Positive Long vehicleId,
-            @RequestParam @NotNull @Positive BigDecimal estimatedRepairCost) {
+            @RequestParam @NotNull @Positive BigDecimal estimatedRepairCost,
+            @RequestParam(defaultValue = "false") boolean bypassCache) {
         logger.info("Calculate paid warranty fee request: vehicleId={}, estimatedRepairCost={}",
                 vehicleId, estimatedRepairCost);
 
         WarrantyValidationResponseDTO response = warrantyValidationService.calculatePaidWarrantyFee(
-                vehicleId, estimatedRepairCost);
+                vehicleId, estimatedRepairCost, bypassCache);
 
         logger.info("Calculate paid warranty fee success: vehicleId={}, fee={}",
                 vehicleId, response.getEstimatedWarrantyFee());
@@ -144,18 +238,20 @@ public class WarrantyValidationController {
      *
      * @param installedPartId ID của linh kiện
      * @param estimatedRepairCost Chi phí sửa chữa ước tính (VNĐ)
+     * @param bypassCache {@code true} = bỏ qua cache kết quả (ví dụ ngay sau khi sửa dữ liệu ngoài hệ thống)
      * @return WarrantyValidationResponseDTO với thông tin phí bảo hành linh kiện
      */
     @GetMapping("/installed-part/{installedPartId}/calculate-fee")
     @PreAuthorize("hasRole('SC_STAFF') or hasRole('ADMIN')")
     public ResponseEntity<WarrantyValidationResponseDTO> calculatePaidWarrantyFeeForPart(
             @PathVariable @NotNull @Positive Long installedPartId,
-            @RequestParam @NotNull @Positive BigDecimal estimatedRepairCost) {
+            @RequestParam @NotNull @Positive BigDecimal estimatedRepairCost,
+            @RequestParam(defaultValue = "false") boolean bypassCache) {
         logger.info("Calculate paid warranty fee for part request: installedPartId={}, estimatedRepairCost={}",
                 installedPartId, estimatedRepairCost);
 
         WarrantyValidationResponseDTO response = warrantyValidationService.calculatePaidWarrantyFeeForPart(
-                installedPartId, estimatedRepairCost);
+                installedPartId, estimatedRepairCost, bypassCache);
 
         logger.info("Calculate paid warranty fee for part success: installedPartId={}, fee={}",
                 installedPartId, response.getEstimatedWarrantyFee());
@@ -5,10 +5,12 @@ import com.swp391.warrantymanagement.dto.response.WorkLogResponseDTO;
 import com.swp391.warrantymanagement.dto.response.DailyClaimStatsResponseDTO;
 import com.swp391.warrantymanagement.exception.AuthenticationRequiredException;
 import com.swp391.warrantymanagement.util.SecurityUtil;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.service.WorkLogService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -69,6 +71,30 @@ public class WorkLogController {
         return ResponseEntity.ok(workLogsPage);
     }
 
+    /**
+     * Lấy danh sách tất cả các nhật ký công việc theo cursor (keyset pagination), không chạy COUNT.
+     * Dùng {@code nextCursor} của trang trước làm tham số {@code after} để lấy trang tiếp theo.
+     *
+     * @param after   Cursor của trang trước (bỏ trống để lấy trang đầu).
+     * @param size    Số lượng phần tử trên mỗi trang (mặc định là 10).
+     * @param sortBy  Trường để sắp xếp (mặc định: startTime).
+     * @param sortDir Hướng sắp xếp: ASC hoặc DESC (mặc định: DESC).
+     * @return {@link ResponseEntity} chứa một {@link CursorResponse} các nhật ký công việc.
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('EVM_STAFF')")
+    public ResponseEntity<CursorResponse<WorkLogResponseDTO>> getAllWorkLogsCursor(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "startTime") String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDir) {
+        logger.info("Get all work logs (cursor) request: size={}, sortBy={}, sortDir={}", size, sortBy, sortDir);
+        CursorResponse<WorkLogResponseDTO> workLogs = workLogService.getAllWorkLogsCursor(
+                sortBy, Sort.Direction.fromString(sortDir), after, size);
+        logger.info("Get all work logs (cursor) success, returned={}, hasNext={}", workLogs.getContent().size(), workLogs.isHasNext());
+        return ResponseEntity.ok(workLogs);
+    }
+
     /**
      * Lấy thông tin chi tiết của một nhật ký công việc dựa trên ID.
      *
@@ -0,0 +1,19 @@
+package com.swp391.warrantymanagement.dto.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Projection read-only cho danh sách customer (các cột của {@code CustomerResponseDTO}, email/address lấy từ User).
+ */
+public record CustomerListView(
+        UUID customerId,
+        String name,
+        String phone,
+        Long userId,
+        String username,
+        String email,
+        String address,
+        LocalDateTime createdAt
+) {
+}
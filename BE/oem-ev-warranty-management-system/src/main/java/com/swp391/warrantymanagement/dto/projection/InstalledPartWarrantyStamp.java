@@ -0,0 +1,48 @@
+package com.swp391.warrantymanagement.dto.projection;
+
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.Vehicle;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Projection read-only mọi giá trị quyết định kết quả kiểm tra bảo hành của một installed part (InstalledPart + Part +
+ * Vehicle). Dùng làm key cache trong {@code WarrantyValidationCache}: dữ liệu đổi thì key đổi, không cần invalidate.
+ */
+public record InstalledPartWarrantyStamp(
+        Long installedPartId,
+        LocalDate installationDate,
+        LocalDate warrantyExpirationDate,
+        Integer warrantyMileageLimit,
+        Integer mileageAtInstallation,
+        Long partId,
+        String partName,
+        Boolean hasExtendedWarranty,
+        Integer defaultWarrantyMileage,
+        Integer gracePeriodDays,
+        BigDecimal paidWarrantyFeePercentageMin,
+        BigDecimal paidWarrantyFeePercentageMax,
+        Long vehicleId,
+        String vehicleVin,
+        String vehicleName,
+        LocalDate vehicleWarrantyEndDate,
+        Integer vehicleMileage
+) {
+
+    /**
+     * Stamp của entity đã load (cùng giá trị với query projection).
+     */
+    public static InstalledPartWarrantyStamp of(InstalledPart installedPart) {
+        Part part = installedPart.getPart();
+        Vehicle vehicle = installedPart.getVehicle();
+        return new InstalledPartWarrantyStamp(installedPart.getInstalledPartId(), installedPart.getInstallationDate(),
+                installedPart.getWarrantyExpirationDate(), installedPart.getWarrantyMileageLimit(),
+                installedPart.getMileageAtInstallation(),
+                part.getPartId(), part.getPartName(), part.getHasExtendedWarranty(), part.getDefaultWarrantyMileage(),
+                part.getGracePeriodDays(), part.getPaidWarrantyFeePercentageMin(), part.getPaidWarrantyFeePercentageMax(),
+                vehicle.getVehicleId(), vehicle.getVehicleVin(), vehicle.getVehicleName(), vehicle.getWarrantyEndDate(),
+                vehicle.getMileage());
+    }
+}
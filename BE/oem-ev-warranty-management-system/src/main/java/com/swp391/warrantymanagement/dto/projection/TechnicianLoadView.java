@@ -0,0 +1,12 @@
+package com.swp391.warrantymanagement.dto.projection;
+
+/**
+ * Projection read-only tải việc của một technician: số claim đang mở được gán cho họ và số claim đã bắt đầu xử lý hôm nay
+ * (dùng để dựng heap của {@code TechnicianAssignmentEngine} bằng một query cho cả service center).
+ */
+public record TechnicianLoadView(
+        Long userId,
+        Long openClaims,
+        Long startedToday
+) {
+}
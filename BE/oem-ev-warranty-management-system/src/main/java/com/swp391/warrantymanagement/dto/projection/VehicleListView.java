@@ -0,0 +1,22 @@
+package com.swp391.warrantymanagement.dto.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Projection read-only cho danh sách xe (các cột của {@code VehicleResponseDTO}).
+ */
+public record VehicleListView(
+        Long vehicleId,
+        String vehicleName,
+        String vehicleModel,
+        Integer vehicleYear,
+        String vehicleVin,
+        LocalDate purchaseDate,
+        LocalDate warrantyStartDate,
+        LocalDate warrantyEndDate,
+        Integer mileage,
+        UUID customerId,
+        String customerName
+) {
+}
@@ -0,0 +1,42 @@
+package com.swp391.warrantymanagement.dto.projection;
+
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Projection read-only cho danh sách claim: đúng các cột mà {@code WarrantyClaimResponseDTO} cần,
+ * được JPQL dựng trực tiếp qua constructor expression (không có entity managed, proxy hay snapshot dirty-checking).
+ */
+public record WarrantyClaimListView(
+        Long warrantyClaimId,
+        LocalDateTime claimDate,
+        WarrantyClaimStatus status,
+        String description,
+        LocalDateTime resolutionDate,
+        Long installedPartId,
+        Long partId,
+        String partName,
+        String partNumber,
+        String manufacturer,
+        Long vehicleId,
+        String vehicleName,
+        String vehicleModel,
+        Integer vehicleYear,
+        String vehicleVin,
+        UUID customerId,
+        String customerName,
+        String customerPhone,
+        String customerEmail,
+        Long assignedToUserId,
+        String assignedToUsername,
+        String assignedToEmail,
+        Long serviceCenterId,
+        String serviceCenterName,
+        Boolean isPaidWarranty,
+        BigDecimal warrantyFee,
+        String paidWarrantyNote
+) {
+}
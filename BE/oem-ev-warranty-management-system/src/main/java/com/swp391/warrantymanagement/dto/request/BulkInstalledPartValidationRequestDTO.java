@@ -0,0 +1,25 @@
+package com.swp391.warrantymanagement.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO cho API kiểm tra bảo hành hàng loạt theo linh kiện đã lắp đặt.
+ * <p>
+ * Kết quả trả về theo đúng thứ tự {@code installedPartIds}; ID null hoặc không tồn tại được báo lỗi riêng cho từng dòng.
+ */
+@Data
+public class BulkInstalledPartValidationRequestDTO {
+
+    /**
+     * Số linh kiện tối đa mỗi request.
+     */
+    public static final int MAX_ITEMS = 1000;
+
+    @NotEmpty(message = "Installed part ID list is required")
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " installed part IDs per request")
+    private List<Long> installedPartIds;
+}
@@ -0,0 +1,26 @@
+package com.swp391.warrantymanagement.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO cho API kiểm tra bảo hành hàng loạt theo VIN (đại lý / khách hàng đội xe).
+ * <p>
+ * Kết quả trả về theo đúng thứ tự {@code vins}; VIN rỗng hoặc không tồn tại được báo lỗi riêng cho từng dòng
+ * thay vì làm hỏng cả request.
+ */
+@Data
+public class BulkVinValidationRequestDTO {
+
+    /**
+     * Số VIN tối đa mỗi request.
+     */
+    public static final int MAX_ITEMS = 1000;
+
+    @NotEmpty(message = "VIN list is required")
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " VINs per request")
+    private List<String> vins;
+}
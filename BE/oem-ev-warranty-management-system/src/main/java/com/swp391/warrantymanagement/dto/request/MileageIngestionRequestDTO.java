@@ -0,0 +1,25 @@
+package com.swp391.warrantymanagement.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO cho API ingest số km hàng loạt từ telematics gateway của OEM.
+ * <p>
+ * Một batch có thể chứa nhiều số đo của cùng một xe, theo thứ tự bất kỳ; chỉ số đo mới nhất của mỗi xe được ghi.
+ */
+@Data
+public class MileageIngestionRequestDTO {
+
+    /**
+     * Số đo tối đa mỗi request.
+     */
+    public static final int MAX_ITEMS = 5000;
+
+    @NotEmpty(message = "Readings are required")
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " readings per request")
+    private List<MileageReadingDTO> readings;
+}
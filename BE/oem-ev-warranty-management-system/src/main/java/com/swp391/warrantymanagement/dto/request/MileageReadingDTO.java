@@ -0,0 +1,24 @@
+package com.swp391.warrantymanagement.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một số đo công-tơ-mét của xe gửi từ telematics gateway.
+ * <p>
+ * Không dùng Bean Validation ở đây: số đo lỗi được từ chối riêng từng dòng thay vì làm hỏng cả batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MileageReadingDTO {
+
+    private String vin;
+
+    private Integer mileage; // Số km tại thời điểm đo
+
+    private LocalDateTime timestamp; // Thời điểm đo (giờ ứng dụng)
+}
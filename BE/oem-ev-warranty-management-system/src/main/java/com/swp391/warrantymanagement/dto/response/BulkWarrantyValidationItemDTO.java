@@ -0,0 +1,38 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import lombok.*;
+
+/**
+ * Kết quả kiểm tra bảo hành của một phần tử trong request hàng loạt.
+ * <p>
+ * {@code success = true} → {@code validation} có dữ liệu; ngược lại {@code error} mô tả lý do
+ * (VIN rỗng, không tìm thấy xe/linh kiện, ...).
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkWarrantyValidationItemDTO {
+
+    /**
+     * Vị trí của phần tử trong danh sách đầu vào (bắt đầu từ 0)
+     */
+    private Integer index;
+
+    /**
+     * VIN được yêu cầu (endpoint theo VIN)
+     */
+    private String vin;
+
+    /**
+     * ID linh kiện được yêu cầu (endpoint theo installed part)
+     */
+    private Long installedPartId;
+
+    private Boolean success;
+
+    private WarrantyValidationResponseDTO validation;
+
+    private String error;
+}
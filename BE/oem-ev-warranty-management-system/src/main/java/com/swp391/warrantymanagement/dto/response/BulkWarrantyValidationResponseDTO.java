@@ -0,0 +1,24 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Kết quả kiểm tra bảo hành hàng loạt: {@code results} theo đúng thứ tự đầu vào.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkWarrantyValidationResponseDTO {
+
+    private Integer requested;
+
+    private Integer succeeded;
+
+    private Integer failed;
+
+    private List<BulkWarrantyValidationItemDTO> results;
+}
@@ -0,0 +1,20 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO phân trang theo cursor (keyset) cho các endpoint danh sách lớn.
+ * Khác {@link PagedResponse}: không có totalElements/totalPages (không chạy COUNT), client đi tiếp bằng {@code nextCursor}.
+ */
+@Data @AllArgsConstructor @NoArgsConstructor
+public class CursorResponse<T> {
+
+    private List<T> content;        // Dữ liệu trang hiện tại
+    private int size;               // Items per page đã yêu cầu
+    private boolean hasNext;        // Còn trang sau? -> Disable "Load more" khi false
+    private String nextCursor;      // Token opaque truyền vào ?after= để lấy trang sau (null khi hết dữ liệu)
+}
@@ -0,0 +1,20 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một điểm trong lịch sử công-tơ-mét của xe.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MileageHistoryPointDTO {
+
+    private LocalDateTime recordedAt;
+
+    private Integer mileage;
+}
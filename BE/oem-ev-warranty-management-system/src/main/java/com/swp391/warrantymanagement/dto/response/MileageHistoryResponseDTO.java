@@ -0,0 +1,30 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Lịch sử công-tơ-mét của một xe trong khoảng [from, to].
+ * <p>
+ * Chỉ có điểm khi km thay đổi: km tại thời điểm bất kỳ là km của điểm gần nhất trước đó.
+ * {@code truncated = true} khi khoảng có nhiều điểm hơn giới hạn trả về - thu hẹp khoảng để xem tiếp.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MileageHistoryResponseDTO {
+
+    private Long vehicleId;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    private Boolean truncated;
+
+    private List<MileageHistoryPointDTO> points;
+}
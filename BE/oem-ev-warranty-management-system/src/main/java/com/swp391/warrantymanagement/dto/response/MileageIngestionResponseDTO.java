@@ -0,0 +1,31 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Kết quả ingest một batch số km.
+ * <ul>
+ *     <li>{@code accepted}: trở thành số đo mới nhất của xe (sẽ được ghi ở lần flush tới, trừ khi bị số đo sau thay thế)</li>
+ *     <li>{@code superseded}: hợp lệ nhưng cũ hơn số đo mới nhất đã biết - bỏ qua, không phải lỗi</li>
+ *     <li>{@code rejected}: bị từ chối, chi tiết trong {@code rejections}</li>
+ * </ul>
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MileageIngestionResponseDTO {
+
+    private Integer received;
+
+    private Integer accepted;
+
+    private Integer superseded;
+
+    private Integer rejected;
+
+    private List<MileageReadingRejectionDTO> rejections;
+}
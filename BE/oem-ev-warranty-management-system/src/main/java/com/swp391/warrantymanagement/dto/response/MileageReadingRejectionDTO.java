@@ -0,0 +1,24 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import com.swp391.warrantymanagement.enums.MileageReadingRejectionReason;
+import lombok.*;
+
+/**
+ * Một số đo km bị từ chối trong request ingest.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MileageReadingRejectionDTO {
+
+    /**
+     * Vị trí của số đo trong danh sách đầu vào (bắt đầu từ 0)
+     */
+    private Integer index;
+
+    private String vin;
+
+    private MileageReadingRejectionReason reason;
+}
@@ -0,0 +1,34 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import com.swp391.warrantymanagement.enums.RecallFanoutJobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO trả về tiến độ của job tạo RecallResponse cho một chiến dịch triệu hồi.
+ * <p>
+ * {@code rowsPerSecond} tính trên lần chạy hiện tại (sau restart được tính lại từ checkpoint),
+ * {@code etaSeconds} = số dòng còn lại / rowsPerSecond (null khi chưa đo được tốc độ).
+ */
+@Data
+public class RecallFanoutJobResponseDTO {
+    private Long jobId;
+    private Long recallRequestId;
+    private RecallFanoutJobStatus status;
+
+    // ===== PROGRESS =====
+    private long affectedVehicles;
+    private long totalRows;
+    private long processedRows;
+    private double percentComplete;
+    private double rowsPerSecond;
+    private Long etaSeconds;
+
+    // ===== TIMING =====
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+    private String errorMessage;
+    private int retryCount;
+}
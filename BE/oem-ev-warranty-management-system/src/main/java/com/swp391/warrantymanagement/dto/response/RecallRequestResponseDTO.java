@@ -32,6 +32,9 @@ public class RecallRequestResponseDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Job nền tạo RecallResponse (chỉ có trong response của API duyệt) - xem GET /api/recalls/jobs/{id}
+    private Long fanoutJobId;
+
     // ===== DEPRECATED FIELDS (sẽ xóa trong tương lai) =====
     @Deprecated
     private Long installedPartId; // Không còn dùng
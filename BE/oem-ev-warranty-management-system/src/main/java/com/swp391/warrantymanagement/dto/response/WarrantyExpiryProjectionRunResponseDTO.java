@@ -0,0 +1,20 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO trả về kết quả một lần dựng projection hết hạn bảo hành.
+ */
+@Data
+public class WarrantyExpiryProjectionRunResponseDTO {
+    private LocalDate asOfDate;
+    private LocalDateTime refreshedAt;
+    private long vehicleRows;
+    private long installedPartRows;
+    private long bucketRows;
+    private long removedRows;
+    private long durationMs;
+}
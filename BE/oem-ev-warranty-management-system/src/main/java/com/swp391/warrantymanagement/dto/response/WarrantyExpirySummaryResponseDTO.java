@@ -0,0 +1,24 @@
+package com.swp391.warrantymanagement.dto.response;
+
+import com.swp391.warrantymanagement.enums.WarrantyExpiryScope;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * DTO trả về số bảo hành sắp hết hạn của một phạm vi, đọc từ bảng bucket tính sẵn.
+ * <p>
+ * Key của map là số ngày của cửa sổ (VD: 30, 60, 90); value là số xe / linh kiện đang hoạt động hết hạn
+ * trong khoảng [asOfDate, asOfDate + N ngày]. {@code asOfDate}/{@code refreshedAt} null nếu projection chưa chạy.
+ */
+@Data
+public class WarrantyExpirySummaryResponseDTO {
+    private WarrantyExpiryScope scope;
+    private String scopeKey;
+    private LocalDate asOfDate;
+    private LocalDateTime refreshedAt;
+    private Map<Integer, Long> vehiclesExpiring;
+    private Map<Integer, Long> installedPartsExpiring;
+}
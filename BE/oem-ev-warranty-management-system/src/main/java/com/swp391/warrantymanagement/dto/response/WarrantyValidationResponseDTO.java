@@ -5,6 +5,7 @@ import lombok.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * DTO trả về kết quả kiểm tra tính hợp lệ của bảo hành.
@@ -71,6 +72,17 @@ public class WarrantyValidationResponseDTO {
      */
     private Integer currentMileage;
 
+    /**
+     * Ngày được dùng để đánh giá (chỉ có với kiểm tra "tại ngày" - ví dụ ngày hỏng hóc; null = hôm nay)
+     */
+    private LocalDate asOfDate;
+
+    /**
+     * Thời điểm của số đo km trong lịch sử được dùng cho {@code currentMileage} khi kiểm tra "tại ngày"
+     * (null = không có lịch sử trước ngày đó, dùng km hiện tại của xe)
+     */
+    private LocalDateTime mileageRecordedAt;
+
     /**
      * Giới hạn km bảo hành (nếu có)
      */
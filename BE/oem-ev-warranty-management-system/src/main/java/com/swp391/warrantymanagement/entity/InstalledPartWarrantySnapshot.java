@@ -0,0 +1,75 @@
+package com.swp391.warrantymanagement.entity;
+
+import com.swp391.warrantymanagement.enums.WarrantyStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * {@link WarrantyStatus} tính sẵn cho mỗi linh kiện đang hoạt động, kèm các khóa gom nhóm (xe, chủ xe,
+ * service center, part).
+ * <p>
+ * <strong>Mục đích:</strong> Tính năng nhắc hạn và báo cáo lọc theo trạng thái / ngày hết hạn bằng index trên một bảng
+ * hẹp, không phải join {@code installed_parts - vehicles - parts} và chạy lại quy tắc bảo hành cho từng dòng.
+ * <p>
+ * <strong>Tính nhất quán:</strong> Dựng lại hằng đêm (cùng lần chạy với {@link WarrantyExpiryBucket}); trạng thái đúng
+ * tại {@code asOfDate} với số km của xe lúc đó. Kiểm tra bảo hành khi tạo claim vẫn dùng dữ liệu thời gian thực.
+ * Không có khóa ngoại để việc dựng lại không khóa các bảng nguồn.
+ */
+@Entity
+@Table(name = "installed_part_warranty_status", indexes = {
+        // Nhắc hạn theo khách hàng / trung tâm: lọc theo khóa rồi theo ngày hết hạn
+        @Index(name = "idx_ip_warranty_status_customer", columnList = "customer_id, warranty_expiration_date"),
+        @Index(name = "idx_ip_warranty_status_center", columnList = "service_center_id, warranty_expiration_date"),
+        @Index(name = "idx_ip_warranty_status_status", columnList = "warranty_status, warranty_expiration_date")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class InstalledPartWarrantySnapshot {
+
+    // Cùng ID với InstalledPart (1-1, không cần khóa riêng)
+    @Id
+    @Column(name = "installed_part_id")
+    @EqualsAndHashCode.Include
+    private Long installedPartId;
+
+    @Column(name = "vehicle_id", nullable = false)
+    private Long vehicleId;
+
+    @Column(name = "customer_id", nullable = false, columnDefinition = "VarChar(36)")
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    private UUID customerId;
+
+    // Trung tâm của tài khoản chủ xe (customer.user.serviceCenter); null nếu tài khoản chưa gắn trung tâm
+    @Column(name = "service_center_id")
+    private Long serviceCenterId;
+
+    @Column(name = "part_id", nullable = false)
+    private Long partId;
+
+    @Column(name = "warranty_expiration_date", nullable = false)
+    private LocalDate warrantyExpirationDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "warranty_status", length = 30, nullable = false)
+    private WarrantyStatus warrantyStatus;
+
+    // Số ngày còn lại TỆ NHẤT (part vs xe) tại asOfDate, âm = đã quá hạn
+    @Column(name = "days_remaining", nullable = false)
+    private long daysRemaining;
+
+    @Column(name = "as_of_date", nullable = false)
+    private LocalDate asOfDate;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+}
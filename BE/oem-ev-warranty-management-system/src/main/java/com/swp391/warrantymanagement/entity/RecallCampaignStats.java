@@ -0,0 +1,89 @@
+package com.swp391.warrantymanagement.entity;
+
+import com.swp391.warrantymanagement.enums.RecallResponseStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bộ đếm RecallResponse theo status của một chiến dịch triệu hồi, được cập nhật tăng dần.
+ * <p>
+ * <strong>Mục đích:</strong> Dashboard tiến độ và việc kiểm tra "còn xe nào PENDING không" chỉ cần đọc một dòng
+ * cho mỗi campaign thay vì quét toàn bộ {@code recall_responses}.
+ * <p>
+ * <strong>Tính nhất quán:</strong> Mọi thay đổi status của RecallResponse cập nhật bảng này trong cùng transaction
+ * (dòng được khóa {@code PESSIMISTIC_WRITE}). Campaign chưa có dòng stats (dữ liệu cũ) được dựng lại
+ * từ {@code COUNT ... GROUP BY status} khi khởi động.
+ */
+@Entity
+@Table(name = "recall_campaign_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class RecallCampaignStats {
+
+    // Cùng ID với RecallRequest (quan hệ 1-1, không cần khóa riêng)
+    @Id
+    @Column(name = "recall_request_id")
+    @EqualsAndHashCode.Include
+    private Long recallRequestId;
+
+    @Column(name = "pending_count", nullable = false)
+    private long pendingCount;
+
+    @Column(name = "accepted_count", nullable = false)
+    private long acceptedCount;
+
+    @Column(name = "declined_count", nullable = false)
+    private long declinedCount;
+
+    @Column(name = "in_progress_count", nullable = false)
+    private long inProgressCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public RecallCampaignStats(Long recallRequestId) {
+        this.recallRequestId = recallRequestId;
+    }
+
+    public long getCount(RecallResponseStatus status) {
+        return switch (status) {
+            case PENDING -> pendingCount;
+            case ACCEPTED -> acceptedCount;
+            case DECLINED -> declinedCount;
+            case IN_PROGRESS -> inProgressCount;
+            case COMPLETED -> completedCount;
+        };
+    }
+
+    public void increment(RecallResponseStatus status, long delta) {
+        switch (status) {
+            case PENDING -> pendingCount += delta;
+            case ACCEPTED -> acceptedCount += delta;
+            case DECLINED -> declinedCount += delta;
+            case IN_PROGRESS -> inProgressCount += delta;
+            case COMPLETED -> completedCount += delta;
+        }
+    }
+
+    public void reset() {
+        pendingCount = 0;
+        acceptedCount = 0;
+        declinedCount = 0;
+        inProgressCount = 0;
+        completedCount = 0;
+    }
+
+    // Tổng số xe bị ảnh hưởng (= tổng số RecallResponse của campaign)
+    public long getTotalCount() {
+        return pendingCount + acceptedCount + declinedCount + inProgressCount + completedCount;
+    }
+}
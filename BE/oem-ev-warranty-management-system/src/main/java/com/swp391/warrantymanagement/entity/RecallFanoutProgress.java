@@ -0,0 +1,81 @@
+package com.swp391.warrantymanagement.entity;
+
+import com.swp391.warrantymanagement.enums.RecallFanoutJobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bản ghi tiến độ của một lần fan-out chiến dịch triệu hồi (tạo RecallResponse cho các xe bị ảnh hưởng).
+ * Đồng thời là job nền: {@code progressId} là job ID trả về khi Admin duyệt chiến dịch.
+ * <p>
+ * Fan-out chạy theo từng chunk, mỗi chunk commit riêng; sau mỗi chunk bản ghi này được cập nhật
+ * trong cùng transaction nên luôn phản ánh đúng những gì đã được commit.
+ * <p>
+ * {@code lastVehicleId} là checkpoint keyset: chunk tiếp theo chỉ xét các xe có {@code vehicle_id} lớn hơn.
+ */
+@Entity
+@Table(name = "recall_fanout_progress")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(exclude = "recallRequest")
+public class RecallFanoutProgress {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "progress_id")
+    @EqualsAndHashCode.Include
+    private Long progressId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recall_request_id", nullable = false)
+    private RecallRequest recallRequest;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private RecallFanoutJobStatus status;
+
+    // Số xe (distinct) đang lắp linh kiện bị triệu hồi
+    @Column(name = "affected_vehicles", nullable = false)
+    private long affectedVehicles;
+
+    // Tổng số RecallResponse job cần tạo (= đã tạo + số xe còn thiếu response, tính lại mỗi lần worker bắt đầu)
+    @Column(name = "total_rows", nullable = false)
+    private long totalRows;
+
+    // Số RecallResponse đã tạo và commit
+    @Column(name = "processed_rows", nullable = false)
+    private long processedRows;
+
+    // Checkpoint keyset: vehicle_id lớn nhất đã xử lý
+    @Column(name = "last_vehicle_id", nullable = false)
+    private long lastVehicleId;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    // Thời điểm worker bắt đầu (hoặc tiếp tục sau restart) lần chạy hiện tại, dùng để tính rows/s
+    @Column(name = "run_started_at")
+    private LocalDateTime runStartedAt;
+
+    // processedRows tại thời điểm runStartedAt
+    @Column(name = "rows_at_run_start", nullable = false)
+    private long rowsAtRunStart;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    // Số lần job FAILED được chạy lại (tự động hoặc do Admin)
+    @Column(name = "retry_count", nullable = false)
+    private int retryCount;
+}
@@ -27,7 +27,10 @@ import java.time.LocalDateTime;
  * </pre>
  */
 @Entity
-@Table(name = "recall_responses")
+@Table(name = "recall_responses", uniqueConstraints = {
+        // Mỗi xe chỉ có một response trong một chiến dịch; index này cũng phục vụ anti-join khi fan-out
+        @UniqueConstraint(name = "uk_recall_response_request_vehicle", columnNames = {"recall_request_id", "vehicle_id"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,39 @@
+package com.swp391.warrantymanagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Khóa (lease) của một job định kỳ dùng chung giữa các node: mỗi job một dòng theo {@code jobName}.
+ * <p>
+ * Node nhận job khi {@code lockedUntil} đã qua và gia hạn sau mỗi bước; node chết giữa chừng chỉ giữ job tới hết
+ * lease. Thao tác trên bảng nằm ở {@link com.swp391.warrantymanagement.repository.ScheduledJobLockRepository}.
+ */
+@Entity
+@Table(name = "scheduled_job_locks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class ScheduledJobLock {
+
+    @Id
+    @Column(name = "job_name", length = 64)
+    @EqualsAndHashCode.Include
+    private String jobName;
+
+    // Hết thời điểm này node khác được nhận job
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    // Node đang giữ (hoặc giữ lần cuối) job
+    @Column(name = "locked_by", nullable = false, length = 255)
+    private String lockedBy;
+}
@@ -70,6 +70,16 @@ public class User {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Phiên bản bảo mật của tài khoản, được nhúng vào access token (claim {@code ver}).
+     * <p>
+     * <strong>Tại sao cần:</strong> Cho phép xác thực chỉ dựa trên claims của JWT mà không cần query database
+     * mỗi request. Mỗi khi role, username, password thay đổi hoặc user logout, version được tăng lên
+     * → các token đã phát hành trước đó bị coi là "stale" và phải đi qua đường xác thực bằng database.
+     */
+    @Column(name = "token_version", nullable = false, columnDefinition = "INT DEFAULT 0")
+    private Integer tokenVersion = 0;
+
     /**
      * Quan hệ 1-1 với {@link Customer}, chỉ tồn tại khi user có role là CUSTOMER.
      * <p>
@@ -0,0 +1,50 @@
+package com.swp391.warrantymanagement.entity;
+
+import com.swp391.warrantymanagement.entity.id.VehicleMileageHistoryBlockId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một đoạn lịch sử công-tơ-mét của một xe, dạng block nén (append-only).
+ * <p>
+ * <strong>Tại sao không một dòng mỗi điểm:</strong> telematics gửi số km liên tục; một dòng (khóa, index, overhead
+ * của InnoDB) cho mỗi km sẽ lớn hơn dữ liệu thật hàng chục lần. Ở đây mỗi điểm được mã hóa delta + varint
+ * ({@link com.swp391.warrantymanagement.util.MileageSeriesCodec}, khoảng 3 byte / điểm) vào {@code data}.
+ * <p>
+ * <strong>Kích thước block:</strong> nối một điểm phải ghi lại cả {@code data}, nên block chỉ chứa tối đa
+ * {@code vehicle.mileage-history.max-block-points} điểm; block đầy thì điểm tiếp theo mở block mới. Số byte ghi cho
+ * mỗi điểm vì vậy bị chặn (vài KB), không tăng theo độ dài lịch sử.
+ * <p>
+ * <strong>Cột tóm tắt:</strong> {@code lastRecordedAt}, {@code lastMileage} cho phép nối điểm mới và trả lời
+ * "km tại thời điểm T" với T sau điểm cuối mà không phải giải mã block. Chỉ ghi điểm khi km thay đổi.
+ * Không có khóa ngoại (giống các bảng projection); mọi luồng ghi khóa dòng {@code vehicles} trước khi ghi block.
+ */
+@Entity
+@Table(name = "vehicle_mileage_history_blocks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(exclude = "data")
+public class VehicleMileageHistoryBlock {
+
+    @EmbeddedId
+    @EqualsAndHashCode.Include
+    private VehicleMileageHistoryBlockId id;
+
+    @Column(name = "point_count", nullable = false)
+    private int pointCount;
+
+    @Column(name = "last_recorded_at", nullable = false)
+    private LocalDateTime lastRecordedAt;
+
+    @Column(name = "last_mileage", nullable = false)
+    private int lastMileage;
+
+    // Điểm mã hóa delta + varint, theo thứ tự thời gian (BLOB trên MySQL; tối đa max-block-points điểm)
+    @Column(name = "data", nullable = false, length = 65_535)
+    private byte[] data;
+}
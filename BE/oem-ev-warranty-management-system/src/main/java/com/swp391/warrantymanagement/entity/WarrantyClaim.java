@@ -30,7 +30,28 @@ import java.util.List;
  * </ul>
  */
 @Entity
-@Table(name = "warranty_claims")
+@Table(name = "warranty_claims", indexes = {
+        // Hàng đợi nhận việc: claim chưa gán cũ nhất theo trung tâm + trạng thái (findDispatchableForUpdate)
+        @Index(name = "idx_warranty_claim_dispatch", columnList = "service_center_id, status, assigned_to_user_id, claim_date")
+})
+// Graph cho các màn hình danh sách: nạp sẵn mọi quan hệ mà WarrantyClaimMapper.toResponseDTO đọc tới
+// (toàn bộ là to-one nên join không làm nhân bản dòng, phân trang vẫn chạy ở DB).
+// User.customer là phía inverse của 1-1 (luôn EAGER) nên cũng phải join, nếu không Hibernate select riêng cho từng user.
+@NamedEntityGraph(
+        name = WarrantyClaim.RESPONSE_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "installedPart", subgraph = "installedPart"),
+                @NamedAttributeNode(value = "vehicle", subgraph = "vehicle"),
+                @NamedAttributeNode(value = "assignedTo", subgraph = "user"),
+                @NamedAttributeNode("serviceCenter")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "installedPart", attributeNodes = @NamedAttributeNode("part")),
+                @NamedSubgraph(name = "vehicle", attributeNodes = @NamedAttributeNode(value = "customer", subgraph = "customer")),
+                @NamedSubgraph(name = "customer", attributeNodes = @NamedAttributeNode(value = "user", subgraph = "user")),
+                @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("customer"))
+        }
+)
 @Getter
 @Setter
 @AllArgsConstructor
@@ -40,6 +61,8 @@ import java.util.List;
 // Exclude relationships để tránh vòng lặp đệ quy và lazy loading exception
 @ToString(exclude = {"installedPart", "vehicle", "workLogs", "serviceCenter", "assignedTo", "recallResponse"})
 public class WarrantyClaim {
+    public static final String RESPONSE_GRAPH = "WarrantyClaim.response";
+
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,43 @@
+package com.swp391.warrantymanagement.entity;
+
+import com.swp391.warrantymanagement.entity.id.WarrantyExpiryBucketId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Số bảo hành (xe / linh kiện đang hoạt động) hết hạn trong vòng N ngày, theo service center, customer và part.
+ * <p>
+ * <strong>Mục đích:</strong> Dashboard và tính năng nhắc hạn đọc một dòng cho mỗi bucket thay vì quét
+ * {@code installed_parts} / {@code vehicles} theo khoảng ngày mỗi lần được hỏi.
+ * <p>
+ * <strong>Tính nhất quán:</strong> Bảng được dựng lại hằng đêm bởi {@code WarrantyExpiryProjectionService}
+ * (upsert theo khóa, sau đó xóa bucket không còn xuất hiện), nên số liệu đúng tại {@code asOfDate}
+ * và người đọc không bao giờ thấy bảng rỗng giữa chừng. Bucket không có dòng nghĩa là 0.
+ */
+@Entity
+@Table(name = "warranty_expiry_buckets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class WarrantyExpiryBucket {
+
+    @EmbeddedId
+    @EqualsAndHashCode.Include
+    private WarrantyExpiryBucketId id;
+
+    @Column(name = "expiring_count", nullable = false)
+    private long expiringCount;
+
+    // Ngày tham chiếu của lần dựng (cửa sổ tính từ ngày này)
+    @Column(name = "as_of_date", nullable = false)
+    private LocalDate asOfDate;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+}
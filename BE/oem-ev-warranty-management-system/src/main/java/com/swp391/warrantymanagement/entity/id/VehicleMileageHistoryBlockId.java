@@ -0,0 +1,34 @@
+package com.swp391.warrantymanagement.entity.id;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Khóa của một block lịch sử km: (xe, thời điểm điểm đầu tiên). Điểm của một xe tăng dần theo thời gian nên các block
+ * không chồng lấn; khóa chính cũng là index cho truy vấn theo khoảng thời gian của một xe.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class VehicleMileageHistoryBlockId implements Serializable {
+
+    @Column(name = "vehicle_id", nullable = false)
+    private Long vehicleId;
+
+    // Thời điểm (giờ ứng dụng, theo giây) của điểm đầu tiên trong block - mốc để giải mã delta thời gian
+    @Column(name = "block_start", nullable = false)
+    private LocalDateTime blockStart;
+}
@@ -0,0 +1,47 @@
+package com.swp391.warrantymanagement.entity.id;
+
+import com.swp391.warrantymanagement.enums.WarrantyExpiryScope;
+import com.swp391.warrantymanagement.enums.WarrantyExpirySubject;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * Khóa của một bucket hết hạn bảo hành: (đối tượng, phạm vi, khóa phạm vi, cửa sổ ngày).
+ * <p>
+ * {@code scopeKey} là ID dạng chuỗi của service center / customer (UUID) / part, chuỗi rỗng với scope ALL,
+ * nên một bucket bất kỳ được đọc bằng đúng một lần tra khóa chính.
+ */
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class WarrantyExpiryBucketId implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "subject", length = 20, nullable = false)
+    private WarrantyExpirySubject subject;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", length = 20, nullable = false)
+    private WarrantyExpiryScope scope;
+
+    @Column(name = "scope_key", length = 36, nullable = false)
+    private String scopeKey;
+
+    // Hết hạn trong vòng N ngày kể từ asOfDate (tích lũy: bucket 60 đã gồm bucket 30)
+    @Column(name = "window_days", nullable = false)
+    private int windowDays;
+}
@@ -0,0 +1,16 @@
+package com.swp391.warrantymanagement.enums;
+
+/**
+ * ClaimLifecycleEventType - Loại sự kiện trong vòng đời WarrantyClaim được đẩy qua SSE ({@code /api/warranty-claims/events})
+ * <p>
+ * Tên enum là tên event SSE ({@code event:}) mà frontend lắng nghe.
+ */
+public enum ClaimLifecycleEventType {
+    CREATED,        // Claim mới được tạo (SUBMITTED/PENDING_PAYMENT, hoặc PROCESSING với claim từ recall)
+    ACCEPTED,       // Admin duyệt → MANAGER_REVIEW (vào hàng đợi technician)
+    ASSIGNED,       // Claim được gán cho một user
+    STARTED,        // Technician bắt đầu xử lý → PROCESSING
+    COMPLETED,      // Technician hoàn tất → COMPLETED
+    REJECTED,       // Admin từ chối → REJECTED
+    STATUS_CHANGED  // Đổi trạng thái trực tiếp qua API cập nhật status
+}
@@ -0,0 +1,29 @@
+package com.swp391.warrantymanagement.enums;
+
+/**
+ * MileageReadingRejectionReason - Lý do một số đo km từ telematics bị từ chối khi ingest
+ * <p>
+ * <ul>
+ *     <li><strong>INVALID:</strong> Thiếu VIN / timestamp, hoặc km âm</li>
+ *     <li><strong>FUTURE_TIMESTAMP:</strong> Timestamp vượt quá thời điểm hiện tại (cộng sai lệch đồng hồ cho phép)</li>
+ *     <li><strong>REGRESSION:</strong> Không đơn điệu so với số đo mới nhất đã biết của xe
+ *     (mới hơn nhưng km thấp hơn, hoặc cũ hơn nhưng km cao hơn)</li>
+ *     <li><strong>BUFFER_FULL:</strong> Bộ đệm đang chờ ghi đã đầy, gateway cần gửi lại sau</li>
+ * </ul>
+ */
+public enum MileageReadingRejectionReason {
+    INVALID("Dữ liệu không hợp lệ"),
+    FUTURE_TIMESTAMP("Thời điểm đo ở tương lai"),
+    REGRESSION("Số km giảm"),
+    BUFFER_FULL("Bộ đệm đầy");
+
+    private final String vietnameseName;
+
+    MileageReadingRejectionReason(String vietnameseName) {
+        this.vietnameseName = vietnameseName;
+    }
+
+    public String getVietnameseName() {
+        return vietnameseName;
+    }
+}
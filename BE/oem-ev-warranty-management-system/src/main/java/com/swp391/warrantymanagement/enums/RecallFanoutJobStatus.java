@@ -0,0 +1,30 @@
+package com.swp391.warrantymanagement.enums;
+
+/**
+ * RecallFanoutJobStatus - Trạng thái của job nền tạo RecallResponse cho một chiến dịch triệu hồi
+ * <p>
+ * <strong>Flow trạng thái:</strong>
+ * <pre>
+ * QUEUED (Admin vừa duyệt, job chờ worker)
+ *    └─→ RUNNING (worker đang tạo RecallResponse theo chunk)
+ *           ├─→ COMPLETED (xong, campaign chuyển sang WAITING_CUSTOMER_CONFIRM)
+ *           └─→ FAILED (lỗi, các chunk đã commit vẫn giữ nguyên)
+ * </pre>
+ * Job QUEUED/RUNNING được tiếp tục từ checkpoint khi ứng dụng khởi động lại.
+ */
+public enum RecallFanoutJobStatus {
+    QUEUED("Đang chờ xử lý"),
+    RUNNING("Đang xử lý"),
+    COMPLETED("Đã hoàn thành"),
+    FAILED("Thất bại");
+
+    private final String vietnameseName;
+
+    RecallFanoutJobStatus(String vietnameseName) {
+        this.vietnameseName = vietnameseName;
+    }
+
+    public String getVietnameseName() {
+        return vietnameseName;
+    }
+}
@@ -0,0 +1,28 @@
+package com.swp391.warrantymanagement.enums;
+
+/**
+ * WarrantyExpiryScope - Phạm vi gom nhóm của bucket hết hạn bảo hành
+ * <p>
+ * <ul>
+ *     <li><strong>ALL:</strong> Toàn hệ thống (scope key rỗng)</li>
+ *     <li><strong>SERVICE_CENTER:</strong> Theo service center phụ trách xe (trung tâm của tài khoản chủ xe, {@code customer.user.serviceCenter})</li>
+ *     <li><strong>CUSTOMER:</strong> Theo chủ xe (customer ID)</li>
+ *     <li><strong>PART:</strong> Theo loại linh kiện (part ID) - chỉ áp dụng cho INSTALLED_PART</li>
+ * </ul>
+ */
+public enum WarrantyExpiryScope {
+    ALL("Toàn hệ thống"),
+    SERVICE_CENTER("Theo trung tâm dịch vụ"),
+    CUSTOMER("Theo khách hàng"),
+    PART("Theo linh kiện");
+
+    private final String vietnameseName;
+
+    WarrantyExpiryScope(String vietnameseName) {
+        this.vietnameseName = vietnameseName;
+    }
+
+    public String getVietnameseName() {
+        return vietnameseName;
+    }
+}
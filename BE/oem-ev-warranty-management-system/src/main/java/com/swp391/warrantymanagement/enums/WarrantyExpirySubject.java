@@ -0,0 +1,25 @@
+package com.swp391.warrantymanagement.enums;
+
+/**
+ * WarrantyExpirySubject - Đối tượng được đếm trong bảng bucket hết hạn bảo hành
+ * <p>
+ * <ul>
+ *     <li><strong>VEHICLE:</strong> Bảo hành xe, theo {@code vehicles.warranty_end_date}</li>
+ *     <li><strong>INSTALLED_PART:</strong> Bảo hành linh kiện đang hoạt động, theo
+ *     {@code installed_parts.warranty_expiration_date}</li>
+ * </ul>
+ */
+public enum WarrantyExpirySubject {
+    VEHICLE("Xe"),
+    INSTALLED_PART("Linh kiện đã lắp");
+
+    private final String vietnameseName;
+
+    WarrantyExpirySubject(String vietnameseName) {
+        this.vietnameseName = vietnameseName;
+    }
+
+    public String getVietnameseName() {
+        return vietnameseName;
+    }
+}
@@ -0,0 +1,14 @@
+package com.swp391.warrantymanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Sự kiện phát ra khi một service center được tạo, cập nhật (thông tin, vị trí) hoặc bị xóa.
+ */
+@Getter
+@AllArgsConstructor
+public class ServiceCenterChangedEvent {
+    private final Long serviceCenterId;
+    private final boolean deleted;
+}
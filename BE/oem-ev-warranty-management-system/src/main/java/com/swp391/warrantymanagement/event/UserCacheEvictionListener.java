@@ -0,0 +1,41 @@
+package com.swp391.warrantymanagement.event;
+
+import com.swp391.warrantymanagement.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evict các entry cache của user khi nhận {@link UserSecurityChangedEvent}.
+ * <p>
+ * Chạy sau khi transaction commit ({@code AFTER_COMMIT}) để một request đồng thời
+ * không thể nạp lại dữ liệu cũ vào cache sau khi đã evict. {@code fallbackExecution = true}
+ * cho phép sự kiện được xử lý ngay cả khi publish ngoài transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCacheEvictionListener.class);
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        Cache userDetails = cacheManager.getCache(CacheConfig.USER_DETAILS_CACHE);
+        Cache userRoles = cacheManager.getCache(CacheConfig.USER_ROLES_CACHE);
+        for (String username : event.getUsernames()) {
+            if (userDetails != null) {
+                userDetails.evict(username);
+            }
+            if (userRoles != null) {
+                userRoles.evict(username);
+            }
+        }
+        logger.debug("Evicted user caches for userId={} usernames={}", event.getUserId(), event.getUsernames());
+    }
+}
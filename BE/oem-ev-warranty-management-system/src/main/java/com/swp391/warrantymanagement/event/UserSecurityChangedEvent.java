@@ -0,0 +1,19 @@
+package com.swp391.warrantymanagement.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Sự kiện phát ra khi thông tin bảo mật của user thay đổi (username, role, password, xóa user).
+ * <p>
+ * Chứa tất cả username bị ảnh hưởng (ví dụ: cả username cũ và mới khi đổi tên)
+ * để các cache theo username có thể evict đúng entry.
+ */
+@Getter
+@AllArgsConstructor
+public class UserSecurityChangedEvent {
+    private final Long userId;
+    private final Set<String> usernames;
+}
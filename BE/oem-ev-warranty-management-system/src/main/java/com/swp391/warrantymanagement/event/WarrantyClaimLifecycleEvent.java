@@ -0,0 +1,36 @@
+package com.swp391.warrantymanagement.event;
+
+import com.swp391.warrantymanagement.entity.WarrantyClaim;
+import com.swp391.warrantymanagement.enums.ClaimLifecycleEventType;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sự kiện phát ra khi một warranty claim đổi trạng thái hoặc người xử lý.
+ * <p>
+ * Chỉ chứa ID (không chứa entity) để listener chạy sau commit không phải chạm vào persistence context;
+ * {@code serviceCenterId}/{@code assignedToUserId} dùng để lọc người nhận.
+ */
+@Getter
+@AllArgsConstructor
+public class WarrantyClaimLifecycleEvent {
+    private final ClaimLifecycleEventType type;
+    private final Long claimId;
+    private final WarrantyClaimStatus status;
+    private final Long serviceCenterId;
+    private final Long assignedToUserId;
+    private final LocalDateTime occurredAt;
+
+    public static WarrantyClaimLifecycleEvent of(ClaimLifecycleEventType type, WarrantyClaim claim) {
+        return new WarrantyClaimLifecycleEvent(
+                type,
+                claim.getWarrantyClaimId(),
+                claim.getStatus(),
+                claim.getServiceCenter() != null ? claim.getServiceCenter().getServiceCenterId() : null,
+                claim.getAssignedTo() != null ? claim.getAssignedTo().getUserId() : null,
+                LocalDateTime.now());
+    }
+}
@@ -1,5 +1,6 @@
 package com.swp391.warrantymanagement.mapper;
 
+import com.swp391.warrantymanagement.dto.projection.CustomerListView;
 import com.swp391.warrantymanagement.dto.request.CustomerRequestDTO;
 import com.swp391.warrantymanagement.dto.response.CustomerResponseDTO;
 import com.swp391.warrantymanagement.entity.Customer;
@@ -61,6 +62,35 @@ public final class CustomerMapper {
         return responseDTO;
     }
 
+    // Projection (listing read-only) -> Response DTO
+    public static CustomerResponseDTO toResponseDTO(CustomerListView view) {
+        if (view == null) return null;
+
+        CustomerResponseDTO responseDTO = new CustomerResponseDTO();
+        responseDTO.setCustomerId(view.customerId());
+        responseDTO.setName(view.name());
+        responseDTO.setPhone(view.phone());
+        if (view.userId() != null) {
+            responseDTO.setUserId(view.userId());
+            responseDTO.setUsername(view.username());
+            responseDTO.setEmail(view.email());
+            responseDTO.setAddress(view.address());
+            if (view.createdAt() != null) {
+                responseDTO.setCreatedAt(java.sql.Timestamp.valueOf(view.createdAt()));
+            }
+        }
+
+        return responseDTO;
+    }
+
+    // List Projection -> List Response DTO
+    public static List<CustomerResponseDTO> toResponseDTOListFromViews(List<CustomerListView> views) {
+        if (views == null) return null;
+        return views.stream()
+                .map(CustomerMapper::toResponseDTO)
+                .collect(Collectors.toList());
+    }
+
     // List Entity -> List Response DTO
     public static List<CustomerResponseDTO> toResponseDTOList(List<Customer> entities) {
         if (entities == null) return null;
@@ -0,0 +1,59 @@
+package com.swp391.warrantymanagement.mapper;
+
+import com.swp391.warrantymanagement.dto.response.RecallFanoutJobResponseDTO;
+import com.swp391.warrantymanagement.entity.RecallFanoutProgress;
+import com.swp391.warrantymanagement.enums.RecallFanoutJobStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Mapper chuyển RecallFanoutProgress (job) sang DTO, kèm tính toán tốc độ và ETA.
+ */
+public final class RecallFanoutJobMapper {
+
+    private RecallFanoutJobMapper() {
+    }
+
+    public static RecallFanoutJobResponseDTO toResponseDTO(RecallFanoutProgress job, LocalDateTime now) {
+        RecallFanoutJobResponseDTO dto = new RecallFanoutJobResponseDTO();
+        dto.setJobId(job.getProgressId());
+        dto.setRecallRequestId(job.getRecallRequest().getRecallRequestId());
+        dto.setStatus(job.getStatus());
+        dto.setAffectedVehicles(job.getAffectedVehicles());
+        dto.setTotalRows(job.getTotalRows());
+        dto.setProcessedRows(job.getProcessedRows());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setRetryCount(job.getRetryCount());
+
+        boolean completed = job.getStatus() == RecallFanoutJobStatus.COMPLETED;
+        if (completed || job.getTotalRows() == 0) {
+            dto.setPercentComplete(completed ? 100.0 : 0.0);
+        } else {
+            dto.setPercentComplete(Math.min(100.0, job.getProcessedRows() * 100.0 / job.getTotalRows()));
+        }
+
+        // Tốc độ: số dòng tạo được trong lần chạy hiện tại / thời gian đã chạy
+        if (job.getRunStartedAt() != null) {
+            LocalDateTime end = completed && job.getCompletedAt() != null ? job.getCompletedAt()
+                    : job.getStatus() == RecallFanoutJobStatus.FAILED && job.getUpdatedAt() != null ? job.getUpdatedAt()
+                    : now;
+            long elapsedMs = Duration.between(job.getRunStartedAt(), end).toMillis();
+            long rowsThisRun = job.getProcessedRows() - job.getRowsAtRunStart();
+            if (elapsedMs > 0 && rowsThisRun > 0) {
+                dto.setRowsPerSecond(rowsThisRun * 1000.0 / elapsedMs);
+            }
+        }
+
+        long remaining = Math.max(0, job.getTotalRows() - job.getProcessedRows());
+        if (completed) {
+            dto.setEtaSeconds(0L);
+        } else if (dto.getRowsPerSecond() > 0 && job.getStatus() == RecallFanoutJobStatus.RUNNING) {
+            dto.setEtaSeconds((long) Math.ceil(remaining / dto.getRowsPerSecond()));
+        }
+        return dto;
+    }
+}
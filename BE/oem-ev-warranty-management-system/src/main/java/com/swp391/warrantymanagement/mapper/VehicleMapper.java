@@ -1,5 +1,6 @@
 package com.swp391.warrantymanagement.mapper;
 
+import com.swp391.warrantymanagement.dto.projection.VehicleListView;
 import com.swp391.warrantymanagement.dto.request.VehicleRequestDTO;
 import com.swp391.warrantymanagement.dto.response.VehicleResponseDTO;
 import com.swp391.warrantymanagement.entity.Vehicle;
@@ -70,6 +71,36 @@ public final class VehicleMapper {
         return responseDTO;
     }
 
+    // Projection (listing read-only) -> Response DTO
+    public static VehicleResponseDTO toResponseDTO(VehicleListView view) {
+        if (view == null) return null;
+
+        VehicleResponseDTO responseDTO = new VehicleResponseDTO();
+        responseDTO.setVehicleId(view.vehicleId());
+        responseDTO.setVehicleName(view.vehicleName());
+        responseDTO.setVehicleModel(view.vehicleModel());
+        if (view.vehicleYear() != null) {
+            responseDTO.setVehicleYear(view.vehicleYear());
+        }
+        responseDTO.setVehicleVin(view.vehicleVin());
+        responseDTO.setPurchaseDate(view.purchaseDate());
+        responseDTO.setWarrantyStartDate(view.warrantyStartDate());
+        responseDTO.setWarrantyEndDate(view.warrantyEndDate());
+        responseDTO.setMileage(view.mileage());
+        responseDTO.setCustomerId(view.customerId());
+        responseDTO.setCustomerName(view.customerName());
+
+        return responseDTO;
+    }
+
+    // List Projection -> List Response DTO
+    public static List<VehicleResponseDTO> toResponseDTOListFromViews(List<VehicleListView> views) {
+        if (views == null) return null;
+        return views.stream()
+                .map(VehicleMapper::toResponseDTO)
+                .collect(Collectors.toList());
+    }
+
     // List Entity -> List Response DTO
     public static List<VehicleResponseDTO> toResponseDTOList(List<Vehicle> entities) {
         if (entities == null) return null;
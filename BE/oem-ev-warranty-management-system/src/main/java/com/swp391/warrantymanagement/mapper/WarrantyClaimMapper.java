@@ -1,5 +1,6 @@
 package com.swp391.warrantymanagement.mapper;
 
+import com.swp391.warrantymanagement.dto.projection.WarrantyClaimListView;
 import com.swp391.warrantymanagement.dto.request.WarrantyClaimRequestDTO;
 import com.swp391.warrantymanagement.dto.response.WarrantyClaimResponseDTO;
 import com.swp391.warrantymanagement.entity.InstalledPart;
@@ -109,6 +110,60 @@ public final class WarrantyClaimMapper {
         return responseDTO;
     }
 
+    // Projection (listing read-only) -> Response DTO, cùng field với toResponseDTO(WarrantyClaim)
+    public static WarrantyClaimResponseDTO toResponseDTO(WarrantyClaimListView view) {
+        if (view == null) return null;
+
+        WarrantyClaimResponseDTO responseDTO = new WarrantyClaimResponseDTO();
+        responseDTO.setWarrantyClaimId(view.warrantyClaimId());
+        responseDTO.setClaimDate(view.claimDate());
+        responseDTO.setStatus(view.status());
+        responseDTO.setDescription(view.description());
+        responseDTO.setResolutionDate(view.resolutionDate());
+
+        responseDTO.setInstalledPartId(view.installedPartId());
+        responseDTO.setPartId(view.partId());
+        responseDTO.setPartName(view.partName());
+        responseDTO.setPartNumber(view.partNumber());
+        responseDTO.setManufacturer(view.manufacturer());
+
+        responseDTO.setVehicleId(view.vehicleId());
+        responseDTO.setVehicleName(view.vehicleName());
+        responseDTO.setVehicleModel(view.vehicleModel());
+        if (view.vehicleYear() != null) {
+            responseDTO.setVehicleYear(view.vehicleYear());
+        }
+        responseDTO.setVehicleVin(view.vehicleVin());
+
+        if (view.customerId() != null) {
+            responseDTO.setCustomerId(view.customerId().toString());
+        }
+        responseDTO.setCustomerName(view.customerName());
+        responseDTO.setCustomerPhone(view.customerPhone());
+        responseDTO.setCustomerEmail(view.customerEmail());
+
+        responseDTO.setAssignedToUserId(view.assignedToUserId());
+        responseDTO.setAssignedToUsername(view.assignedToUsername());
+        responseDTO.setAssignedToEmail(view.assignedToEmail());
+
+        responseDTO.setServiceCenterId(view.serviceCenterId());
+        responseDTO.setServiceCenterName(view.serviceCenterName());
+
+        responseDTO.setIsPaidWarranty(view.isPaidWarranty() != null ? view.isPaidWarranty() : false);
+        responseDTO.setWarrantyFee(view.warrantyFee());
+        responseDTO.setPaidWarrantyNote(view.paidWarrantyNote());
+
+        return responseDTO;
+    }
+
+    // List Projection -> List Response DTO
+    public static List<WarrantyClaimResponseDTO> toResponseDTOListFromViews(List<WarrantyClaimListView> views) {
+        if (views == null) return null;
+        return views.stream()
+                .map(WarrantyClaimMapper::toResponseDTO)
+                .collect(Collectors.toList());
+    }
+
     // List Entity -> List Response DTO
     public static List<WarrantyClaimResponseDTO> toResponseDTOList(List<WarrantyClaim> entities) {
         if (entities == null) return null;
@@ -1,7 +1,9 @@
 package com.swp391.warrantymanagement.repository;
 
+import com.swp391.warrantymanagement.dto.projection.CustomerListView;
 import com.swp391.warrantymanagement.entity.Customer;
 import com.swp391.warrantymanagement.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -55,4 +58,49 @@ public interface CustomerRepository extends JpaRepository<Customer, UUID> {
             "LOWER(COALESCE(c.phone, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(COALESCE(u.email, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<Customer> searchCustomersGeneral(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // ===== Read-only listing projections (CustomerListView, không tạo entity managed) =====
+
+    String LIST_VIEW_SELECT = "SELECT new com.swp391.warrantymanagement.dto.projection.CustomerListView(" +
+            "c.customerId, c.name, c.phone, u.userId, u.username, u.email, u.address, u.createdAt) " +
+            "FROM Customer c LEFT JOIN c.user u ";
+
+    @Query(value = LIST_VIEW_SELECT,
+           countQuery = "SELECT COUNT(c) FROM Customer c")
+    Page<CustomerListView> findAllListViews(Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :name, '%'))",
+           countQuery = "SELECT COUNT(c) FROM Customer c WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    Page<CustomerListView> findListViewsByNameContaining(@Param("name") String name, Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE u.userId = :userId",
+           countQuery = "SELECT COUNT(c) FROM Customer c WHERE c.user.userId = :userId")
+    Page<CustomerListView> findListViewsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Cùng điều kiện với searchCustomersGeneral
+    @Query(value = LIST_VIEW_SELECT + "WHERE " +
+            "LOWER(COALESCE(c.name, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(COALESCE(c.phone, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(COALESCE(u.email, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%'))",
+           countQuery = "SELECT COUNT(c) FROM Customer c LEFT JOIN c.user u WHERE " +
+            "LOWER(COALESCE(c.name, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(COALESCE(c.phone, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(COALESCE(u.email, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    Page<CustomerListView> searchListViewsGeneral(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // ===== Nguồn dữ liệu cho FullTextSearchIndex (mỗi dòng: customerId, name, phone, email) =====
+
+    String SEARCH_ROW_SELECT = "SELECT c.customerId, c.name, c.phone, u.email FROM Customer c LEFT JOIN c.user u ";
+
+    @Query(SEARCH_ROW_SELECT + "WHERE (:after IS NULL OR c.customerId > :after) ORDER BY c.customerId")
+    List<Object[]> findSearchRows(@Param("after") UUID after, Limit limit);
+
+    @Query(SEARCH_ROW_SELECT + "WHERE c.customerId IN :ids")
+    List<Object[]> findSearchRowsByIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT c.customerId FROM Customer c WHERE c.user.userId IN :userIds")
+    List<UUID> findIdsByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query(LIST_VIEW_SELECT + "WHERE c.customerId IN :ids")
+    List<CustomerListView> findListViewsByCustomerIdIn(@Param("ids") Collection<UUID> ids);
 }
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,6 +24,10 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     // Tìm feedback theo claim (1-1 relationship)
     Optional<Feedback> findByWarrantyClaimWarrantyClaimId(Long warrantyClaimId);
 
+    // ID các claim (trong danh sách) đã có feedback - thay cho lookup từng claim khi render danh sách
+    @Query("SELECT f.warrantyClaim.warrantyClaimId FROM Feedback f WHERE f.warrantyClaim.warrantyClaimId IN :claimIds")
+    List<Long> findWarrantyClaimIdsWithFeedback(@Param("claimIds") Collection<Long> claimIds);
+
     // Tìm tất cả feedback của customer
     List<Feedback> findByCustomerCustomerId(UUID customerId);
     Page<Feedback> findByCustomerCustomerId(UUID customerId, Pageable pageable);
@@ -1,5 +1,6 @@
 package com.swp391.warrantymanagement.repository;
 
+import com.swp391.warrantymanagement.dto.projection.InstalledPartWarrantyStamp;
 import com.swp391.warrantymanagement.entity.InstalledPart;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,7 +10,9 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for managing InstalledParts (parts installed in a vehicle).
@@ -75,6 +78,38 @@ public interface InstalledPartRepository extends JpaRepository<InstalledPart, Lo
             @Param("categoryId") Long categoryId
     );
 
+    /**
+     * Load nhiều installed part kèm Part và Vehicle trong một query (tra cứu bảo hành hàng loạt),
+     * tránh N lần findById + lazy load Part/Vehicle.
+     */
+    @Query("SELECT ip FROM InstalledPart ip " +
+           "JOIN FETCH ip.part " +
+           "JOIN FETCH ip.vehicle " +
+           "WHERE ip.installedPartId IN :ids")
+    List<InstalledPart> findAllWithPartAndVehicleByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Load một installed part kèm Part và Vehicle (thay cho findById + 2 lazy load khi kiểm tra bảo hành).
+     */
+    @Query("SELECT ip FROM InstalledPart ip " +
+           "JOIN FETCH ip.part " +
+           "JOIN FETCH ip.vehicle " +
+           "WHERE ip.installedPartId = :id")
+    Optional<InstalledPart> findWithPartAndVehicleById(@Param("id") Long id);
+
+    /**
+     * Key cache kiểm tra bảo hành của installed part: các cột quyết định kết quả của InstalledPart, Part và Vehicle.
+     */
+    @Query("SELECT new com.swp391.warrantymanagement.dto.projection.InstalledPartWarrantyStamp(" +
+           "ip.installedPartId, ip.installationDate, ip.warrantyExpirationDate, ip.warrantyMileageLimit, " +
+           "ip.mileageAtInstallation, " +
+           "p.partId, p.partName, p.hasExtendedWarranty, p.defaultWarrantyMileage, p.gracePeriodDays, " +
+           "p.paidWarrantyFeePercentageMin, p.paidWarrantyFeePercentageMax, " +
+           "v.vehicleId, v.vehicleVin, v.vehicleName, v.warrantyEndDate, v.mileage) " +
+           "FROM InstalledPart ip JOIN ip.part p JOIN ip.vehicle v " +
+           "WHERE ip.installedPartId = :id")
+    Optional<InstalledPartWarrantyStamp> findWarrantyStampById(@Param("id") Long id);
+
     // ======= LEGACY METHODS (for backward compatibility with existing code) =======
     // These methods return ALL installed parts (including soft-deleted ones)
     // Kept for specific use cases like recall management where we need ALL parts
@@ -0,0 +1,26 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.entity.InstalledPartWarrantySnapshot;
+import com.swp391.warrantymanagement.enums.WarrantyStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Repository đọc trạng thái bảo hành tính sẵn của linh kiện (ghi bằng {@link WarrantyExpiryProjectionRepository}).
+ */
+@Repository
+public interface InstalledPartWarrantySnapshotRepository extends JpaRepository<InstalledPartWarrantySnapshot, Long> {
+
+    // Nhắc hạn theo khách hàng: linh kiện hết hạn trong khoảng ngày (index customer_id, warranty_expiration_date)
+    Page<InstalledPartWarrantySnapshot> findByCustomerIdAndWarrantyExpirationDateBetween(
+            UUID customerId, LocalDate from, LocalDate to, Pageable pageable);
+
+    // Danh sách theo trạng thái tại một trung tâm (VD: các linh kiện EXPIRED_MILEAGE cần liên hệ)
+    Page<InstalledPartWarrantySnapshot> findByServiceCenterIdAndWarrantyStatus(
+            Long serviceCenterId, WarrantyStatus warrantyStatus, Pageable pageable);
+}
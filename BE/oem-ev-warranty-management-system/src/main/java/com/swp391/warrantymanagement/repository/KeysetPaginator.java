@@ -0,0 +1,171 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Phân trang keyset (cursor) dùng chung cho mọi repository {@link JpaSpecificationExecutor}.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Sắp xếp theo (sortBy, id) - id làm tie-breaker nên thứ tự luôn toàn phần. Trang sau được lấy bằng
+ *     điều kiện {@code (sortBy, id) > (lastSortValue, lastId)} thay vì OFFSET, nên trang sâu không phải quét
+ *     và bỏ qua các dòng phía trước.</li>
+ *     <li>Dùng {@link Window} (scroll API của Spring Data): lấy {@code size + 1} dòng để biết còn trang sau,
+ *     không chạy {@code COUNT(*)}.</li>
+ *     <li>Cursor là Base64 URL-safe của (sortBy, hướng sắp xếp, id, giá trị sortBy) - opaque với client.
+ *     Cursor sinh ra cho một cách sắp xếp không dùng được với cách sắp xếp khác.</li>
+ * </ul>
+ * Chỉ hỗ trợ sắp xếp theo thuộc tính trực tiếp, NOT NULL của entity (keyset không so sánh được NULL): thuộc tính
+ * optional trong metamodel bị từ chối.
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPaginator {
+
+    private static final String SEPARATOR = "|";
+
+    private final EntityManager entityManager;
+
+    /**
+     * Lấy một trang theo cursor.
+     *
+     * @param repository    repository của entity (cần {@link JpaSpecificationExecutor})
+     * @param entityClass   entity class (để tra metamodel: id, kiểu của sortBy)
+     * @param specification điều kiện lọc, có thể fetch join các quan hệ to-one cần cho mapper ({@code null} = không lọc)
+     * @param sortBy        thuộc tính sắp xếp
+     * @param direction     hướng sắp xếp (áp dụng cho cả sortBy và id)
+     * @param after         cursor của trang trước ({@code null} = trang đầu)
+     * @param size          số phần tử mỗi trang
+     * @param mapper        chuyển danh sách entity sang DTO
+     * @throws IllegalArgumentException nếu sortBy không hợp lệ hoặc cursor sai/không khớp cách sắp xếp
+     */
+    public <T, R> CursorResponse<R> fetch(JpaSpecificationExecutor<T> repository, Class<T> entityClass,
+                                          Specification<T> specification, String sortBy, Sort.Direction direction,
+                                          String after, int size, Function<List<T>, List<R>> mapper) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        EntityType<T> entityType = entityManager.getMetamodel().entity(entityClass);
+        String idProperty = idAttribute(entityType).getName();
+        SingularAttribute<? super T, ?> sortAttribute = sortAttribute(entityType, sortBy);
+
+        Sort sort = sortBy.equals(idProperty)
+                ? Sort.by(direction, idProperty)
+                : Sort.by(direction, sortBy).and(Sort.by(direction, idProperty));
+
+        ScrollPosition position = after == null || after.isBlank()
+                ? ScrollPosition.keyset()
+                : decode(after, sortBy, direction, idProperty, idAttribute(entityType).getJavaType(),
+                        sortAttribute.getJavaType());
+
+        Specification<T> filter = specification != null ? specification : (root, query, cb) -> null;
+        Window<T> window = repository.findBy(filter, query -> query
+                .sortBy(sort)
+                .limit(size)
+                .scroll(position));
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = encode(sortBy, direction, last.getKeys().get(idProperty), last.getKeys().get(sortBy));
+        }
+        return new CursorResponse<>(mapper.apply(window.getContent()), size, window.hasNext(), nextCursor);
+    }
+
+    // ============= CURSOR CODEC =============
+
+    static String encode(String sortBy, Sort.Direction direction, Object id, Object sortValue) {
+        if (id == null || sortValue == null) {
+            throw new IllegalStateException("Cursor keys must not be null: sortBy=" + sortBy);
+        }
+        String raw = sortBy + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static KeysetScrollPosition decode(String cursor, String sortBy, Sort.Direction direction,
+                                       String idProperty, Class<?> idType, Class<?> sortType) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        // Giá trị sortBy đứng cuối nên có thể chứa ký tự phân cách
+        String[] parts = raw.split("\\|", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!parts[0].equals(sortBy) || !parts[1].equals(direction.name())) {
+            throw new IllegalArgumentException("Cursor does not match sortBy/sortDir of this request");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (!sortBy.equals(idProperty)) {
+            keys.put(sortBy, parseValue(parts[3], sortType));
+        }
+        keys.put(idProperty, parseValue(parts[2], idType));
+        return ScrollPosition.forward(keys);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object parseValue(String value, Class<?> type) {
+        try {
+            if (type == Long.class || type == long.class) return Long.valueOf(value);
+            if (type == Integer.class || type == int.class) return Integer.valueOf(value);
+            if (type == String.class) return value;
+            if (type == LocalDateTime.class) return LocalDateTime.parse(value);
+            if (type == LocalDate.class) return LocalDate.parse(value);
+            if (type == BigDecimal.class) return new BigDecimal(value);
+            if (type.isEnum()) return Enum.valueOf((Class<? extends Enum>) type, value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        throw new IllegalArgumentException("Unsupported cursor key type: " + type.getSimpleName());
+    }
+
+    // ============= METAMODEL HELPERS =============
+
+    private static <T> SingularAttribute<? super T, ?> idAttribute(EntityType<T> entityType) {
+        return entityType.getId(entityType.getIdType().getJavaType());
+    }
+
+    private static <T> SingularAttribute<? super T, ?> sortAttribute(EntityType<T> entityType, String sortBy) {
+        Attribute<? super T, ?> attribute;
+        try {
+            attribute = entityType.getAttribute(sortBy);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor pagination cannot sort by: " + sortBy, e);
+        }
+        if (!(attribute instanceof SingularAttribute<? super T, ?> singular)
+                || attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new IllegalArgumentException("Cursor pagination cannot sort by: " + sortBy);
+        }
+        // Cột nullable: điều kiện (sortBy, id) > (giá trị, id) loại mọi dòng NULL và cursor không mã hóa được NULL
+        if (singular.isOptional()) {
+            throw new IllegalArgumentException("Cursor pagination cannot sort by nullable property: " + sortBy);
+        }
+        return singular;
+    }
+}
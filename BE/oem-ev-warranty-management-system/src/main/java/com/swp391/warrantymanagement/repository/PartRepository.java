@@ -1,6 +1,7 @@
 package com.swp391.warrantymanagement.repository;
 
 import com.swp391.warrantymanagement.entity.Part;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -63,4 +65,14 @@ public interface PartRepository extends JpaRepository<Part, Long> {
             "LOWER(COALESCE(p.manufacturer, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(COALESCE(p.partNumber, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<Part> searchPartsGeneral(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // ===== Nguồn dữ liệu cho FullTextSearchIndex (mỗi dòng: partId, partName, manufacturer, partNumber) =====
+
+    String SEARCH_ROW_SELECT = "SELECT p.partId, p.partName, p.manufacturer, p.partNumber FROM Part p ";
+
+    @Query(SEARCH_ROW_SELECT + "WHERE (:after IS NULL OR p.partId > :after) ORDER BY p.partId")
+    List<Object[]> findSearchRows(@Param("after") Long after, Limit limit);
+
+    @Query(SEARCH_ROW_SELECT + "WHERE p.partId IN :ids")
+    List<Object[]> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
 }
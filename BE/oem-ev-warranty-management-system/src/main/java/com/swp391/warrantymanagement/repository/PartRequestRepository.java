@@ -1,14 +1,18 @@
 package com.swp391.warrantymanagement.repository;
 
 import com.swp391.warrantymanagement.entity.PartRequest;
+import com.swp391.warrantymanagement.entity.User;
 import com.swp391.warrantymanagement.enums.PartRequestStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -57,5 +61,61 @@ public interface PartRequestRepository extends JpaRepository<PartRequest, Long>
     // Đếm số lượng pending requests cho một service center
     @Query("SELECT COUNT(pr) FROM PartRequest pr WHERE pr.serviceCenter.serviceCenterId = :serviceCenterId AND pr.status = 'PENDING'")
     Long countPendingRequestsByServiceCenter(@Param("serviceCenterId") Long serviceCenterId);
-}
 
+    // ===== Conditional status transitions =====
+    // Mỗi bước chuyển là MỘT câu UPDATE có điều kiện status IN (nguồn hợp lệ theo PartRequestStatusValidator):
+    // 0 dòng = request không tồn tại hoặc đã bị người khác chuyển trạng thái (ví dụ duyệt và hủy cùng lúc).
+
+    @Query("SELECT pr.status FROM PartRequest pr WHERE pr.requestId = :requestId")
+    Optional<PartRequestStatus> findStatusById(@Param("requestId") Long requestId);
+
+    // Duyệt: ghi người duyệt, thời gian và ghi chú
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PartRequest pr SET pr.status = :toStatus, pr.approvedBy = :approvedBy, " +
+           "pr.approvedDate = :decidedAt, pr.notes = :notes " +
+           "WHERE pr.requestId = :requestId AND pr.status IN :fromStatuses")
+    int approve(@Param("requestId") Long requestId,
+                @Param("fromStatuses") Collection<PartRequestStatus> fromStatuses,
+                @Param("toStatus") PartRequestStatus toStatus,
+                @Param("approvedBy") User approvedBy,
+                @Param("decidedAt") LocalDateTime decidedAt,
+                @Param("notes") String notes);
+
+    // Từ chối: ghi người từ chối (approvedBy), thời gian và lý do
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PartRequest pr SET pr.status = :toStatus, pr.approvedBy = :rejectedBy, " +
+           "pr.approvedDate = :decidedAt, pr.rejectionReason = :rejectionReason " +
+           "WHERE pr.requestId = :requestId AND pr.status IN :fromStatuses")
+    int reject(@Param("requestId") Long requestId,
+               @Param("fromStatuses") Collection<PartRequestStatus> fromStatuses,
+               @Param("toStatus") PartRequestStatus toStatus,
+               @Param("rejectedBy") User rejectedBy,
+               @Param("decidedAt") LocalDateTime decidedAt,
+               @Param("rejectionReason") String rejectionReason);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PartRequest pr SET pr.status = :toStatus, pr.shippedDate = :shippedDate, " +
+           "pr.trackingNumber = :trackingNumber " +
+           "WHERE pr.requestId = :requestId AND pr.status IN :fromStatuses")
+    int markShipped(@Param("requestId") Long requestId,
+                    @Param("fromStatuses") Collection<PartRequestStatus> fromStatuses,
+                    @Param("toStatus") PartRequestStatus toStatus,
+                    @Param("shippedDate") LocalDateTime shippedDate,
+                    @Param("trackingNumber") String trackingNumber);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PartRequest pr SET pr.status = :toStatus, pr.deliveredDate = :deliveredDate " +
+           "WHERE pr.requestId = :requestId AND pr.status IN :fromStatuses")
+    int markDelivered(@Param("requestId") Long requestId,
+                      @Param("fromStatuses") Collection<PartRequestStatus> fromStatuses,
+                      @Param("toStatus") PartRequestStatus toStatus,
+                      @Param("deliveredDate") LocalDateTime deliveredDate);
+
+    // Chuyển trạng thái không kèm dữ liệu khác (ví dụ CANCELLED)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PartRequest pr SET pr.status = :toStatus " +
+           "WHERE pr.requestId = :requestId AND pr.status IN :fromStatuses")
+    int transitionStatus(@Param("requestId") Long requestId,
+                         @Param("fromStatuses") Collection<PartRequestStatus> fromStatuses,
+                         @Param("toStatus") PartRequestStatus toStatus);
+}
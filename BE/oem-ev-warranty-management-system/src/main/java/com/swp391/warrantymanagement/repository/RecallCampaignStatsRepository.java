@@ -0,0 +1,34 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.entity.RecallCampaignStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository cho bộ đếm tiến độ của chiến dịch triệu hồi.
+ */
+@Repository
+public interface RecallCampaignStatsRepository extends JpaRepository<RecallCampaignStats, Long> {
+
+    /**
+     * Lấy và khóa dòng stats (SELECT ... FOR UPDATE) để cập nhật bộ đếm an toàn khi nhiều khách hàng
+     * xác nhận cùng lúc trong một campaign.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM RecallCampaignStats s WHERE s.recallRequestId = :recallRequestId")
+    Optional<RecallCampaignStats> findByIdForUpdate(@Param("recallRequestId") Long recallRequestId);
+
+    /**
+     * Tìm các campaign chưa có dòng stats (dữ liệu tạo trước khi có bảng này).
+     */
+    @Query("SELECT r.recallRequestId FROM RecallRequest r WHERE NOT EXISTS " +
+           "(SELECT 1 FROM RecallCampaignStats s WHERE s.recallRequestId = r.recallRequestId)")
+    List<Long> findRecallRequestIdsWithoutStats();
+}
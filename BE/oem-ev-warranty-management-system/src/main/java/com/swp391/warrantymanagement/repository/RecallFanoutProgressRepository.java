@@ -0,0 +1,35 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.entity.RecallFanoutProgress;
+import com.swp391.warrantymanagement.enums.RecallFanoutJobStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository cho bản ghi tiến độ (job) fan-out của chiến dịch triệu hồi.
+ */
+@Repository
+public interface RecallFanoutProgressRepository extends JpaRepository<RecallFanoutProgress, Long> {
+
+    // Tìm các job chưa xong (QUEUED/RUNNING) để tiếp tục sau khi ứng dụng khởi động lại
+    List<RecallFanoutProgress> findByStatusInOrderByProgressIdAsc(Collection<RecallFanoutJobStatus> statuses);
+
+    // Job FAILED còn lượt tự động chạy lại
+    List<RecallFanoutProgress> findByStatusAndRetryCountLessThanOrderByProgressIdAsc(RecallFanoutJobStatus status, int retryCount);
+
+    /**
+     * Lấy và khóa dòng job (SELECT ... FOR UPDATE): các chunk của cùng một job (kể cả từ node khác) chạy tuần tự,
+     * và chỉ một node nhận chạy lại một job FAILED.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM RecallFanoutProgress j WHERE j.progressId = :progressId")
+    Optional<RecallFanoutProgress> findByIdForUpdate(@Param("progressId") Long progressId);
+}
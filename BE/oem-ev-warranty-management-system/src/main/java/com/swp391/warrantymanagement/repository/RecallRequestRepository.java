@@ -1,10 +1,21 @@
 package com.swp391.warrantymanagement.repository;
 
 import com.swp391.warrantymanagement.entity.RecallRequest;
+import com.swp391.warrantymanagement.entity.User;
 import com.swp391.warrantymanagement.enums.RecallRequestStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repository để quản lý RecallRequest
  * - Thông báo triệu hồi từ EVM khi phát hiện lỗi hàng loạt
@@ -23,5 +34,52 @@ public interface RecallRequestRepository extends JpaRepository<RecallRequest, Lo
      * @return Number of campaigns with the given status
      */
     long countByStatus(RecallRequestStatus status);
-}
 
+    /**
+     * Đếm số campaign theo từng status bằng một query GROUP BY (thay cho nhiều lần countByStatus).
+     *
+     * @return List of [RecallRequestStatus status, Long count]; status không có campaign nào sẽ không xuất hiện
+     */
+    @Query("SELECT r.status, COUNT(r) FROM RecallRequest r GROUP BY r.status")
+    List<Object[]> countGroupByStatus();
+
+    /**
+     * Lấy thông tin hiển thị của các campaign (không load entity, không lazy-load Part).
+     *
+     * @param excludedStatus status bị loại trừ (ví dụ REJECTED_BY_ADMIN)
+     * @return List of [Long recallRequestId, String partName, String reason, RecallRequestStatus status], theo ID tăng dần
+     */
+    @Query("SELECT r.recallRequestId, p.partName, r.reason, r.status FROM RecallRequest r JOIN r.part p " +
+           "WHERE r.status <> :excludedStatus ORDER BY r.recallRequestId")
+    List<Object[]> findCampaignSummariesExcludingStatus(@Param("excludedStatus") RecallRequestStatus excludedStatus);
+
+    // ===== Conditional status transitions =====
+    // Mỗi bước chuyển là MỘT câu UPDATE có điều kiện status IN (nguồn hợp lệ theo RecallRequestStatusValidator).
+
+    @Query("SELECT r.status FROM RecallRequest r WHERE r.recallRequestId = :recallRequestId")
+    Optional<RecallRequestStatus> findStatusById(@Param("recallRequestId") Long recallRequestId);
+
+    /**
+     * Khóa dòng campaign (SELECT ... FOR UPDATE): tuần tự hóa việc tạo dòng {@code recall_campaign_stats} đầu tiên
+     * của campaign giữa các transaction (kể cả từ node khác).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RecallRequest r WHERE r.recallRequestId = :recallRequestId")
+    Optional<RecallRequest> findByIdForUpdate(@Param("recallRequestId") Long recallRequestId);
+
+    /**
+     * Admin duyệt/từ chối campaign: đổi trạng thái, ghi người quyết định và ghi chú.
+     *
+     * @return số dòng được cập nhật (0 hoặc 1)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RecallRequest r SET r.status = :toStatus, r.adminNote = :adminNote, " +
+           "r.approvedBy = :decidedBy, r.updatedAt = :decidedAt " +
+           "WHERE r.recallRequestId = :recallRequestId AND r.status IN :fromStatuses")
+    int decide(@Param("recallRequestId") Long recallRequestId,
+               @Param("fromStatuses") Collection<RecallRequestStatus> fromStatuses,
+               @Param("toStatus") RecallRequestStatus toStatus,
+               @Param("adminNote") String adminNote,
+               @Param("decidedBy") User decidedBy,
+               @Param("decidedAt") LocalDateTime decidedAt);
+}
@@ -0,0 +1,115 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.enums.RecallResponseStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Repository JDBC cho các thao tác set-based trên {@code recall_responses} khi fan-out một chiến dịch triệu hồi.
+ * <p>
+ * <strong>Tại sao không dùng JPA:</strong> {@link com.swp391.warrantymanagement.entity.RecallResponse} dùng
+ * {@code GenerationType.IDENTITY} nên Hibernate không thể batch INSERT; với hàng chục nghìn xe, mỗi
+ * {@code save()} là một round-trip. Ở đây chỉ làm việc với vehicle ID (không load entity) và ghi bằng câu lệnh INSERT nhiều dòng.
+ * <p>
+ * Query chọn xe là keyset ({@code vehicle_id > :afterVehicleId ORDER BY vehicle_id}) + anti-join với các response
+ * đã tồn tại, nên mỗi chunk chỉ trả về xe chưa có response và có thể chạy lại an toàn (idempotent).
+ * Insert dùng {@code INSERT IGNORE} trên unique key {@code (recall_request_id, vehicle_id)}: nếu một lần chạy khác đã
+ * tạo response cho xe giữa anti-join và insert, dòng trùng bị bỏ qua thay vì làm hỏng cả chunk.
+ * <p>
+ * <strong>Tại sao INSERT nhiều dòng thay vì {@code batchUpdate}:</strong> với {@code rewriteBatchedStatements=true},
+ * driver MySQL gộp batch thành một câu lệnh và trả {@code SUCCESS_NO_INFO} cho từng dòng, nên không biết dòng nào bị
+ * IGNORE. Tự viết câu {@code INSERT ... VALUES (...), (...)} (cùng một round-trip như batch đã rewrite) thì update count
+ * là số dòng thực sự được thêm, và bộ đếm PENDING của campaign không bị cộng dư khi fan-out chạy lại.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RecallResponseBulkRepository {
+
+    private static final String COUNT_AFFECTED_VEHICLES_SQL =
+            "SELECT COUNT(DISTINCT ip.vehicle_id) FROM installed_parts ip WHERE ip.part_id = ?";
+
+    private static final String COUNT_VEHICLES_WITHOUT_RESPONSE_SQL =
+            "SELECT COUNT(DISTINCT ip.vehicle_id) FROM installed_parts ip " +
+            "WHERE ip.part_id = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM recall_responses rr " +
+            "                WHERE rr.recall_request_id = ? AND rr.vehicle_id = ip.vehicle_id)";
+
+    // Duyệt theo PK của vehicles (không DISTINCT) để DB dừng ngay khi đủ LIMIT dòng:
+    // tổng chi phí của tất cả chunk là một lượt quét, thay vì sort/distinct lại toàn bộ tập xe ở mỗi chunk.
+    private static final String FIND_VEHICLES_WITHOUT_RESPONSE_SQL =
+            "SELECT v.vehicle_id FROM vehicles v " +
+            "WHERE v.vehicle_id > ? " +
+            "AND EXISTS (SELECT 1 FROM installed_parts ip WHERE ip.vehicle_id = v.vehicle_id AND ip.part_id = ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM recall_responses rr " +
+            "                WHERE rr.recall_request_id = ? AND rr.vehicle_id = v.vehicle_id) " +
+            "ORDER BY v.vehicle_id LIMIT ?";
+
+    private static final String INSERT_RESPONSES_SQL_PREFIX =
+            "INSERT IGNORE INTO recall_responses (recall_request_id, vehicle_id, status, created_at) VALUES ";
+
+    private static final String INSERT_RESPONSE_ROW = "(?, ?, ?, ?)";
+
+    // 4 tham số mỗi dòng: giữ mỗi câu lệnh dưới giới hạn 65535 placeholder của MySQL dù chunk-size cấu hình lớn
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Đếm số xe (distinct) đang lắp loại linh kiện bị triệu hồi.
+     */
+    public long countAffectedVehicles(Long partId) {
+        Long count = jdbcTemplate.queryForObject(COUNT_AFFECTED_VEHICLES_SQL, Long.class, partId);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Đếm số xe bị ảnh hưởng nhưng chưa có RecallResponse trong chiến dịch (anti-join).
+     */
+    public long countVehiclesWithoutResponse(Long recallRequestId, Long partId) {
+        Long count = jdbcTemplate.queryForObject(COUNT_VEHICLES_WITHOUT_RESPONSE_SQL, Long.class, partId, recallRequestId);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Lấy chunk tiếp theo các vehicle ID bị ảnh hưởng nhưng chưa có response (keyset theo vehicle_id).
+     *
+     * @param afterVehicleId checkpoint: chỉ lấy vehicle_id lớn hơn giá trị này (0 để bắt đầu từ đầu)
+     * @param limit kích thước chunk
+     * @return danh sách vehicle ID tăng dần, rỗng nếu đã hết
+     */
+    public List<Long> findVehicleIdsWithoutResponse(Long recallRequestId, Long partId, long afterVehicleId, int limit) {
+        return jdbcTemplate.queryForList(FIND_VEHICLES_WITHOUT_RESPONSE_SQL, Long.class,
+                afterVehicleId, partId, recallRequestId, limit);
+    }
+
+    /**
+     * Insert các RecallResponse trạng thái PENDING bằng câu lệnh INSERT nhiều dòng; xe đã có response bị bỏ qua.
+     *
+     * @return số dòng thực sự được thêm (dòng trùng không được tính)
+     */
+    public int insertPendingResponses(Long recallRequestId, List<Long> vehicleIds, LocalDateTime createdAt) {
+        Timestamp createdAtTs = Timestamp.valueOf(createdAt);
+        String status = RecallResponseStatus.PENDING.name();
+        int inserted = 0;
+        for (int from = 0; from < vehicleIds.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<Long> rows = vehicleIds.subList(from, Math.min(vehicleIds.size(), from + MAX_ROWS_PER_STATEMENT));
+            String sql = INSERT_RESPONSES_SQL_PREFIX + String.join(", ", Collections.nCopies(rows.size(), INSERT_RESPONSE_ROW));
+            inserted += jdbcTemplate.update(sql, ps -> {
+                int index = 1;
+                for (Long vehicleId : rows) {
+                    ps.setLong(index++, recallRequestId);
+                    ps.setLong(index++, vehicleId);
+                    ps.setString(index++, status);
+                    ps.setTimestamp(index++, createdAtTs);
+                }
+            });
+        }
+        return inserted;
+    }
+}
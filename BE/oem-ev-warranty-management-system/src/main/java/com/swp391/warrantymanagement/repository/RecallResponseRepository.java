@@ -2,7 +2,9 @@ package com.swp391.warrantymanagement.repository;
 
 import com.swp391.warrantymanagement.entity.RecallResponse;
 import com.swp391.warrantymanagement.enums.RecallResponseStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -89,4 +91,21 @@ public interface RecallResponseRepository extends JpaRepository<RecallResponse,
     long countByRecallRequestIdAndStatus(
             @Param("recallRequestId") Long recallRequestId,
             @Param("status") RecallResponseStatus status);
+
+    /**
+     * Đếm RecallResponse theo status của một campaign (dựng lại bộ đếm RecallCampaignStats).
+     *
+     * @return List of [RecallResponseStatus status, Long count]
+     */
+    @Query("SELECT rr.status, COUNT(rr) FROM RecallResponse rr " +
+           "WHERE rr.recallRequest.recallRequestId = :recallRequestId GROUP BY rr.status")
+    List<Object[]> countGroupByStatusForRecallRequest(@Param("recallRequestId") Long recallRequestId);
+
+    /**
+     * Lấy và khóa dòng response (SELECT ... FOR UPDATE) trước khi kiểm tra trạng thái: hai lần xác nhận / hoàn tất
+     * đồng thời của cùng response (kể cả từ node khác) chạy tuần tự, lần sau thấy trạng thái mới.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT rr FROM RecallResponse rr WHERE rr.recallResponseId = :recallResponseId")
+    Optional<RecallResponse> findByIdForUpdate(@Param("recallResponseId") Long recallResponseId);
 }
@@ -0,0 +1,65 @@
+package com.swp391.warrantymanagement.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Repository JDBC cho khóa job định kỳ ({@code scheduled_job_locks}), để một job chỉ chạy trên một node.
+ * <p>
+ * <strong>Tại sao là lease thay vì giữ {@code SELECT ... FOR UPDATE}:</strong> job commit theo từng chunk, nên một
+ * row lock phải nằm trong một transaction (và một connection) mở suốt cả lần chạy. Ở đây mỗi thao tác là một câu lệnh
+ * nguyên tử tự commit: {@code INSERT IGNORE} tạo dòng lần đầu, {@code UPDATE ... WHERE locked_until <= now} nhận lại
+ * khóa đã hết hạn - DB khóa dòng trong lúc UPDATE nên chỉ một node thấy 1 dòng bị đổi.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScheduledJobLockRepository {
+
+    private static final String INSERT_LOCK_SQL =
+            "INSERT IGNORE INTO scheduled_job_locks (job_name, locked_until, locked_at, locked_by) VALUES (?, ?, ?, ?)";
+
+    private static final String ACQUIRE_EXPIRED_LOCK_SQL =
+            "UPDATE scheduled_job_locks SET locked_until = ?, locked_at = ?, locked_by = ? " +
+            "WHERE job_name = ? AND locked_until <= ?";
+
+    private static final String EXTEND_LOCK_SQL =
+            "UPDATE scheduled_job_locks SET locked_until = ? WHERE job_name = ? AND locked_by = ? AND locked_until > ?";
+
+    private static final String RELEASE_LOCK_SQL =
+            "UPDATE scheduled_job_locks SET locked_until = ? WHERE job_name = ? AND locked_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Nhận khóa của job nếu chưa ai giữ hoặc lease của node trước đã hết.
+     *
+     * @return true nếu node này vừa nhận được khóa
+     */
+    public boolean tryAcquire(String jobName, String owner, LocalDateTime now, LocalDateTime lockUntil) {
+        if (jdbcTemplate.update(INSERT_LOCK_SQL, jobName, Timestamp.valueOf(lockUntil), Timestamp.valueOf(now), owner) == 1) {
+            return true;
+        }
+        return jdbcTemplate.update(ACQUIRE_EXPIRED_LOCK_SQL, Timestamp.valueOf(lockUntil), Timestamp.valueOf(now), owner,
+                jobName, Timestamp.valueOf(now)) == 1;
+    }
+
+    /**
+     * Gia hạn khóa đang giữ.
+     *
+     * @return false nếu lease đã hết hoặc node khác đã nhận khóa
+     */
+    public boolean extend(String jobName, String owner, LocalDateTime now, LocalDateTime lockUntil) {
+        return jdbcTemplate.update(EXTEND_LOCK_SQL, Timestamp.valueOf(lockUntil), jobName, owner, Timestamp.valueOf(now)) == 1;
+    }
+
+    /**
+     * Trả khóa (lease hết ngay tại {@code now}); không làm gì nếu node khác đang giữ.
+     */
+    public void release(String jobName, String owner, LocalDateTime now) {
+        jdbcTemplate.update(RELEASE_LOCK_SQL, Timestamp.valueOf(now), jobName, owner);
+    }
+}
@@ -1,6 +1,7 @@
 package com.swp391.warrantymanagement.repository;
 
 import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,7 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,28 +35,12 @@ public interface ServiceCenterRepository extends JpaRepository<ServiceCenter, Lo
            "LOWER(sc.address) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<ServiceCenter> searchByNameOrAddress(@Param("search") String search, Pageable pageable);
 
-    // Find service centers near a location (within radius in kilometers)
-    // Using Haversine formula to calculate distance
-    @Query("SELECT sc FROM ServiceCenter sc WHERE " +
-           "(6371 * acos(cos(radians(:latitude)) * cos(radians(sc.latitude)) * " +
-           "cos(radians(sc.longitude) - radians(:longitude)) + " +
-           "sin(radians(:latitude)) * sin(radians(sc.latitude)))) <= :radiusKm")
-    List<ServiceCenter> findServiceCentersNearLocation(
-            @Param("latitude") BigDecimal latitude,
-            @Param("longitude") BigDecimal longitude,
-            @Param("radiusKm") double radiusKm);
-
-    // Get all service centers ordered by distance from a location
-    @Query(value = "SELECT *, " + // Dùng SELECT * (hoặc sc.*)
-            "(6371 * acos(cos(radians(:latitude)) * cos(radians(sc.latitude)) * " +
-            "cos(radians(sc.longitude) - radians(:longitude)) + " +
-            "sin(radians(:latitude)) * sin(radians(sc.latitude)))) as distance " +
-            "FROM service_center sc " + // Tên bảng thực tế trong DB
-            "ORDER BY distance ASC", // Bây giờ có thể dùng 'distance'
-            nativeQuery = true) // <-- ĐÁNH DẤU LÀ NATIVE QUERY
-    List<Object[]> findAllOrderedByDistanceFrom(
-            @Param("latitude") BigDecimal latitude,
-            @Param("longitude") BigDecimal longitude);
+    // Tọa độ của tất cả service centers (projection nhẹ) để nạp vào ServiceCenterGeoIndex
+    @Query("SELECT sc.serviceCenterId, sc.latitude, sc.longitude FROM ServiceCenter sc")
+    List<Object[]> findAllCoordinates();
+
+    // Center chưa có tọa độ (không nằm trong ServiceCenterGeoIndex)
+    List<ServiceCenter> findByLatitudeIsNullOrLongitudeIsNull();
 
     // Count staff in service center
     @Query("SELECT COUNT(u) FROM User u WHERE u.serviceCenter.serviceCenterId = :serviceCenterId")
@@ -70,6 +55,26 @@ public interface ServiceCenterRepository extends JpaRepository<ServiceCenter, Lo
            "AND wc.status NOT IN ('COMPLETED', 'REJECTED')")
     Long countActiveClaimsByServiceCenter(@Param("serviceCenterId") Long serviceCenterId);
 
+    // ===== BULK STATISTICS (dùng cho danh sách nhiều service center, thay cho 4 query/center) =====
+
+    // Count staff per service center: List of [Long serviceCenterId, Long staffCount]
+    @Query("SELECT u.serviceCenter.serviceCenterId, COUNT(u) FROM User u " +
+           "WHERE u.serviceCenter.serviceCenterId IN :serviceCenterIds " +
+           "GROUP BY u.serviceCenter.serviceCenterId")
+    List<Object[]> countStaffGroupedByServiceCenter(@Param("serviceCenterIds") Collection<Long> serviceCenterIds);
+
+    // Claims, active claims và average rating per service center trong một query
+    // (Feedback - WarrantyClaim là 1-1 nên LEFT JOIN không nhân bản rating):
+    // List of [Long serviceCenterId, Long claimsCount, Long activeClaimsCount, Double averageRating]
+    @Query("SELECT wc.serviceCenter.serviceCenterId, COUNT(wc), " +
+           "SUM(CASE WHEN wc.status NOT IN :closedStatuses THEN 1 ELSE 0 END), AVG(f.rating) " +
+           "FROM WarrantyClaim wc LEFT JOIN Feedback f ON f.warrantyClaim = wc " +
+           "WHERE wc.serviceCenter.serviceCenterId IN :serviceCenterIds " +
+           "GROUP BY wc.serviceCenter.serviceCenterId")
+    List<Object[]> getClaimStatisticsGroupedByServiceCenter(
+            @Param("serviceCenterIds") Collection<Long> serviceCenterIds,
+            @Param("closedStatuses") Collection<WarrantyClaimStatus> closedStatuses);
+
     // Check if phone exists (for validation, excluding specific ID)
     @Query("SELECT CASE WHEN COUNT(sc) > 0 THEN true ELSE false END FROM ServiceCenter sc " +
            "WHERE sc.phone = :phone AND sc.serviceCenterId != :excludeId")
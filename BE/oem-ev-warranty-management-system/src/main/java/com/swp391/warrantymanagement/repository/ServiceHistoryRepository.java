@@ -1,14 +1,17 @@
 package com.swp391.warrantymanagement.repository;
 
 import com.swp391.warrantymanagement.entity.ServiceHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,7 +21,7 @@ import java.util.UUID;
  * - Tìm theo xe, customer, loại dịch vụ, thời gian
  */
 @Repository
-public interface ServiceHistoryRepository extends JpaRepository<ServiceHistory, Long> {
+public interface ServiceHistoryRepository extends JpaRepository<ServiceHistory, Long>, JpaSpecificationExecutor<ServiceHistory> {
     // Tìm theo loại dịch vụ
     List<ServiceHistory> findByServiceTypeContainingIgnoreCase(String serviceType);
     Page<ServiceHistory> findByServiceTypeContainingIgnoreCase(String serviceType, Pageable pageable);
@@ -50,4 +53,17 @@ public interface ServiceHistoryRepository extends JpaRepository<ServiceHistory,
             "LOWER(COALESCE(v.vehicleVin, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<ServiceHistory> searchServiceHistoriesGeneral(@Param("searchTerm") String searchTerm, Pageable pageable);
 
+    // ===== Nguồn dữ liệu cho FullTextSearchIndex (mỗi dòng: serviceHistoryId, serviceType, description, vehicleName, vehicleVin) =====
+
+    String SEARCH_ROW_SELECT = "SELECT sh.serviceHistoryId, sh.serviceType, sh.description, v.vehicleName, v.vehicleVin " +
+            "FROM ServiceHistory sh LEFT JOIN sh.vehicle v ";
+
+    @Query(SEARCH_ROW_SELECT + "WHERE (:after IS NULL OR sh.serviceHistoryId > :after) ORDER BY sh.serviceHistoryId")
+    List<Object[]> findSearchRows(@Param("after") Long after, Limit limit);
+
+    @Query(SEARCH_ROW_SELECT + "WHERE sh.serviceHistoryId IN :ids")
+    List<Object[]> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT sh.serviceHistoryId FROM ServiceHistory sh WHERE sh.vehicle.vehicleId IN :vehicleIds")
+    List<Long> findIdsByVehicleIds(@Param("vehicleIds") Collection<Long> vehicleIds);
 }
@@ -1,14 +1,24 @@
 package com.swp391.warrantymanagement.repository;
 
+import com.swp391.warrantymanagement.config.CacheConfig;
+import com.swp391.warrantymanagement.dto.projection.TechnicianLoadView;
 import com.swp391.warrantymanagement.entity.Role;
 import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -32,9 +42,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     // Lấy role name của user theo username (để tránh lazy loading)
+    // Cache theo username, evict qua UserSecurityChangedEvent
+    @Cacheable(cacheNames = CacheConfig.USER_ROLES_CACHE, key = "#username")
     @Query("SELECT r.roleName FROM User u JOIN u.role r WHERE u.username = :username")
     Optional<String> findRoleNameByUsername(@Param("username") String username);
 
+    // Lấy token version hiện tại của user (scalar query, không load entity)
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.userId = :userId")
+    Optional<Integer> findTokenVersionByUserId(@Param("userId") Long userId);
+
+    // Khóa dòng user (SELECT ... FOR UPDATE) tới hết transaction: tuần tự hóa giới hạn claim/ngày của technician giữa các node
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.userId = :userId")
+    Optional<User> findByIdForUpdate(@Param("userId") Long userId);
+
     // ============= User Management Methods =============
     // Tìm users theo role (phân trang)
     Page<User> findByRole(Role role, Pageable pageable);
@@ -90,4 +111,34 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> searchUsersGeneralWithRole(@Param("searchTerm") String searchTerm,
                                            @Param("role") Role role,
                                            Pageable pageable);
+
+    /**
+     * Tải việc của mọi user có role {@code roleName} thuộc một service center, trong MỘT query
+     * (2 subquery tương quan thay vì một query cho mỗi technician).
+     * @param serviceCenterId Service center cần lấy.
+     * @param roleName Tên role (SC_TECHNICIAN).
+     * @param openStatuses Các trạng thái claim tính là đang mở.
+     * @param startOfDay Đầu ngày hôm nay (đếm work log đã bắt đầu).
+     * @param endOfDay Cuối ngày hôm nay.
+     * @return Mỗi technician một dòng.
+     */
+    @Query("SELECT new com.swp391.warrantymanagement.dto.projection.TechnicianLoadView(u.userId, " +
+            "(SELECT COUNT(wc) FROM WarrantyClaim wc WHERE wc.assignedTo = u AND wc.status IN :openStatuses), " +
+            "(SELECT COUNT(wl) FROM WorkLog wl WHERE wl.user = u AND wl.startTime BETWEEN :startOfDay AND :endOfDay)) " +
+            "FROM User u WHERE u.serviceCenter.serviceCenterId = :serviceCenterId AND u.role.roleName = :roleName")
+    List<TechnicianLoadView> findTechnicianLoads(@Param("serviceCenterId") Long serviceCenterId,
+                                                 @Param("roleName") String roleName,
+                                                 @Param("openStatuses") Collection<WarrantyClaimStatus> openStatuses,
+                                                 @Param("startOfDay") LocalDateTime startOfDay,
+                                                 @Param("endOfDay") LocalDateTime endOfDay);
+
+    // ===== Nguồn dữ liệu cho FullTextSearchIndex (mỗi dòng: userId, username, email, roleId) =====
+
+    String SEARCH_ROW_SELECT = "SELECT u.userId, u.username, u.email, r.roleId FROM User u LEFT JOIN u.role r ";
+
+    @Query(SEARCH_ROW_SELECT + "WHERE (:after IS NULL OR u.userId > :after) ORDER BY u.userId")
+    List<Object[]> findSearchRows(@Param("after") Long after, Limit limit);
+
+    @Query(SEARCH_ROW_SELECT + "WHERE u.userId IN :ids")
+    List<Object[]> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,75 @@
+package com.swp391.warrantymanagement.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Repository JDBC ghi số km đã gom (coalesce) từ luồng ingest telematics vào {@code vehicles.mileage}.
+ * <p>
+ * <strong>Tại sao không dùng JPA:</strong> cập nhật km qua {@link VehicleRepository} phải load entity rồi dirty-check
+ * từng xe. Ở đây mỗi xe là một câu UPDATE theo VIN (index unique) trong một JDBC batch, không load gì.
+ * <p>
+ * Điều kiện {@code mileage <= ?} giữ km đơn điệu ngay cả khi số km trong DB đã cao hơn (sửa tay, node khác ghi trước):
+ * câu UPDATE đó không đổi dòng nào thay vì làm km giảm.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VehicleMileageBulkRepository {
+
+    private static final String UPDATE_MILEAGE_SQL =
+            "UPDATE vehicles SET mileage = ? WHERE vehicle_vin = ? AND mileage <= ?";
+
+    private static final String FIND_VEHICLE_IDS_BY_VIN_SQL =
+            "SELECT vehicle_id, vehicle_vin FROM vehicles WHERE vehicle_vin IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Số km cần ghi cho một xe.
+     */
+    public record MileageUpdate(String vin, int mileage) {
+    }
+
+    /**
+     * Cập nhật km của các xe bằng một JDBC batch.
+     *
+     * @return số dòng bị ảnh hưởng của từng phần tử, theo thứ tự {@code updates}
+     * (0 = VIN không tồn tại hoặc km trong DB đã cao hơn)
+     */
+    public int[] updateMileages(List<MileageUpdate> updates) {
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_MILEAGE_SQL, updates, updates.size(), (ps, update) -> {
+            ps.setInt(1, update.mileage());
+            ps.setString(2, update.vin());
+            ps.setInt(3, update.mileage());
+        });
+        return counts.length > 0 ? counts[0] : new int[0];
+    }
+
+    /**
+     * Vehicle ID theo VIN (để ghi lịch sử km của các xe vừa cập nhật).
+     *
+     * @return VIN viết hoa → vehicle ID; VIN không tồn tại không có trong map
+     */
+    public Map<String, Long> findVehicleIdsByVin(Collection<String> vins) {
+        Map<String, Long> vehicleIds = new HashMap<>();
+        if (vins.isEmpty()) {
+            return vehicleIds;
+        }
+        String sql = String.format(FIND_VEHICLE_IDS_BY_VIN_SQL, String.join(", ", Collections.nCopies(vins.size(), "?")));
+        jdbcTemplate.query(sql,
+                rs -> {
+                    // Không phân biệt hoa thường, giống collation của cột VIN trên MySQL
+                    vehicleIds.put(rs.getString("vehicle_vin").toUpperCase(Locale.ROOT), rs.getLong("vehicle_id"));
+                },
+                vins.toArray());
+        return vehicleIds;
+    }
+}
@@ -0,0 +1,183 @@
+package com.swp391.warrantymanagement.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Repository JDBC cho lịch sử công-tơ-mét nén ({@code vehicle_mileage_history_blocks}, mỗi xe một chuỗi block liên tiếp,
+ * khóa theo thời điểm điểm đầu tiên của block).
+ * <p>
+ * <strong>Ghi:</strong> khóa dòng {@code vehicles} của các xe (theo vehicle_id tăng dần), rồi đọc block mới nhất bằng
+ * {@code SELECT ... FOR UPDATE}, nối điểm trong Java và ghi lại bằng JDBC batch. Khóa dòng xe trước tiên giữ cùng một
+ * thứ tự khóa (xe → lịch sử) với mọi luồng ghi, và tuần tự hóa cả lần ghi đầu tiên của xe - khi chưa có block nào để
+ * khóa, hai node không thể cùng INSERT một khóa chính. Không nối phía server bằng {@code CONCAT} vì
+ * không giữ nguyên dữ liệu nhị phân trên mọi DB (H2 chuyển sang chuỗi ký tự).
+ * <p>
+ * <strong>Đọc:</strong> truy vấn theo khóa chính {@code (vehicle_id, block_start)}; block được đưa ra từng dòng qua
+ * callback để giải mã tuần tự, không giữ cả khoảng thời gian trong bộ nhớ.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VehicleMileageHistoryRepository {
+
+    private static final String BLOCK_COLUMNS =
+            "h.vehicle_id, h.block_start, h.point_count, h.last_recorded_at, h.last_mileage, h.data";
+
+    private static final String LOCK_VEHICLES_SQL =
+            "SELECT vehicle_id FROM vehicles WHERE vehicle_id IN (%s) ORDER BY vehicle_id FOR UPDATE";
+
+    private static final String FIND_LATEST_BLOCKS_FOR_UPDATE_SQL =
+            "SELECT " + BLOCK_COLUMNS + " FROM vehicle_mileage_history_blocks h " +
+            "WHERE h.vehicle_id IN (%s) " +
+            "AND h.block_start = (SELECT MAX(h2.block_start) FROM vehicle_mileage_history_blocks h2 WHERE h2.vehicle_id = h.vehicle_id) " +
+            "FOR UPDATE";
+
+    // Block gần nhất có điểm đầu không muộn hơn thời điểm cần tra (block đầu tiên theo PK giảm dần)
+    private static final String FIND_BLOCK_AT_OR_BEFORE_SQL =
+            "SELECT " + BLOCK_COLUMNS + " FROM vehicle_mileage_history_blocks h " +
+            "WHERE h.vehicle_id = ? AND h.block_start <= ? ORDER BY h.block_start DESC LIMIT 1";
+
+    // Từ block chứa 'from' (hoặc block đầu tiên sau 'from') đến block cuối bắt đầu không muộn hơn 'to' - range scan trên PK
+    private static final String FIND_BLOCKS_IN_RANGE_SQL =
+            "SELECT " + BLOCK_COLUMNS + " FROM vehicle_mileage_history_blocks h " +
+            "WHERE h.vehicle_id = ? AND h.block_start <= ? AND h.block_start >= COALESCE(" +
+            "(SELECT MAX(h2.block_start) FROM vehicle_mileage_history_blocks h2 WHERE h2.vehicle_id = ? AND h2.block_start <= ?), ?) " +
+            "ORDER BY h.block_start";
+
+    private static final String INSERT_BLOCK_SQL =
+            "INSERT INTO vehicle_mileage_history_blocks (vehicle_id, block_start, point_count, " +
+            "last_recorded_at, last_mileage, data) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_BLOCK_SQL =
+            "UPDATE vehicle_mileage_history_blocks SET point_count = ?, last_recorded_at = ?, last_mileage = ?, data = ? " +
+            "WHERE vehicle_id = ? AND block_start = ?";
+
+    private static final String DELETE_BY_VEHICLE_SQL =
+            "DELETE FROM vehicle_mileage_history_blocks WHERE vehicle_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Một số đo km cần ghi vào lịch sử.
+     */
+    public record MileageSample(long vehicleId, int mileage, LocalDateTime recordedAt) {
+    }
+
+    /**
+     * Một block lịch sử của một xe; {@code blockStart} là thời điểm điểm đầu tiên.
+     */
+    public record BlockRow(long vehicleId, LocalDateTime blockStart, int pointCount,
+                           LocalDateTime lastRecordedAt, int lastMileage, byte[] data) {
+    }
+
+    /**
+     * Khóa dòng {@code vehicles} của các xe đến hết transaction. Phải gọi trong transaction, trước
+     * {@link #findLatestBlocksForUpdate}. Dòng đã được caller khóa (UPDATE km trong cùng transaction) không phải chờ.
+     */
+    public void lockVehicles(Collection<Long> vehicleIds) {
+        if (vehicleIds.isEmpty()) {
+            return;
+        }
+        String sql = String.format(LOCK_VEHICLES_SQL, String.join(", ", Collections.nCopies(vehicleIds.size(), "?")));
+        jdbcTemplate.query(sql, rs -> {
+        }, vehicleIds.toArray());
+    }
+
+    /**
+     * Block mới nhất của mỗi xe, khóa dòng đến hết transaction. Phải gọi trong transaction.
+     *
+     * @return vehicle ID → block; xe chưa có lịch sử không có trong map
+     */
+    public Map<Long, BlockRow> findLatestBlocksForUpdate(Collection<Long> vehicleIds) {
+        Map<Long, BlockRow> blocks = new HashMap<>();
+        if (vehicleIds.isEmpty()) {
+            return blocks;
+        }
+        String sql = String.format(FIND_LATEST_BLOCKS_FOR_UPDATE_SQL, String.join(", ", Collections.nCopies(vehicleIds.size(), "?")));
+        jdbcTemplate.query(sql,
+                rs -> {
+                    BlockRow block = mapBlock(rs);
+                    blocks.put(block.vehicleId(), block);
+                },
+                vehicleIds.toArray());
+        return blocks;
+    }
+
+    /**
+     * Block chứa số đo cuối cùng không muộn hơn {@code at}, hoặc {@code null} nếu xe chưa có số đo nào trước đó.
+     */
+    public BlockRow findBlockAtOrBefore(long vehicleId, LocalDateTime at) {
+        List<BlockRow> blocks = jdbcTemplate.query(FIND_BLOCK_AT_OR_BEFORE_SQL, (rs, rowNum) -> mapBlock(rs),
+                vehicleId, Timestamp.valueOf(at));
+        return blocks.isEmpty() ? null : blocks.get(0);
+    }
+
+    /**
+     * Duyệt các block của xe có thể chứa điểm trong [from, to], theo thứ tự thời gian.
+     */
+    public void forEachBlock(long vehicleId, LocalDateTime from, LocalDateTime to, Consumer<BlockRow> consumer) {
+        Timestamp fromTimestamp = Timestamp.valueOf(from);
+        jdbcTemplate.query(FIND_BLOCKS_IN_RANGE_SQL,
+                rs -> {
+                    consumer.accept(mapBlock(rs));
+                },
+                vehicleId, Timestamp.valueOf(to), vehicleId, fromTimestamp, fromTimestamp);
+    }
+
+    /**
+     * Thêm các block mới bằng một JDBC batch.
+     */
+    public void insertBlocks(List<BlockRow> blocks) {
+        jdbcTemplate.batchUpdate(INSERT_BLOCK_SQL, blocks, blocks.size(), (ps, block) -> {
+            ps.setLong(1, block.vehicleId());
+            ps.setTimestamp(2, Timestamp.valueOf(block.blockStart()));
+            ps.setInt(3, block.pointCount());
+            ps.setTimestamp(4, Timestamp.valueOf(block.lastRecordedAt()));
+            ps.setInt(5, block.lastMileage());
+            ps.setBytes(6, block.data());
+        });
+    }
+
+    /**
+     * Ghi lại các block đã nối thêm điểm bằng một JDBC batch.
+     */
+    public void updateBlocks(List<BlockRow> blocks) {
+        jdbcTemplate.batchUpdate(UPDATE_BLOCK_SQL, blocks, blocks.size(), (ps, block) -> {
+            ps.setInt(1, block.pointCount());
+            ps.setTimestamp(2, Timestamp.valueOf(block.lastRecordedAt()));
+            ps.setInt(3, block.lastMileage());
+            ps.setBytes(4, block.data());
+            ps.setLong(5, block.vehicleId());
+            ps.setTimestamp(6, Timestamp.valueOf(block.blockStart()));
+        });
+    }
+
+    /**
+     * Xóa toàn bộ lịch sử của xe (khi xóa xe).
+     */
+    public int deleteByVehicleId(long vehicleId) {
+        return jdbcTemplate.update(DELETE_BY_VEHICLE_SQL, vehicleId);
+    }
+
+    private static BlockRow mapBlock(ResultSet rs) throws SQLException {
+        return new BlockRow(
+                rs.getLong("vehicle_id"),
+                rs.getTimestamp("block_start").toLocalDateTime(),
+                rs.getInt("point_count"),
+                rs.getTimestamp("last_recorded_at").toLocalDateTime(),
+                rs.getInt("last_mileage"),
+                rs.getBytes("data"));
+    }
+}
@@ -1,7 +1,9 @@
 package com.swp391.warrantymanagement.repository;
 
+import com.swp391.warrantymanagement.dto.projection.VehicleListView;
 import com.swp391.warrantymanagement.entity.Customer;
 import com.swp391.warrantymanagement.entity.Vehicle;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -39,6 +42,8 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
 
     // Tìm xe theo VIN (Vehicle Identification Number - unique)
     Optional<Vehicle> findByVehicleVin(String vehicleVin);
+    // Tra cứu bảo hành hàng loạt: một query IN cho cả danh sách VIN
+    List<Vehicle> findByVehicleVinIn(Collection<String> vehicleVins);
     boolean existsByVehicleVin(String vehicleVin);
 
     // Warranty expiring methods
@@ -58,4 +63,43 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
             "LOWER(COALESCE(v.vehicleModel, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(COALESCE(v.vehicleVin, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     Page<Vehicle> searchVehiclesGeneral(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // ===== Read-only listing projections (VehicleListView, không tạo entity managed) =====
+
+    String LIST_VIEW_SELECT = "SELECT new com.swp391.warrantymanagement.dto.projection.VehicleListView(" +
+            "v.vehicleId, v.vehicleName, v.vehicleModel, v.vehicleYear, v.vehicleVin, " +
+            "v.purchaseDate, v.warrantyStartDate, v.warrantyEndDate, v.mileage, c.customerId, c.name) " +
+            "FROM Vehicle v LEFT JOIN v.customer c ";
+
+    @Query(value = LIST_VIEW_SELECT,
+           countQuery = "SELECT COUNT(v) FROM Vehicle v")
+    Page<VehicleListView> findAllListViews(Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE c.customerId = :customerId",
+           countQuery = "SELECT COUNT(v) FROM Vehicle v WHERE v.customer.customerId = :customerId")
+    Page<VehicleListView> findListViewsByCustomerId(@Param("customerId") UUID customerId, Pageable pageable);
+
+    // Cùng điều kiện với searchVehiclesGeneral
+    @Query(value = LIST_VIEW_SELECT + "WHERE " +
+            "LOWER(COALESCE(v.vehicleName, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(COALESCE(v.vehicleModel, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(COALESCE(v.vehicleVin, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%'))",
+           countQuery = "SELECT COUNT(v) FROM Vehicle v WHERE " +
+            "LOWER(COALESCE(v.vehicleName, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(COALESCE(v.vehicleModel, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+            "LOWER(COALESCE(v.vehicleVin, '')) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    Page<VehicleListView> searchListViewsGeneral(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // ===== Nguồn dữ liệu cho FullTextSearchIndex (mỗi dòng: vehicleId, vehicleName, vehicleModel, vehicleVin) =====
+
+    String SEARCH_ROW_SELECT = "SELECT v.vehicleId, v.vehicleName, v.vehicleModel, v.vehicleVin FROM Vehicle v ";
+
+    @Query(SEARCH_ROW_SELECT + "WHERE (:after IS NULL OR v.vehicleId > :after) ORDER BY v.vehicleId")
+    List<Object[]> findSearchRows(@Param("after") Long after, Limit limit);
+
+    @Query(SEARCH_ROW_SELECT + "WHERE v.vehicleId IN :ids")
+    List<Object[]> findSearchRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(LIST_VIEW_SELECT + "WHERE v.vehicleId IN :ids")
+    List<VehicleListView> findListViewsByVehicleIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,14 +1,27 @@
 package com.swp391.warrantymanagement.repository;
 
+import com.swp391.warrantymanagement.dto.projection.WarrantyClaimListView;
 import com.swp391.warrantymanagement.entity.User;
 import com.swp391.warrantymanagement.entity.WarrantyClaim;
 import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository để quản lý WarrantyClaim
@@ -16,7 +29,7 @@ import java.util.List;
  * - Hỗ trợ filter cho từng role (customer chỉ xem claim của mình)
  */
 @Repository
-public interface WarrantyClaimRepository extends JpaRepository<WarrantyClaim, Long> {
+public interface WarrantyClaimRepository extends JpaRepository<WarrantyClaim, Long>, JpaSpecificationExecutor<WarrantyClaim> {
     // Tìm claim theo trạng thái (SUBMITTED, APPROVED, IN_PROGRESS, RESOLVED, REJECTED)
     List<WarrantyClaim> findByStatus(WarrantyClaimStatus status);
     Page<WarrantyClaim> findByStatus(WarrantyClaimStatus status, Pageable pageable);
@@ -41,4 +54,141 @@ public interface WarrantyClaimRepository extends JpaRepository<WarrantyClaim, Lo
     java.util.Optional<WarrantyClaim> findByWarrantyClaimIdAndVehicleCustomerCustomerId(Long claimId, java.util.UUID customerId);
 
     boolean existsByAssignedTo(User assignedTo);
+
+    // Load claim kèm mọi quan hệ mà WarrantyClaimMapper.toResponseDTO đọc tới trong 1 query
+    @EntityGraph(WarrantyClaim.RESPONSE_GRAPH)
+    java.util.Optional<WarrantyClaim> findWithDetailsByWarrantyClaimId(Long claimId);
+
+    // ===== Read-only listing projections =====
+    // Select thẳng vào WarrantyClaimListView (không tạo entity managed): mỗi trang 2 query (dữ liệu + count).
+
+    String LIST_VIEW_SELECT = "SELECT new com.swp391.warrantymanagement.dto.projection.WarrantyClaimListView(" +
+            "wc.warrantyClaimId, wc.claimDate, wc.status, wc.description, wc.resolutionDate, " +
+            "ip.installedPartId, p.partId, p.partName, p.partNumber, p.manufacturer, " +
+            "v.vehicleId, v.vehicleName, v.vehicleModel, v.vehicleYear, v.vehicleVin, " +
+            "c.customerId, c.name, c.phone, cu.email, " +
+            "a.userId, a.username, a.email, sc.serviceCenterId, sc.name, " +
+            "wc.isPaidWarranty, wc.warrantyFee, wc.paidWarrantyNote) " +
+            "FROM WarrantyClaim wc " +
+            "LEFT JOIN wc.installedPart ip LEFT JOIN ip.part p " +
+            "LEFT JOIN wc.vehicle v LEFT JOIN v.customer c LEFT JOIN c.user cu " +
+            "LEFT JOIN wc.assignedTo a LEFT JOIN wc.serviceCenter sc ";
+
+    @Query(value = LIST_VIEW_SELECT,
+           countQuery = "SELECT COUNT(wc) FROM WarrantyClaim wc")
+    Page<WarrantyClaimListView> findAllListViews(Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE wc.status = :status",
+           countQuery = "SELECT COUNT(wc) FROM WarrantyClaim wc WHERE wc.status = :status")
+    Page<WarrantyClaimListView> findListViewsByStatus(@Param("status") WarrantyClaimStatus status, Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE wc.status IN :statuses",
+           countQuery = "SELECT COUNT(wc) FROM WarrantyClaim wc WHERE wc.status IN :statuses")
+    Page<WarrantyClaimListView> findListViewsByStatusIn(@Param("statuses") List<WarrantyClaimStatus> statuses,
+                                                        Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE a.userId = :userId",
+           countQuery = "SELECT COUNT(wc) FROM WarrantyClaim wc WHERE wc.assignedTo.userId = :userId")
+    Page<WarrantyClaimListView> findListViewsByAssignedToUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE c.customerId = :customerId",
+           countQuery = "SELECT COUNT(wc) FROM WarrantyClaim wc WHERE wc.vehicle.customer.customerId = :customerId")
+    Page<WarrantyClaimListView> findListViewsByCustomerId(@Param("customerId") java.util.UUID customerId,
+                                                          Pageable pageable);
+
+    // ===== Conditional status transitions =====
+    // Mỗi bước chuyển là MỘT câu UPDATE có điều kiện status IN (nguồn hợp lệ theo WarrantyClaimStatusValidator):
+    // 0 dòng = claim không tồn tại hoặc đã bị request khác chuyển trạng thái (không mất cập nhật, không SELECT trước).
+
+    @Query("SELECT wc.status FROM WarrantyClaim wc WHERE wc.warrantyClaimId = :claimId")
+    Optional<WarrantyClaimStatus> findStatusById(@Param("claimId") Long claimId);
+
+    /**
+     * Chuyển trạng thái và nối {@code note} vào cuối description (truyền chuỗi rỗng nếu không có ghi chú).
+     *
+     * @return số dòng được cập nhật (0 hoặc 1)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WarrantyClaim wc SET wc.status = :toStatus, " +
+           "wc.description = CONCAT(COALESCE(wc.description, ''), :note) " +
+           "WHERE wc.warrantyClaimId = :claimId AND wc.status IN :fromStatuses")
+    int transitionStatus(@Param("claimId") Long claimId,
+                         @Param("fromStatuses") Collection<WarrantyClaimStatus> fromStatuses,
+                         @Param("toStatus") WarrantyClaimStatus toStatus,
+                         @Param("note") String note);
+
+    /**
+     * Như {@link #transitionStatus} và ghi thêm resolution date (COMPLETED/REJECTED).
+     *
+     * @return số dòng được cập nhật (0 hoặc 1)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WarrantyClaim wc SET wc.status = :toStatus, " +
+           "wc.description = CONCAT(COALESCE(wc.description, ''), :note), wc.resolutionDate = :resolutionDate " +
+           "WHERE wc.warrantyClaimId = :claimId AND wc.status IN :fromStatuses")
+    int resolveStatus(@Param("claimId") Long claimId,
+                      @Param("fromStatuses") Collection<WarrantyClaimStatus> fromStatuses,
+                      @Param("toStatus") WarrantyClaimStatus toStatus,
+                      @Param("note") String note,
+                      @Param("resolutionDate") LocalDateTime resolutionDate);
+
+    // ===== Claim dispatch (assign) =====
+    // Gán người xử lý cũng là conditional update: chỉ gán khi claim chưa có ai nhận (hoặc đã là của chính người đó),
+    // nên hai người bấm cùng lúc không thể cùng nhận một claim.
+
+    /**
+     * Gán claim cho {@code assignee} nếu claim chưa được gán cho người khác.
+     *
+     * @return số dòng được cập nhật (0 = claim không tồn tại hoặc đã thuộc về người khác)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WarrantyClaim wc SET wc.assignedTo = :assignee " +
+           "WHERE wc.warrantyClaimId = :claimId AND (wc.assignedTo IS NULL OR wc.assignedTo = :assignee)")
+    int assignIfUnassigned(@Param("claimId") Long claimId, @Param("assignee") User assignee);
+
+    /**
+     * Gán claim đang chờ nhận (đúng {@code status}, chưa có ai nhận) cho {@code assignee} - dùng cho hàng đợi nhận việc.
+     *
+     * @return số dòng được cập nhật (0 = claim vừa bị người khác nhận hoặc đã đổi trạng thái)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WarrantyClaim wc SET wc.assignedTo = :assignee " +
+           "WHERE wc.warrantyClaimId = :claimId AND wc.status = :status AND wc.assignedTo IS NULL")
+    int dispatchIfUnassigned(@Param("claimId") Long claimId,
+                             @Param("status") WarrantyClaimStatus status,
+                             @Param("assignee") User assignee);
+
+    @Query("SELECT a.username FROM WarrantyClaim wc JOIN wc.assignedTo a WHERE wc.warrantyClaimId = :claimId")
+    Optional<String> findAssigneeUsernameById(@Param("claimId") Long claimId);
+
+    /**
+     * ID các claim chờ nhận cũ nhất ở trạng thái {@code status} - nguồn nạp lại của {@code ClaimDispatchQueue}.
+     *
+     * @param serviceCenterId chỉ lấy claim của trung tâm này; {@code null} = mọi trung tâm
+     */
+    @Query("SELECT wc.warrantyClaimId FROM WarrantyClaim wc WHERE wc.status = :status AND wc.assignedTo IS NULL " +
+           "AND (:serviceCenterId IS NULL OR wc.serviceCenter.serviceCenterId = :serviceCenterId) " +
+           "ORDER BY wc.claimDate, wc.warrantyClaimId")
+    List<Long> findDispatchCandidateIds(@Param("status") WarrantyClaimStatus status,
+                                        @Param("serviceCenterId") Long serviceCenterId,
+                                        Limit limit);
+
+    /**
+     * Specification fetch join các quan hệ mà WarrantyClaimMapper đọc (tương đương {@link WarrantyClaim#RESPONSE_GRAPH})
+     * - dùng cho các truy vấn Specification/keyset không gắn được entity graph.
+     * Bỏ qua fetch với count query.
+     */
+    static Specification<WarrantyClaim> fetchResponseAssociations() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("installedPart", JoinType.LEFT).fetch("part", JoinType.LEFT);
+                Fetch<?, ?> customer = root.fetch("vehicle", JoinType.LEFT).fetch("customer", JoinType.LEFT);
+                // User.customer là phía inverse của one-to-one (luôn EAGER) nên phải fetch cùng
+                customer.fetch("user", JoinType.LEFT).fetch("customer", JoinType.LEFT);
+                root.fetch("assignedTo", JoinType.LEFT).fetch("customer", JoinType.LEFT);
+                root.fetch("serviceCenter", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
 }
@@ -0,0 +1,31 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.entity.WarrantyExpiryBucket;
+import com.swp391.warrantymanagement.entity.id.WarrantyExpiryBucketId;
+import com.swp391.warrantymanagement.enums.WarrantyExpiryScope;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository đọc bảng bucket hết hạn bảo hành (ghi bằng {@link WarrantyExpiryProjectionRepository}).
+ */
+@Repository
+public interface WarrantyExpiryBucketRepository extends JpaRepository<WarrantyExpiryBucket, WarrantyExpiryBucketId> {
+
+    /**
+     * Mọi bucket (các đối tượng x các cửa sổ ngày) của một phạm vi - tối đa vài dòng, đọc theo tiền tố khóa chính.
+     */
+    @Query("SELECT b FROM WarrantyExpiryBucket b WHERE b.id.scope = :scope AND b.id.scopeKey = :scopeKey")
+    List<WarrantyExpiryBucket> findByScope(@Param("scope") WarrantyExpiryScope scope, @Param("scopeKey") String scopeKey);
+
+    /**
+     * Thời điểm dựng gần nhất, null nếu projection chưa từng chạy.
+     */
+    @Query("SELECT MAX(b.refreshedAt) FROM WarrantyExpiryBucket b")
+    LocalDateTime findLastRefreshedAt();
+}
@@ -0,0 +1,175 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.entity.InstalledPartWarrantySnapshot;
+import com.swp391.warrantymanagement.entity.WarrantyExpiryBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository JDBC cho job dựng projection hết hạn bảo hành ({@code warranty_expiry_buckets},
+ * {@code installed_part_warranty_status}).
+ * <p>
+ * <strong>Đọc:</strong> keyset theo {@code vehicle_id} - mỗi chunk là một khoảng (afterId, lastId] của xe; linh kiện
+ * của các xe đó được đọc bằng range query trên cùng khoảng (index khóa ngoại {@code vehicle_id}),
+ * nên cả job là một lượt quét mỗi bảng, không OFFSET, không IN list, và chỉ đọc các cột cần cho quy tắc bảo hành.
+ * <p>
+ * <strong>Ghi:</strong> JDBC batch {@code INSERT ... ON DUPLICATE KEY UPDATE} (upsert) rồi xóa các dòng không được
+ * chạm tới trong lần chạy ({@code refreshed_at} cũ hơn). Bảng không bao giờ rỗng giữa chừng như khi TRUNCATE + INSERT.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WarrantyExpiryProjectionRepository {
+
+    // Service center phụ trách = trung tâm của tài khoản chủ xe (customer.user.serviceCenter), như khi tạo claim từ recall
+    private static final String FIND_VEHICLES_SQL =
+            "SELECT v.vehicle_id, v.customer_id, v.warranty_end_date, v.mileage, u.service_center_id FROM vehicles v " +
+            "LEFT JOIN customers c ON c.customer_id = v.customer_id LEFT JOIN users u ON u.user_id = c.user_id " +
+            "WHERE v.vehicle_id > ? ORDER BY v.vehicle_id LIMIT ?";
+
+    private static final String FIND_ACTIVE_INSTALLED_PARTS_SQL =
+            "SELECT ip.installed_part_id, ip.vehicle_id, ip.part_id, ip.warranty_expiration_date, " +
+            "ip.mileage_at_installation, ip.warranty_mileage_limit, p.has_extended_warranty, p.default_warranty_mileage " +
+            "FROM installed_parts ip JOIN parts p ON p.part_id = ip.part_id " +
+            "WHERE ip.vehicle_id > ? AND ip.vehicle_id <= ? AND ip.is_active = TRUE";
+
+    private static final String UPSERT_SNAPSHOT_SQL =
+            "INSERT INTO installed_part_warranty_status (installed_part_id, vehicle_id, customer_id, service_center_id, " +
+            "part_id, warranty_expiration_date, warranty_status, days_remaining, as_of_date, refreshed_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE vehicle_id = VALUES(vehicle_id), customer_id = VALUES(customer_id), " +
+            "service_center_id = VALUES(service_center_id), part_id = VALUES(part_id), " +
+            "warranty_expiration_date = VALUES(warranty_expiration_date), warranty_status = VALUES(warranty_status), " +
+            "days_remaining = VALUES(days_remaining), as_of_date = VALUES(as_of_date), refreshed_at = VALUES(refreshed_at)";
+
+    private static final String DELETE_STALE_SNAPSHOTS_SQL =
+            "DELETE FROM installed_part_warranty_status WHERE refreshed_at < ?";
+
+    private static final String UPSERT_BUCKET_SQL =
+            "INSERT INTO warranty_expiry_buckets (subject, scope, scope_key, window_days, expiring_count, as_of_date, refreshed_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE expiring_count = VALUES(expiring_count), as_of_date = VALUES(as_of_date), " +
+            "refreshed_at = VALUES(refreshed_at)";
+
+    private static final String DELETE_STALE_BUCKETS_SQL =
+            "DELETE FROM warranty_expiry_buckets WHERE refreshed_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Cột của xe cần cho bảo hành xe và bảo hành linh kiện thường, kèm service center của chủ xe (null nếu không có).
+     */
+    public record VehicleRow(long vehicleId, String customerId, LocalDate warrantyEndDate, int mileage,
+                             Long serviceCenterId) {
+    }
+
+    /**
+     * Cột của linh kiện đang hoạt động (kèm cấu hình bảo hành của Part) cần cho quy tắc bảo hành.
+     */
+    public record InstalledPartRow(long installedPartId, long vehicleId, long partId, LocalDate warrantyExpirationDate,
+                                   int mileageAtInstallation, Integer warrantyMileageLimit,
+                                   boolean hasExtendedWarranty, Integer defaultWarrantyMileage) {
+    }
+
+    /**
+     * Chunk tiếp theo của xe theo keyset.
+     *
+     * @param afterVehicleId chỉ lấy vehicle_id lớn hơn giá trị này (0 để bắt đầu từ đầu)
+     * @return danh sách xe tăng dần theo ID, rỗng nếu đã hết
+     */
+    public List<VehicleRow> findVehicles(long afterVehicleId, int limit) {
+        return jdbcTemplate.query(FIND_VEHICLES_SQL, (rs, rowNum) -> new VehicleRow(
+                rs.getLong("vehicle_id"),
+                rs.getString("customer_id"),
+                rs.getDate("warranty_end_date").toLocalDate(),
+                rs.getInt("mileage"),
+                nullableLong(rs, "service_center_id")), afterVehicleId, limit);
+    }
+
+    /**
+     * Linh kiện đang hoạt động của các xe có ID trong (fromVehicleIdExclusive, toVehicleIdInclusive].
+     */
+    public List<InstalledPartRow> findActiveInstalledParts(long fromVehicleIdExclusive, long toVehicleIdInclusive) {
+        return jdbcTemplate.query(FIND_ACTIVE_INSTALLED_PARTS_SQL, (rs, rowNum) -> new InstalledPartRow(
+                rs.getLong("installed_part_id"),
+                rs.getLong("vehicle_id"),
+                rs.getLong("part_id"),
+                rs.getDate("warranty_expiration_date").toLocalDate(),
+                rs.getInt("mileage_at_installation"),
+                nullableInt(rs, "warranty_mileage_limit"),
+                rs.getBoolean("has_extended_warranty"),
+                nullableInt(rs, "default_warranty_mileage")), fromVehicleIdExclusive, toVehicleIdInclusive);
+    }
+
+    /**
+     * Upsert trạng thái bảo hành của linh kiện bằng một JDBC batch.
+     */
+    public int upsertSnapshots(List<InstalledPartWarrantySnapshot> snapshots) {
+        jdbcTemplate.batchUpdate(UPSERT_SNAPSHOT_SQL, snapshots, snapshots.size(), (ps, snapshot) -> {
+            ps.setLong(1, snapshot.getInstalledPartId());
+            ps.setLong(2, snapshot.getVehicleId());
+            ps.setString(3, snapshot.getCustomerId().toString());
+            if (snapshot.getServiceCenterId() != null) {
+                ps.setLong(4, snapshot.getServiceCenterId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            ps.setLong(5, snapshot.getPartId());
+            ps.setDate(6, Date.valueOf(snapshot.getWarrantyExpirationDate()));
+            ps.setString(7, snapshot.getWarrantyStatus().name());
+            ps.setLong(8, snapshot.getDaysRemaining());
+            ps.setDate(9, Date.valueOf(snapshot.getAsOfDate()));
+            ps.setTimestamp(10, Timestamp.valueOf(snapshot.getRefreshedAt()));
+        });
+        return snapshots.size();
+    }
+
+    /**
+     * Xóa trạng thái của linh kiện không còn hoạt động (không được upsert trong lần chạy bắt đầu lúc {@code refreshedAt}).
+     */
+    public int deleteSnapshotsRefreshedBefore(LocalDateTime refreshedAt) {
+        return jdbcTemplate.update(DELETE_STALE_SNAPSHOTS_SQL, Timestamp.valueOf(refreshedAt));
+    }
+
+    /**
+     * Upsert các bucket bằng một JDBC batch.
+     */
+    public int upsertBuckets(List<WarrantyExpiryBucket> buckets) {
+        jdbcTemplate.batchUpdate(UPSERT_BUCKET_SQL, buckets, buckets.size(), (ps, bucket) -> {
+            ps.setString(1, bucket.getId().getSubject().name());
+            ps.setString(2, bucket.getId().getScope().name());
+            ps.setString(3, bucket.getId().getScopeKey());
+            ps.setInt(4, bucket.getId().getWindowDays());
+            ps.setLong(5, bucket.getExpiringCount());
+            ps.setDate(6, Date.valueOf(bucket.getAsOfDate()));
+            ps.setTimestamp(7, Timestamp.valueOf(bucket.getRefreshedAt()));
+        });
+        return buckets.size();
+    }
+
+    /**
+     * Xóa bucket không còn xuất hiện trong lần chạy bắt đầu lúc {@code refreshedAt} (số lượng về 0).
+     */
+    public int deleteBucketsRefreshedBefore(LocalDateTime refreshedAt) {
+        return jdbcTemplate.update(DELETE_STALE_BUCKETS_SQL, Timestamp.valueOf(refreshedAt));
+    }
+
+    private static Integer nullableInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -4,6 +4,7 @@ import com.swp391.warrantymanagement.entity.WorkLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,7 +18,7 @@ import java.util.List;
  * - Tìm theo claim, user, thời gian
  */
 @Repository
-public interface WorkLogRepository extends JpaRepository<WorkLog, Long> {
+public interface WorkLogRepository extends JpaRepository<WorkLog, Long>, JpaSpecificationExecutor<WorkLog> {
     // Tìm tất cả work log của claim cụ thể
     List<WorkLog> findByWarrantyClaimWarrantyClaimId(Long warrantyClaimId);
     Page<WorkLog> findByWarrantyClaimWarrantyClaimId(Long warrantyClaimId, Pageable pageable);
@@ -0,0 +1,28 @@
+package com.swp391.warrantymanagement.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Service đẩy sự kiện vòng đời warranty claim tới dashboard của staff qua Server-Sent Events,
+ * thay cho việc poll {@code /tech-pending}, {@code /admin-pending} và {@code /my-assigned-claims}.
+ */
+public interface ClaimEventStreamService {
+
+    /**
+     * Mở stream sự kiện claim cho user. Sự kiện được lọc theo role và service center của user:
+     * <ul>
+     *     <li>ADMIN, EVM_STAFF: mọi claim.</li>
+     *     <li>SC_STAFF, SC_TECHNICIAN: claim của service center mình, claim chưa có trung tâm, và claim được gán cho
+     *     chính mình (user không thuộc trung tâm nào chỉ nhận hai loại sau).</li>
+     * </ul>
+     *
+     * @param username user đã xác thực
+     * @return emitter đã đăng ký
+     */
+    SseEmitter subscribe(String username);
+
+    /**
+     * Số kết nối đang mở.
+     */
+    int getSubscriberCount();
+}
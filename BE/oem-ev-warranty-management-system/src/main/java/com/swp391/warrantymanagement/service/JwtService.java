@@ -1,6 +1,10 @@
 package com.swp391.warrantymanagement.service;
 
 import com.swp391.warrantymanagement.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
 
 /**
  * Service xử lý JWT Token
@@ -20,4 +24,35 @@ public interface JwtService {
 
     // Kiểm tra token hợp lệ (signature + expiration)
     boolean isTokenValid(String token);
+
+    /**
+     * Xác thực token một lần duy nhất (chữ ký + thời hạn) và trả về toàn bộ claims cần dùng.
+     * <p>
+     * Kết quả của các token đã xác thực gần đây được cache theo digest của token cho đến thời điểm {@code exp},
+     * nên các request lặp lại từ cùng một phiên (dashboard polling) không phải parse/HMAC lại.
+     *
+     * @param token JWT string (không có prefix "Bearer ")
+     * @return claims đã được xác thực
+     * @throws io.jsonwebtoken.JwtException nếu chữ ký sai, token hết hạn hoặc sai định dạng
+     */
+    VerifiedToken verifyToken(String token);
+
+    /**
+     * Claims đã được xác thực của một JWT (immutable).
+     * {@code userId}, {@code role} và {@code tokenVersion} có thể null với refresh token hoặc token phát hành trước
+     * khi có claim {@code ver}.
+     */
+    @Getter
+    @AllArgsConstructor
+    class VerifiedToken {
+        private final String username;
+        private final Long userId;
+        private final String role;
+        private final Integer tokenVersion;
+        private final Date expiration;
+
+        public boolean isExpired(long nowMillis) {
+            return expiration == null || expiration.getTime() <= nowMillis;
+        }
+    }
 }
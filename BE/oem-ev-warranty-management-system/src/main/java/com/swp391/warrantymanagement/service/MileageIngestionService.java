@@ -0,0 +1,45 @@
+package com.swp391.warrantymanagement.service;
+
+import com.swp391.warrantymanagement.dto.request.MileageReadingDTO;
+import com.swp391.warrantymanagement.dto.response.MileageIngestionResponseDTO;
+
+import java.util.List;
+
+/**
+ * Service ingest số km tần suất cao từ telematics: gom số đo mới nhất của mỗi xe trong bộ nhớ,
+ * từ chối số đo làm km giảm và ghi định kỳ vào {@code vehicles.mileage} bằng JDBC batch.
+ */
+public interface MileageIngestionService {
+
+    /**
+     * Nhận một batch số đo. Không truy cập DB: số đo hợp lệ chỉ được ghi ở lần {@link #flush()} tiếp theo.
+     *
+     * @param readings các số đo theo thứ tự bất kỳ, có thể nhiều số đo cho cùng một xe
+     * @return số đo được nhận / bị thay thế / bị từ chối (kèm lý do)
+     */
+    MileageIngestionResponseDTO ingest(List<MileageReadingDTO> readings);
+
+    /**
+     * Ghi tất cả số km đang chờ xuống DB.
+     *
+     * @return số xe được cập nhật
+     */
+    int flush();
+
+    /**
+     * Số xe đang có số km chờ ghi.
+     */
+    int pendingCount();
+
+    /**
+     * Nối các số đo đã được {@link #flush()} ghi vào lịch sử km (transaction riêng, không chặn flush km).
+     *
+     * @return số điểm được thêm vào lịch sử
+     */
+    int flushHistory();
+
+    /**
+     * Số số đo đã ghi km, đang chờ nối vào lịch sử.
+     */
+    int pendingHistoryCount();
+}
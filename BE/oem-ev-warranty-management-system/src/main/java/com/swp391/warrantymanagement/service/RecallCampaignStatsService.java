@@ -0,0 +1,34 @@
+package com.swp391.warrantymanagement.service;
+
+import com.swp391.warrantymanagement.entity.RecallCampaignStats;
+import com.swp391.warrantymanagement.enums.RecallResponseStatus;
+
+/**
+ * Service duy trì bộ đếm RecallResponse theo status cho từng chiến dịch triệu hồi ({@link RecallCampaignStats}).
+ * <p>
+ * Mọi method ghi phải được gọi trong cùng transaction với thay đổi RecallResponse tương ứng.
+ */
+public interface RecallCampaignStatsService {
+
+    /**
+     * Ghi nhận {@code count} RecallResponse PENDING vừa được tạo cho campaign.
+     */
+    RecallCampaignStats recordCreated(Long recallRequestId, long count);
+
+    /**
+     * Ghi nhận một RecallResponse chuyển status {@code from} → {@code to}.
+     *
+     * @return bộ đếm sau khi cập nhật (đã khóa đến hết transaction)
+     */
+    RecallCampaignStats recordTransition(Long recallRequestId, RecallResponseStatus from, RecallResponseStatus to);
+
+    /**
+     * Lấy bộ đếm hiện tại của campaign và khóa dòng đến hết transaction (dựng lại nếu chưa có).
+     */
+    RecallCampaignStats getForUpdate(Long recallRequestId);
+
+    /**
+     * Dựng lại bộ đếm của campaign từ {@code COUNT ... GROUP BY status} trên recall_responses.
+     */
+    RecallCampaignStats rebuild(Long recallRequestId);
+}
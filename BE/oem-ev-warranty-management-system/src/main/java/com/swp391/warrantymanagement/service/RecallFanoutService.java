@@ -0,0 +1,49 @@
+package com.swp391.warrantymanagement.service;
+
+import com.swp391.warrantymanagement.dto.response.RecallFanoutJobResponseDTO;
+import com.swp391.warrantymanagement.entity.RecallFanoutProgress;
+import com.swp391.warrantymanagement.entity.RecallRequest;
+
+/**
+ * Service tạo RecallResponse hàng loạt cho các xe bị ảnh hưởng bởi một chiến dịch triệu hồi, chạy như job nền.
+ * <p>
+ * Pipeline set-based: projection vehicle ID, anti-join với response đã có, JDBC batch insert theo chunk,
+ * mỗi chunk commit riêng và cập nhật {@link RecallFanoutProgress} (checkpoint để tiếp tục sau restart).
+ */
+public interface RecallFanoutService {
+
+    /**
+     * Tạo job QUEUED cho chiến dịch vừa được duyệt, trong transaction của caller.
+     * Job chỉ được giao cho worker sau khi transaction commit.
+     *
+     * @param recallRequest chiến dịch đã chuyển sang APPROVED_BY_ADMIN
+     * @return job vừa tạo ({@code progressId} là job ID)
+     */
+    RecallFanoutProgress createJob(RecallRequest recallRequest);
+
+    /**
+     * Chạy (hoặc tiếp tục từ checkpoint) một job: tạo RecallResponse (PENDING) cho mọi xe còn thiếu,
+     * sau đó chuyển chiến dịch sang WAITING_CUSTOMER_CONFIRM.
+     * <p>
+     * Không được chạy bên trong transaction của caller: mỗi chunk có transaction riêng.
+     *
+     * @param jobId ID của job
+     * @return job sau khi kết thúc
+     */
+    RecallFanoutProgress runJob(Long jobId);
+
+    /**
+     * Chạy lại một job FAILED từ checkpoint (Admin). Job chuyển QUEUED và được giao cho worker sau khi commit.
+     *
+     * @throws com.swp391.warrantymanagement.exception.ResourceNotFoundException nếu job không tồn tại
+     * @throws IllegalStateException nếu job không ở trạng thái FAILED
+     */
+    RecallFanoutJobResponseDTO retryJob(Long jobId);
+
+    /**
+     * Lấy tiến độ job: số dòng đã xử lý, rows/s và ETA.
+     *
+     * @throws com.swp391.warrantymanagement.exception.ResourceNotFoundException nếu job không tồn tại
+     */
+    RecallFanoutJobResponseDTO getJob(Long jobId);
+}
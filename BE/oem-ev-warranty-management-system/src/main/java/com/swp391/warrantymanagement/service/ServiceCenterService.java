@@ -60,6 +60,16 @@ public interface ServiceCenterService {
     List<ServiceCenterResponseDTO> findServiceCentersNearLocation(
             BigDecimal latitude, BigDecimal longitude, double radiusKm);
 
+    /**
+     * Tìm các service centers gần vị trí nhất (k-nearest).
+     * @param latitude Vĩ độ của vị trí
+     * @param longitude Kinh độ của vị trí
+     * @param limit Số lượng centers tối đa trả về
+     * @return Danh sách centers gần nhất, sắp xếp theo khoảng cách tăng dần
+     */
+    List<ServiceCenterResponseDTO> findNearestServiceCenters(
+            BigDecimal latitude, BigDecimal longitude, int limit);
+
     /**
      * Lấy tất cả service centers sắp xếp theo khoảng cách từ vị trí.
      * @param latitude Vĩ độ của vị trí
@@ -2,8 +2,10 @@ package com.swp391.warrantymanagement.service;
 
 import com.swp391.warrantymanagement.dto.request.ServiceHistoryRequestDTO;
 import com.swp391.warrantymanagement.dto.response.ServiceHistoryResponseDTO;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 
@@ -33,6 +35,10 @@ public interface ServiceHistoryService {
     // Lấy tất cả service histories với tìm kiếm
     PagedResponse<ServiceHistoryResponseDTO> getAllServiceHistoriesPage(Pageable pageable, String search);
 
+    // Lấy tất cả service histories theo cursor (keyset, không COUNT) với tìm kiếm
+    CursorResponse<ServiceHistoryResponseDTO> getAllServiceHistoriesCursor(String search, String sortBy, Sort.Direction direction,
+                                                                           String after, int size);
+
     // Lấy lịch sử của xe cụ thể
     PagedResponse<ServiceHistoryResponseDTO> getServiceHistoriesByVehicleId(Long vehicleId, Pageable pageable);
 
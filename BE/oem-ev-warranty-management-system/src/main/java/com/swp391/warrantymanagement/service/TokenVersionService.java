@@ -0,0 +1,16 @@
+package com.swp391.warrantymanagement.service;
+
+import com.swp391.warrantymanagement.entity.User;
+
+/**
+ * Service quản lý "token version" của user - cơ sở để xác thực JWT chỉ bằng claims (không query DB mỗi request).
+ * - Check: Token có còn "current" không (version trong token == version hiện tại của user)
+ * - Revoke: Tăng version khi role/username/password thay đổi, logout hoặc xóa user
+ */
+public interface TokenVersionService {
+    // True nếu version trong token khớp version hiện tại của user (token chưa bị stale)
+    boolean isTokenCurrent(Long userId, Integer tokenVersion);
+
+    // Vô hiệu hóa xác thực bằng claims cho mọi token đã phát hành của user (tăng version trên entity đang managed)
+    void revokeIssuedTokens(User user);
+}
@@ -0,0 +1,46 @@
+package com.swp391.warrantymanagement.service;
+
+import com.swp391.warrantymanagement.dto.response.MileageHistoryResponseDTO;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.MileageSample;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service lịch sử công-tơ-mét (append-only) của xe: trả lời "xe đã chạy bao nhiêu km tại ngày X"
+ * (ví dụ ngày hỏng hóc) thay vì chỉ biết km hiện tại trên {@code Vehicle}.
+ * <p>
+ * Lịch sử được lưu thành các block nén nhỏ (giới hạn số điểm mỗi block) theo từng xe; chỉ ghi điểm khi km thay đổi.
+ */
+public interface VehicleMileageHistoryService {
+
+    /**
+     * Nối các số đo vào lịch sử. Số đo sớm hơn điểm cuối đã lưu của xe (đến trễ) hoặc không đổi km bị bỏ qua.
+     * <p>
+     * Phải chạy trong transaction của caller; khóa dòng {@code vehicles} của các xe trước khi ghi block.
+     *
+     * @return số điểm đã được ghi
+     */
+    int record(List<MileageSample> samples);
+
+    /**
+     * Số đo cuối cùng không muộn hơn {@code at}.
+     *
+     * @return rỗng nếu xe chưa có số đo nào trước thời điểm đó
+     */
+    Optional<MileageSample> findMileageAsOf(Long vehicleId, LocalDateTime at);
+
+    /**
+     * Lịch sử km của xe trong khoảng [from, to].
+     *
+     * @throws com.swp391.warrantymanagement.exception.ResourceNotFoundException nếu không tìm thấy xe
+     * @throws IllegalArgumentException nếu {@code from} sau {@code to}
+     */
+    MileageHistoryResponseDTO getMileageHistory(Long vehicleId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Xóa lịch sử của xe (khi xóa xe).
+     */
+    void deleteHistory(Long vehicleId);
+}
@@ -3,10 +3,13 @@ package com.swp391.warrantymanagement.service;
 import com.swp391.warrantymanagement.dto.request.WarrantyClaimRequestDTO;
 import com.swp391.warrantymanagement.dto.request.WarrantyClaimStatusUpdateRequestDTO;
 import com.swp391.warrantymanagement.dto.response.WarrantyClaimResponseDTO;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service xử lý business logic cho WarrantyClaim (TRUNG TÂM hệ thống)
@@ -19,6 +22,9 @@ public interface WarrantyClaimService {
     // Lấy danh sách tất cả claim (admin/staff)
     PagedResponse<WarrantyClaimResponseDTO> getAllClaimsPage(Pageable pageable);
 
+    // Lấy danh sách tất cả claim theo cursor (keyset, không COUNT) - cho danh sách lớn / infinite scroll
+    CursorResponse<WarrantyClaimResponseDTO> getAllClaimsCursor(String sortBy, Sort.Direction direction, String after, int size);
+
     // Lấy chi tiết claim theo ID
     WarrantyClaimResponseDTO getClaimById(Long id);
 
@@ -79,6 +85,14 @@ public interface WarrantyClaimService {
      */
     WarrantyClaimResponseDTO assignClaimToMe(Long claimId, String username);
 
+    /**
+     * Technician nhận claim MANAGER_REVIEW chưa gán cũ nhất của trung tâm mình.
+     * Các request đồng thời không bao giờ nhận trùng một claim.
+     * @param username Username của technician (lấy từ Security Context).
+     * @return claim vừa được gán, hoặc rỗng nếu không còn claim chờ nhận.
+     */
+    Optional<WarrantyClaimResponseDTO> assignNextClaimToMe(String username);
+
     /**
      * Lấy claims đã được assign cho Admin cụ thể
      * REFACTOR: Thay thế userId bằng username.
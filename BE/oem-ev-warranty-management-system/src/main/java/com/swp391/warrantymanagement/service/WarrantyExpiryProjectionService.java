@@ -0,0 +1,33 @@
+package com.swp391.warrantymanagement.service;
+
+import com.swp391.warrantymanagement.dto.response.WarrantyExpiryProjectionRunResponseDTO;
+import com.swp391.warrantymanagement.dto.response.WarrantyExpirySummaryResponseDTO;
+import com.swp391.warrantymanagement.enums.WarrantyExpiryScope;
+
+/**
+ * Service dựng và đọc projection hết hạn bảo hành: bucket "hết hạn trong N ngày" theo service center, customer, part
+ * và {@link com.swp391.warrantymanagement.enums.WarrantyStatus} tính sẵn cho mỗi linh kiện đang hoạt động.
+ * <p>
+ * Projection được dựng lại hằng đêm (và khi khởi động nếu chưa có dữ liệu); dashboard / nhắc hạn đọc một dòng
+ * cho mỗi bucket thay vì quét {@code installed_parts} / {@code vehicles} theo khoảng ngày.
+ */
+public interface WarrantyExpiryProjectionService {
+
+    /**
+     * Dựng lại toàn bộ projection (keyset theo xe, JDBC batch upsert, xóa dòng cũ).
+     * <p>
+     * Không được chạy bên trong transaction của caller: mỗi chunk có transaction riêng.
+     *
+     * @return kết quả lần chạy, hoặc {@code null} nếu đang có một lần chạy khác (trên node này hoặc node khác)
+     */
+    WarrantyExpiryProjectionRunResponseDTO refresh();
+
+    /**
+     * Lấy số xe / linh kiện hết hạn trong từng cửa sổ ngày của một phạm vi.
+     *
+     * @param scope    phạm vi gom nhóm
+     * @param scopeKey ID của service center / customer / part (bỏ qua với {@link WarrantyExpiryScope#ALL})
+     * @throws IllegalArgumentException nếu scope khác ALL mà không có scopeKey
+     */
+    WarrantyExpirySummaryResponseDTO getSummary(WarrantyExpiryScope scope, String scopeKey);
+}
@@ -1,7 +1,11 @@
 package com.swp391.warrantymanagement.service;
 
+import com.swp391.warrantymanagement.dto.response.BulkWarrantyValidationResponseDTO;
 import com.swp391.warrantymanagement.dto.response.WarrantyValidationResponseDTO;
 
+import java.time.LocalDate;
+import java.util.List;
+
 /**
  * Service xử lý nghiệp vụ kiểm tra tính hợp lệ của bảo hành.
  * <p>
@@ -19,6 +23,9 @@ import com.swp391.warrantymanagement.dto.response.WarrantyValidationResponseDTO;
  *     <li>Bảo hành theo linh kiện: Kiểm tra thêm {@code installedPart.warrantyExpirationDate}</li>
  *     <li>Bảo hành tính phí: Áp dụng khi hết hạn nhưng trong thời gian grace period</li>
  * </ul>
+ * <p>
+ * <strong>Cache:</strong> kết quả của các API đơn lẻ được cache theo (ID, ngày, số km, version dữ liệu);
+ * truyền {@code bypassCache = true} để tính lại.
  */
 public interface WarrantyValidationService {
 
@@ -33,10 +40,30 @@ public interface WarrantyValidationService {
      * </ul>
      *
      * @param vehicleId ID của xe cần kiểm tra
+     * @param bypassCache {@code true} = bỏ qua cache kết quả, luôn tính lại từ dữ liệu hiện tại
      * @return WarrantyValidationResponseDTO chứa đầy đủ thông tin về bảo hành
      * @throws com.swp391.warrantymanagement.exception.ResourceNotFoundException nếu không tìm thấy xe
      */
-    WarrantyValidationResponseDTO validateVehicleWarranty(Long vehicleId);
+    WarrantyValidationResponseDTO validateVehicleWarranty(Long vehicleId, boolean bypassCache);
+
+    /**
+     * Kiểm tra bảo hành của xe tại một ngày trong quá khứ (ví dụ ngày hỏng hóc được báo muộn).
+     * <p>
+     * <strong>Business logic:</strong>
+     * <ul>
+     *     <li>Hạn theo thời gian: so {@code vehicle.warrantyEndDate} với {@code asOfDate}</li>
+     *     <li>Km: số đo cuối cùng trong lịch sử km không muộn hơn cuối ngày {@code asOfDate}; nếu xe chưa có lịch sử
+     *     trước ngày đó thì dùng km hiện tại (giá trị lớn nhất có thể, như kiểm tra thông thường)</li>
+     * </ul>
+     * Không đi qua cache kết quả.
+     *
+     * @param vehicleId ID của xe cần kiểm tra
+     * @param asOfDate  ngày cần đánh giá (không được sau hôm nay)
+     * @return WarrantyValidationResponseDTO với {@code asOfDate} và {@code mileageRecordedAt}
+     * @throws com.swp391.warrantymanagement.exception.ResourceNotFoundException nếu không tìm thấy xe
+     * @throws IllegalArgumentException nếu {@code asOfDate} ở tương lai
+     */
+    WarrantyValidationResponseDTO validateVehicleWarrantyAsOf(Long vehicleId, LocalDate asOfDate);
 
     /**
      * Kiểm tra tính hợp lệ của bảo hành cho một linh kiện cụ thể.
@@ -49,10 +76,11 @@ public interface WarrantyValidationService {
      * </ul>
      *
      * @param installedPartId ID của linh kiện đã lắp đặt
+     * @param bypassCache {@code true} = bỏ qua cache kết quả, luôn tính lại từ dữ liệu hiện tại
      * @return WarrantyValidationResponseDTO chứa thông tin bảo hành linh kiện
      * @throws com.swp391.warrantymanagement.exception.ResourceNotFoundException nếu không tìm thấy linh kiện
      */
-    WarrantyValidationResponseDTO validateInstalledPartWarranty(Long installedPartId);
+    WarrantyValidationResponseDTO validateInstalledPartWarranty(Long installedPartId, boolean bypassCache);
 
     /**
      * Kiểm tra tính hợp lệ của bảo hành cho một xe theo VIN.
@@ -61,10 +89,11 @@ public interface WarrantyValidationService {
      * thay vì phải biết vehicleId.
      *
      * @param vehicleVin VIN của xe (Vehicle Identification Number)
+     * @param bypassCache {@code true} = bỏ qua cache kết quả, luôn tính lại từ dữ liệu hiện tại
      * @return WarrantyValidationResponseDTO chứa thông tin bảo hành
      * @throws com.swp391.warrantymanagement.exception.ResourceNotFoundException nếu không tìm thấy xe với VIN này
      */
-    WarrantyValidationResponseDTO validateVehicleWarrantyByVin(String vehicleVin);
+    WarrantyValidationResponseDTO validateVehicleWarrantyByVin(String vehicleVin, boolean bypassCache);
 
     /**
      * Kiểm tra và tính toán phí bảo hành cho xe đã hết hạn.
@@ -78,16 +107,40 @@ public interface WarrantyValidationService {
      *
      * @param vehicleId ID của xe
      * @param estimatedRepairCost Chi phí sửa chữa ước tính (để tính % phí)
+     * @param bypassCache {@code true} = bỏ qua cache kết quả, luôn tính lại từ dữ liệu hiện tại
      * @return WarrantyValidationResponseDTO với thông tin phí bảo hành
      */
-    WarrantyValidationResponseDTO calculatePaidWarrantyFee(Long vehicleId, java.math.BigDecimal estimatedRepairCost);
+    WarrantyValidationResponseDTO calculatePaidWarrantyFee(Long vehicleId, java.math.BigDecimal estimatedRepairCost, boolean bypassCache);
 
     /**
      * Kiểm tra và tính toán phí bảo hành cho linh kiện đã hết hạn.
      *
      * @param installedPartId ID của linh kiện
      * @param estimatedRepairCost Chi phí sửa chữa ước tính
+     * @param bypassCache {@code true} = bỏ qua cache kết quả, luôn tính lại từ dữ liệu hiện tại
      * @return WarrantyValidationResponseDTO với thông tin phí bảo hành linh kiện
      */
-    WarrantyValidationResponseDTO calculatePaidWarrantyFeeForPart(Long installedPartId, java.math.BigDecimal estimatedRepairCost);
+    WarrantyValidationResponseDTO calculatePaidWarrantyFeeForPart(Long installedPartId, java.math.BigDecimal estimatedRepairCost, boolean bypassCache);
+
+    /**
+     * Kiểm tra bảo hành hàng loạt theo VIN (đại lý / khách hàng đội xe).
+     * <p>
+     * Cùng business rules với {@link #validateVehicleWarrantyByVin}, nhưng load tất cả xe bằng một query và
+     * trả lỗi theo từng dòng (VIN rỗng, không tìm thấy) thay vì ném exception.
+     *
+     * @param vehicleVins danh sách VIN (có thể trùng lặp)
+     * @return kết quả theo đúng thứ tự đầu vào
+     */
+    BulkWarrantyValidationResponseDTO validateVehicleWarrantiesByVin(List<String> vehicleVins);
+
+    /**
+     * Kiểm tra bảo hành hàng loạt theo linh kiện đã lắp đặt.
+     * <p>
+     * Cùng business rules với {@link #validateInstalledPartWarranty}; linh kiện được load kèm Part và Vehicle
+     * trong một query.
+     *
+     * @param installedPartIds danh sách ID linh kiện (có thể trùng lặp)
+     * @return kết quả theo đúng thứ tự đầu vào
+     */
+    BulkWarrantyValidationResponseDTO validateInstalledPartWarranties(List<Long> installedPartIds);
 }
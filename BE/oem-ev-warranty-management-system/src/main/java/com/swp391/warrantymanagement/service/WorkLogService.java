@@ -2,9 +2,11 @@ package com.swp391.warrantymanagement.service;
 
 import com.swp391.warrantymanagement.dto.request.WorkLogRequestDTO;
 import com.swp391.warrantymanagement.dto.response.WorkLogResponseDTO;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.dto.response.DailyClaimStatsResponseDTO;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 /**
  * Service xử lý business logic cho WorkLog
@@ -43,6 +45,9 @@ public interface WorkLogService {
     // Lấy danh sách tất cả work logs
     PagedResponse<WorkLogResponseDTO> getAllWorkLogs(Pageable pageable);
 
+    // Lấy danh sách tất cả work logs theo cursor (keyset, không COUNT)
+    CursorResponse<WorkLogResponseDTO> getAllWorkLogsCursor(String sortBy, Sort.Direction direction, String after, int size);
+
     // Lấy work logs của claim cụ thể (tracking công việc)
     PagedResponse<WorkLogResponseDTO> getWorkLogsByWarrantyClaim(Long claimId, Pageable pageable);
 
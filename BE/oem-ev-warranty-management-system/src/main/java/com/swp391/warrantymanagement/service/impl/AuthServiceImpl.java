@@ -8,6 +8,7 @@ import com.swp391.warrantymanagement.entity.Customer;
 import com.swp391.warrantymanagement.entity.Role;
 import com.swp391.warrantymanagement.entity.Token;
 import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.event.UserSecurityChangedEvent;
 import com.swp391.warrantymanagement.exception.InvalidCredentialsException;
 import com.swp391.warrantymanagement.mapper.CustomerMapper;
 import com.swp391.warrantymanagement.repository.CustomerRepository;
@@ -16,12 +17,15 @@ import com.swp391.warrantymanagement.repository.TokenRepository;
 import com.swp391.warrantymanagement.repository.UserRepository;
 import com.swp391.warrantymanagement.service.AuthService;
 import com.swp391.warrantymanagement.service.JwtService;
+import com.swp391.warrantymanagement.service.TokenVersionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -38,6 +42,8 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final TokenRepository tokenRepository;
     private final CustomerRepository customerRepository;
+    private final TokenVersionService tokenVersionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Xác thực user và tạo JWT tokens
@@ -250,6 +256,8 @@ public class AuthServiceImpl implements AuthService {
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             tokenRepository.deleteByUser(user);
+            // Access token đã phát hành không còn được xác thực chỉ bằng claims
+            tokenVersionService.revokeIssuedTokens(user);
         } catch (Exception e) {
             throw new RuntimeException("Logout failed: " + e.getMessage());
         }
@@ -306,6 +314,8 @@ public class AuthServiceImpl implements AuthService {
 
         User user = tokenEntity.getUser();
         user.setPassword(passwordEncoder.encode(resetRequest.getNewPassword()));
+        tokenVersionService.revokeIssuedTokens(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUserId(), Set.of(user.getUsername())));
         userRepository.save(user);
 
         tokenRepository.delete(tokenEntity);
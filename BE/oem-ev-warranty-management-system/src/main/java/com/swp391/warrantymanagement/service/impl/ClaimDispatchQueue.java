@@ -0,0 +1,88 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.repository.WarrantyClaimRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hàng đợi nhận việc in-memory theo service center: ID các claim {@link WarrantyClaimStatus#MANAGER_REVIEW} chưa gán,
+ * cũ nhất trước.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Mỗi trung tâm có một {@link ConcurrentLinkedQueue} (lock-free): mỗi lần {@link #poll} trao một ID khác nhau
+ *     cho mỗi kỹ thuật viên trong O(1), nên các request nhận việc đồng thời không tranh nhau cùng một dòng
+ *     (kể cả khóa dòng ở database).</li>
+ *     <li>Khi hàng đợi cạn, đúng một thread nạp lại {@code refillSize} claim đầu hàng đợi từ DB; các thread khác của
+ *     trung tâm đó chờ rồi lấy từ lô vừa nạp.</li>
+ *     <li>Hàng đợi chỉ là gợi ý: ID có thể đã cũ (claim bị gán/đổi trạng thái theo đường khác, hoặc instance khác đã
+ *     nhận). Người gọi luôn gán bằng conditional update ({@code WarrantyClaimRepository.dispatchIfUnassigned}) và
+ *     bỏ qua ID khi không có dòng nào được cập nhật, nên không bao giờ gán trùng.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ClaimDispatchQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimDispatchQueue.class);
+
+    // Key cho kỹ thuật viên không thuộc trung tâm nào (nhận claim của mọi trung tâm)
+    private static final Long ALL_CENTERS = -1L;
+
+    private final WarrantyClaimRepository warrantyClaimRepository;
+
+    @Value("${claim-dispatch.refill-size:64}")
+    private int refillSize;
+
+    private final Map<Long, CenterQueue> queues = new ConcurrentHashMap<>();
+
+    private static final class CenterQueue {
+        private final ConcurrentLinkedQueue<Long> claimIds = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock refillLock = new ReentrantLock();
+    }
+
+    /**
+     * Lấy ID claim kế tiếp của trung tâm (nạp lại từ DB khi hàng đợi cạn).
+     *
+     * @param serviceCenterId trung tâm của kỹ thuật viên; {@code null} = mọi trung tâm
+     * @return ID claim ứng viên, hoặc {@code null} nếu không còn claim chờ nhận
+     */
+    public Long poll(Long serviceCenterId) {
+        CenterQueue queue = queues.computeIfAbsent(serviceCenterId != null ? serviceCenterId : ALL_CENTERS,
+                key -> new CenterQueue());
+        Long claimId = queue.claimIds.poll();
+        if (claimId != null) {
+            return claimId;
+        }
+
+        queue.refillLock.lock();
+        try {
+            // Thread khác có thể vừa nạp xong trong lúc chờ lock
+            claimId = queue.claimIds.poll();
+            if (claimId != null) {
+                return claimId;
+            }
+            List<Long> candidates = warrantyClaimRepository.findDispatchCandidateIds(
+                    WarrantyClaimStatus.MANAGER_REVIEW, serviceCenterId, Limit.of(refillSize));
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            logger.debug("🔄 Refilled dispatch queue of service center {} with {} claims", serviceCenterId, candidates.size());
+            queue.claimIds.addAll(candidates.subList(1, candidates.size()));
+            return candidates.get(0);
+        } finally {
+            queue.refillLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.event.WarrantyClaimLifecycleEvent;
+import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
+import com.swp391.warrantymanagement.repository.UserRepository;
+import com.swp391.warrantymanagement.service.ClaimEventStreamService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation của ClaimEventStreamService.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>{@code WarrantyClaimServiceImpl} publish {@link WarrantyClaimLifecycleEvent}; listener chạy AFTER_COMMIT nên
+ *     client không bao giờ nhận sự kiện của transaction bị rollback, và khi client tải lại claim thì đã thấy dữ liệu mới.</li>
+ *     <li>Mỗi sự kiện được serialize JSON và dựng frame SSE MỘT lần; cùng một frame được gửi cho mọi subscriber phù hợp.</li>
+ *     <li>Listener chỉ đưa frame vào hàng đợi có giới hạn của từng subscriber (không chặn). Một pool
+ *     {@code claim-events.sender-threads} thread ghi ra socket; mỗi subscriber được ghi bởi tối đa một thread tại một
+ *     thời điểm nên thứ tự sự kiện được giữ, và một client chậm chỉ giữ một thread chứ không chặn các client khác.</li>
+ *     <li>Client chậm bị loại: hàng đợi đầy ({@code claim-events.max-pending-per-subscriber}) hoặc một lần ghi kéo dài quá
+ *     {@code claim-events.send-timeout-ms}. Subscriber ghi lỗi (client đã đóng kết nối) cũng bị loại.</li>
+ *     <li>Heartbeat (comment SSE) mỗi {@code claim-events.heartbeat-interval-ms} giữ kết nối qua proxy và phát hiện
+ *     client đã ngắt mà không có sự kiện nào.</li>
+ *     <li>Role và service center của subscriber được đọc một lần khi mở stream.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+public class ClaimEventStreamServiceImpl implements ClaimEventStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimEventStreamServiceImpl.class);
+
+    private static final Set<String> GLOBAL_ROLES = Set.of("ADMIN", "EVM_STAFF");
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${claim-events.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${claim-events.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${claim-events.max-pending-per-subscriber:256}")
+    private int maxPendingPerSubscriber;
+
+    @Value("${claim-events.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventSequence = new AtomicLong();
+    private ExecutorService senderExecutor;
+
+    /**
+     * Subscriber đã đăng ký. User không thuộc service center nào và không phải role toàn cục chỉ nhận claim chưa có
+     * trung tâm và claim được gán cho chính mình.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final boolean global;
+        private final Long serviceCenterId;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> pending;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile long sendStartedAt; // System.nanoTime() của lần ghi đang chạy, 0 = không ghi
+
+        private Subscriber(SseEmitter emitter, Long userId, boolean global, Long serviceCenterId) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.global = global;
+            this.serviceCenterId = serviceCenterId;
+            this.pending = new ArrayBlockingQueue<>(maxPendingPerSubscriber);
+        }
+
+        boolean accepts(WarrantyClaimLifecycleEvent event) {
+            return global
+                    || event.getServiceCenterId() == null
+                    || event.getServiceCenterId().equals(serviceCenterId)
+                    || userId.equals(event.getAssignedToUserId());
+        }
+
+        boolean sendTimedOut(long now) {
+            long startedAt = sendStartedAt;
+            return startedAt != 0 && now - startedAt > TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        }
+
+        void enqueue(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(frame)) {
+                close("queue full");
+                return;
+            }
+            scheduleDrain();
+        }
+
+        /**
+         * Ngừng nhận sự kiện (emitter đã complete / timeout / lỗi).
+         */
+        void detach() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        /**
+         * Loại client chậm; emitter được complete trên thread gửi để không chặn listener hay scheduler.
+         */
+        void close(String reason) {
+            if (!closed) {
+                detach();
+                logger.warn("⚠️ Claim event subscriber dropped: userId={}, reason={}", userId, reason);
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false); // Đang shutdown
+                }
+            }
+        }
+
+        private void drain() {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            while (!closed && (frame = pending.poll()) != null) {
+                sendStartedAt = System.nanoTime();
+                try {
+                    emitter.send(frame);
+                } catch (IOException | IllegalStateException e) {
+                    // Client đã ngắt kết nối (hoặc emitter đã complete)
+                    detach();
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+            if (closed) {
+                // Giữ cờ draining: không còn lần ghi nào cho subscriber này
+                pending.clear();
+                emitter.complete();
+                return;
+            }
+            draining.set(false);
+            if (closed || !pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    @PostConstruct
+    void startSenders() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        senderExecutor = Executors.newFixedThreadPool(Math.max(1, senderThreads), runnable -> {
+            Thread thread = new Thread(runnable, "claim-event-sender-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SseEmitter subscribe(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        boolean global = user.getRole() != null && GLOBAL_ROLES.contains(user.getRole().getRoleName());
+        Long serviceCenterId = user.getServiceCenter() != null ? user.getServiceCenter().getServiceCenterId() : null;
+        if (!global && serviceCenterId == null) {
+            logger.warn("User {} has no service center: claim events limited to unassigned claims and own assignments", username);
+        }
+
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(emitter, user.getUserId(), global, serviceCenterId);
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(subscriber::detach);
+        emitter.onError(error -> subscriber.detach());
+
+        try {
+            // Flush header ngay để proxy/trình duyệt mở stream (trước khi đăng ký: chưa có thread gửi nào khác)
+            emitter.send(SseEmitter.event().comment("connected"));
+            subscribers.add(subscriber);
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        logger.info("📡 Claim event stream opened: user={}, global={}, serviceCenterId={}, subscribers={}",
+                username, global, serviceCenterId, subscribers.size());
+        return emitter;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Đưa sự kiện vào hàng đợi của các subscriber phù hợp sau khi transaction commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClaimLifecycleEvent(WarrantyClaimLifecycleEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> frame;
+        try {
+            frame = buildFrame(event);
+        } catch (JsonProcessingException e) {
+            logger.error("❌ Failed to serialize claim event {} for claim {}: {}", event.getType(), event.getClaimId(), e.getMessage());
+            return;
+        }
+        int queued = 0;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(event)) {
+                subscriber.enqueue(frame);
+                queued++;
+            }
+        }
+        logger.debug("📣 Claim event {} for claim {} queued for {} subscribers", event.getType(), event.getClaimId(), queued);
+    }
+
+    /**
+     * Heartbeat cho mọi subscriber; loại subscriber có lần ghi bị treo quá {@code claim-events.send-timeout-ms}.
+     */
+    @Scheduled(fixedDelayString = "${claim-events.heartbeat-interval-ms:15000}",
+            initialDelayString = "${claim-events.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sendTimedOut(now)) {
+                subscriber.close("send timed out");
+            } else {
+                subscriber.enqueue(HEARTBEAT);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senderExecutor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    // Cho test: thay emitter bằng emitter ghi lại frame
+    SseEmitter newEmitter() {
+        return new SseEmitter(sseTimeoutMs);
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> buildFrame(WarrantyClaimLifecycleEvent event) throws JsonProcessingException {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", event.getType());
+        payload.put("claimId", event.getClaimId());
+        payload.put("status", event.getStatus());
+        payload.put("serviceCenterId", event.getServiceCenterId());
+        payload.put("assignedToUserId", event.getAssignedToUserId());
+        payload.put("occurredAt", event.getOccurredAt());
+        String json = objectMapper.writeValueAsString(payload);
+
+        return SseEmitter.event()
+                .id(String.valueOf(eventSequence.incrementAndGet()))
+                .name(event.getType().name())
+                .data(json)
+                .build();
+    }
+}
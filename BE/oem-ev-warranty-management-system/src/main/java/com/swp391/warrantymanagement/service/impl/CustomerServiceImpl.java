@@ -1,5 +1,6 @@
 package com.swp391.warrantymanagement.service.impl;
 
+import com.swp391.warrantymanagement.dto.projection.CustomerListView;
 import com.swp391.warrantymanagement.dto.request.CustomerRequestDTO;
 import com.swp391.warrantymanagement.dto.response.*;
 import com.swp391.warrantymanagement.entity.Customer;
@@ -41,6 +42,7 @@ public class CustomerServiceImpl implements CustomerService {
     private final CustomerRepository customerRepository;
     private final UserRepository userRepository;
     private final VehicleRepository vehicleRepository;
+    private final FullTextSearchIndex fullTextSearchIndex; // Tìm kiếm chung không dấu, có xếp hạng
 
     /**
      * Lấy danh sách customers với pagination và search
@@ -50,17 +52,20 @@ public class CustomerServiceImpl implements CustomerService {
      * @return PagedResponse với danh sách CustomerResponseDTO
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<CustomerResponseDTO> getAllCustomersPage(Pageable pageable, String search) {
-        Page<Customer> customerPage;
+        Page<CustomerListView> customerPage;
 
         if (search != null && !search.trim().isEmpty()) {
             // Search in name, phone, and email (joined from User)
-            customerPage = customerRepository.searchCustomersGeneral(search.trim(), pageable);
+            customerPage = fullTextSearchIndex.isEnabled()
+                    ? fullTextSearchIndex.searchCustomers(search.trim(), pageable)
+                    : customerRepository.searchListViewsGeneral(search.trim(), pageable);
         } else {
-            customerPage = customerRepository.findAll(pageable);
+            customerPage = customerRepository.findAllListViews(pageable);
         }
 
-        List<CustomerResponseDTO> responseDTOs = CustomerMapper.toResponseDTOList(customerPage.getContent());
+        List<CustomerResponseDTO> responseDTOs = CustomerMapper.toResponseDTOListFromViews(customerPage.getContent());
 
         return new PagedResponse<>(
             responseDTOs,
@@ -176,9 +181,10 @@ public class CustomerServiceImpl implements CustomerService {
      * @return PagedResponse với danh sách CustomerResponseDTO
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<CustomerResponseDTO> searchCustomersByName(String name, Pageable pageable) {
-        Page<Customer> customerPage = customerRepository.findByNameContainingIgnoreCase(name, pageable);
-        List<CustomerResponseDTO> responseDTOs = CustomerMapper.toResponseDTOList(customerPage.getContent());
+        Page<CustomerListView> customerPage = customerRepository.findListViewsByNameContaining(name, pageable);
+        List<CustomerResponseDTO> responseDTOs = CustomerMapper.toResponseDTOListFromViews(customerPage.getContent());
 
         return new PagedResponse<>(
             responseDTOs,
@@ -232,9 +238,10 @@ public class CustomerServiceImpl implements CustomerService {
      * @return PagedResponse với danh sách CustomerResponseDTO
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<CustomerResponseDTO> getCustomersByUserId(Long userId, Pageable pageable) {
-        Page<Customer> customerPage = customerRepository.findByUserUserId(userId, pageable);
-        List<CustomerResponseDTO> responseDTOs = CustomerMapper.toResponseDTOList(customerPage.getContent());
+        Page<CustomerListView> customerPage = customerRepository.findListViewsByUserId(userId, pageable);
+        List<CustomerResponseDTO> responseDTOs = CustomerMapper.toResponseDTOListFromViews(customerPage.getContent());
 
         return new PagedResponse<>(
             responseDTOs,
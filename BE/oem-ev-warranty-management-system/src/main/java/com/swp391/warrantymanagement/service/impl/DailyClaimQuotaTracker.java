@@ -0,0 +1,187 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.repository.WorkLogRepository;
+import com.swp391.warrantymanagement.util.DateTimeUtil;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bộ đếm in-memory số claim mỗi technician đã bắt đầu xử lý trong ngày (giới hạn
+ * {@code ServiceCenter.dailyClaimLimitPerTech}).
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Mỗi technician có một {@link DayCounter} (ngày + {@link AtomicLong}). {@link #reserve} giữ chỗ bằng vòng CAS:
+ *     kiểm tra giới hạn và tăng bộ đếm là MỘT thao tác nguyên tử, nên hai request đồng thời không thể cùng lọt qua
+ *     khi chỉ còn một suất.</li>
+ *     <li>Lần dùng đầu tiên trong ngày (hoặc sau {@link #invalidate}) nạp bộ đếm từ DB
+ *     ({@code countClaimsStartedByUserToday}). Việc nạp được khóa theo stripe ({@link #SEED_STRIPES} lock theo userId)
+ *     nên mỗi technician chỉ query một lần và các technician khác không phải chờ nhau.</li>
+ *     <li>Ngày tính theo múi giờ ứng dụng ({@link DateTimeUtil#VIETNAM_ZONE}, cùng múi giờ với {@code TimezoneConfig}):
+ *     bộ đếm của ngày cũ tự được thay bằng bộ đếm mới ngay sau nửa đêm.</li>
+ *     <li>Suất đã giữ được trả lại khi transaction rollback (ví dụ claim không còn ở MANAGER_REVIEW).</li>
+ *     <li><strong>Nhiều node:</strong> mỗi JVM có bộ đếm riêng, nên CAS chỉ chặn được request trong cùng node. Giới
+ *     hạn được áp trên toàn cụm ở {@code techStartProcessing}: khóa dòng technician ({@code SELECT ... FOR UPDATE}),
+ *     gọi {@link #reload} để đếm lại từ work log đã commit rồi mới {@link #reserve} - hai node bắt đầu claim cho cùng
+ *     technician phải xếp hàng trên row lock. Các chỗ chỉ đọc ({@link #startedToday}, xếp hạng technician) dùng số
+ *     trong cache và có thể lệch tới lần nạp lại kế tiếp.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class DailyClaimQuotaTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyClaimQuotaTracker.class);
+
+    private static final int SEED_STRIPES = 64; // Lũy thừa của 2
+
+    private final WorkLogRepository workLogRepository;
+
+    private final Map<Long, DayCounter> counters = new ConcurrentHashMap<>();
+    private final Object[] seedLocks = createSeedLocks();
+    private Clock clock = Clock.system(DateTimeUtil.VIETNAM_ZONE);
+
+    private record DayCounter(LocalDate day, AtomicLong started) {
+    }
+
+    /**
+     * Giữ một suất bắt đầu xử lý claim trong ngày cho technician.
+     *
+     * @param userId     ID technician
+     * @param dailyLimit giới hạn số claim/ngày (> 0)
+     * @return số claim đã bắt đầu trong ngày, tính cả suất vừa giữ
+     * @throws IllegalStateException nếu đã đạt giới hạn
+     */
+    public long reserve(Long userId, int dailyLimit) {
+        DayCounter counter = counterFor(userId);
+        long current;
+        do {
+            current = counter.started().get();
+            if (current >= dailyLimit) {
+                throw new IllegalStateException(
+                    String.format("Bạn đã đạt giới hạn xử lý claim trong ngày (%d/%d). Vui lòng thử lại vào ngày mai.",
+                        current, dailyLimit));
+            }
+        } while (!counter.started().compareAndSet(current, current + 1));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        counter.started().decrementAndGet();
+                    }
+                }
+            });
+        }
+        return current + 1;
+    }
+
+    /**
+     * Nạp lại bộ đếm hôm nay của technician từ DB, trong transaction hiện tại. Gọi sau khi đã khóa dòng technician để
+     * {@link #reserve} kế tiếp kiểm tra giới hạn trên số liệu của cả cụm (kể cả claim bắt đầu ở node khác).
+     *
+     * @return số claim đã bắt đầu trong ngày theo DB
+     */
+    public long reload(Long userId) {
+        LocalDate today = LocalDate.now(clock);
+        long started = countStarted(userId, today);
+        counters.put(userId, new DayCounter(today, new AtomicLong(started)));
+        return started;
+    }
+
+    /**
+     * Số claim technician đã bắt đầu xử lý hôm nay.
+     */
+    public long startedToday(Long userId) {
+        return counterFor(userId).started().get();
+    }
+
+    /**
+     * Ngày hiện tại theo múi giờ ứng dụng (ngày mà các bộ đếm đang tính).
+     */
+    public LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * Nạp sẵn bộ đếm cho nhiều technician từ một query gộp (ví dụ {@code UserRepository.findTechnicianLoads}),
+     * bỏ qua technician đã có bộ đếm của ngày {@code day}.
+     *
+     * @param day              ngày của số liệu; bỏ qua nếu không còn là hôm nay
+     * @param startedByUserId  userId → số claim đã bắt đầu trong ngày
+     */
+    public void seed(LocalDate day, Map<Long, Long> startedByUserId) {
+        if (!day.equals(today())) {
+            return;
+        }
+        startedByUserId.forEach((userId, started) -> counters.compute(userId, (id, existing) ->
+            existing != null && existing.day().equals(day) ? existing : new DayCounter(day, new AtomicLong(started))));
+    }
+
+    /**
+     * Bỏ bộ đếm của technician (work log được tạo/sửa/xóa thủ công): lần dùng sau sẽ nạp lại từ DB.
+     * Nếu đang trong transaction, bỏ thêm lần nữa sau khi transaction kết thúc để không nạp lại dữ liệu chưa commit.
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        counters.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    counters.remove(userId);
+                }
+            });
+        }
+    }
+
+    // Cho test: điều khiển "hôm nay"
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private DayCounter counterFor(Long userId) {
+        LocalDate today = LocalDate.now(clock);
+        DayCounter counter = counters.get(userId);
+        if (counter != null && counter.day().equals(today)) {
+            return counter;
+        }
+        synchronized (seedLocks[Long.hashCode(userId) & (SEED_STRIPES - 1)]) {
+            counter = counters.get(userId);
+            if (counter == null || !counter.day().equals(today)) {
+                long started = countStarted(userId, today);
+                counter = new DayCounter(today, new AtomicLong(started));
+                counters.put(userId, counter);
+                logger.debug("🔢 Seeded daily claim counter for user {} on {}: {}", userId, today, started);
+            }
+            return counter;
+        }
+    }
+
+    private long countStarted(Long userId, LocalDate day) {
+        LocalDateTime startOfDay = day.atStartOfDay();
+        return workLogRepository.countClaimsStartedByUserToday(userId, startOfDay, startOfDay.plusDays(1).minusSeconds(1));
+    }
+
+    private static Object[] createSeedLocks() {
+        Object[] locks = new Object[SEED_STRIPES];
+        for (int i = 0; i < SEED_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,423 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.projection.CustomerListView;
+import com.swp391.warrantymanagement.dto.projection.VehicleListView;
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.ServiceHistory;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.repository.CustomerRepository;
+import com.swp391.warrantymanagement.repository.PartRepository;
+import com.swp391.warrantymanagement.repository.ServiceHistoryRepository;
+import com.swp391.warrantymanagement.repository.UserRepository;
+import com.swp391.warrantymanagement.repository.VehicleRepository;
+import com.swp391.warrantymanagement.util.TrigramIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Index full-text in-memory ({@link TrigramIndex}) cho ô tìm kiếm chung của admin: customers, vehicles, parts, users và
+ * service histories. Thay cho các query {@code search*General} dạng {@code LOWER(col) LIKE '%term%'} (full table scan mỗi
+ * lần gõ phím).
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Mỗi loại entity có một {@link TrigramIndex} với cùng các cột như query LIKE cũ; tìm kiếm không phân biệt
+ *     dấu tiếng Việt và trả về kết quả đã xếp hạng. Index chỉ trả về ID của trang cần hiển thị; dữ liệu của trang được
+ *     đọc từ DB bằng một query {@code IN (:ids)}.</li>
+ *     <li>Nạp toàn bộ khi ứng dụng sẵn sàng (keyset, {@link #LOAD_BATCH_SIZE} dòng mỗi lần), hoặc ở lần tìm kiếm đầu tiên.</li>
+ *     <li>Thay đổi được bắt bằng Hibernate post-commit listener (insert/update/delete, kể cả dirty checking): listener chỉ
+ *     ghi nhận ID vào hàng chờ; lần tìm kiếm kế tiếp đọc lại các dòng đó từ DB trước khi trả lời. Thay đổi của User
+ *     (email) làm mới customer tương ứng, thay đổi của Vehicle (tên, VIN) làm mới service history của xe.</li>
+ *     <li>Cập nhật bằng JPQL bulk update không đi qua listener; các cột được index hiện không có bulk update nào.</li>
+ *     <li><strong>Nhiều node:</strong> listener chỉ thấy thay đổi commit trong JVM này. Thay đổi từ node khác (và mọi
+ *     thay đổi không đi qua Hibernate) được bắt bằng đối soát định kỳ ({@code search-index.reconcile-interval-ms}):
+ *     mỗi index được dựng lại từ DB trong một {@link TrigramIndex} mới rồi thay thế index cũ, nên insert/update/delete
+ *     của node khác xuất hiện chậm tối đa một chu kỳ. Các bảng không có cột "updated_at" và customer dùng UUID nên
+ *     không đọc được "chỉ những dòng mới/đổi"; lượt dựng lại là cùng keyset scan như lúc khởi động. Trong lúc dựng,
+ *     tìm kiếm vẫn dùng index cũ; ID được làm mới trong lúc đó được áp dụng lại lên index mới sau khi thay thế.</li>
+ *     <li>Tắt bằng {@code search-index.enabled=false}: các service quay về query LIKE trên DB.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class FullTextSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FullTextSearchIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 5_000;
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private final CustomerRepository customerRepository;
+    private final VehicleRepository vehicleRepository;
+    private final PartRepository partRepository;
+    private final UserRepository userRepository;
+    private final ServiceHistoryRepository serviceHistoryRepository;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${search-index.enabled:true}")
+    private boolean enabled;
+
+    private Target<UUID> customers;
+    private Target<Long> vehicles;
+    private Target<Long> parts;
+    private Target<Long> users;
+    private Target<Long> serviceHistories;
+
+    /**
+     * Index của một loại entity + hàng chờ làm mới.
+     * Dòng dữ liệu: {@code [id, field 1..fieldCount, (tag)]}.
+     */
+    private static final class Target<K> {
+        private final String name;
+        private final int fieldCount;
+        private final boolean tagged;
+        private final BiFunction<K, Limit, List<Object[]>> pageLoader;
+        private final Function<Collection<K>, List<Object[]>> rowLoader;
+        private final Function<Collection<Long>, List<K>> parentResolver;
+        private final Set<K> pendingKeys = ConcurrentHashMap.newKeySet();
+        private final Set<Long> pendingParentIds = ConcurrentHashMap.newKeySet();
+        private volatile TrigramIndex<K> index = new TrigramIndex<>();
+        private volatile boolean loaded;
+        // Khác null khi đang đối soát: ID đã làm mới trên index cũ, cần áp dụng lại lên index mới (giữ lock target)
+        private Set<K> refreshedDuringReconcile;
+
+        private Target(String name, int fieldCount, boolean tagged,
+                       BiFunction<K, Limit, List<Object[]>> pageLoader,
+                       Function<Collection<K>, List<Object[]>> rowLoader,
+                       Function<Collection<Long>, List<K>> parentResolver) {
+            this.name = name;
+            this.fieldCount = fieldCount;
+            this.tagged = tagged;
+            this.pageLoader = pageLoader;
+            this.rowLoader = rowLoader;
+            this.parentResolver = parentResolver;
+        }
+
+        @SuppressWarnings("unchecked")
+        private K put(TrigramIndex<K> index, Object[] row) {
+            K key = (K) row[0];
+            String[] fields = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                fields[i] = (String) row[i + 1];
+            }
+            long tag = tagged && row[fieldCount + 1] != null ? ((Number) row[fieldCount + 1]).longValue() : 0L;
+            index.put(key, tag, fields);
+            return key;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        customers = new Target<>("customers", 3, false,
+                customerRepository::findSearchRows, customerRepository::findSearchRowsByIds,
+                customerRepository::findIdsByUserIds);
+        vehicles = new Target<>("vehicles", 3, false,
+                vehicleRepository::findSearchRows, vehicleRepository::findSearchRowsByIds, null);
+        parts = new Target<>("parts", 3, false,
+                partRepository::findSearchRows, partRepository::findSearchRowsByIds, null);
+        users = new Target<>("users", 2, true,
+                userRepository::findSearchRows, userRepository::findSearchRowsByIds, null);
+        serviceHistories = new Target<>("serviceHistories", 4, false,
+                serviceHistoryRepository::findSearchRows, serviceHistoryRepository::findSearchRowsByIds,
+                serviceHistoryRepository::findIdsByVehicleIds);
+
+        if (enabled) {
+            EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry().getService(EventListenerRegistry.class);
+            ChangeListener listener = new ChangeListener();
+            registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+            registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+            registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            List.of(customers, vehicles, parts, users, serviceHistories).forEach(this::refresh);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Đối soát định kỳ với DB để thấy thay đổi từ node khác (xem doc của class).
+     */
+    @Scheduled(fixedDelayString = "${search-index.reconcile-interval-ms:300000}",
+            initialDelayString = "${search-index.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (enabled) {
+            List.of(customers, vehicles, parts, users, serviceHistories).forEach(this::reconcile);
+        }
+    }
+
+    /**
+     * Tìm customer theo name, phone, email (như {@code CustomerRepository.searchListViewsGeneral}).
+     */
+    public Page<CustomerListView> searchCustomers(String term, Pageable pageable) {
+        return search(customers, term, null, pageable,
+                customerRepository::findListViewsByCustomerIdIn, CustomerListView::customerId);
+    }
+
+    /**
+     * Tìm vehicle theo name, model, VIN (như {@code VehicleRepository.searchListViewsGeneral}).
+     */
+    public Page<VehicleListView> searchVehicles(String term, Pageable pageable) {
+        return search(vehicles, term, null, pageable,
+                vehicleRepository::findListViewsByVehicleIdIn, VehicleListView::vehicleId);
+    }
+
+    /**
+     * Tìm part theo name, manufacturer, partNumber (như {@code PartRepository.searchPartsGeneral}).
+     */
+    public Page<Part> searchParts(String term, Pageable pageable) {
+        return search(parts, term, null, pageable, partRepository::findAllById, Part::getPartId);
+    }
+
+    /**
+     * Tìm user theo username, email (như {@code UserRepository.searchUsersGeneral[WithRole]}).
+     *
+     * @param roleId chỉ lấy user có role này; {@code null} = mọi role
+     */
+    public Page<User> searchUsers(String term, Long roleId, Pageable pageable) {
+        return search(users, term, roleId, pageable, userRepository::findAllById, User::getUserId);
+    }
+
+    /**
+     * Tìm service history theo serviceType, description, vehicleName, VIN
+     * (như {@code ServiceHistoryRepository.searchServiceHistoriesGeneral}).
+     */
+    public Page<ServiceHistory> searchServiceHistories(String term, Pageable pageable) {
+        return search(serviceHistories, term, null, pageable,
+                serviceHistoryRepository::findAllById, ServiceHistory::getServiceHistoryId);
+    }
+
+    // ===== Internal =====
+
+    private <K, T> Page<T> search(Target<K> target, String term, Long tag, Pageable pageable,
+                                  Function<Collection<K>, List<T>> fetch, Function<T, K> keyOf) {
+        refresh(target);
+        TrigramIndex.Result<K> result = target.index.search(term, tag != null ? value -> value == tag : null,
+                pageable.getOffset(), pageable.getPageSize());
+        if (result.keys().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, result.total());
+        }
+
+        Map<K, T> byKey = new HashMap<>();
+        for (T item : fetch.apply(result.keys())) {
+            byKey.put(keyOf.apply(item), item);
+        }
+        List<T> content = new ArrayList<>(result.keys().size());
+        for (K key : result.keys()) {
+            T item = byKey.get(key);
+            if (item != null) {
+                content.add(item);
+            } else {
+                // Dòng đã bị xóa mà listener không thấy (ví dụ ON DELETE CASCADE): lần sau sẽ bỏ khỏi index
+                target.pendingKeys.add(key);
+            }
+        }
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    /**
+     * Nạp index nếu chưa nạp, rồi áp dụng các thay đổi đang chờ.
+     */
+    private <K> void refresh(Target<K> target) {
+        synchronized (target) {
+            if (!target.loaded) {
+                loadAll(target);
+            }
+            if (target.parentResolver != null && !target.pendingParentIds.isEmpty()) {
+                for (List<Long> parentIds : drain(target.pendingParentIds)) {
+                    target.pendingKeys.addAll(target.parentResolver.apply(parentIds));
+                }
+            }
+            if (target.pendingKeys.isEmpty()) {
+                return;
+            }
+            int refreshed = 0;
+            for (List<K> keys : drain(target.pendingKeys)) {
+                Set<K> missing = new HashSet<>(keys);
+                for (Object[] row : target.rowLoader.apply(keys)) {
+                    missing.remove(target.put(target.index, row));
+                }
+                missing.forEach(target.index::remove);
+                if (target.refreshedDuringReconcile != null) {
+                    target.refreshedDuringReconcile.addAll(keys);
+                }
+                refreshed += keys.size();
+            }
+            logger.debug("🔎 Refreshed {} {} in search index", refreshed, target.name);
+        }
+    }
+
+    private <K> void loadAll(Target<K> target) {
+        long start = System.nanoTime();
+        loadInto(target, target.index);
+        target.loaded = true;
+        logger.info("🔎 Search index for {} loaded: {} documents in {} ms",
+                target.name, target.index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Dựng lại index của target từ DB ngoài lock (tìm kiếm vẫn chạy trên index cũ), rồi thay thế; ID được làm mới
+     * trong lúc dựng được đưa lại vào hàng chờ vì index mới có thể đã đọc dòng đó trước khi nó thay đổi.
+     */
+    private <K> void reconcile(Target<K> target) {
+        synchronized (target) {
+            if (!target.loaded || target.refreshedDuringReconcile != null) {
+                return; // Chưa nạp: lần tìm kiếm đầu tiên sẽ nạp toàn bộ
+            }
+            target.refreshedDuringReconcile = new HashSet<>();
+        }
+        long start = System.nanoTime();
+        TrigramIndex<K> fresh = new TrigramIndex<>();
+        try {
+            loadInto(target, fresh);
+        } catch (RuntimeException e) {
+            synchronized (target) {
+                target.refreshedDuringReconcile = null;
+            }
+            logger.error("❌ Search index reconcile for {} failed: {}", target.name, e.getMessage(), e);
+            return;
+        }
+        synchronized (target) {
+            target.pendingKeys.addAll(target.refreshedDuringReconcile);
+            target.refreshedDuringReconcile = null;
+            target.index = fresh;
+        }
+        logger.debug("🔎 Search index for {} reconciled: {} documents in {} ms",
+                target.name, fresh.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private <K> void loadInto(Target<K> target, TrigramIndex<K> index) {
+        K after = null;
+        List<Object[]> rows;
+        do {
+            rows = target.pageLoader.apply(after, Limit.of(LOAD_BATCH_SIZE));
+            for (Object[] row : rows) {
+                after = target.put(index, row);
+            }
+        } while (rows.size() == LOAD_BATCH_SIZE);
+    }
+
+    /**
+     * Lấy (và xóa) các phần tử đang chờ theo lô; phần tử được thêm đồng thời sẽ nằm lại cho lần sau.
+     */
+    private static <T> List<List<T>> drain(Set<T> pending) {
+        List<List<T>> batches = new ArrayList<>();
+        List<T> batch = new ArrayList<>(REFRESH_BATCH_SIZE);
+        for (Iterator<T> iterator = pending.iterator(); iterator.hasNext(); ) {
+            batch.add(iterator.next());
+            iterator.remove();
+            if (batch.size() == REFRESH_BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>(REFRESH_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Ghi nhận entity thay đổi sau khi transaction commit (không truy cập DB ở đây).
+     */
+    private final class ChangeListener
+            implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            markChanged(event.getEntity());
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            markChanged(event.getEntity());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            markChanged(event.getEntity());
+        }
+
+        @Override
+        public void onPostInsertCommitFailed(PostInsertEvent event) {
+            // Rollback: index không đổi
+        }
+
+        @Override
+        public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+            // Rollback: index không đổi
+        }
+
+        @Override
+        public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+            // Rollback: index không đổi
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            Class<?> type = persister.getMappedClass();
+            return type == Customer.class || type == Vehicle.class || type == Part.class
+                    || type == User.class || type == ServiceHistory.class;
+        }
+
+        private void markChanged(Object entity) {
+            if (entity instanceof Customer customer) {
+                customers.pendingKeys.add(customer.getCustomerId());
+            } else if (entity instanceof Vehicle vehicle) {
+                vehicles.pendingKeys.add(vehicle.getVehicleId());
+                serviceHistories.pendingParentIds.add(vehicle.getVehicleId());
+            } else if (entity instanceof Part part) {
+                parts.pendingKeys.add(part.getPartId());
+            } else if (entity instanceof User user) {
+                users.pendingKeys.add(user.getUserId());
+                customers.pendingParentIds.add(user.getUserId());
+            } else if (entity instanceof ServiceHistory serviceHistory) {
+                serviceHistories.pendingKeys.add(serviceHistory.getServiceHistoryId());
+            }
+        }
+    }
+}
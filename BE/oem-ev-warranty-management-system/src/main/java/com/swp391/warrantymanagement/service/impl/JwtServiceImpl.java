@@ -1,16 +1,29 @@
 package com.swp391.warrantymanagement.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.swp391.warrantymanagement.entity.User;
 import com.swp391.warrantymanagement.service.JwtService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -19,18 +32,54 @@ import java.util.function.Function;
 /**
  * Implementation của JwtService
  * Xử lý generation, validation, và extraction của JWT tokens
+ * <p>
+ * <strong>Hiệu năng:</strong>
+ * <ul>
+ *     <li>Signing key và {@link JwtParser} chỉ được build một lần (lazy, thread-safe) thay vì mỗi lần parse.</li>
+ *     <li>{@link #verifyToken(String)} parse + verify HMAC đúng một lần và trả về tất cả claims cần dùng.</li>
+ *     <li>Token đã xác thực được giữ trong cache Caffeine: giới hạn {@code jwt.claims-cache.max-size} entry
+ *     (loại bỏ theo W-TinyLFU, O(1)), key là SHA-256 digest của token, mỗi entry hết hạn đúng tại {@code exp} của token.
+ *     Metrics: {@code cache.gets{cache=jwtClaims}}.</li>
+ * </ul>
  */
 @Service
+@RequiredArgsConstructor
 public class JwtServiceImpl implements JwtService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtServiceImpl.class);
 
+    static final String CLAIMS_CACHE_NAME = "jwtClaims";
+
+    private final MeterRegistry meterRegistry;
+
     @Value("${jwt.secret-key}")
     private String secretKey;
 
     private static final long ACCESS_TOKEN_EXPIRATION = 1000 * 60 * 60 * 3; // 3 giờ
     private static final long REFRESH_TOKEN_EXPIRATION = 1000 * 60 * 60 * 24 * 7; // 7 ngày
 
+    // Số token đã xác thực tối đa được giữ trong cache (mỗi phiên đăng nhập ~ 1 entry)
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    // Build một lần khi cần lần đầu (secret key không đổi trong suốt vòng đời ứng dụng)
+    private volatile SecretKey signKey;
+    private volatile JwtParser jwtParser;
+
+    // digest(token) -> claims đã xác thực
+    private Cache<String, VerifiedToken> verifiedTokenCache;
+
+    @PostConstruct
+    void initClaimsCache() {
+        verifiedTokenCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(Expiry.creating((String key, VerifiedToken token) ->
+                        Duration.ofMillis(Math.max(0, token.getExpiration().getTime() - System.currentTimeMillis()))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokenCache, CLAIMS_CACHE_NAME);
+    }
+
     /**
      * Tạo access token với thời hạn 3 giờ
      *
@@ -43,6 +92,7 @@ public class JwtServiceImpl implements JwtService {
         claims.put("userId", user.getUserId());
         claims.put("role", user.getRole().getRoleName());
         claims.put("email", user.getEmail());
+        claims.put("ver", user.getTokenVersion() != null ? user.getTokenVersion() : 0);
         return createToken(claims, user.getUsername(), ACCESS_TOKEN_EXPIRATION);
     }
 
@@ -63,7 +113,7 @@ public class JwtServiceImpl implements JwtService {
     @Override
     public String extractUsername(String token) {
         try {
-            String username = extractClaim(token, Claims::getSubject);
+            String username = verifyToken(token).getUsername();
             logger.debug("📝 [JwtService] Username extracted: {}", username);
             return username;
         } catch (Exception e) {
@@ -83,9 +133,7 @@ public class JwtServiceImpl implements JwtService {
 
     private Claims extractAllClaims(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSignKey())
-                    .build()
+            Claims claims = getParser()
                     .parseSignedClaims(token)
                     .getPayload();
             logger.debug("✅ [JwtService] Token signature verified successfully");
@@ -98,7 +146,7 @@ public class JwtServiceImpl implements JwtService {
     }
 
     private Boolean isTokenExpired(String token) {
-        Date expiration = extractExpiration(token);
+        Date expiration = verifyToken(token).getExpiration();
         Date now = new Date();
         boolean expired = expiration.before(now);
 
@@ -111,6 +159,33 @@ public class JwtServiceImpl implements JwtService {
         return expired;
     }
 
+    @Override
+    public VerifiedToken verifyToken(String token) {
+        long now = System.currentTimeMillis();
+        String cacheKey = digest(token);
+
+        // Entry hết hạn không được trả về: parser sẽ ném ExpiredJwtException như bình thường
+        VerifiedToken cached = verifiedTokenCache.getIfPresent(cacheKey);
+        if (cached != null && !cached.isExpired(now)) {
+            logger.debug("⚡ [JwtService] Verified claims served from cache for: {}", cached.getUsername());
+            return cached;
+        }
+
+        Claims claims = extractAllClaims(token);
+        VerifiedToken verified = new VerifiedToken(
+                claims.getSubject(),
+                toLong(claims.get("userId")),
+                claims.get("role", String.class),
+                toInteger(claims.get("ver")),
+                claims.getExpiration()
+        );
+
+        if (!verified.isExpired(now)) {
+            verifiedTokenCache.put(cacheKey, verified);
+        }
+        return verified;
+    }
+
     @Override
     public boolean isTokenValid(String token) {
         try {
@@ -142,7 +217,50 @@ public class JwtServiceImpl implements JwtService {
     }
 
     private SecretKey getSignKey() {
-        byte[] keyBytes = java.util.Base64.getDecoder().decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        SecretKey key = signKey;
+        if (key == null) {
+            synchronized (this) {
+                key = signKey;
+                if (key == null) {
+                    byte[] keyBytes = Base64.getDecoder().decode(secretKey);
+                    key = Keys.hmacShaKeyFor(keyBytes);
+                    signKey = key;
+                }
+            }
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser parser = jwtParser;
+        if (parser == null) {
+            synchronized (this) {
+                parser = jwtParser;
+                if (parser == null) {
+                    // JwtParser của jjwt là immutable và thread-safe nên có thể dùng chung
+                    parser = Jwts.parser().verifyWith(getSignKey()).build();
+                    jwtParser = parser;
+                }
+            }
+        }
+        return parser;
+    }
+
+    // Không giữ token gốc trong bộ nhớ, chỉ giữ digest làm key
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static Integer toInteger(Object value) {
+        return value instanceof Number number ? number.intValue() : null;
     }
 }
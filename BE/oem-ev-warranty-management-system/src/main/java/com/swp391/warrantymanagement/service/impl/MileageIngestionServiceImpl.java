@@ -0,0 +1,385 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swp391.warrantymanagement.dto.request.MileageReadingDTO;
+import com.swp391.warrantymanagement.dto.response.MileageIngestionResponseDTO;
+import com.swp391.warrantymanagement.dto.response.MileageReadingRejectionDTO;
+import com.swp391.warrantymanagement.enums.MileageReadingRejectionReason;
+import com.swp391.warrantymanagement.repository.VehicleMileageBulkRepository;
+import com.swp391.warrantymanagement.repository.VehicleMileageBulkRepository.MileageUpdate;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.MileageSample;
+import com.swp391.warrantymanagement.service.MileageIngestionService;
+import com.swp391.warrantymanagement.service.VehicleMileageHistoryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation của MileageIngestionService.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>{@code pending}: số đo mới nhất chưa ghi của mỗi xe (key = VIN viết hoa). Mỗi số đo được xét bằng một
+ *     {@code compute} trên {@link ConcurrentHashMap} - nguyên tử theo từng xe, không khóa chung - nên hàng nghìn số đo
+ *     của cùng một xe giữa hai lần flush chỉ còn một UPDATE.</li>
+ *     <li>{@code highWaterMarks}: số đo cuối cùng đã ghi thành công (Caffeine, giới hạn kích thước) để vẫn từ chối được
+ *     số đo làm km giảm sau khi flush. Xe không còn trong cache (mới khởi động, bị evict) được điều kiện
+ *     {@code mileage <= ?} trong câu UPDATE chặn lại.</li>
+ *     <li>Flush theo {@code flush-interval-ms}: chụp {@code pending}, sắp theo VIN (thứ tự khóa dòng cố định giữa
+ *     các node), ghi mỗi {@code batch-size} xe trong một transaction. Sau khi ghi, entry chỉ bị xóa nếu chưa có số đo
+ *     mới hơn ({@code remove(vin, reading)}); chunk lỗi được giữ lại để thử lại ở lần sau.</li>
+ *     <li>Chống tràn bộ nhớ: khi {@code pending} đã có {@code max-pending} xe, số đo của xe mới bị từ chối
+ *     ({@link MileageReadingRejectionReason#BUFFER_FULL}) để gateway gửi lại sau.</li>
+ * </ul>
+ * <strong>Lịch sử km:</strong> số đo đã ghi được đưa vào hàng đợi {@code historyQueue} (giới hạn {@code max-pending-history})
+ * và được nối vào lịch sử ({@link VehicleMileageHistoryService}) bởi một job riêng ({@code history-flush-interval-ms}),
+ * transaction riêng. Flush km chỉ còn một câu UPDATE mỗi xe nên tốc độ flush (và ngưỡng BUFFER_FULL) không phụ thuộc
+ * vào lịch sử; lịch sử trễ tối đa khoảng một chu kỳ. Chunk lịch sử lỗi được đặt lại đầu hàng đợi để giữ thứ tự thời gian;
+ * hàng đợi đầy thì số đo bị bỏ khỏi lịch sử (km hiện tại vẫn đúng) và được đếm.
+ * Số km chỉ nằm trong key của {@link WarrantyValidationCache} nên ghi km ở đây không cần evict cache nào.
+ * <p>
+ * <strong>Metrics:</strong> {@code vehicle.mileage.ingestion.readings{outcome}}, {@code vehicle.mileage.ingestion.pending},
+ * {@code vehicle.mileage.ingestion.flush} (timer), {@code vehicle.mileage.ingestion.flush.skipped} (UPDATE không đổi
+ * dòng nào: VIN không tồn tại hoặc km trong DB đã cao hơn), {@code vehicle.mileage.ingestion.flush.failures},
+ * {@code vehicle.mileage.ingestion.history.pending}, {@code vehicle.mileage.ingestion.history.flush} (timer),
+ * {@code vehicle.mileage.ingestion.history.dropped}, {@code vehicle.mileage.ingestion.history.failures}.
+ */
+@Service
+@RequiredArgsConstructor
+public class MileageIngestionServiceImpl implements MileageIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MileageIngestionServiceImpl.class);
+
+    private static final int MAX_VIN_LENGTH = 50; // Độ dài cột vehicles.vehicle_vin
+
+    private final VehicleMileageBulkRepository mileageBulkRepository;
+    private final VehicleMileageHistoryService mileageHistoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${vehicle.mileage-ingestion.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${vehicle.mileage-ingestion.max-pending:200000}")
+    private int maxPending;
+
+    @Value("${vehicle.mileage-ingestion.max-clock-skew-seconds:300}")
+    private long maxClockSkewSeconds;
+
+    @Value("${vehicle.mileage-ingestion.high-water-max-size:500000}")
+    private long highWaterMaxSize;
+
+    @Value("${vehicle.mileage-ingestion.max-pending-history:200000}")
+    private int maxPendingHistory;
+
+    private final ConcurrentHashMap<String, Reading> pending = new ConcurrentHashMap<>();
+    private Cache<String, Reading> highWaterMarks;
+    private Counter acceptedCounter;
+    private Counter supersededCounter;
+    private Counter rejectedCounter;
+    private Counter skippedCounter;
+    private Counter failureCounter;
+    private Timer flushTimer;
+    private BlockingDeque<Map.Entry<String, Reading>> historyQueue;
+    private Counter historyDroppedCounter;
+    private Counter historyFailureCounter;
+    private Timer historyFlushTimer;
+
+    /**
+     * Số đo đã chuẩn hóa của một xe.
+     */
+    record Reading(int mileage, LocalDateTime timestamp) {
+    }
+
+    /**
+     * Kết quả xét một số đo; {@code reason} khác null nghĩa là bị từ chối.
+     */
+    enum Outcome {
+        ACCEPTED(null),
+        SUPERSEDED(null),
+        INVALID(MileageReadingRejectionReason.INVALID),
+        FUTURE_TIMESTAMP(MileageReadingRejectionReason.FUTURE_TIMESTAMP),
+        REGRESSION(MileageReadingRejectionReason.REGRESSION),
+        BUFFER_FULL(MileageReadingRejectionReason.BUFFER_FULL);
+
+        private final MileageReadingRejectionReason reason;
+
+        Outcome(MileageReadingRejectionReason reason) {
+            this.reason = reason;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        highWaterMarks = Caffeine.newBuilder()
+                .maximumSize(highWaterMaxSize)
+                .build();
+        acceptedCounter = meterRegistry.counter("vehicle.mileage.ingestion.readings", "outcome", "accepted");
+        supersededCounter = meterRegistry.counter("vehicle.mileage.ingestion.readings", "outcome", "superseded");
+        rejectedCounter = meterRegistry.counter("vehicle.mileage.ingestion.readings", "outcome", "rejected");
+        skippedCounter = meterRegistry.counter("vehicle.mileage.ingestion.flush.skipped");
+        failureCounter = meterRegistry.counter("vehicle.mileage.ingestion.flush.failures");
+        flushTimer = meterRegistry.timer("vehicle.mileage.ingestion.flush");
+        Gauge.builder("vehicle.mileage.ingestion.pending", pending, Map::size)
+                .description("Số xe có số km đang chờ ghi xuống DB")
+                .register(meterRegistry);
+
+        historyQueue = new LinkedBlockingDeque<>(maxPendingHistory);
+        historyDroppedCounter = meterRegistry.counter("vehicle.mileage.ingestion.history.dropped");
+        historyFailureCounter = meterRegistry.counter("vehicle.mileage.ingestion.history.failures");
+        historyFlushTimer = meterRegistry.timer("vehicle.mileage.ingestion.history.flush");
+        Gauge.builder("vehicle.mileage.ingestion.history.pending", historyQueue, BlockingDeque::size)
+                .description("Số số đo đã ghi km, đang chờ nối vào lịch sử")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public MileageIngestionResponseDTO ingest(List<MileageReadingDTO> readings) {
+        LocalDateTime latestAllowed = LocalDateTime.now().plusSeconds(maxClockSkewSeconds);
+        int accepted = 0;
+        int superseded = 0;
+        List<MileageReadingRejectionDTO> rejections = new ArrayList<>();
+
+        for (int index = 0; index < readings.size(); index++) {
+            MileageReadingDTO reading = readings.get(index);
+            Outcome outcome = offer(reading, latestAllowed);
+            if (outcome == Outcome.ACCEPTED) {
+                accepted++;
+            } else if (outcome == Outcome.SUPERSEDED) {
+                superseded++;
+            } else {
+                rejections.add(MileageReadingRejectionDTO.builder()
+                        .index(index)
+                        .vin(reading != null ? reading.getVin() : null)
+                        .reason(outcome.reason)
+                        .build());
+            }
+        }
+
+        acceptedCounter.increment(accepted);
+        supersededCounter.increment(superseded);
+        rejectedCounter.increment(rejections.size());
+        return MileageIngestionResponseDTO.builder()
+                .received(readings.size())
+                .accepted(accepted)
+                .superseded(superseded)
+                .rejected(rejections.size())
+                .rejections(rejections)
+                .build();
+    }
+
+    private Outcome offer(MileageReadingDTO reading, LocalDateTime latestAllowed) {
+        if (reading == null || reading.getVin() == null || reading.getVin().isBlank()
+                || reading.getMileage() == null || reading.getMileage() < 0 || reading.getTimestamp() == null) {
+            return Outcome.INVALID;
+        }
+        String vin = reading.getVin().trim().toUpperCase(Locale.ROOT);
+        if (vin.length() > MAX_VIN_LENGTH) {
+            return Outcome.INVALID;
+        }
+        if (reading.getTimestamp().isAfter(latestAllowed)) {
+            return Outcome.FUTURE_TIMESTAMP;
+        }
+        // Xấp xỉ (size() không khóa) là đủ cho mục đích chống tràn bộ nhớ
+        if (pending.size() >= maxPending && !pending.containsKey(vin)) {
+            return Outcome.BUFFER_FULL;
+        }
+
+        Reading candidate = new Reading(reading.getMileage(), reading.getTimestamp());
+        Outcome[] outcome = new Outcome[1];
+        pending.compute(vin, (key, current) -> {
+            Reading latest = current != null ? current : highWaterMarks.getIfPresent(key);
+            outcome[0] = classify(latest, candidate);
+            return outcome[0] == Outcome.ACCEPTED ? candidate : current;
+        });
+        return outcome[0];
+    }
+
+    /**
+     * So số đo mới với số đo mới nhất đã biết của xe: km phải đơn điệu không giảm theo thời gian đo.
+     * Số đo đến trễ (cũ hơn) nhưng nhất quán chỉ bị thay thế, không phải lỗi.
+     */
+    static Outcome classify(Reading latest, Reading candidate) {
+        if (latest == null) {
+            return Outcome.ACCEPTED;
+        }
+        if (!candidate.timestamp().isBefore(latest.timestamp())) {
+            return candidate.mileage() >= latest.mileage() ? Outcome.ACCEPTED : Outcome.REGRESSION;
+        }
+        return candidate.mileage() <= latest.mileage() ? Outcome.SUPERSEDED : Outcome.REGRESSION;
+    }
+
+    @Scheduled(fixedDelayString = "${vehicle.mileage-ingestion.flush-interval-ms:2000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${vehicle.mileage-ingestion.history-flush-interval-ms:2000}")
+    public void scheduledHistoryFlush() {
+        flushHistory();
+    }
+
+    /**
+     * Ghi nốt số km và lịch sử đang chờ trước khi tắt ứng dụng.
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        int updated = flush();
+        int recorded = flushHistory();
+        logger.info("Mileage ingestion buffer flushed on shutdown: updated={}, remaining={}, history recorded={}, history remaining={}",
+                updated, pending.size(), recorded, historyQueue.size());
+    }
+
+    // synchronized: flush định kỳ, flush khi tắt và flush gọi trực tiếp không chạy chồng lên nhau
+    @Override
+    public synchronized int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        List<Map.Entry<String, Reading>> drained = new ArrayList<>(pending.size());
+        pending.forEach((vin, reading) -> drained.add(Map.entry(vin, reading)));
+        drained.sort(Map.Entry.comparingByKey());
+
+        int updated = 0;
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            updated += writeChunk(drained.subList(from, Math.min(from + batchSize, drained.size())));
+        }
+        flushTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        logger.debug("Mileage ingestion flush: drained={}, updated={}", drained.size(), updated);
+        return updated;
+    }
+
+    private int writeChunk(List<Map.Entry<String, Reading>> chunk) {
+        List<MileageUpdate> updates = new ArrayList<>(chunk.size());
+        for (Map.Entry<String, Reading> entry : chunk) {
+            updates.add(new MileageUpdate(entry.getKey(), entry.getValue().mileage()));
+        }
+
+        int[] counts;
+        try {
+            counts = transactionTemplate.execute(status -> mileageBulkRepository.updateMileages(updates));
+        } catch (RuntimeException e) {
+            // Giữ lại trong pending, lần flush sau thử lại
+            failureCounter.increment(chunk.size());
+            logger.error("❌ Mileage ingestion flush failed for {} vehicles: {}", chunk.size(), e.getMessage(), e);
+            return 0;
+        }
+
+        int updated = 0;
+        int skipped = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Map.Entry<String, Reading> entry = chunk.get(i);
+            if (isWritten(counts, i)) {
+                highWaterMarks.put(entry.getKey(), entry.getValue());
+                if (!historyQueue.offer(entry)) {
+                    historyDroppedCounter.increment();
+                }
+                updated++;
+            } else {
+                skipped++;
+            }
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        if (skipped > 0) {
+            skippedCounter.increment(skipped);
+            logger.debug("Mileage ingestion flush skipped {} vehicles (unknown VIN or higher mileage in DB)", skipped);
+        }
+        return updated;
+    }
+
+    // Lock riêng (không dùng monitor của flush()): ghi lịch sử không chặn flush km
+    private final Object historyFlushLock = new Object();
+
+    @Override
+    public int flushHistory() {
+        synchronized (historyFlushLock) {
+            if (historyQueue.isEmpty()) {
+                return 0;
+            }
+            long startNanos = System.nanoTime();
+            int recorded = 0;
+            List<Map.Entry<String, Reading>> chunk = new ArrayList<>(batchSize);
+            // Chỉ lấy những gì đang có trong hàng đợi lúc bắt đầu; số đo đến sau chờ lần tiếp theo
+            int remaining = historyQueue.size();
+            while (remaining > 0 && historyQueue.drainTo(chunk, Math.min(batchSize, remaining)) > 0) {
+                remaining -= chunk.size();
+                try {
+                    List<Map.Entry<String, Reading>> written = chunk;
+                    recorded += transactionTemplate.execute(status -> recordHistory(written));
+                } catch (RuntimeException e) {
+                    historyFailureCounter.increment(chunk.size());
+                    logger.error("❌ Mileage history flush failed for {} readings: {}", chunk.size(), e.getMessage(), e);
+                    requeueHistory(chunk);
+                    break;
+                }
+                chunk.clear();
+            }
+            historyFlushTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            logger.debug("Mileage history flush: recorded={}, remaining={}", recorded, historyQueue.size());
+            return recorded;
+        }
+    }
+
+    private int recordHistory(List<Map.Entry<String, Reading>> chunk) {
+        List<String> vins = new ArrayList<>(chunk.size());
+        for (Map.Entry<String, Reading> entry : chunk) {
+            vins.add(entry.getKey());
+        }
+        Map<String, Long> vehicleIds = mileageBulkRepository.findVehicleIdsByVin(vins);
+        List<MileageSample> samples = new ArrayList<>(chunk.size());
+        for (Map.Entry<String, Reading> entry : chunk) {
+            Long vehicleId = vehicleIds.get(entry.getKey());
+            if (vehicleId != null) {
+                samples.add(new MileageSample(vehicleId, entry.getValue().mileage(), entry.getValue().timestamp()));
+            }
+        }
+        return mileageHistoryService.record(samples);
+    }
+
+    // Đặt lại đầu hàng đợi theo thứ tự cũ để lần sau số đo của một xe vẫn được nối theo thời gian
+    private void requeueHistory(List<Map.Entry<String, Reading>> chunk) {
+        for (int i = chunk.size() - 1; i >= 0; i--) {
+            if (!historyQueue.offerFirst(chunk.get(i))) {
+                historyDroppedCounter.increment(i + 1);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int pendingHistoryCount() {
+        return historyQueue.size();
+    }
+
+    // Statement.SUCCESS_NO_INFO (< 0): driver không trả số dòng, coi như đã ghi
+    private static boolean isWritten(int[] counts, int index) {
+        return counts == null || index >= counts.length || counts[index] != 0;
+    }
+
+    @Override
+    public int pendingCount() {
+        return pending.size();
+    }
+}
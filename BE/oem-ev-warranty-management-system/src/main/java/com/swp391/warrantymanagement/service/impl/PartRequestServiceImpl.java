@@ -11,6 +11,7 @@ import com.swp391.warrantymanagement.mapper.PartRequestMapper;
 import com.swp391.warrantymanagement.repository.*;
 import com.swp391.warrantymanagement.service.JwtService;
 import com.swp391.warrantymanagement.service.PartRequestService;
+import com.swp391.warrantymanagement.util.PartRequestStatusValidator;
 import com.swp391.warrantymanagement.util.SecurityUtil;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -22,6 +23,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.function.Function;
 
 /**
  * Service chịu trách nhiệm xử lý toàn bộ logic nghiệp vụ cho quy trình Yêu cầu Linh kiện (Part Request).
@@ -181,23 +183,16 @@ public class PartRequestServiceImpl implements PartRequestService {
         User evmStaff = userRepository.findByUsername(approverUsername)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + approverUsername));
 
-        PartRequest partRequest = partRequestRepository.findById(requestId)
-                .orElseThrow(() -> new ResourceNotFoundException("Part request not found: " + requestId));
-
         // Thiết kế: Kiểm tra trạng thái hiện tại là một bước cực kỳ quan trọng để đảm bảo tính toàn vẹn
-        // của quy trình nghiệp vụ. Ném ra IllegalStateException nếu quy tắc bị vi phạm.
-        if (partRequest.getStatus() != PartRequestStatus.PENDING) {
-            throw new IllegalStateException("Can only approve PENDING requests");
-        }
+        // của quy trình nghiệp vụ. Kiểm tra và cập nhật nằm trong MỘT câu UPDATE có điều kiện nên hai người duyệt
+        // (hoặc duyệt và hủy) cùng lúc không thể ghi đè nhau; bên thua nhận IllegalStateException.
+        int updated = partRequestRepository.approve(requestId,
+                PartRequestStatusValidator.getAllowedSourceStatuses(PartRequestStatus.APPROVED),
+                PartRequestStatus.APPROVED, evmStaff, LocalDateTime.now(), notes);
+        requireTransition(updated, requestId, current -> "Can only approve PENDING requests");
 
-        partRequest.setStatus(PartRequestStatus.APPROVED);
-        partRequest.setApprovedBy(evmStaff);
-        partRequest.setApprovedDate(LocalDateTime.now());
-        partRequest.setNotes(notes);
-
-        PartRequest updated = partRequestRepository.save(partRequest);
         logger.info("Part request approved: {}", requestId);
-        return PartRequestMapper.toResponseDTO(updated);
+        return PartRequestMapper.toResponseDTO(findPartRequest(requestId));
     }
 
     /**
@@ -223,22 +218,14 @@ public class PartRequestServiceImpl implements PartRequestService {
         User evmStaff = userRepository.findByUsername(rejectorUsername)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + rejectorUsername));
 
-        PartRequest partRequest = partRequestRepository.findById(requestId)
-                .orElseThrow(() -> new ResourceNotFoundException("Part request not found: " + requestId));
+        // Thiết kế: Tương tự như approve, việc kiểm tra trạng thái là bắt buộc (conditional update).
+        int updated = partRequestRepository.reject(requestId,
+                PartRequestStatusValidator.getAllowedSourceStatuses(PartRequestStatus.REJECTED),
+                PartRequestStatus.REJECTED, evmStaff, LocalDateTime.now(), rejectionReason);
+        requireTransition(updated, requestId, current -> "Can only reject PENDING requests");
 
-        // Thiết kế: Tương tự như approve, việc kiểm tra trạng thái là bắt buộc.
-        if (partRequest.getStatus() != PartRequestStatus.PENDING) {
-            throw new IllegalStateException("Can only reject PENDING requests");
-        }
-
-        partRequest.setStatus(PartRequestStatus.REJECTED);
-        partRequest.setApprovedBy(evmStaff);
-        partRequest.setApprovedDate(LocalDateTime.now());
-        partRequest.setRejectionReason(rejectionReason);
-
-        PartRequest updated = partRequestRepository.save(partRequest);
         logger.info("Part request rejected: {}", requestId);
-        return PartRequestMapper.toResponseDTO(updated);
+        return PartRequestMapper.toResponseDTO(findPartRequest(requestId));
     }
 
     /**
@@ -264,21 +251,14 @@ public class PartRequestServiceImpl implements PartRequestService {
         User shipper = userRepository.findByUsername(shipperUsername)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + shipperUsername));
 
-        PartRequest partRequest = partRequestRepository.findById(requestId)
-                .orElseThrow(() -> new ResourceNotFoundException("Part request not found: " + requestId));
-
         // Thiết kế: Đảm bảo chỉ những yêu cầu đã được duyệt mới có thể được gửi đi.
-        if (partRequest.getStatus() != PartRequestStatus.APPROVED) {
-            throw new IllegalStateException("Can only ship APPROVED requests");
-        }
-
-        partRequest.setStatus(PartRequestStatus.SHIPPED);
-        partRequest.setShippedDate(LocalDateTime.now());
-        partRequest.setTrackingNumber(trackingNumber);
+        int updated = partRequestRepository.markShipped(requestId,
+                PartRequestStatusValidator.getAllowedSourceStatuses(PartRequestStatus.SHIPPED),
+                PartRequestStatus.SHIPPED, LocalDateTime.now(), trackingNumber);
+        requireTransition(updated, requestId, current -> "Can only ship APPROVED requests");
 
-        PartRequest updated = partRequestRepository.save(partRequest);
         logger.info("Part request marked as shipped: {}", requestId);
-        return PartRequestMapper.toResponseDTO(updated);
+        return PartRequestMapper.toResponseDTO(findPartRequest(requestId));
     }
 
     /**
@@ -303,20 +283,14 @@ public class PartRequestServiceImpl implements PartRequestService {
         User receiver = userRepository.findByUsername(receiverUsername)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found: " + receiverUsername));
 
-        PartRequest partRequest = partRequestRepository.findById(requestId)
-                .orElseThrow(() -> new ResourceNotFoundException("Part request not found: " + requestId));
-
         // Thiết kế: Đảm bảo chỉ những yêu cầu đang trên đường vận chuyển mới có thể được xác nhận đã nhận.
-        if (partRequest.getStatus() != PartRequestStatus.SHIPPED) {
-            throw new IllegalStateException("Can only mark SHIPPED requests as delivered");
-        }
+        int updated = partRequestRepository.markDelivered(requestId,
+                PartRequestStatusValidator.getAllowedSourceStatuses(PartRequestStatus.DELIVERED),
+                PartRequestStatus.DELIVERED, LocalDateTime.now());
+        requireTransition(updated, requestId, current -> "Can only mark SHIPPED requests as delivered");
 
-        partRequest.setStatus(PartRequestStatus.DELIVERED);
-        partRequest.setDeliveredDate(LocalDateTime.now());
-
-        PartRequest updated = partRequestRepository.save(partRequest);
         logger.info("Part request marked as delivered: {}", requestId);
-        return PartRequestMapper.toResponseDTO(updated);
+        return PartRequestMapper.toResponseDTO(findPartRequest(requestId));
     }
 
     /**
@@ -478,16 +452,15 @@ public class PartRequestServiceImpl implements PartRequestService {
         // BƯỚC 4: Xác thực việc chuyển đổi trạng thái
         // CHỈ cancel PENDING requests (chưa approve)
         // Request đã APPROVED/SHIPPED/DELIVERED không thể cancel
-        if (partRequest.getStatus() != PartRequestStatus.PENDING) {
-            throw new IllegalStateException("Can only cancel PENDING requests");
-        }
-
-        // BƯỚC 5: Update status - CANCELLED là final state
-        partRequest.setStatus(PartRequestStatus.CANCELLED);
-        PartRequest updated = partRequestRepository.save(partRequest);
+        // BƯỚC 5: Update status - CANCELLED là final state. Điều kiện status nằm trong câu UPDATE
+        // nên không thể hủy một request vừa được EVM_STAFF duyệt đồng thời.
+        int updated = partRequestRepository.transitionStatus(requestId,
+                PartRequestStatusValidator.getAllowedSourceStatuses(PartRequestStatus.CANCELLED),
+                PartRequestStatus.CANCELLED);
+        requireTransition(updated, requestId, current -> "Can only cancel PENDING requests");
 
         logger.info("Part request cancelled: {}", requestId);
-        return PartRequestMapper.toResponseDTO(updated);
+        return PartRequestMapper.toResponseDTO(findPartRequest(requestId));
     }
 
     /**
@@ -554,4 +527,22 @@ public class PartRequestServiceImpl implements PartRequestService {
     public Long countByStatus(PartRequestStatus status) {
         return partRequestRepository.countByStatus(status);
     }
+
+    // ============= HELPER METHODS =============
+
+    /**
+     * Xác nhận kết quả conditional update: 0 dòng → ResourceNotFoundException nếu request không tồn tại,
+     * ngược lại IllegalStateException (chỉ đọc lại status trên nhánh lỗi).
+     */
+    private void requireTransition(int updatedRows, Long requestId, Function<PartRequestStatus, String> conflictMessage) {
+        PartRequestStatusValidator.TRANSITIONS.requireApplied(updatedRows,
+                () -> partRequestRepository.findStatusById(requestId),
+                () -> new ResourceNotFoundException("Part request not found: " + requestId),
+                conflictMessage);
+    }
+
+    private PartRequest findPartRequest(Long requestId) {
+        return partRequestRepository.findById(requestId)
+                .orElseThrow(() -> new ResourceNotFoundException("Part request not found: " + requestId));
+    }
 }
@@ -28,6 +28,7 @@ public class PartServiceImpl implements PartService {
     private final PartRepository partRepository;
     private final InstalledPartRepository installedPartRepository;
     private final PartCategoryRepository partCategoryRepository;
+    private final FullTextSearchIndex fullTextSearchIndex; // Tìm kiếm chung không dấu, có xếp hạng
 
     /**
      * Lấy danh sách parts với pagination và search
@@ -42,7 +43,9 @@ public class PartServiceImpl implements PartService {
 
         if (search != null && !search.trim().isEmpty()) {
             // Search in name, manufacturer, and partNumber
-            partPage = partRepository.searchPartsGeneral(search.trim(), pageable);
+            partPage = fullTextSearchIndex.isEnabled()
+                    ? fullTextSearchIndex.searchParts(search.trim(), pageable)
+                    : partRepository.searchPartsGeneral(search.trim(), pageable);
         } else {
             partPage = partRepository.findAll(pageable);
         }
@@ -0,0 +1,111 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.entity.RecallCampaignStats;
+import com.swp391.warrantymanagement.enums.RecallResponseStatus;
+import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
+import com.swp391.warrantymanagement.repository.RecallCampaignStatsRepository;
+import com.swp391.warrantymanagement.repository.RecallRequestRepository;
+import com.swp391.warrantymanagement.repository.RecallResponseRepository;
+import com.swp391.warrantymanagement.service.RecallCampaignStatsService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Implementation của RecallCampaignStatsService.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *   <li>Cập nhật bằng cách khóa dòng stats ({@code SELECT ... FOR UPDATE}) rồi cộng/trừ trong Java:
+ *   các transaction xác nhận đồng thời của cùng campaign được tuần tự hóa trên một dòng, không mất cập nhật.</li>
+ *   <li>Nếu campaign chưa có dòng stats, dựng lại từ recall_responses thay vì cộng delta. Query GROUP BY chạy sau
+ *   khi thay đổi hiện tại đã được flush, nên kết quả đã bao gồm thay đổi đó.</li>
+ *   <li>Dựng lại luôn khóa dòng recall_requests trước, rồi mới đọc/khóa dòng stats: hai transaction cùng thấy
+ *   campaign chưa có stats không thể cùng INSERT một khóa chính (và không deadlock trên gap lock của MySQL);
+ *   transaction sau thấy dòng stats đã commit và dựng lại trên chính dòng đó.</li>
+ *   <li>Khi khởi động, dựng stats cho các campaign tạo trước khi có bảng này (chạy trước khi resume job fan-out).</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class RecallCampaignStatsServiceImpl implements RecallCampaignStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecallCampaignStatsServiceImpl.class);
+
+    private final RecallCampaignStatsRepository recallCampaignStatsRepository;
+    private final RecallResponseRepository recallResponseRepository;
+    private final RecallRequestRepository recallRequestRepository;
+
+    @Override
+    public RecallCampaignStats recordCreated(Long recallRequestId, long count) {
+        RecallCampaignStats stats = recallCampaignStatsRepository.findByIdForUpdate(recallRequestId).orElse(null);
+        if (stats == null) {
+            return rebuild(recallRequestId);
+        }
+        stats.increment(RecallResponseStatus.PENDING, count);
+        stats.setUpdatedAt(LocalDateTime.now());
+        return recallCampaignStatsRepository.save(stats);
+    }
+
+    @Override
+    public RecallCampaignStats recordTransition(Long recallRequestId, RecallResponseStatus from, RecallResponseStatus to) {
+        RecallCampaignStats stats = recallCampaignStatsRepository.findByIdForUpdate(recallRequestId).orElse(null);
+        if (stats == null) {
+            return rebuild(recallRequestId);
+        }
+        if (from != to) {
+            stats.increment(from, -1);
+            stats.increment(to, 1);
+            stats.setUpdatedAt(LocalDateTime.now());
+            stats = recallCampaignStatsRepository.save(stats);
+        }
+        return stats;
+    }
+
+    @Override
+    public RecallCampaignStats getForUpdate(Long recallRequestId) {
+        return recallCampaignStatsRepository.findByIdForUpdate(recallRequestId)
+                .orElseGet(() -> rebuild(recallRequestId));
+    }
+
+    @Override
+    public RecallCampaignStats rebuild(Long recallRequestId) {
+        recallRequestRepository.findByIdForUpdate(recallRequestId)
+                .orElseThrow(() -> new ResourceNotFoundException("RecallRequest", "id", recallRequestId));
+        RecallCampaignStats stats = recallCampaignStatsRepository.findByIdForUpdate(recallRequestId)
+                .orElseGet(() -> new RecallCampaignStats(recallRequestId));
+        stats.reset();
+        for (Object[] row : recallResponseRepository.countGroupByStatusForRecallRequest(recallRequestId)) {
+            stats.increment((RecallResponseStatus) row[0], ((Number) row[1]).longValue());
+        }
+        stats.setUpdatedAt(LocalDateTime.now());
+        logger.info("Rebuilt recall campaign stats for {}: {} responses ({} pending)",
+                recallRequestId, stats.getTotalCount(), stats.getPendingCount());
+        return recallCampaignStatsRepository.save(stats);
+    }
+
+    /**
+     * Dựng stats cho các campaign chưa có dòng stats. Chạy trước khi các job fan-out được resume.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void backfillMissingStats() {
+        List<Long> missing = recallCampaignStatsRepository.findRecallRequestIdsWithoutStats();
+        if (!missing.isEmpty()) {
+            logger.info("Backfilling recall campaign stats for {} campaigns", missing.size());
+            missing.forEach(this::rebuild);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker pool riêng cho job fan-out recall.
+ * <p>
+ * Tách khỏi thread pool của web request để một chiến dịch hàng trăm nghìn xe không chiếm thread HTTP.
+ * Số worker nhỏ (mặc định 2) vì mỗi job đã ghi theo JDBC batch; thêm worker chỉ tăng tranh chấp ghi.
+ * Khi shutdown, job đang chạy bị ngắt giữa chừng vẫn an toàn: chunk đã commit có checkpoint
+ * và job (RUNNING) sẽ được tiếp tục khi ứng dụng khởi động lại.
+ */
+@Component
+public class RecallFanoutJobExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecallFanoutJobExecutor.class);
+
+    @Value("${recall.fanout.worker-threads:2}")
+    private int workerThreads;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "recall-fanout-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = Executors.newFixedThreadPool(workerThreads, threadFactory);
+    }
+
+    public void submit(Long jobId, Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("❌ Recall fan-out job {} failed: {}", jobId, e.getMessage(), e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Recall fan-out workers did not stop within 10s; unfinished jobs resume on next startup");
+        }
+    }
+}
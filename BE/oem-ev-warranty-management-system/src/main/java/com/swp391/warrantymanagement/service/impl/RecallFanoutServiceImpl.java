@@ -0,0 +1,318 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.response.RecallFanoutJobResponseDTO;
+import com.swp391.warrantymanagement.entity.RecallCampaignStats;
+import com.swp391.warrantymanagement.entity.RecallFanoutProgress;
+import com.swp391.warrantymanagement.entity.RecallRequest;
+import com.swp391.warrantymanagement.enums.RecallFanoutJobStatus;
+import com.swp391.warrantymanagement.enums.RecallRequestStatus;
+import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
+import com.swp391.warrantymanagement.mapper.RecallFanoutJobMapper;
+import com.swp391.warrantymanagement.repository.RecallFanoutProgressRepository;
+import com.swp391.warrantymanagement.repository.RecallRequestRepository;
+import com.swp391.warrantymanagement.repository.RecallResponseBulkRepository;
+import com.swp391.warrantymanagement.service.RecallCampaignStatsService;
+import com.swp391.warrantymanagement.service.RecallFanoutService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Job nền fan-out set-based cho chiến dịch triệu hồi.
+ * <p>
+ * <strong>Quy trình:</strong>
+ * <ol>
+ *     <li>{@link #createJob}: trong transaction duyệt của Admin, lưu job QUEUED; sau commit giao cho
+ *     {@link RecallFanoutJobExecutor}.</li>
+ *     <li>Worker - transaction đầu: chuyển job sang RUNNING, tính lại số xe bị ảnh hưởng và số dòng còn thiếu.</li>
+ *     <li>Mỗi chunk (transaction riêng): lấy {@code chunkSize} vehicle ID tiếp theo (keyset từ {@code lastVehicleId}
+ *     + anti-join), INSERT nhiều dòng RecallResponse, cập nhật progress.</li>
+ *     <li>Transaction cuối: job COMPLETED và chiến dịch APPROVED_BY_ADMIN → WAITING_CUSTOMER_CONFIRM.</li>
+ * </ol>
+ * Lỗi giữa chừng chỉ rollback chunk hiện tại; job chuyển FAILED với checkpoint giữ nguyên.
+ * Job QUEUED/RUNNING (bị ngắt do restart) được tiếp tục khi ứng dụng sẵn sàng.
+ * <p>
+ * <strong>Chạy lại job FAILED:</strong> định kỳ ({@code recall.fanout.retry-interval-ms}, tối đa
+ * {@code recall.fanout.max-retries} lần) hoặc do Admin gọi {@link #retryJob}. Job được nhận bằng cách khóa dòng job
+ * và chuyển FAILED → QUEUED, nên chỉ một node chạy lại; mỗi chunk cũng khóa dòng job, nên hai lần chạy của cùng
+ * một job không bao giờ ghi song song. Unique key {@code (recall_request_id, vehicle_id)} + {@code INSERT IGNORE}
+ * là lớp bảo vệ cuối cùng chống response trùng.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecallFanoutServiceImpl implements RecallFanoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecallFanoutServiceImpl.class);
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private final RecallResponseBulkRepository recallResponseBulkRepository;
+    private final RecallFanoutProgressRepository recallFanoutProgressRepository;
+    private final RecallRequestRepository recallRequestRepository;
+    private final RecallFanoutJobExecutor recallFanoutJobExecutor;
+    private final RecallCampaignStatsService recallCampaignStatsService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${recall.fanout.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${recall.fanout.max-retries:3}")
+    private int maxRetries;
+
+    @Override
+    @Transactional
+    public RecallFanoutProgress createJob(RecallRequest recallRequest) {
+        LocalDateTime now = LocalDateTime.now();
+        RecallFanoutProgress job = new RecallFanoutProgress();
+        job.setRecallRequest(recallRequest);
+        job.setStatus(RecallFanoutJobStatus.QUEUED);
+        job.setStartedAt(now);
+        job.setUpdatedAt(now);
+        RecallFanoutProgress savedJob = recallFanoutProgressRepository.save(job);
+        recallCampaignStatsService.rebuild(recallRequest.getRecallRequestId()); // Tạo dòng stats cho campaign
+
+        // Chỉ giao job cho worker sau khi commit, để worker thấy được chiến dịch APPROVED_BY_ADMIN và job QUEUED
+        Long jobId = savedJob.getProgressId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(jobId);
+                }
+            });
+        } else {
+            submit(jobId);
+        }
+        logger.info("Recall fan-out job {} queued for campaign {}", jobId, recallRequest.getRecallRequestId());
+        return savedJob;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Mỗi chunk tự mở transaction riêng
+    public RecallFanoutProgress runJob(Long jobId) {
+        long startNanos = System.nanoTime();
+
+        // BƯỚC 1: Bắt đầu (hoặc tiếp tục) job, tính lại tổng số dòng cần tạo từ checkpoint
+        Long[] campaign = transactionTemplate.execute(status -> {
+            RecallFanoutProgress job = findJobForUpdate(jobId);
+            if (job.getStatus() == RecallFanoutJobStatus.COMPLETED) {
+                return null;
+            }
+            Long recallRequestId = job.getRecallRequest().getRecallRequestId();
+            Long partId = job.getRecallRequest().getPart().getPartId();
+            LocalDateTime now = LocalDateTime.now();
+            job.setAffectedVehicles(recallResponseBulkRepository.countAffectedVehicles(partId));
+            job.setTotalRows(job.getProcessedRows()
+                    + recallResponseBulkRepository.countVehiclesWithoutResponse(recallRequestId, partId));
+            job.setStatus(RecallFanoutJobStatus.RUNNING);
+            job.setRunStartedAt(now);
+            job.setRowsAtRunStart(job.getProcessedRows());
+            job.setUpdatedAt(now);
+            job.setErrorMessage(null);
+            recallFanoutProgressRepository.save(job);
+            logger.info("Recall {} fan-out job {} running: {} affected vehicles, {}/{} rows done (chunk size {})",
+                    recallRequestId, jobId, job.getAffectedVehicles(), job.getProcessedRows(), job.getTotalRows(), chunkSize);
+            return new Long[]{recallRequestId, partId};
+        });
+        if (campaign == null) {
+            return findJobDetached(jobId);
+        }
+        Long recallRequestId = campaign[0];
+        Long partId = campaign[1];
+
+        try {
+            // BƯỚC 2: Xử lý từng chunk, mỗi chunk commit riêng
+            boolean hasMore = true;
+            while (hasMore) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // Ứng dụng đang shutdown: giữ RUNNING để tiếp tục từ checkpoint ở lần khởi động sau
+                    logger.warn("Recall fan-out job {} interrupted; will resume from checkpoint", jobId);
+                    return findJobDetached(jobId);
+                }
+                hasMore = Boolean.TRUE.equals(transactionTemplate.execute(
+                        status -> processChunk(jobId, recallRequestId, partId)));
+            }
+
+            // BƯỚC 3: Hoàn thành job và chuyển chiến dịch sang WAITING_CUSTOMER_CONFIRM (cùng transaction)
+            RecallFanoutProgress completedJob = transactionTemplate.execute(status -> completeJob(jobId, recallRequestId));
+            long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+            logger.info("✅ Recall {} fan-out job {} completed: {} RecallResponses created ({} in this run, {} ms)",
+                    recallRequestId, jobId, completedJob.getProcessedRows(),
+                    completedJob.getProcessedRows() - completedJob.getRowsAtRunStart(), elapsedMs);
+            return completedJob;
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> markFailed(jobId, e));
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public RecallFanoutJobResponseDTO getJob(Long jobId) {
+        return RecallFanoutJobMapper.toResponseDTO(findJob(jobId), LocalDateTime.now());
+    }
+
+    /**
+     * Tiếp tục các job chưa xong (QUEUED/RUNNING) sau khi ứng dụng khởi động lại.
+     * Job tiếp tục từ {@code lastVehicleId}; anti-join đảm bảo không tạo trùng RecallResponse.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<RecallFanoutProgress> unfinished = recallFanoutProgressRepository.findByStatusInOrderByProgressIdAsc(
+                EnumSet.of(RecallFanoutJobStatus.QUEUED, RecallFanoutJobStatus.RUNNING));
+        for (RecallFanoutProgress job : unfinished) {
+            logger.info("Resuming recall fan-out job {} from checkpoint vehicle ID {} ({} rows done)",
+                    job.getProgressId(), job.getLastVehicleId(), job.getProcessedRows());
+            submit(job.getProgressId());
+        }
+    }
+
+    @Override
+    @Transactional
+    public RecallFanoutJobResponseDTO retryJob(Long jobId) {
+        RecallFanoutProgress job = findJobForUpdate(jobId);
+        if (job.getStatus() != RecallFanoutJobStatus.FAILED) {
+            throw new IllegalStateException("Only FAILED recall fan-out jobs can be retried. Current status: " + job.getStatus());
+        }
+        requeue(job);
+        return RecallFanoutJobMapper.toResponseDTO(job, LocalDateTime.now());
+    }
+
+    /**
+     * Chạy lại định kỳ các job FAILED còn lượt (lỗi tạm thời: mất kết nối DB, deadlock...).
+     * Job đã hết lượt chỉ được chạy lại khi Admin gọi {@link #retryJob}.
+     */
+    @Scheduled(fixedDelayString = "${recall.fanout.retry-interval-ms:300000}",
+               initialDelayString = "${recall.fanout.retry-interval-ms:300000}")
+    public void retryFailedJobs() {
+        List<RecallFanoutProgress> failed = recallFanoutProgressRepository
+                .findByStatusAndRetryCountLessThanOrderByProgressIdAsc(RecallFanoutJobStatus.FAILED, maxRetries);
+        for (RecallFanoutProgress candidate : failed) {
+            Long jobId = candidate.getProgressId();
+            // Khóa và kiểm tra lại: node khác có thể đã nhận job này
+            Boolean claimed = transactionTemplate.execute(status -> {
+                RecallFanoutProgress job = findJobForUpdate(jobId);
+                if (job.getStatus() != RecallFanoutJobStatus.FAILED || job.getRetryCount() >= maxRetries) {
+                    return false;
+                }
+                requeue(job);
+                return true;
+            });
+            if (Boolean.TRUE.equals(claimed)) {
+                logger.info("Retrying failed recall fan-out job {} (attempt {}/{})", jobId, candidate.getRetryCount() + 1, maxRetries);
+            }
+        }
+    }
+
+    // FAILED → QUEUED trong transaction hiện tại; giao cho worker sau khi commit
+    private void requeue(RecallFanoutProgress job) {
+        Long jobId = job.getProgressId();
+        job.setStatus(RecallFanoutJobStatus.QUEUED);
+        job.setRetryCount(job.getRetryCount() + 1);
+        job.setUpdatedAt(LocalDateTime.now());
+        recallFanoutProgressRepository.save(job);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(jobId);
+            }
+        });
+    }
+
+    private void submit(Long jobId) {
+        recallFanoutJobExecutor.submit(jobId, () -> runJob(jobId));
+    }
+
+    /**
+     * Xử lý một chunk trong transaction hiện tại.
+     *
+     * @return true nếu có thể còn xe chưa xử lý
+     */
+    private boolean processChunk(Long jobId, Long recallRequestId, Long partId) {
+        RecallFanoutProgress job = findJobForUpdate(jobId);
+
+        List<Long> vehicleIds = recallResponseBulkRepository.findVehicleIdsWithoutResponse(
+                recallRequestId, partId, job.getLastVehicleId(), chunkSize);
+        if (vehicleIds.isEmpty()) {
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = recallResponseBulkRepository.insertPendingResponses(recallRequestId, vehicleIds, now);
+        recallCampaignStatsService.recordCreated(recallRequestId, inserted);
+        job.setProcessedRows(job.getProcessedRows() + inserted);
+        job.setLastVehicleId(vehicleIds.get(vehicleIds.size() - 1));
+        job.setUpdatedAt(now);
+        recallFanoutProgressRepository.save(job);
+        logger.debug("Recall {} job {} chunk committed: {} rows (total {}/{}), last vehicle ID {}",
+                recallRequestId, jobId, inserted, job.getProcessedRows(), job.getTotalRows(), job.getLastVehicleId());
+
+        // Chunk thiếu nghĩa là đã hết, không cần thêm một query rỗng
+        return vehicleIds.size() == chunkSize;
+    }
+
+    private RecallFanoutProgress completeJob(Long jobId, Long recallRequestId) {
+        RecallFanoutProgress job = findJob(jobId);
+        LocalDateTime now = LocalDateTime.now();
+        job.setStatus(RecallFanoutJobStatus.COMPLETED);
+        job.setCompletedAt(now);
+        job.setUpdatedAt(now);
+
+        RecallRequest recall = recallRequestRepository.findById(recallRequestId)
+                .orElseThrow(() -> new ResourceNotFoundException("RecallRequest", "id", recallRequestId));
+        if (job.getAffectedVehicles() > 0 && recall.getStatus() == RecallRequestStatus.APPROVED_BY_ADMIN) {
+            // Khách hàng có thể đã phản hồi hết trong lúc job còn chạy → chuyển thẳng sang COMPLETED
+            RecallCampaignStats stats = recallCampaignStatsService.getForUpdate(recallRequestId);
+            boolean allResponded = stats.getTotalCount() > 0 && stats.getPendingCount() == 0;
+            recall.setStatus(allResponded ? RecallRequestStatus.COMPLETED : RecallRequestStatus.WAITING_CUSTOMER_CONFIRM);
+            recall.setUpdatedAt(now);
+            recallRequestRepository.save(recall);
+            logger.info("RecallRequest {} status changed to {}. {} RecallResponses for {} affected vehicles.",
+                    recallRequestId, recall.getStatus(), job.getProcessedRows(), job.getAffectedVehicles());
+        }
+
+        // TODO - Send notification to affected customers
+        // notificationService.sendRecallNotifications(affectedVehicles);
+        // Email/SMS: "URGENT: Safety recall for your vehicle"
+
+        return recallFanoutProgressRepository.save(job);
+    }
+
+    private void markFailed(Long jobId, RuntimeException cause) {
+        RecallFanoutProgress job = findJob(jobId);
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        job.setStatus(RecallFanoutJobStatus.FAILED);
+        job.setErrorMessage(message.length() > MAX_ERROR_MESSAGE_LENGTH
+                ? message.substring(0, MAX_ERROR_MESSAGE_LENGTH) : message);
+        job.setUpdatedAt(LocalDateTime.now());
+        recallFanoutProgressRepository.save(job);
+    }
+
+    private RecallFanoutProgress findJob(Long jobId) {
+        return recallFanoutProgressRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("RecallFanoutJob", "id", jobId));
+    }
+
+    private RecallFanoutProgress findJobForUpdate(Long jobId) {
+        return recallFanoutProgressRepository.findByIdForUpdate(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("RecallFanoutJob", "id", jobId));
+    }
+
+    private RecallFanoutProgress findJobDetached(Long jobId) {
+        return transactionTemplate.execute(status -> findJob(jobId));
+    }
+}
@@ -11,7 +11,9 @@ import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
 import com.swp391.warrantymanagement.repository.*;
 import com.swp391.warrantymanagement.mapper.RecallRequestMapper;
 import com.swp391.warrantymanagement.service.JwtService;
+import com.swp391.warrantymanagement.service.RecallFanoutService;
 import com.swp391.warrantymanagement.service.RecallRequestService;
+import com.swp391.warrantymanagement.util.RecallRequestStatusValidator;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +22,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 /**
  * Service chịu trách nhiệm xử lý toàn bộ logic nghiệp vụ cho quy trình Yêu cầu Triệu hồi (Recall Request).
@@ -54,10 +57,10 @@ public class RecallRequestServiceImpl implements RecallRequestService {
     private final RecallRequestRepository recallRequestRepository;
     private final WarrantyClaimRepository warrantyClaimRepository;
     private final UserRepository userRepository;
-    private final InstalledPartRepository installedPartRepository;
     private final RecallResponseRepository recallResponseRepository;
     private final PartRepository partRepository;
     private final VehicleRepository vehicleRepository;
+    private final RecallFanoutService recallFanoutService;
 
     /**
      * Tạo một yêu cầu triệu hồi mới.
@@ -156,8 +159,9 @@ public class RecallRequestServiceImpl implements RecallRequestService {
      * <strong>Quy trình nghiệp vụ (State Machine):</strong>
      * <ul>
      *     <li><b>Điều kiện:</b> Yêu cầu phải đang ở trạng thái {@code PENDING_ADMIN_APPROVAL}.</li>
-     *     <li><b>Hành động:</b> Chuyển trạng thái sang {@code WAITING_CUSTOMER_CONFIRM}, ghi lại người duyệt và thời gian.
-     *     Sau bước này, hệ thống sẽ gửi thông báo cho khách hàng.</li>
+     *     <li><b>Hành động:</b> Chuyển trạng thái sang {@code APPROVED_BY_ADMIN}, ghi lại người duyệt và thời gian,
+     *     và tạo một job nền (trả về {@code fanoutJobId}). Worker tạo RecallResponse cho các xe bị ảnh hưởng rồi chuyển
+     *     sang {@code WAITING_CUSTOMER_CONFIRM}; tiến độ xem tại {@code GET /api/recalls/jobs/{id}}.</li>
      * </ul>
      * @param recallRequestId ID của yêu cầu cần duyệt.
      * @param adminNote Ghi chú (tùy chọn) từ người duyệt.
@@ -171,72 +175,28 @@ public class RecallRequestServiceImpl implements RecallRequestService {
         // BƯỚC 1: Lấy User (người duyệt) từ username đã được xác thực
         User approvedBy = userRepository.findByUsername(approverUsername).orElseThrow(() -> new ResourceNotFoundException("User", "username", approverUsername));
 
-        // BƯỚC 2: Tìm RecallRequest
-        RecallRequest recall = recallRequestRepository.findById(recallRequestId).orElseThrow(() -> new ResourceNotFoundException("RecallRequest", "id", recallRequestId));
-
-        // BƯỚC 3: Validate state transition - STATE MACHINE ENFORCEMENT
+        // BƯỚC 2-5: Validate state transition + update status và metadata - STATE MACHINE ENFORCEMENT
         // Thiết kế: Kiểm tra trạng thái hiện tại là một bước cực kỳ quan trọng để đảm bảo tính toàn vẹn của quy trình.
-        if (recall.getStatus() != RecallRequestStatus.PENDING_ADMIN_APPROVAL) {
-            throw new IllegalStateException("Can only approve recall requests with status PENDING_ADMIN_APPROVAL. Current status: " + recall.getStatus());
-        }
-
-        // BƯỚC 4-5: Update status và metadata
-        recall.setStatus(RecallRequestStatus.APPROVED_BY_ADMIN); // Admin đã duyệt
-        recall.setAdminNote(adminNote); // Optional explanation
-        recall.setApprovedBy(approvedBy); // Track WHO approved
-        recall.setUpdatedAt(LocalDateTime.now());
-
-        // BƯỚC 6: Save RecallRequest với status APPROVED
-        RecallRequest updatedRecall = recallRequestRepository.save(recall);
-        logger.info("Recall campaign approved: {} - Finding affected vehicles...", recallRequestId);
-
-        // ===== BƯỚC 7: TỰ ĐỘNG TÌM TẤT CẢ XE BỊ ẢNH HƯỞNG VÀ TẠO RECALL RESPONSE =====
-        // Tìm tất cả InstalledPart có Part bị lỗi
-        List<InstalledPart> affectedParts = installedPartRepository.findByPart_PartId(recall.getPart().getPartId());
-
-        // Lấy danh sách unique vehicles từ installed parts
-        Set<Vehicle> affectedVehicles = affectedParts.stream()
-                .map(InstalledPart::getVehicle)
-                .collect(Collectors.toSet());
-
-        logger.info("Found {} affected vehicles for recall campaign {}",
-                affectedVehicles.size(), recallRequestId);
-
-        // Tạo RecallResponse cho mỗi xe bị ảnh hưởng
-        int createdResponsesCount = 0;
-        for (Vehicle vehicle : affectedVehicles) {
-            // Kiểm tra xem xe này đã có response cho campaign này chưa (tránh duplicate)
-            Optional<RecallResponse> existingResponse = recallResponseRepository
-                    .findByRecallRequest_RecallRequestIdAndVehicle_VehicleId(
-                            recallRequestId, vehicle.getVehicleId());
-
-            if (existingResponse.isEmpty()) {
-                RecallResponse response = new RecallResponse();
-                response.setRecallRequest(updatedRecall);
-                response.setVehicle(vehicle);
-                response.setStatus(RecallResponseStatus.PENDING); // Chờ customer xác nhận
-                response.setCreatedAt(LocalDateTime.now());
-
-                recallResponseRepository.save(response);
-                createdResponsesCount++;
-                logger.info("Created RecallResponse for vehicle VIN: {}", vehicle.getVehicleVin());
-            }
-        }
-
-        // BƯỚC 8: Chuyển RecallRequest sang WAITING_CUSTOMER_CONFIRM nếu có RecallResponse được tạo
-        if (createdResponsesCount > 0 || !affectedVehicles.isEmpty()) {
-            updatedRecall.setStatus(RecallRequestStatus.WAITING_CUSTOMER_CONFIRM);
-            updatedRecall = recallRequestRepository.save(updatedRecall);
-            logger.info("RecallRequest status changed to WAITING_CUSTOMER_CONFIRM. " +
-                    "Created {} RecallResponses for {} affected vehicles.",
-                    createdResponsesCount, affectedVehicles.size());
-        }
-
-        // BƯỚC 9: TODO - Send notification to affected customers
-        // notificationService.sendRecallNotifications(affectedVehicles);
-        // Email/SMS: "URGENT: Safety recall for your vehicle"
-
-        return RecallRequestMapper.toResponseDTO(updatedRecall);
+        // Kiểm tra và cập nhật nằm trong MỘT câu UPDATE có điều kiện: hai admin duyệt cùng lúc chỉ một người thắng,
+        // nên job fan-out không bị tạo hai lần.
+        int updated = recallRequestRepository.decide(recallRequestId,
+                RecallRequestStatusValidator.getAllowedSourceStatuses(RecallRequestStatus.APPROVED_BY_ADMIN),
+                RecallRequestStatus.APPROVED_BY_ADMIN, adminNote, approvedBy, LocalDateTime.now());
+        requireTransition(updated, recallRequestId,
+                current -> "Can only approve recall requests with status PENDING_ADMIN_APPROVAL. Current status: " + current);
+
+        // BƯỚC 6: Load RecallRequest đã ở status APPROVED
+        RecallRequest updatedRecall = findRecallRequest(recallRequestId);
+
+        // ===== BƯỚC 7: TẠO JOB NỀN TÌM XE BỊ ẢNH HƯỞNG VÀ TẠO RECALL RESPONSE =====
+        // Job được giao cho worker sau khi transaction này commit; worker tạo RecallResponse theo chunk
+        // và chuyển campaign sang WAITING_CUSTOMER_CONFIRM khi xong (xem RecallFanoutService).
+        RecallFanoutProgress job = recallFanoutService.createJob(updatedRecall);
+        logger.info("Recall campaign approved: {} - fan-out job {} queued", recallRequestId, job.getProgressId());
+
+        RecallRequestResponseDTO response = RecallRequestMapper.toResponseDTO(updatedRecall);
+        response.setFanoutJobId(job.getProgressId());
+        return response;
     }
 
     /**
@@ -260,23 +220,16 @@ public class RecallRequestServiceImpl implements RecallRequestService {
         // BƯỚC 1: Lấy User (người từ chối) từ username đã được xác thực
         User rejectedBy = userRepository.findByUsername(rejectorUsername).orElseThrow(() -> new ResourceNotFoundException("User", "username", rejectorUsername));
 
-        // BƯỚC 2: Tìm RecallRequest
-        RecallRequest recall = recallRequestRepository.findById(recallRequestId).orElseThrow(() -> new ResourceNotFoundException("RecallRequest", "id", recallRequestId));
-
-        // BƯỚC 3: Validate state transition
-        // Thiết kế: Tương tự như approve, việc kiểm tra trạng thái là bắt buộc.
-        if (recall.getStatus() != RecallRequestStatus.PENDING_ADMIN_APPROVAL) {
-            throw new IllegalStateException("Can only reject recall requests with status PENDING_ADMIN_APPROVAL. Current status: " + recall.getStatus());
-        }
-
-        // BƯỚC 4-5: Update status - REJECTED_BY_ADMIN là final state
-        recall.setStatus(RecallRequestStatus.REJECTED_BY_ADMIN);
-        recall.setAdminNote(adminNote); // REQUIRED - explain why reject
-        recall.setApprovedBy(rejectedBy); // Track WHO rejected
-        recall.setUpdatedAt(LocalDateTime.now());
+        // BƯỚC 2-5: Validate state transition + update status - REJECTED_BY_ADMIN là final state
+        // Thiết kế: Tương tự như approve, việc kiểm tra trạng thái là bắt buộc (conditional update).
+        int updated = recallRequestRepository.decide(recallRequestId,
+                RecallRequestStatusValidator.getAllowedSourceStatuses(RecallRequestStatus.REJECTED_BY_ADMIN),
+                RecallRequestStatus.REJECTED_BY_ADMIN, adminNote, rejectedBy, LocalDateTime.now());
+        requireTransition(updated, recallRequestId,
+                current -> "Can only reject recall requests with status PENDING_ADMIN_APPROVAL. Current status: " + current);
 
-        // BƯỚC 6: Save
-        RecallRequest updatedRecall = recallRequestRepository.save(recall);
+        // BƯỚC 6: Load kết quả
+        RecallRequest updatedRecall = findRecallRequest(recallRequestId);
         logger.info("Recall request rejected by admin: {}", recallRequestId);
 
         return RecallRequestMapper.toResponseDTO(updatedRecall);
@@ -390,4 +343,22 @@ public class RecallRequestServiceImpl implements RecallRequestService {
         recallRequestRepository.delete(recall);
         logger.info("Recall request deleted successfully: {}", recallRequestId);
     }
+
+    // ============= HELPER METHODS =============
+
+    /**
+     * Xác nhận kết quả conditional update: 0 dòng → ResourceNotFoundException nếu campaign không tồn tại,
+     * ngược lại IllegalStateException (chỉ đọc lại status trên nhánh lỗi).
+     */
+    private void requireTransition(int updatedRows, Long recallRequestId, Function<RecallRequestStatus, String> conflictMessage) {
+        RecallRequestStatusValidator.TRANSITIONS.requireApplied(updatedRows,
+                () -> recallRequestRepository.findStatusById(recallRequestId),
+                () -> new ResourceNotFoundException("RecallRequest", "id", recallRequestId),
+                conflictMessage);
+    }
+
+    private RecallRequest findRecallRequest(Long recallRequestId) {
+        return recallRequestRepository.findById(recallRequestId)
+                .orElseThrow(() -> new ResourceNotFoundException("RecallRequest", "id", recallRequestId));
+    }
 }
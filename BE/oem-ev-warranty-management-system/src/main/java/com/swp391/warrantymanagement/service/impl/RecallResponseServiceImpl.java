@@ -3,22 +3,27 @@ package com.swp391.warrantymanagement.service.impl;
 import com.swp391.warrantymanagement.dto.request.RecallResponseConfirmDTO;
 import com.swp391.warrantymanagement.dto.response.RecallResponseResponseDTO;
 import com.swp391.warrantymanagement.entity.*;
+import com.swp391.warrantymanagement.enums.ClaimLifecycleEventType;
 import com.swp391.warrantymanagement.enums.RecallRequestStatus;
 import com.swp391.warrantymanagement.enums.RecallResponseStatus;
 import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.event.WarrantyClaimLifecycleEvent;
 import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
 import com.swp391.warrantymanagement.mapper.RecallResponseMapper;
 import com.swp391.warrantymanagement.repository.*;
+import com.swp391.warrantymanagement.service.RecallCampaignStatsService;
 import com.swp391.warrantymanagement.service.RecallResponseService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -30,6 +35,8 @@ import java.util.stream.Collectors;
  *   <li>Xử lý logic nghiệp vụ cho RecallResponse (phản hồi triệu hồi của từng xe)</li>
  *   <li>Tự động tạo WarrantyClaim khi customer chấp nhận recall</li>
  *   <li>Validate quyền sở hữu: Customer chỉ confirm được response của xe mình</li>
+ *   <li>Đổi trạng thái response luôn khóa dòng response trước ({@code SELECT ... FOR UPDATE}) rồi mới tới dòng
+ *   {@link RecallCampaignStats}: mỗi chuyển trạng thái được đếm đúng một lần, và cùng thứ tự khóa nên không deadlock</li>
  * </ul>
  */
 @Service
@@ -44,6 +51,9 @@ public class RecallResponseServiceImpl implements RecallResponseService {
     private final UserRepository userRepository;
     private final WarrantyClaimRepository warrantyClaimRepository;
     private final InstalledPartRepository installedPartRepository;
+    private final RecallCampaignStatsService recallCampaignStatsService;
+    private final TechnicianAssignmentEngine technicianAssignmentEngine;
+    private final ApplicationEventPublisher eventPublisher; // Sự kiện vòng đời claim cho SSE (gửi sau commit)
 
     @Override
     public RecallResponseResponseDTO customerConfirmResponse(Long recallResponseId, RecallResponseConfirmDTO dto, String customerUsername) {
@@ -53,8 +63,9 @@ public class RecallResponseServiceImpl implements RecallResponseService {
         User customerUser = userRepository.findByUsername(customerUsername)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", customerUsername));
 
-        // BƯỚC 2: Tìm RecallResponse
-        RecallResponse response = recallResponseRepository.findById(recallResponseId)
+        // BƯỚC 2: Tìm và khóa RecallResponse - kiểm tra PENDING ở bước 4 phải thấy kết quả của lần xác nhận đồng thời
+        // (ACCEPT/DECLINE cùng lúc), nếu không bộ đếm pending bị trừ hai lần và campaign COMPLETED quá sớm
+        RecallResponse response = recallResponseRepository.findByIdForUpdate(recallResponseId)
                 .orElseThrow(() -> new ResourceNotFoundException("RecallResponse", "id", recallResponseId));
 
         // BƯỚC 3: Validate ownership - AUTHORIZATION CHECK
@@ -103,12 +114,20 @@ public class RecallResponseServiceImpl implements RecallResponseService {
 
             claim.setRecallResponse(response); // Link back to recall response
 
-            // TODO: Auto-assign technician
-            // User technician = findAvailableTechnician(claim.getServiceCenter());
-            // claim.setAssignedTo(technician);
+            // Tự động gán technician ít tải nhất của service center
+            ServiceCenter serviceCenter = claim.getServiceCenter();
+            if (serviceCenter != null) {
+                pickEligibleTechnician(serviceCenter).ifPresentOrElse(
+                        claim::setAssignedTo,
+                        () -> logger.warn("⚠️ No technician in service center {} - recall claim left unassigned",
+                                serviceCenter.getServiceCenterId()));
+            } else {
+                logger.warn("⚠️ Customer has no service center - recall claim left unassigned");
+            }
 
             WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
             logger.info("Warranty claim created automatically from recall: Claim ID = {}", savedClaim.getWarrantyClaimId());
+            eventPublisher.publishEvent(WarrantyClaimLifecycleEvent.of(ClaimLifecycleEventType.CREATED, savedClaim));
 
             // Update RecallResponse
             response.setStatus(RecallResponseStatus.IN_PROGRESS);
@@ -129,39 +148,64 @@ public class RecallResponseServiceImpl implements RecallResponseService {
         RecallResponse updatedResponse = recallResponseRepository.save(response);
         logger.info("Recall response updated: {}", recallResponseId);
 
-        // BƯỚC 7: Check và cập nhật RecallRequest status nếu cần
-        updateRecallRequestStatusIfNeeded(updatedResponse.getRecallRequest());
+        // BƯỚC 7: Cập nhật bộ đếm của campaign (cùng transaction), rồi check RecallRequest status nếu cần
+        RecallCampaignStats stats = recallCampaignStatsService.recordTransition(
+                updatedResponse.getRecallRequest().getRecallRequestId(),
+                RecallResponseStatus.PENDING, updatedResponse.getStatus());
+        updateRecallRequestStatusIfNeeded(updatedResponse.getRecallRequest(), stats);
 
         return RecallResponseMapper.toResponseDTO(updatedResponse);
     }
 
+    /**
+     * Technician ít tải nhất của trung tâm, đã kiểm tra lại trên DB: heap của {@link TechnicianAssignmentEngine} có thể
+     * còn technician đã bị xóa, đổi role hoặc chuyển trung tâm (từ node khác). Khi đó heap được dựng lại và chọn thêm
+     * một lần.
+     */
+    private Optional<User> pickEligibleTechnician(ServiceCenter serviceCenter) {
+        Long serviceCenterId = serviceCenter.getServiceCenterId();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Optional<Long> technicianId =
+                    technicianAssignmentEngine.pickTechnician(serviceCenterId, serviceCenter.getDailyClaimLimitPerTech());
+            if (technicianId.isEmpty()) {
+                return Optional.empty();
+            }
+            Optional<User> technician = userRepository.findById(technicianId.get())
+                    .filter(user -> TechnicianAssignmentEngine.isEligible(user, serviceCenterId));
+            if (technician.isPresent()) {
+                return technician;
+            }
+            logger.warn("⚠️ Technician {} is no longer a technician of service center {} - reloading candidates",
+                    technicianId.get(), serviceCenterId);
+            technicianAssignmentEngine.invalidate(serviceCenterId);
+        }
+        return Optional.empty();
+    }
+
     /**
      * Kiểm tra và cập nhật RecallRequest status sau khi customer confirm RecallResponse.
      * <p>
      * Logic:
      * - Nếu TẤT CẢ RecallResponse đã được respond (không còn PENDING) → RecallRequest = COMPLETED
+     * - Dựa trên bộ đếm {@link RecallCampaignStats} (đã khóa trong transaction này) thay vì load mọi response của campaign
+     * - Chỉ áp dụng khi campaign đã ở WAITING_CUSTOMER_CONFIRM: trong lúc job fan-out còn chạy (APPROVED_BY_ADMIN)
+     *   vẫn còn xe chưa có response; job sẽ tự kiểm tra khi hoàn thành
      */
-    private void updateRecallRequestStatusIfNeeded(RecallRequest recallRequest) {
+    private void updateRecallRequestStatusIfNeeded(RecallRequest recallRequest, RecallCampaignStats stats) {
         logger.info("Checking if RecallRequest {} needs status update", recallRequest.getRecallRequestId());
 
-        // Lấy tất cả RecallResponse của RecallRequest này
-        List<RecallResponse> allResponses = recallResponseRepository.findByRecallRequest_RecallRequestId(
-                recallRequest.getRecallRequestId()
-        );
+        boolean hasAnyPending = stats.getPendingCount() > 0;
 
-        // Kiểm tra xem còn response nào PENDING không
-        boolean hasAnyPending = allResponses.stream()
-                .anyMatch(r -> r.getStatus() == RecallResponseStatus.PENDING);
-
-        if (!hasAnyPending && !allResponses.isEmpty()) {
+        if (!hasAnyPending && stats.getTotalCount() > 0
+                && recallRequest.getStatus() == RecallRequestStatus.WAITING_CUSTOMER_CONFIRM) {
             // Tất cả responses đã được respond → RecallRequest COMPLETED
             recallRequest.setStatus(RecallRequestStatus.COMPLETED);
             recallRequestRepository.save(recallRequest);
             logger.info("✅ RecallRequest {} status updated to COMPLETED (all customers have responded)",
                     recallRequest.getRecallRequestId());
         } else {
-            logger.info("RecallRequest {} still has pending responses. Current status: {}",
-                    recallRequest.getRecallRequestId(), recallRequest.getStatus());
+            logger.info("RecallRequest {} has {} pending responses. Current status: {}",
+                    recallRequest.getRecallRequestId(), stats.getPendingCount(), recallRequest.getStatus());
         }
     }
 
@@ -233,11 +277,20 @@ public class RecallResponseServiceImpl implements RecallResponseService {
 
         // Chỉ update nếu claim này là từ recall
         if (claim.getRecallResponse() != null) {
-            RecallResponse response = claim.getRecallResponse();
+            // Khóa response: hai lần hoàn tất đồng thời không được trừ bộ đếm hai lần
+            RecallResponse response = recallResponseRepository.findByIdForUpdate(claim.getRecallResponse().getRecallResponseId())
+                    .orElseThrow(() -> new ResourceNotFoundException("RecallResponse", "id",
+                            claim.getRecallResponse().getRecallResponseId()));
+            RecallResponseStatus previousStatus = response.getStatus();
+            if (previousStatus == RecallResponseStatus.COMPLETED) {
+                return;
+            }
             response.setStatus(RecallResponseStatus.COMPLETED);
             response.setCompletedAt(LocalDateTime.now());
 
             recallResponseRepository.save(response);
+            recallCampaignStatsService.recordTransition(
+                    response.getRecallRequest().getRecallRequestId(), previousStatus, RecallResponseStatus.COMPLETED);
             logger.info("RecallResponse {} marked as COMPLETED", response.getRecallResponseId());
         }
     }
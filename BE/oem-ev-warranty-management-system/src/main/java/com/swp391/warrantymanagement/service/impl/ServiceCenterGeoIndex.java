@@ -0,0 +1,322 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.event.ServiceCenterChangedEvent;
+import com.swp391.warrantymanagement.repository.ServiceCenterRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spatial index in-memory cho tọa độ các service center (lưới lat/lon cố định).
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Mặt cầu được chia thành các ô {@code cellSizeDegrees x cellSizeDegrees}. Truy vấn bán kính chỉ duyệt các ô
+ *     giao với bounding box của vòng tròn (có xử lý kinh tuyến 180° và vùng cực), sau đó tính Haversine cho
+ *     từng ứng viên — không chạm DB. Khi số ô cần duyệt vượt số center (bán kính gần cả địa cầu), quét thẳng mảng
+ *     tọa độ thay vì duyệt hàng trăm nghìn ô trống.</li>
+ *     <li>Dữ liệu được giữ trong một {@link Snapshot} bất biến, thay thế nguyên khối (copy-on-write) mỗi khi có
+ *     thay đổi, nên luồng đọc không cần lock.</li>
+ *     <li>Nạp toàn bộ khi ứng dụng sẵn sàng, sau đó cập nhật từng center khi nhận {@link ServiceCenterChangedEvent}
+ *     (sau khi transaction commit).</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class ServiceCenterGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceCenterGeoIndex.class);
+
+    static final double EARTH_RADIUS_KM = 6371.0;
+    // Nửa chu vi trái đất: bán kính này bao phủ mọi điểm
+    private static final double MAX_DISTANCE_KM = Math.PI * EARTH_RADIUS_KM;
+    private static final double INITIAL_KNN_RADIUS_KM = 10.0;
+
+    private final ServiceCenterRepository serviceCenterRepository;
+
+    @Value("${service-center.geo-index.cell-size-degrees:0.5}")
+    private double cellSizeDegrees;
+
+    // serviceCenterId -> {latitude, longitude} (độ); nguồn để dựng lại snapshot
+    private final Map<Long, double[]> coordinates = new ConcurrentHashMap<>();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Kết quả truy vấn: ID service center và khoảng cách (km) tới điểm truy vấn.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Neighbor {
+        private final Long serviceCenterId;
+        private final double distanceKm;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Cập nhật index cho center vừa thay đổi. Chạy AFTER_COMMIT để đọc được tọa độ đã commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onServiceCenterChanged(ServiceCenterChangedEvent event) {
+        if (snapshot == null) {
+            return; // Chưa nạp: lần truy vấn đầu tiên sẽ nạp toàn bộ
+        }
+        Long id = event.getServiceCenterId();
+        if (event.isDeleted()) {
+            coordinates.remove(id);
+        } else {
+            serviceCenterRepository.findById(id).ifPresentOrElse(
+                    sc -> putCoordinates(sc.getServiceCenterId(), sc.getLatitude(), sc.getLongitude()),
+                    () -> coordinates.remove(id));
+        }
+        rebuildSnapshot();
+        logger.debug("Geo index updated for serviceCenterId={} (deleted={})", id, event.isDeleted());
+    }
+
+    /**
+     * Nạp lại toàn bộ tọa độ từ DB (1 query projection).
+     */
+    public synchronized void reload() {
+        coordinates.clear();
+        for (Object[] row : serviceCenterRepository.findAllCoordinates()) {
+            putCoordinates((Long) row[0], (BigDecimal) row[1], (BigDecimal) row[2]);
+        }
+        rebuildSnapshot();
+        logger.info("🗺️ Service center geo index loaded: {} centers", coordinates.size());
+    }
+
+    /**
+     * Các center nằm trong bán kính {@code radiusKm}, sắp xếp theo khoảng cách tăng dần.
+     */
+    public List<Neighbor> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        List<Neighbor> result = currentSnapshot().withinRadius(latitude, longitude, radiusKm);
+        result.sort(Comparator.comparingDouble(Neighbor::getDistanceKm));
+        return result;
+    }
+
+    /**
+     * {@code k} center gần nhất, sắp xếp theo khoảng cách tăng dần.
+     * Mở rộng bán kính gấp đôi cho tới khi đủ {@code k} kết quả.
+     */
+    public List<Neighbor> findNearest(double latitude, double longitude, int k) {
+        Snapshot current = currentSnapshot();
+        if (k <= 0 || current.size() == 0) {
+            return new ArrayList<>();
+        }
+        int wanted = Math.min(k, current.size());
+        double radiusKm = INITIAL_KNN_RADIUS_KM;
+        List<Neighbor> candidates = current.withinRadius(latitude, longitude, radiusKm);
+        while (candidates.size() < wanted && radiusKm < MAX_DISTANCE_KM) {
+            radiusKm = Math.min(radiusKm * 2, MAX_DISTANCE_KM);
+            candidates = current.withinRadius(latitude, longitude, radiusKm);
+        }
+        candidates.sort(Comparator.comparingDouble(Neighbor::getDistanceKm));
+        return candidates.size() > wanted ? new ArrayList<>(candidates.subList(0, wanted)) : candidates;
+    }
+
+    /**
+     * Tất cả center trong index, sắp xếp theo khoảng cách tăng dần.
+     */
+    public List<Neighbor> findAllOrderedByDistance(double latitude, double longitude) {
+        List<Neighbor> result = currentSnapshot().all(latitude, longitude);
+        result.sort(Comparator.comparingDouble(Neighbor::getDistanceKm));
+        return result;
+    }
+
+    public int size() {
+        return currentSnapshot().size();
+    }
+
+    /**
+     * Khoảng cách Haversine (km) giữa hai điểm (độ).
+     */
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        return haversineRad(Math.toRadians(lat1), Math.toRadians(lon1), Math.cos(Math.toRadians(lat1)),
+                Math.toRadians(lat2), Math.toRadians(lon2), Math.cos(Math.toRadians(lat2)));
+    }
+
+    private static double haversineRad(double lat1, double lon1, double cosLat1,
+                                       double lat2, double lon2, double cosLat2) {
+        double sinDLat = Math.sin((lat2 - lat1) / 2);
+        double sinDLon = Math.sin((lon2 - lon1) / 2);
+        double a = sinDLat * sinDLat + cosLat1 * cosLat2 * sinDLon * sinDLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    // ============= HELPER METHODS =============
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private void putCoordinates(Long id, BigDecimal latitude, BigDecimal longitude) {
+        if (latitude == null || longitude == null) {
+            coordinates.remove(id);
+            return;
+        }
+        coordinates.put(id, new double[]{latitude.doubleValue(), longitude.doubleValue()});
+    }
+
+    private synchronized void rebuildSnapshot() {
+        snapshot = new Snapshot(new HashMap<>(coordinates), cellSizeDegrees);
+    }
+
+    /**
+     * Trạng thái bất biến của index: mảng tọa độ (radian) + map ô lưới -> chỉ số phần tử.
+     */
+    static final class Snapshot {
+        private final double cellSizeDegrees;
+        private final int latCells;
+        private final int lonCells;
+        private final long[] ids;
+        private final double[] latRad;
+        private final double[] lonRad;
+        private final double[] cosLat;
+        private final Map<Long, int[]> cells;
+
+        Snapshot(Map<Long, double[]> coordinates, double cellSizeDegrees) {
+            this.cellSizeDegrees = cellSizeDegrees;
+            this.latCells = (int) Math.ceil(180.0 / cellSizeDegrees);
+            this.lonCells = (int) Math.ceil(360.0 / cellSizeDegrees);
+
+            int n = coordinates.size();
+            ids = new long[n];
+            latRad = new double[n];
+            lonRad = new double[n];
+            cosLat = new double[n];
+
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            int i = 0;
+            for (Map.Entry<Long, double[]> entry : coordinates.entrySet()) {
+                double lat = entry.getValue()[0];
+                double lon = entry.getValue()[1];
+                ids[i] = entry.getKey();
+                latRad[i] = Math.toRadians(lat);
+                lonRad[i] = Math.toRadians(lon);
+                cosLat[i] = Math.cos(latRad[i]);
+                buckets.computeIfAbsent(cellKey(latIndex(lat), lonIndex(lon)), key -> new ArrayList<>()).add(i);
+                i++;
+            }
+
+            cells = new HashMap<>(buckets.size() * 2);
+            for (Map.Entry<Long, List<Integer>> bucket : buckets.entrySet()) {
+                cells.put(bucket.getKey(), bucket.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        List<Neighbor> withinRadius(double latitude, double longitude, double radiusKm) {
+            List<Neighbor> result = new ArrayList<>();
+            if (ids.length == 0 || radiusKm < 0) {
+                return result;
+            }
+            double qLat = Math.toRadians(latitude);
+            double qLon = Math.toRadians(longitude);
+            double qCosLat = Math.cos(qLat);
+
+            // Bounding box của spherical cap (góc tâm delta)
+            double delta = radiusKm / EARTH_RADIUS_KM;
+            double minLatDeg = latitude - Math.toDegrees(delta);
+            double maxLatDeg = latitude + Math.toDegrees(delta);
+            boolean allLongitudes = minLatDeg <= -90 || maxLatDeg >= 90 || Math.sin(delta) >= qCosLat;
+            double deltaLonDeg = allLongitudes ? 180 : Math.toDegrees(Math.asin(Math.sin(delta) / qCosLat));
+
+            int fromLat = latIndex(Math.max(-90, minLatDeg));
+            int toLat = latIndex(Math.min(90, maxLatDeg));
+            int fromLon;
+            int lonSpan;
+            if (allLongitudes || deltaLonDeg * 2 >= 360 - cellSizeDegrees) {
+                fromLon = 0;
+                lonSpan = lonCells;
+            } else {
+                fromLon = (int) Math.floor((longitude - deltaLonDeg + 180) / cellSizeDegrees);
+                int toLon = (int) Math.floor((longitude + deltaLonDeg + 180) / cellSizeDegrees);
+                lonSpan = Math.min(toLon - fromLon + 1, lonCells);
+            }
+
+            // Bán kính lớn (gần cả địa cầu): số ô cần duyệt vượt số center, quét thẳng mảng tọa độ
+            if ((long) (toLat - fromLat + 1) * lonSpan >= ids.length) {
+                for (int m = 0; m < ids.length; m++) {
+                    double distance = haversineRad(qLat, qLon, qCosLat, latRad[m], lonRad[m], cosLat[m]);
+                    if (distance <= radiusKm) {
+                        result.add(new Neighbor(ids[m], distance));
+                    }
+                }
+                return result;
+            }
+
+            for (int latIdx = fromLat; latIdx <= toLat; latIdx++) {
+                for (int step = 0; step < lonSpan; step++) {
+                    int lonIdx = Math.floorMod(fromLon + step, lonCells); // wrap qua kinh tuyến 180°
+                    int[] members = cells.get(cellKey(latIdx, lonIdx));
+                    if (members == null) {
+                        continue;
+                    }
+                    for (int m : members) {
+                        double distance = haversineRad(qLat, qLon, qCosLat, latRad[m], lonRad[m], cosLat[m]);
+                        if (distance <= radiusKm) {
+                            result.add(new Neighbor(ids[m], distance));
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Mọi center kèm khoảng cách (không lọc bán kính, không duyệt ô lưới).
+         */
+        List<Neighbor> all(double latitude, double longitude) {
+            double qLat = Math.toRadians(latitude);
+            double qLon = Math.toRadians(longitude);
+            double qCosLat = Math.cos(qLat);
+            List<Neighbor> result = new ArrayList<>(ids.length);
+            for (int m = 0; m < ids.length; m++) {
+                result.add(new Neighbor(ids[m], haversineRad(qLat, qLon, qCosLat, latRad[m], lonRad[m], cosLat[m])));
+            }
+            return result;
+        }
+
+        private int latIndex(double latitude) {
+            return Math.min(latCells - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellSizeDegrees)));
+        }
+
+        private int lonIndex(double longitude) {
+            return Math.floorMod((int) Math.floor((longitude + 180) / cellSizeDegrees), lonCells);
+        }
+
+        private long cellKey(int latIdx, int lonIdx) {
+            return (long) latIdx * lonCells + lonIdx;
+        }
+    }
+}
@@ -4,20 +4,27 @@ import com.swp391.warrantymanagement.dto.request.ServiceCenterRequestDTO;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.dto.response.ServiceCenterResponseDTO;
 import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.event.ServiceCenterChangedEvent;
 import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
 import com.swp391.warrantymanagement.exception.ResourceInUseException;
 import com.swp391.warrantymanagement.mapper.ServiceCenterMapper;
-import com.swp391.warrantymanagement.repository.FeedbackRepository;
 import com.swp391.warrantymanagement.repository.ServiceCenterRepository;
 import com.swp391.warrantymanagement.service.ServiceCenterService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -28,8 +35,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ServiceCenterServiceImpl implements ServiceCenterService {
 
+    // Claim ở các status này không còn tính là "active"
+    private static final Set<WarrantyClaimStatus> CLOSED_CLAIM_STATUSES =
+            EnumSet.of(WarrantyClaimStatus.COMPLETED, WarrantyClaimStatus.REJECTED);
+
     private final ServiceCenterRepository serviceCenterRepository;
-    private final FeedbackRepository feedbackRepository;
+    private final ApplicationEventPublisher eventPublisher; // Thông báo thay đổi SC cho các cache/index phụ thuộc
+    private final ServiceCenterGeoIndex geoIndex; // Tra cứu bán kính / k-nearest in-memory
 
     /**
      * Tạo service center mới.
@@ -47,6 +59,7 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
 
         ServiceCenter serviceCenter = ServiceCenterMapper.toEntity(requestDTO);
         ServiceCenter savedServiceCenter = serviceCenterRepository.save(serviceCenter);
+        eventPublisher.publishEvent(new ServiceCenterChangedEvent(savedServiceCenter.getServiceCenterId(), false));
 
         return enrichWithStatistics(savedServiceCenter);
     }
@@ -79,9 +92,7 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
     public PagedResponse<ServiceCenterResponseDTO> getAllServiceCenters(Pageable pageable) {
         Page<ServiceCenter> serviceCenterPage = serviceCenterRepository.findAll(pageable);
 
-        List<ServiceCenterResponseDTO> responseDTOs = serviceCenterPage.getContent().stream()
-                .map(this::enrichWithStatistics)
-                .collect(Collectors.toList());
+        List<ServiceCenterResponseDTO> responseDTOs = enrichWithStatistics(serviceCenterPage.getContent());
 
         return new PagedResponse<>(
                 responseDTOs,
@@ -116,6 +127,7 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
 
         ServiceCenterMapper.updateEntity(serviceCenter, requestDTO);
         ServiceCenter updatedServiceCenter = serviceCenterRepository.save(serviceCenter);
+        eventPublisher.publishEvent(new ServiceCenterChangedEvent(updatedServiceCenter.getServiceCenterId(), false));
 
         return enrichWithStatistics(updatedServiceCenter);
     }
@@ -147,6 +159,7 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
         }
 
         serviceCenterRepository.deleteById(serviceCenterId);
+        eventPublisher.publishEvent(new ServiceCenterChangedEvent(serviceCenterId, true));
     }
 
     /**
@@ -162,9 +175,7 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
         Page<ServiceCenter> serviceCenterPage = serviceCenterRepository
                 .searchByNameOrAddress(search, pageable);
 
-        List<ServiceCenterResponseDTO> responseDTOs = serviceCenterPage.getContent().stream()
-                .map(this::enrichWithStatistics)
-                .collect(Collectors.toList());
+        List<ServiceCenterResponseDTO> responseDTOs = enrichWithStatistics(serviceCenterPage.getContent());
 
         return new PagedResponse<>(
                 responseDTOs,
@@ -178,7 +189,7 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
     }
 
     /**
-     * Tìm service centers trong bán kính (sử dụng Haversine formula).
+     * Tìm service centers trong bán kính (tra cứu trên {@link ServiceCenterGeoIndex}, không quét bảng).
      *
      * @param latitude vĩ độ GPS
      * @param longitude kinh độ GPS
@@ -193,16 +204,39 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
 
         validateCoordinates(latitude, longitude);
 
-        List<ServiceCenter> serviceCenters = serviceCenterRepository
-                .findServiceCentersNearLocation(latitude, longitude, radiusKm);
+        List<ServiceCenterGeoIndex.Neighbor> neighbors = geoIndex
+                .findWithinRadius(latitude.doubleValue(), longitude.doubleValue(), radiusKm);
 
-        return serviceCenters.stream()
-                .map(this::enrichWithStatistics)
-                .collect(Collectors.toList());
+        return enrichWithStatistics(loadInOrder(neighbors));
+    }
+
+    /**
+     * Tìm {@code limit} service centers gần vị trí nhất (k-nearest trên {@link ServiceCenterGeoIndex}).
+     *
+     * @param latitude vĩ độ GPS
+     * @param longitude kinh độ GPS
+     * @param limit số lượng center tối đa
+     * @return List service centers gần nhất, sorted by distance
+     * @throws IllegalArgumentException nếu GPS coordinates không hợp lệ
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ServiceCenterResponseDTO> findNearestServiceCenters(
+            BigDecimal latitude, BigDecimal longitude, int limit) {
+
+        validateCoordinates(latitude, longitude);
+
+        List<ServiceCenterGeoIndex.Neighbor> neighbors = geoIndex
+                .findNearest(latitude.doubleValue(), longitude.doubleValue(), limit);
+
+        return enrichWithStatistics(loadInOrder(neighbors));
     }
 
     /**
      * Lấy tất cả service centers sorted theo khoảng cách từ vị trí (nearest first).
+     * <p>
+     * Thứ tự được tính in-memory trên {@link ServiceCenterGeoIndex}; entity được nạp theo đúng thứ tự đó (1 query IN).
+     * Center chưa có tọa độ (không nằm trong index) được xếp cuối danh sách.
      *
      * @param latitude vĩ độ GPS
      * @param longitude kinh độ GPS
@@ -216,15 +250,10 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
 
         validateCoordinates(latitude, longitude);
 
-        List<Object[]> results = serviceCenterRepository
-                .findAllOrderedByDistanceFrom(latitude, longitude);
-
-        return results.stream()
-                .map(result -> {
-                    ServiceCenter sc = (ServiceCenter) result[0];
-                    return enrichWithStatistics(sc);
-                })
-                .collect(Collectors.toList());
+        List<ServiceCenter> serviceCenters = loadInOrder(geoIndex
+                .findAllOrderedByDistance(latitude.doubleValue(), longitude.doubleValue()));
+        serviceCenters.addAll(serviceCenterRepository.findByLatitudeIsNullOrLongitudeIsNull());
+        return enrichWithStatistics(serviceCenters);
     }
 
     /**
@@ -252,28 +281,82 @@ public class ServiceCenterServiceImpl implements ServiceCenterService {
         serviceCenter.setLongitude(longitude);
 
         ServiceCenter updatedServiceCenter = serviceCenterRepository.save(serviceCenter);
+        eventPublisher.publishEvent(new ServiceCenterChangedEvent(updatedServiceCenter.getServiceCenterId(), false));
 
         return enrichWithStatistics(updatedServiceCenter);
     }
 
     // ============= HELPER METHODS =============
 
+    /**
+     * Nạp entity cho kết quả từ geo index (1 query IN) và giữ nguyên thứ tự theo khoảng cách.
+     */
+    private List<ServiceCenter> loadInOrder(List<ServiceCenterGeoIndex.Neighbor> neighbors) {
+        if (neighbors.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = neighbors.stream()
+                .map(ServiceCenterGeoIndex.Neighbor::getServiceCenterId)
+                .collect(Collectors.toList());
+        Map<Long, ServiceCenter> byId = serviceCenterRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(ServiceCenter::getServiceCenterId, sc -> sc));
+
+        List<ServiceCenter> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ServiceCenter serviceCenter = byId.get(id);
+            if (serviceCenter != null) { // Có thể đã bị xóa trước khi index kịp cập nhật
+                ordered.add(serviceCenter);
+            }
+        }
+        return ordered;
+    }
+
     /**
      * Enrich ServiceCenter entity với real-time statistics (staffCount, claimsCount, activeClaimsCount, averageRating).
      */
     private ServiceCenterResponseDTO enrichWithStatistics(ServiceCenter serviceCenter) {
-        Long staffCount = serviceCenterRepository.countStaffByServiceCenter(serviceCenter.getServiceCenterId());
-        Long claimsCount = serviceCenterRepository.countClaimsByServiceCenter(serviceCenter.getServiceCenterId());
-        Long activeClaimsCount = serviceCenterRepository.countActiveClaimsByServiceCenter(serviceCenter.getServiceCenterId());
-        Double averageRating = feedbackRepository.getAverageRatingByServiceCenter(serviceCenter.getServiceCenterId());
-
-        return ServiceCenterMapper.toResponseDTOWithStats(
-                serviceCenter,
-                staffCount.intValue(),
-                claimsCount.intValue(),
-                activeClaimsCount.intValue(),
-                averageRating
-        );
+        return enrichWithStatistics(List.of(serviceCenter)).get(0);
+    }
+
+    /**
+     * Enrich danh sách ServiceCenter với statistics, giữ nguyên thứ tự đầu vào.
+     * <p>
+     * Số query cố định (2) bất kể số lượng center: staff đếm theo GROUP BY trên users, claims/active claims/
+     * average rating trong một GROUP BY trên warranty_claims LEFT JOIN feedbacks.
+     * Trước đây mỗi center tốn 4 query (200 center = 800 query).
+     */
+    private List<ServiceCenterResponseDTO> enrichWithStatistics(List<ServiceCenter> serviceCenters) {
+        if (serviceCenters.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = serviceCenters.stream()
+                .map(ServiceCenter::getServiceCenterId)
+                .collect(Collectors.toList());
+
+        Map<Long, Long> staffCounts = new HashMap<>();
+        for (Object[] row : serviceCenterRepository.countStaffGroupedByServiceCenter(ids)) {
+            staffCounts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+
+        // serviceCenterId -> [Long claimsCount, Long activeClaimsCount, Double averageRating]
+        Map<Long, Object[]> claimStats = new HashMap<>();
+        for (Object[] row : serviceCenterRepository.getClaimStatisticsGroupedByServiceCenter(ids, CLOSED_CLAIM_STATUSES)) {
+            claimStats.put((Long) row[0], row);
+        }
+
+        List<ServiceCenterResponseDTO> result = new ArrayList<>(serviceCenters.size());
+        for (ServiceCenter serviceCenter : serviceCenters) {
+            Long id = serviceCenter.getServiceCenterId();
+            Object[] claims = claimStats.get(id);
+            result.add(ServiceCenterMapper.toResponseDTOWithStats(
+                    serviceCenter,
+                    staffCounts.getOrDefault(id, 0L).intValue(),
+                    claims != null ? ((Number) claims[1]).intValue() : 0,
+                    claims != null && claims[2] != null ? ((Number) claims[2]).intValue() : 0,
+                    claims != null && claims[3] != null ? ((Number) claims[3]).doubleValue() : null
+            ));
+        }
+        return result;
     }
 
     /**
@@ -2,6 +2,7 @@ package com.swp391.warrantymanagement.service.impl;
 
 import com.swp391.warrantymanagement.dto.request.ServiceHistoryRequestDTO;
 import com.swp391.warrantymanagement.dto.response.ServiceHistoryResponseDTO;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.entity.Customer;
 import com.swp391.warrantymanagement.entity.Part;
@@ -13,14 +14,19 @@ import com.swp391.warrantymanagement.entity.id.ServiceHistoryDetailId;
 import com.swp391.warrantymanagement.mapper.ServiceHistoryMapper;
 import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
 import com.swp391.warrantymanagement.repository.CustomerRepository;
+import com.swp391.warrantymanagement.repository.KeysetPaginator;
 import com.swp391.warrantymanagement.repository.PartRepository;
 import com.swp391.warrantymanagement.repository.ServiceHistoryRepository;
 import com.swp391.warrantymanagement.repository.UserRepository;
 import com.swp391.warrantymanagement.repository.VehicleRepository;
 import com.swp391.warrantymanagement.service.ServiceHistoryService;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,6 +49,8 @@ public class ServiceHistoryServiceImpl implements ServiceHistoryService {
     private final VehicleRepository vehicleRepository;
     private final CustomerRepository customerRepository;
     private final UserRepository userRepository;
+    private final KeysetPaginator keysetPaginator;
+    private final FullTextSearchIndex fullTextSearchIndex; // Tìm kiếm chung không dấu, có xếp hạng
 
     /**
      * Lấy tất cả service histories với pagination và search.
@@ -56,7 +64,9 @@ public class ServiceHistoryServiceImpl implements ServiceHistoryService {
         Page<ServiceHistory> serviceHistoryPage;
         if (search != null && !search.trim().isEmpty()) {
             // Search in serviceType, description, vehicleName, and VIN
-            serviceHistoryPage = serviceHistoryRepository.searchServiceHistoriesGeneral(search.trim(), pageable);
+            serviceHistoryPage = fullTextSearchIndex.isEnabled()
+                    ? fullTextSearchIndex.searchServiceHistories(search.trim(), pageable)
+                    : serviceHistoryRepository.searchServiceHistoriesGeneral(search.trim(), pageable);
         } else {
             serviceHistoryPage = serviceHistoryRepository.findAll(pageable);
         }
@@ -74,6 +84,43 @@ public class ServiceHistoryServiceImpl implements ServiceHistoryService {
         );
     }
 
+    /**
+     * Lấy tất cả service histories theo cursor (keyset pagination, không COUNT).
+     * Điều kiện tìm kiếm giống {@code searchServiceHistoriesGeneral}: serviceType, description, vehicleName, VIN.
+     *
+     * @param search    từ khóa tìm kiếm (có thể null)
+     * @param sortBy    thuộc tính sắp xếp (serviceDate, serviceHistoryId, ...)
+     * @param direction hướng sắp xếp
+     * @param after     cursor trả về từ trang trước, {@code null} cho trang đầu
+     * @param size      số phần tử mỗi trang
+     * @return CursorResponse với service histories
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorResponse<ServiceHistoryResponseDTO> getAllServiceHistoriesCursor(String search, String sortBy,
+                                                                                  Sort.Direction direction,
+                                                                                  String after, int size) {
+        String term = search != null && !search.trim().isEmpty() ? "%" + search.trim().toLowerCase() + "%" : null;
+        Specification<ServiceHistory> specification = (root, query, cb) -> {
+            Join<?, ?> vehicle;
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                vehicle = (Join<?, ?>) root.fetch("vehicle", JoinType.LEFT);
+            } else {
+                vehicle = root.join("vehicle", JoinType.LEFT);
+            }
+            if (term == null) {
+                return null;
+            }
+            return cb.or(
+                    cb.like(cb.lower(cb.coalesce(root.get("serviceType"), "")), term),
+                    cb.like(cb.lower(cb.coalesce(root.get("description"), "")), term),
+                    cb.like(cb.lower(cb.coalesce(vehicle.get("vehicleName"), "")), term),
+                    cb.like(cb.lower(cb.coalesce(vehicle.get("vehicleVin"), "")), term));
+        };
+        return keysetPaginator.fetch(serviceHistoryRepository, ServiceHistory.class, specification,
+                sortBy, direction, after, size, ServiceHistoryMapper::toResponseDTOList);
+    }
+
     /**
      * Lấy service history theo ID.
      *
@@ -0,0 +1,184 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.projection.TechnicianLoadView;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bộ chọn technician tự động cho claim sinh ra từ recall: mỗi service center có một min-heap tải việc của các technician.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Thứ tự ưu tiên: technician còn suất trong ngày trước technician đã hết suất
+ *     ({@code ServiceCenter.dailyClaimLimitPerTech}), rồi ít claim đang mở ({@link #OPEN_STATUSES}) hơn, rồi còn nhiều suất
+ *     hơn, cuối cùng theo userId để kết quả ổn định. {@link #pickTechnician} lấy đỉnh heap và đưa lại vào heap với
+ *     tải +1: O(log n).</li>
+ *     <li>Heap được dựng bằng MỘT query cho cả trung tâm ({@code UserRepository.findTechnicianLoads}); số claim đã bắt đầu
+ *     hôm nay được nạp luôn vào {@link DailyClaimQuotaTracker}, nên một đợt hàng nghìn recall được chấp nhận không phát
+ *     sinh query nào theo từng technician.</li>
+ *     <li>Số suất còn lại thay đổi khi technician tự bắt đầu xử lý claim: khi lấy đỉnh heap, suất được đọc lại từ
+ *     {@link DailyClaimQuotaTracker} (in-memory); nếu khác giá trị trong heap thì slot được đưa lại vào heap với giá trị
+ *     mới và chọn lại (lazy re-check, tối đa một vòng qua heap).</li>
+ *     <li>Số claim đang mở trong heap là ước lượng (claim hoàn tất, transaction rollback, instance khác gán claim):
+ *     heap được dựng lại sau {@code technician-assignment.refresh-seconds} và khi sang ngày mới.</li>
+ *     <li>Xóa user / đổi role gọi {@link #invalidate} cho trung tâm của user; thay đổi từ node khác chỉ được thấy khi heap
+ *     dựng lại, nên người gọi kiểm tra lại ID được chọn bằng {@link #isEligible} trước khi gán.</li>
+ *     <li>Engine chỉ dùng số suất còn lại để xếp hạng, không giữ suất: suất chỉ bị trừ khi technician bắt đầu xử lý claim.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class TechnicianAssignmentEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TechnicianAssignmentEngine.class);
+
+    static final String TECHNICIAN_ROLE = "SC_TECHNICIAN";
+    static final List<WarrantyClaimStatus> OPEN_STATUSES =
+            List.of(WarrantyClaimStatus.MANAGER_REVIEW, WarrantyClaimStatus.PROCESSING);
+
+    private static final Comparator<Slot> LOAD_ORDER = Comparator
+            .comparing((Slot slot) -> slot.headroom <= 0)
+            .thenComparingLong(slot -> slot.openClaims)
+            .thenComparing(Comparator.comparingLong((Slot slot) -> slot.headroom).reversed())
+            .thenComparingLong(slot -> slot.userId);
+
+    private final UserRepository userRepository;
+    private final DailyClaimQuotaTracker dailyClaimQuotaTracker;
+
+    @Value("${technician-assignment.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    private final Map<Long, CenterPool> pools = new ConcurrentHashMap<>();
+
+    private static final class Slot {
+        private final Long userId;
+        private long openClaims;
+        private long headroom;
+
+        private Slot(Long userId, long openClaims, long headroom) {
+            this.userId = userId;
+            this.openClaims = openClaims;
+            this.headroom = headroom;
+        }
+    }
+
+    private static final class CenterPool {
+        private PriorityQueue<Slot> heap;
+        private LocalDate day;
+        private Instant loadedAt;
+    }
+
+    /**
+     * Chọn technician ít tải nhất của service center và tính claim mới vào tải của họ.
+     *
+     * @param serviceCenterId trung tâm của claim
+     * @param dailyLimit      giới hạn claim/ngày của trung tâm; {@code null} hoặc &le; 0 = không giới hạn
+     * @return userId của technician, hoặc rỗng nếu trung tâm không có technician
+     */
+    public Optional<Long> pickTechnician(Long serviceCenterId, Integer dailyLimit) {
+        long limit = dailyLimit != null && dailyLimit > 0 ? dailyLimit : Long.MAX_VALUE;
+        CenterPool pool = pools.computeIfAbsent(serviceCenterId, key -> new CenterPool());
+        synchronized (pool) {
+            if (isStale(pool)) {
+                reload(serviceCenterId, pool, limit);
+            }
+            PriorityQueue<Slot> heap = pool.heap;
+            int rechecks = heap.size();
+            while (!heap.isEmpty()) {
+                Slot top = heap.poll();
+                long headroom = headroom(top.userId, limit);
+                if (headroom != top.headroom && rechecks-- > 0) {
+                    // Suất đã thay đổi kể từ lần cuối: cập nhật và chọn lại
+                    top.headroom = headroom;
+                    heap.offer(top);
+                    continue;
+                }
+                top.headroom = headroom;
+                top.openClaims++;
+                heap.offer(top);
+                return Optional.of(top.userId);
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Bỏ heap của trung tâm (technician bị xóa, đổi role, được thêm/chuyển trung tâm): lần chọn sau sẽ dựng lại từ DB.
+     * Nếu đang trong transaction, bỏ thêm lần nữa sau khi transaction kết thúc để không dựng lại từ dữ liệu chưa commit.
+     */
+    public void invalidate(Long serviceCenterId) {
+        if (serviceCenterId == null) {
+            return;
+        }
+        pools.remove(serviceCenterId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    pools.remove(serviceCenterId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Technician có còn được nhận claim tự động của trung tâm không (role SC_TECHNICIAN và đúng trung tâm).
+     * Dùng để kiểm tra lại ID lấy từ heap, vì heap có thể cũ tới {@code technician-assignment.refresh-seconds}
+     * (thay đổi từ node khác hoặc cập nhật trực tiếp trên DB).
+     */
+    public static boolean isEligible(User user, Long serviceCenterId) {
+        return user != null
+                && user.getRole() != null && TECHNICIAN_ROLE.equals(user.getRole().getRoleName())
+                && user.getServiceCenter() != null && serviceCenterId.equals(user.getServiceCenter().getServiceCenterId());
+    }
+
+    private boolean isStale(CenterPool pool) {
+        return pool.heap == null
+                || !pool.day.equals(dailyClaimQuotaTracker.today())
+                || Duration.between(pool.loadedAt, Instant.now()).getSeconds() >= refreshSeconds;
+    }
+
+    private void reload(Long serviceCenterId, CenterPool pool, long limit) {
+        LocalDate today = dailyClaimQuotaTracker.today();
+        LocalDateTime startOfDay = today.atStartOfDay();
+        List<TechnicianLoadView> loads = userRepository.findTechnicianLoads(serviceCenterId, TECHNICIAN_ROLE,
+                OPEN_STATUSES, startOfDay, startOfDay.plusDays(1).minusSeconds(1));
+
+        Map<Long, Long> startedByUserId = new HashMap<>();
+        loads.forEach(load -> startedByUserId.put(load.userId(), load.startedToday()));
+        dailyClaimQuotaTracker.seed(today, startedByUserId);
+
+        PriorityQueue<Slot> heap = new PriorityQueue<>(Math.max(1, loads.size()), LOAD_ORDER);
+        for (TechnicianLoadView load : loads) {
+            heap.offer(new Slot(load.userId(), load.openClaims(), headroom(load.userId(), limit)));
+        }
+        pool.heap = heap;
+        pool.day = today;
+        pool.loadedAt = Instant.now();
+        logger.debug("👷 Loaded {} technicians of service center {} for auto-assignment", loads.size(), serviceCenterId);
+    }
+
+    private long headroom(Long userId, long limit) {
+        return limit == Long.MAX_VALUE ? Long.MAX_VALUE : limit - dailyClaimQuotaTracker.startedToday(userId);
+    }
+}
@@ -0,0 +1,89 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.repository.UserRepository;
+import com.swp391.warrantymanagement.service.TokenVersionService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation của TokenVersionService.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Version hiện tại của mỗi user được giữ trong bộ nhớ, chỉ load từ DB (1 scalar query)
+ *     lần đầu tiên user đó gọi API sau khi ứng dụng khởi động.</li>
+ *     <li>Version chỉ tăng, nên cache luôn giữ giá trị lớn nhất đã thấy ({@code merge(..., Math::max)}):
+ *     một request đọc version cũ từ DB rồi ghi vào cache muộn (sau khi revoke đã commit) không thể
+ *     ghi đè version mới hơn.</li>
+ *     <li>Khi revoke: tăng version trên entity (được flush cùng transaction của caller); sau khi commit
+ *     version mới được ghi vào cache, nếu rollback thì entry bị xóa để load lại từ DB.</li>
+ *     <li>Token mang version lớn hơn cache (do node khác revoke rồi phát hành token mới) được kiểm tra lại với DB.
+ *     Cache là per-node nên revoke trên node khác không làm token cũ stale ở node này -
+ *     {@code jwt.claims-auth.enabled} mặc định tắt cho tới khi có cơ chế invalidate toàn cluster.</li>
+ *     <li>Token không có claim {@code ver} (phát hành trước khi có tính năng này) luôn bị coi là stale.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenVersionServiceImpl implements TokenVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionServiceImpl.class);
+
+    private final UserRepository userRepository;
+
+    // userId -> token version hiện tại
+    private final Map<Long, Integer> currentVersions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isTokenCurrent(Long userId, Integer tokenVersion) {
+        if (userId == null || tokenVersion == null) {
+            return false;
+        }
+        Integer current = currentVersions.get(userId);
+        if (current == null || tokenVersion > current) {
+            // Chưa có trong cache, hoặc token mới hơn cache -> đọc lại từ DB
+            Integer stored = userRepository.findTokenVersionByUserId(userId).orElse(null);
+            if (stored == null) {
+                // User không còn tồn tại
+                currentVersions.remove(userId);
+                return false;
+            }
+            current = currentVersions.merge(userId, stored, Math::max);
+        }
+        return current.equals(tokenVersion);
+    }
+
+    @Override
+    public void revokeIssuedTokens(User user) {
+        Long userId = user.getUserId();
+        if (userId == null) {
+            return;
+        }
+        int revokedVersion = (user.getTokenVersion() != null ? user.getTokenVersion() : 0) + 1;
+        user.setTokenVersion(revokedVersion);
+        logger.info("Token version bumped for user {} - issued tokens now require database authentication", userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        currentVersions.merge(userId, revokedVersion, Math::max);
+                    } else {
+                        currentVersions.remove(userId);
+                    }
+                }
+            });
+        } else {
+            currentVersions.merge(userId, revokedVersion, Math::max);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.swp391.warrantymanagement.dto.response.UserProfileResponseDTO;
 import com.swp391.warrantymanagement.dto.response.WarrantyClaimResponseDTO;
 import com.swp391.warrantymanagement.entity.Role;
 import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.event.UserSecurityChangedEvent;
 import com.swp391.warrantymanagement.exception.DuplicateResourceException;
 import com.swp391.warrantymanagement.exception.ResourceInUseException;
 import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
@@ -12,10 +13,12 @@ import com.swp391.warrantymanagement.repository.RoleRepository;
 import com.swp391.warrantymanagement.repository.TokenRepository;
 import com.swp391.warrantymanagement.repository.UserRepository;
 import com.swp391.warrantymanagement.repository.WarrantyClaimRepository;
+import com.swp391.warrantymanagement.service.TokenVersionService;
 import com.swp391.warrantymanagement.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -28,6 +31,7 @@ import java.security.SecureRandom;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -55,6 +59,10 @@ public class UserServiceImpl implements UserService {
     private final TokenRepository tokenRepository;
     private final PasswordEncoder passwordEncoder; // BCrypt encoder
     private final WarrantyClaimRepository warrantyClaimRepository;
+    private final TokenVersionService tokenVersionService; // Vô hiệu hóa claims-based auth khi thông tin bảo mật thay đổi
+    private final ApplicationEventPublisher eventPublisher; // Evict cache UserDetails/role sau commit
+    private final FullTextSearchIndex fullTextSearchIndex; // Tìm kiếm chung không dấu, có xếp hạng
+    private final TechnicianAssignmentEngine technicianAssignmentEngine; // Heap technician theo trung tâm cho recall claim
 
     /**
      * Lấy danh sách users với phân trang, search và role filter.
@@ -90,11 +98,15 @@ public class UserServiceImpl implements UserService {
             // Combined filter: search in username/email AND filter by role
             Role roleEntity = roleRepository.findByRoleName(role.trim())
                     .orElseThrow(() -> new ResourceNotFoundException("Role", "name", role));
-            return userRepository.searchUsersGeneralWithRole(search.trim(), roleEntity, pageable);
+            return fullTextSearchIndex.isEnabled()
+                    ? fullTextSearchIndex.searchUsers(search.trim(), roleEntity.getRoleId(), pageable)
+                    : userRepository.searchUsersGeneralWithRole(search.trim(), roleEntity, pageable);
         }
         else if (search != null && !search.trim().isEmpty()) {
             // General search: search in username OR email
-            return userRepository.searchUsersGeneral(search.trim(), pageable);
+            return fullTextSearchIndex.isEnabled()
+                    ? fullTextSearchIndex.searchUsers(search.trim(), null, pageable)
+                    : userRepository.searchUsersGeneral(search.trim(), pageable);
         }
         else if (role != null && !role.trim().isEmpty()) {
             // Filter by role only
@@ -206,6 +218,12 @@ public class UserServiceImpl implements UserService {
                 if (userRepository.existsByUsername(newUsername) && !user.getUsername().equals(newUsername)) {
                     throw new DuplicateResourceException("User", "username", newUsername);
                 }
+                if (!user.getUsername().equals(newUsername.trim())) {
+                    // Subject của token cũ không còn khớp username mới
+                    tokenVersionService.revokeIssuedTokens(user);
+                    eventPublisher.publishEvent(new UserSecurityChangedEvent(
+                            user.getUserId(), Set.of(user.getUsername(), newUsername.trim())));
+                }
                 user.setUsername(newUsername.trim());
             }
         }
@@ -251,6 +269,13 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("Role", "id", newRoleId));
 
         user.setRole(newRole);
+        // Technician mới / không còn là technician của trung tâm: heap chọn technician tự động phải dựng lại
+        if (user.getServiceCenter() != null) {
+            technicianAssignmentEngine.invalidate(user.getServiceCenter().getServiceCenterId());
+        }
+        // Role claim trong các token đã phát hành không còn đúng → buộc xác thực lại bằng database
+        tokenVersionService.revokeIssuedTokens(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUserId(), Set.of(user.getUsername())));
 
         return userRepository.save(user);
     }
@@ -284,8 +309,13 @@ public class UserServiceImpl implements UserService {
 
         logger.info("Deleting all tokens for user: {}", userId);
         tokenRepository.deleteByUser(user);
+        tokenVersionService.revokeIssuedTokens(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUserId(), Set.of(user.getUsername())));
 
         logger.warn("Performing hard delete for user: {} (consider implementing soft delete)", userId);
+        if (user.getServiceCenter() != null) {
+            technicianAssignmentEngine.invalidate(user.getServiceCenter().getServiceCenterId());
+        }
         userRepository.delete(user);
     }
 
@@ -322,6 +352,8 @@ public class UserServiceImpl implements UserService {
         String encodedPassword = passwordEncoder.encode(passwordToSet);
 
         user.setPassword(encodedPassword);
+        tokenVersionService.revokeIssuedTokens(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUserId(), Set.of(user.getUsername())));
         userRepository.save(user);
 
         return passwordToSet;
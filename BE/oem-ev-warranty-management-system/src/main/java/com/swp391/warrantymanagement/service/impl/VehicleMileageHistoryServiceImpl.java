@@ -0,0 +1,244 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.response.MileageHistoryPointDTO;
+import com.swp391.warrantymanagement.dto.response.MileageHistoryResponseDTO;
+import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.BlockRow;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.MileageSample;
+import com.swp391.warrantymanagement.repository.VehicleRepository;
+import com.swp391.warrantymanagement.service.VehicleMileageHistoryService;
+import com.swp391.warrantymanagement.util.MileageSeriesCodec;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Implementation của VehicleMileageHistoryService.
+ * <p>
+ * <strong>Thời gian:</strong> điểm được lưu theo giây, giờ ứng dụng (như mọi {@link LocalDateTime} khác trong hệ thống);
+ * epoch giây chỉ dùng để tính delta ({@link ZoneOffset#UTC} áp lên giờ địa phương, không đổi múi giờ).
+ * <p>
+ * <strong>Ghi:</strong> điểm được nối vào block mới nhất của xe; block đã có {@code max-block-points} điểm thì mở block
+ * mới, nên mỗi lần nối chỉ ghi lại một block nhỏ thay vì cả lịch sử của xe.
+ * <p>
+ * <strong>Tra cứu "km tại T":</strong> một query theo khóa chính lấy block chứa T; nếu T sau điểm cuối của block thì
+ * trả luôn {@code last_mileage}, ngược lại giải mã tuần tự và dừng ở điểm đầu tiên sau T.
+ */
+@Service
+@RequiredArgsConstructor
+public class VehicleMileageHistoryServiceImpl implements VehicleMileageHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehicleMileageHistoryServiceImpl.class);
+
+    private final VehicleMileageHistoryRepository historyRepository;
+    private final VehicleRepository vehicleRepository;
+
+    @Value("${vehicle.mileage-history.max-range-points:10000}")
+    private int maxRangePoints;
+
+    @Value("${vehicle.mileage-history.max-block-points:512}")
+    private int maxBlockPoints;
+
+    /**
+     * Block đang được nối trong một lần {@link #record}.
+     */
+    private static final class WorkingBlock {
+        private final long vehicleId;
+        private final LocalDateTime blockStart;
+        private final boolean isNew;
+        private boolean dirty;
+        private int pointCount;
+        private LocalDateTime lastRecordedAt;
+        private int lastMileage;
+        private byte[] data;
+
+        private WorkingBlock(long vehicleId, LocalDateTime blockStart, boolean isNew) {
+            this.vehicleId = vehicleId;
+            this.blockStart = blockStart;
+            this.isNew = isNew;
+        }
+
+        static WorkingBlock of(BlockRow row) {
+            WorkingBlock block = new WorkingBlock(row.vehicleId(), row.blockStart(), false);
+            block.pointCount = row.pointCount();
+            block.lastRecordedAt = row.lastRecordedAt();
+            block.lastMileage = row.lastMileage();
+            block.data = row.data();
+            return block;
+        }
+
+        void append(LocalDateTime at, int mileage) {
+            long previousSecond = pointCount == 0 ? epochSecond(blockStart) : epochSecond(lastRecordedAt);
+            int previousMileage = pointCount == 0 ? 0 : lastMileage;
+            data = MileageSeriesCodec.append(data, previousSecond, previousMileage, epochSecond(at), mileage);
+            pointCount++;
+            lastRecordedAt = at;
+            lastMileage = mileage;
+            dirty = true;
+        }
+
+        BlockRow toRow() {
+            return new BlockRow(vehicleId, blockStart, pointCount, lastRecordedAt, lastMileage, data);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int record(List<MileageSample> samples) {
+        if (samples.isEmpty()) {
+            return 0;
+        }
+        List<MileageSample> ordered = new ArrayList<>(samples);
+        ordered.sort(Comparator.comparingLong(MileageSample::vehicleId).thenComparing(MileageSample::recordedAt));
+        // Theo vehicle_id tăng dần: mọi luồng ghi khóa xe theo cùng thứ tự
+        Set<Long> vehicleIds = new LinkedHashSet<>();
+        ordered.forEach(sample -> vehicleIds.add(sample.vehicleId()));
+
+        historyRepository.lockVehicles(vehicleIds);
+        Map<Long, BlockRow> stored = historyRepository.findLatestBlocksForUpdate(vehicleIds);
+        Map<Long, WorkingBlock> latest = new HashMap<>();
+        List<WorkingBlock> changed = new ArrayList<>();
+        int appended = 0;
+        int outOfOrder = 0;
+
+        for (MileageSample sample : ordered) {
+            LocalDateTime at = sample.recordedAt().truncatedTo(ChronoUnit.SECONDS);
+            WorkingBlock block = latest.computeIfAbsent(sample.vehicleId(),
+                    id -> stored.containsKey(id) ? WorkingBlock.of(stored.get(id)) : null);
+            if (block != null) {
+                if (at.isBefore(block.lastRecordedAt)) {
+                    outOfOrder++; // Append-only: không chèn vào giữa lịch sử
+                    continue;
+                }
+                if (sample.mileage() == block.lastMileage) {
+                    continue;
+                }
+            }
+
+            // Block đầy: mở block mới (khóa block_start phải tăng, nên chỉ khi điểm mới muộn hơn điểm đầu của block)
+            if (block == null || (block.pointCount >= maxBlockPoints && at.isAfter(block.blockStart))) {
+                block = new WorkingBlock(sample.vehicleId(), at, true);
+                latest.put(sample.vehicleId(), block);
+            }
+            if (!block.dirty) {
+                changed.add(block);
+            }
+            block.append(at, sample.mileage());
+            appended++;
+        }
+
+        List<BlockRow> inserts = new ArrayList<>();
+        List<BlockRow> updates = new ArrayList<>();
+        for (WorkingBlock block : changed) {
+            (block.isNew ? inserts : updates).add(block.toRow());
+        }
+        if (!inserts.isEmpty()) {
+            historyRepository.insertBlocks(inserts);
+        }
+        if (!updates.isEmpty()) {
+            historyRepository.updateBlocks(updates);
+        }
+        if (outOfOrder > 0) {
+            logger.debug("Mileage history skipped {} out-of-order samples", outOfOrder);
+        }
+        return appended;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<MileageSample> findMileageAsOf(Long vehicleId, LocalDateTime at) {
+        BlockRow block = historyRepository.findBlockAtOrBefore(vehicleId, at);
+        if (block == null) {
+            return Optional.empty();
+        }
+        if (!block.lastRecordedAt().isAfter(at)) {
+            return Optional.of(new MileageSample(vehicleId, block.lastMileage(), block.lastRecordedAt()));
+        }
+
+        long target = epochSecond(at);
+        MileageSeriesCodec.Cursor cursor = new MileageSeriesCodec.Cursor(block.data(), epochSecond(block.blockStart()));
+        long foundSecond = Long.MIN_VALUE;
+        int foundMileage = 0;
+        while (cursor.next() && cursor.second() <= target) {
+            foundSecond = cursor.second();
+            foundMileage = cursor.mileage();
+        }
+        // Không xảy ra với dữ liệu hợp lệ: block_start <= at
+        if (foundSecond == Long.MIN_VALUE) {
+            return Optional.empty();
+        }
+        return Optional.of(new MileageSample(vehicleId, foundMileage, toDateTime(foundSecond)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public MileageHistoryResponseDTO getMileageHistory(Long vehicleId, LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (!vehicleRepository.existsById(vehicleId)) {
+            throw new ResourceNotFoundException("Vehicle", "id", vehicleId);
+        }
+
+        long fromSecond = epochSecond(from) + (from.getNano() > 0 ? 1 : 0); // Điểm lưu theo giây: làm tròn lên
+        long toSecond = epochSecond(to);
+        List<MileageHistoryPointDTO> points = new ArrayList<>();
+        boolean[] truncated = new boolean[1];
+        historyRepository.forEachBlock(vehicleId, from, to,
+                block -> {
+                    if (truncated[0]) {
+                        return;
+                    }
+                    MileageSeriesCodec.Cursor cursor = new MileageSeriesCodec.Cursor(block.data(), epochSecond(block.blockStart()));
+                    while (cursor.next() && cursor.second() <= toSecond) {
+                        if (cursor.second() < fromSecond) {
+                            continue;
+                        }
+                        if (points.size() == maxRangePoints) {
+                            truncated[0] = true;
+                            return;
+                        }
+                        points.add(new MileageHistoryPointDTO(toDateTime(cursor.second()), cursor.mileage()));
+                    }
+                });
+
+        return MileageHistoryResponseDTO.builder()
+                .vehicleId(vehicleId)
+                .from(from)
+                .to(to)
+                .truncated(truncated[0])
+                .points(points)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public void deleteHistory(Long vehicleId) {
+        historyRepository.deleteByVehicleId(vehicleId);
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
@@ -3,6 +3,7 @@ package com.swp391.warrantymanagement.service.impl;
 import com.swp391.warrantymanagement.exception.DuplicateResourceException;
 import com.swp391.warrantymanagement.exception.ResourceInUseException;
 import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
+import com.swp391.warrantymanagement.dto.projection.VehicleListView;
 import com.swp391.warrantymanagement.dto.request.VehicleRequestDTO;
 import com.swp391.warrantymanagement.dto.response.VehicleResponseDTO;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
@@ -13,6 +14,8 @@ import com.swp391.warrantymanagement.mapper.VehicleMapper;
 import com.swp391.warrantymanagement.repository.VehicleRepository;
 import com.swp391.warrantymanagement.repository.CustomerRepository;
 import com.swp391.warrantymanagement.repository.UserRepository;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.MileageSample;
+import com.swp391.warrantymanagement.service.VehicleMileageHistoryService;
 import com.swp391.warrantymanagement.service.VehicleService;import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -20,7 +23,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -49,6 +54,8 @@ public class VehicleServiceImpl implements VehicleService {
     private final VehicleRepository vehicleRepository;
     private final CustomerRepository customerRepository;
     private final UserRepository userRepository;
+    private final FullTextSearchIndex fullTextSearchIndex; // Tìm kiếm chung không dấu, có xếp hạng
+    private final VehicleMileageHistoryService mileageHistoryService; // Lịch sử km (tra km tại ngày hỏng hóc)
 
     /**
      * Lấy danh sách tất cả xe với phân trang và tìm kiếm chung.
@@ -59,17 +66,20 @@ public class VehicleServiceImpl implements VehicleService {
      * @return PagedResponse chứa danh sách VehicleResponseDTO và metadata phân trang
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<VehicleResponseDTO> getAllVehiclesPage(Pageable pageable, String search) {
-        Page<Vehicle> vehiclePage;
+        Page<VehicleListView> vehiclePage;
 
         if (search != null && !search.trim().isEmpty()) {
             // Search in name, model, and VIN
-            vehiclePage = vehicleRepository.searchVehiclesGeneral(search.trim(), pageable);
+            vehiclePage = fullTextSearchIndex.isEnabled()
+                    ? fullTextSearchIndex.searchVehicles(search.trim(), pageable)
+                    : vehicleRepository.searchListViewsGeneral(search.trim(), pageable);
         } else {
-            vehiclePage = vehicleRepository.findAll(pageable);
+            vehiclePage = vehicleRepository.findAllListViews(pageable);
         }
 
-        List<VehicleResponseDTO> responseDTOs = VehicleMapper.toResponseDTOList(vehiclePage.getContent());
+        List<VehicleResponseDTO> responseDTOs = VehicleMapper.toResponseDTOListFromViews(vehiclePage.getContent());
 
         return new PagedResponse<>(
             responseDTOs,
@@ -122,7 +132,8 @@ public class VehicleServiceImpl implements VehicleService {
         });
 
         Vehicle vehicle = VehicleMapper.toEntity(requestDTO, customer);
-        Vehicle savedVehicle = vehicleRepository.save(vehicle);
+        Vehicle savedVehicle = vehicleRepository.saveAndFlush(vehicle);
+        recordMileage(savedVehicle);
 
         return VehicleMapper.toResponseDTO(savedVehicle);
     }
@@ -160,8 +171,12 @@ public class VehicleServiceImpl implements VehicleService {
             }
         });
 
+        Integer previousMileage = existingVehicle.getMileage();
         VehicleMapper.updateEntity(existingVehicle, requestDTO, customer);
-        Vehicle updatedVehicle = vehicleRepository.save(existingVehicle);
+        Vehicle updatedVehicle = vehicleRepository.saveAndFlush(existingVehicle);
+        if (!Objects.equals(previousMileage, updatedVehicle.getMileage())) {
+            recordMileage(updatedVehicle);
+        }
 
         return VehicleMapper.toResponseDTO(updatedVehicle);
     }
@@ -185,6 +200,7 @@ public class VehicleServiceImpl implements VehicleService {
         }
 
         vehicleRepository.delete(vehicle);
+        mileageHistoryService.deleteHistory(id);
         return true;
     }
 
@@ -196,9 +212,10 @@ public class VehicleServiceImpl implements VehicleService {
      * @return PagedResponse chứa danh sách VehicleResponseDTO và metadata phân trang
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<VehicleResponseDTO> getVehiclesByCustomerId(UUID customerId, Pageable pageable) {
-        Page<Vehicle> vehiclePage = vehicleRepository.findByCustomerCustomerId(customerId, pageable);
-        List<VehicleResponseDTO> responseDTOs = VehicleMapper.toResponseDTOList(vehiclePage.getContent());
+        Page<VehicleListView> vehiclePage = vehicleRepository.findListViewsByCustomerId(customerId, pageable);
+        List<VehicleResponseDTO> responseDTOs = VehicleMapper.toResponseDTOListFromViews(vehiclePage.getContent());
 
         return new PagedResponse<>(
             responseDTOs,
@@ -318,4 +335,16 @@ public class VehicleServiceImpl implements VehicleService {
             vehiclePage.isLast()
         );
     }
+
+    /**
+     * Ghi km hiện tại của xe vào lịch sử (tạo xe, sửa km bằng tay) - cùng transaction với việc lưu xe.
+     * Caller phải flush xe trước (saveAndFlush) để khóa dòng {@code vehicles} trước dòng lịch sử,
+     * cùng thứ tự khóa với luồng ingest telematics.
+     */
+    private void recordMileage(Vehicle vehicle) {
+        if (vehicle.getMileage() != null) {
+            mileageHistoryService.record(List.of(
+                    new MileageSample(vehicle.getVehicleId(), vehicle.getMileage(), LocalDateTime.now())));
+        }
+    }
 }
@@ -1,8 +1,10 @@
 package com.swp391.warrantymanagement.service.impl;
 
+import com.swp391.warrantymanagement.dto.projection.WarrantyClaimListView;
 import com.swp391.warrantymanagement.dto.request.WarrantyClaimRequestDTO;
 import com.swp391.warrantymanagement.dto.request.WarrantyClaimStatusUpdateRequestDTO;
 import com.swp391.warrantymanagement.dto.response.WarrantyClaimResponseDTO;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.entity.Customer;
 import com.swp391.warrantymanagement.entity.InstalledPart;
@@ -14,7 +16,9 @@ import com.swp391.warrantymanagement.entity.Vehicle;
 import com.swp391.warrantymanagement.entity.WarrantyClaim;
 import com.swp391.warrantymanagement.entity.WorkLog;
 import com.swp391.warrantymanagement.entity.id.ServiceHistoryDetailId;
+import com.swp391.warrantymanagement.enums.ClaimLifecycleEventType;
 import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.event.WarrantyClaimLifecycleEvent;
 import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
 import com.swp391.warrantymanagement.mapper.WarrantyClaimMapper;
 import com.swp391.warrantymanagement.repository.UserRepository;
@@ -24,12 +28,20 @@ import com.swp391.warrantymanagement.repository.PartRepository;
 import com.swp391.warrantymanagement.repository.ServiceHistoryRepository;
 import com.swp391.warrantymanagement.repository.VehicleRepository;
 import com.swp391.warrantymanagement.repository.FeedbackRepository;
+import com.swp391.warrantymanagement.repository.KeysetPaginator;
 import com.swp391.warrantymanagement.service.WarrantyClaimService;
 import com.swp391.warrantymanagement.util.SecurityUtil;
+import com.swp391.warrantymanagement.util.WarrantyClaimStatusValidator;
+import com.swp391.warrantymanagement.util.WarrantyEligibilityEngine;
+import com.swp391.warrantymanagement.util.WarrantyFeeCalculator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,10 +49,13 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service xử lý warranty claims với workflow: SUBMITTED → MANAGER_REVIEW → PROCESSING → COMPLETED/REJECTED.
@@ -64,6 +79,10 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
     private final ServiceHistoryRepository serviceHistoryRepository;
     private final com.swp391.warrantymanagement.repository.WorkLogRepository workLogRepository;
     private final FeedbackRepository feedbackRepository;
+    private final KeysetPaginator keysetPaginator;
+    private final ClaimDispatchQueue claimDispatchQueue;
+    private final DailyClaimQuotaTracker dailyClaimQuotaTracker;
+    private final ApplicationEventPublisher eventPublisher; // Sự kiện vòng đời claim cho SSE (gửi sau commit)
 
     /**
      * Lấy tất cả warranty claims với phân trang cho Admin/EVM Staff.
@@ -72,9 +91,10 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
      * @return PagedResponse chứa danh sách WarrantyClaimResponseDTO
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<WarrantyClaimResponseDTO> getAllClaimsPage(Pageable pageable) {
-        Page<WarrantyClaim> claimPage = warrantyClaimRepository.findAll(pageable);
-        List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOList(claimPage.getContent());
+        Page<WarrantyClaimListView> claimPage = warrantyClaimRepository.findAllListViews(pageable);
+        List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOListFromViews(claimPage.getContent());
 
         return new PagedResponse<>(
             responseDTOs,
@@ -87,6 +107,26 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
         );
     }
 
+    /**
+     * Lấy danh sách tất cả claim theo cursor (keyset pagination).
+     * Không chạy COUNT và không dùng OFFSET nên chi phí mỗi trang không tăng theo độ sâu.
+     * Các quan hệ cần cho response được fetch join trong cùng query (giống {@link WarrantyClaim#RESPONSE_GRAPH}).
+     *
+     * @param sortBy    thuộc tính sắp xếp (warrantyClaimId, claimDate, status, ...)
+     * @param direction hướng sắp xếp
+     * @param after     cursor trả về từ trang trước, {@code null} cho trang đầu
+     * @param size      số phần tử mỗi trang
+     * @return CursorResponse với claims
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorResponse<WarrantyClaimResponseDTO> getAllClaimsCursor(String sortBy, Sort.Direction direction,
+                                                                      String after, int size) {
+        return keysetPaginator.fetch(warrantyClaimRepository, WarrantyClaim.class,
+                WarrantyClaimRepository.fetchResponseAssociations(),
+                sortBy, direction, after, size, WarrantyClaimMapper::toResponseDTOList);
+    }
+
     /**
      * Lấy thông tin chi tiết warranty claim theo ID.
      *
@@ -96,7 +136,7 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
      */
     @Override
     public WarrantyClaimResponseDTO getClaimById(Long id) {
-        WarrantyClaim claim = warrantyClaimRepository.findById(id)
+        WarrantyClaim claim = warrantyClaimRepository.findWithDetailsByWarrantyClaimId(id)
             .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", id));
         return WarrantyClaimMapper.toResponseDTO(claim);
     }
@@ -134,90 +174,11 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
             throw new IllegalArgumentException("Installed part " + requestDTO.getInstalledPartId() + " is not installed on vehicle " + requestDTO.getVehicleId());
         }
 
-        // Kiểm tra warranty expiration với HIERARCHY WARRANTY MODEL
-        LocalDate today = LocalDate.now();
+        // Kiểm tra warranty expiration với HIERARCHY WARRANTY MODEL (strictest rule)
         Part part = installedPart.getPart();
-
-        // Lấy grace period từ Part (nếu có), fallback về default
-        int gracePeriodDays = part != null && part.getGracePeriodDays() != null
-            ? part.getGracePeriodDays()
-            : DEFAULT_GRACE_PERIOD_DAYS;
-
-        // ===== ÁP DỤNG STRICTEST RULE: KIỂM TRA CẢ VEHICLE VÀ PART WARRANTY =====
-        boolean isExtendedPart = part != null && part.getHasExtendedWarranty() != null && part.getHasExtendedWarranty();
-
-        if (isExtendedPart) {
-            // Extended warranty part → Check CẢ part-level VÀ vehicle-level warranty
-            logger.info("Checking BOTH part-level and vehicle-level warranty for extended part: {}", part.getPartName());
-
-            // 1. Kiểm tra PART warranty
-            LocalDate partExpirationDate = installedPart.getWarrantyExpirationDate();
-            long partDaysRemaining = ChronoUnit.DAYS.between(today, partExpirationDate);
-
-            // 2. Kiểm tra VEHICLE warranty
-            LocalDate vehicleExpirationDate = vehicle.getWarrantyEndDate();
-            long vehicleDaysRemaining = ChronoUnit.DAYS.between(today, vehicleExpirationDate);
-
-            // 3. Áp dụng STRICTEST RULE - Lấy daysRemaining TỆ NHẤT (số âm lớn nhất)
-            long finalDaysRemaining = Math.min(partDaysRemaining, vehicleDaysRemaining);
-            boolean isPartExpiredWorse = partDaysRemaining <= vehicleDaysRemaining;
-
-            LocalDate finalExpirationDate = isPartExpiredWorse ? partExpirationDate : vehicleExpirationDate;
-            String warrantyType = isPartExpiredWorse ? "part-level (extended warranty)" : "vehicle-level (affecting extended part)";
-
-            logger.info("Extended part warranty check - partDaysRemaining={}, vehicleDaysRemaining={}, finalDaysRemaining={}, strictestRule={}",
-                partDaysRemaining, vehicleDaysRemaining, finalDaysRemaining, warrantyType);
-
-            // Kiểm tra xem đã hết hạn chưa
-            if (finalDaysRemaining < 0) {
-                // Đã hết hạn - kiểm tra grace period
-                long daysExpired = Math.abs(finalDaysRemaining);
-
-                if (daysExpired <= gracePeriodDays) {
-                    // Trong grace period
-                    if (requestDTO.getIsPaidWarranty() != null && requestDTO.getIsPaidWarranty()) {
-                        logger.info("Creating paid warranty claim in grace period: installedPartId={}, daysExpired={}, gracePeriod={}, appliedRule={}",
-                            requestDTO.getInstalledPartId(), daysExpired, gracePeriodDays, warrantyType);
-                    } else {
-                        throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + finalExpirationDate +
-                            " (" + daysExpired + " days ago). To create a claim, use paid warranty option (isPaidWarranty=true).");
-                    }
-                } else {
-                    // Quá grace period
-                    throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + finalExpirationDate +
-                        " and grace period of " + gracePeriodDays + " days has passed (" + daysExpired + " days expired). Cannot create claim.");
-                }
-            }
-            // Nếu finalDaysRemaining >= 0 → còn hạn → cho phép tạo claim miễn phí
-
-        } else {
-            // Standard part → Check CHỈ vehicle-level warranty
-            LocalDate expirationDate = vehicle.getWarrantyEndDate();
-            String warrantyType = "vehicle-level (standard part)";
-            logger.info("Checking vehicle-level warranty for standard part: {}", part != null ? part.getPartName() : "unknown");
-
-            if (expirationDate.isBefore(today)) {
-                // Warranty đã hết hạn - kiểm tra grace period
-                long daysExpired = ChronoUnit.DAYS.between(expirationDate, today);
-
-                // Nếu còn trong grace period VÀ là paid warranty claim → Cho phép
-                if (daysExpired <= gracePeriodDays) {
-                    if (requestDTO.getIsPaidWarranty() != null && requestDTO.getIsPaidWarranty()) {
-                        // Valid paid warranty claim trong grace period
-                        logger.info("Creating paid warranty claim in grace period: installedPartId={}, daysExpired={}, gracePeriod={}, warrantyType={}, usingDefault={}",
-                            requestDTO.getInstalledPartId(), daysExpired, gracePeriodDays, warrantyType, (part == null || part.getGracePeriodDays() == null));
-                    } else {
-                        // Hết hạn nhưng không phải paid warranty
-                        throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + expirationDate +
-                            ". To create a claim, use paid warranty option (isPaidWarranty=true).");
-                    }
-                } else {
-                    // Quá grace period
-                    throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + expirationDate +
-                        " and grace period of " + gracePeriodDays + " days has passed. Cannot create claim.");
-                }
-            }
-        }
+        WarrantyEligibilityEngine.Decision warranty = requireClaimWarranty(
+            installedPart, vehicle, Boolean.TRUE.equals(requestDTO.getIsPaidWarranty()), true);
+        int gracePeriodDays = warranty.gracePeriodDays();
 
         WarrantyClaim claim = WarrantyClaimMapper.toEntity(requestDTO, installedPart, vehicle);
 
@@ -232,48 +193,15 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
 
                     // Calculate dynamic markup percentage based on days expired
                     if (part.getPaidWarrantyFeePercentageMin() != null) {
-                        BigDecimal markupPercentage = part.getPaidWarrantyFeePercentageMin();
-
-                        // If both min and max are defined, calculate dynamic markup
-                        if (part.getPaidWarrantyFeePercentageMax() != null &&
-                            part.getPaidWarrantyFeePercentageMax().compareTo(part.getPaidWarrantyFeePercentageMin()) > 0) {
-
-                            // Calculate how many days warranty has been expired
-                            LocalDate expirationDate = isExtendedPart ?
-                                (Math.min(ChronoUnit.DAYS.between(today, installedPart.getWarrantyExpirationDate()),
-                                         ChronoUnit.DAYS.between(today, vehicle.getWarrantyEndDate())) <= 0 ?
-                                    (ChronoUnit.DAYS.between(today, installedPart.getWarrantyExpirationDate()) <=
-                                     ChronoUnit.DAYS.between(today, vehicle.getWarrantyEndDate()) ?
-                                        installedPart.getWarrantyExpirationDate() : vehicle.getWarrantyEndDate()) : null)
-                                : vehicle.getWarrantyEndDate();
-
-                            if (expirationDate != null && expirationDate.isBefore(today)) {
-                                long daysExpired = ChronoUnit.DAYS.between(expirationDate, today);
-
-                                // Dynamic markup formula: Markup% = Min% + (Max% - Min%) × (DaysExpired / GracePeriod)
-                                // The longer the warranty has been expired, the higher the markup
-                                BigDecimal minPercent = part.getPaidWarrantyFeePercentageMin();
-                                BigDecimal maxPercent = part.getPaidWarrantyFeePercentageMax();
-                                BigDecimal percentRange = maxPercent.subtract(minPercent);
-
-                                // Calculate ratio: daysExpired / gracePeriodDays, capped at 1.0
-                                BigDecimal expiredRatio = BigDecimal.valueOf(daysExpired)
-                                    .divide(BigDecimal.valueOf(gracePeriodDays), 4, BigDecimal.ROUND_HALF_UP);
-                                if (expiredRatio.compareTo(BigDecimal.ONE) > 0) {
-                                    expiredRatio = BigDecimal.ONE; // Cap at 100%
-                                }
-
-                                // Final markup = min + (max - min) × ratio
-                                markupPercentage = minPercent.add(percentRange.multiply(expiredRatio));
-
-                                logger.info("Dynamic markup calculation: daysExpired={}, gracePeriod={}, ratio={}, min={}%, max={}%, calculated={}%",
-                                    daysExpired, gracePeriodDays, expiredRatio, minPercent, maxPercent, markupPercentage);
-                            }
-                        }
-
+                        // Dynamic markup formula: Markup% = Min% + (Max% - Min%) × min(DaysExpired / GracePeriod, 1)
+                        // The longer the warranty has been expired (strictest rule), the higher the markup
+                        BigDecimal markupPercentage = WarrantyFeeCalculator.markupPercentage(
+                            part.getPaidWarrantyFeePercentageMin(), part.getPaidWarrantyFeePercentageMax(),
+                            warranty.daysExpired(), gracePeriodDays);
                         // Apply markup percentage to calculate final fee
-                        fee = partPrice.multiply(BigDecimal.ONE.add(markupPercentage.divide(BigDecimal.valueOf(100))));
-                        logger.info("Auto-calculated warranty fee: {} for part: {} (markup: {}%)", fee, part.getPartName(), markupPercentage);
+                        fee = WarrantyFeeCalculator.applyMarkup(partPrice, markupPercentage);
+                        logger.info("Auto-calculated warranty fee: {} for part: {} (markup: {}%, daysExpired: {}, gracePeriod: {})",
+                            fee, part.getPartName(), markupPercentage, warranty.daysExpired(), gracePeriodDays);
                     } else {
                         logger.info("Auto-calculated warranty fee: {} for part: {} (no markup)", fee, part.getPartName());
                     }
@@ -286,6 +214,7 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
         }
 
         WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
+        publishLifecycleEvent(ClaimLifecycleEventType.CREATED, savedClaim);
 
         return WarrantyClaimMapper.toResponseDTO(savedClaim);
     }
@@ -338,83 +267,8 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
             }
 
             // Kiểm tra warranty expiration với HIERARCHY WARRANTY MODEL khi đổi part
-            LocalDate today = LocalDate.now();
-            Part part = installedPart.getPart();
-            Vehicle vehicle = installedPart.getVehicle();
-
-            // Lấy grace period từ Part (nếu có), fallback về default
-            int gracePeriodDays = part != null && part.getGracePeriodDays() != null
-                ? part.getGracePeriodDays()
-                : DEFAULT_GRACE_PERIOD_DAYS;
-
-            // ===== ÁP DỤNG STRICTEST RULE: KIỂM TRA CẢ VEHICLE VÀ PART WARRANTY =====
-            boolean isExtendedPart = part != null && part.getHasExtendedWarranty() != null && part.getHasExtendedWarranty();
-
-            if (isExtendedPart) {
-                // Extended warranty part → Check CẢ part-level VÀ vehicle-level warranty
-                logger.info("Checking BOTH part-level and vehicle-level warranty for extended part update: {}", part.getPartName());
-
-                // 1. Kiểm tra PART warranty
-                LocalDate partExpirationDate = installedPart.getWarrantyExpirationDate();
-                long partDaysRemaining = ChronoUnit.DAYS.between(today, partExpirationDate);
-
-                // 2. Kiểm tra VEHICLE warranty
-                LocalDate vehicleExpirationDate = vehicle.getWarrantyEndDate();
-                long vehicleDaysRemaining = ChronoUnit.DAYS.between(today, vehicleExpirationDate);
-
-                // 3. Áp dụng STRICTEST RULE - Lấy daysRemaining TỆ NHẤT
-                long finalDaysRemaining = Math.min(partDaysRemaining, vehicleDaysRemaining);
-                boolean isPartExpiredWorse = partDaysRemaining <= vehicleDaysRemaining;
-
-                LocalDate finalExpirationDate = isPartExpiredWorse ? partExpirationDate : vehicleExpirationDate;
-                String warrantyType = isPartExpiredWorse ? "part-level (extended warranty)" : "vehicle-level (affecting extended part)";
-
-                // Kiểm tra xem đã hết hạn chưa
-                if (finalDaysRemaining < 0) {
-                    // Đã hết hạn - kiểm tra grace period
-                    long daysExpired = Math.abs(finalDaysRemaining);
-
-                    if (daysExpired <= gracePeriodDays) {
-                        // Trong grace period
-                        if (claim.getIsPaidWarranty() != null && claim.getIsPaidWarranty()) {
-                            logger.info("Updating claim to expired part with paid warranty: claimId={}, installedPartId={}, daysExpired={}, gracePeriod={}, appliedRule={}",
-                                id, requestDTO.getInstalledPartId(), daysExpired, gracePeriodDays, warrantyType);
-                        } else {
-                            throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + finalExpirationDate +
-                                " (" + daysExpired + " days ago). Cannot switch to expired part without paid warranty.");
-                        }
-                    } else {
-                        // Quá grace period
-                        throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + finalExpirationDate +
-                            " and grace period of " + gracePeriodDays + " days has passed (" + daysExpired + " days expired). Cannot switch to expired part.");
-                    }
-                }
-                // Nếu finalDaysRemaining >= 0 → còn hạn → cho phép update
-
-            } else {
-                // Standard part → Check CHỈ vehicle-level warranty
-                LocalDate expirationDate = vehicle.getWarrantyEndDate();
-                String warrantyType = "vehicle-level (standard part)";
-                logger.info("Checking vehicle-level warranty for standard part update: {}", part != null ? part.getPartName() : "unknown");
-
-                if (expirationDate.isBefore(today)) {
-                    // Warranty đã hết hạn - kiểm tra grace period
-                    long daysExpired = ChronoUnit.DAYS.between(expirationDate, today);
-
-                    if (daysExpired <= gracePeriodDays) {
-                        if (claim.getIsPaidWarranty() != null && claim.getIsPaidWarranty()) {
-                            logger.info("Updating claim to expired part with paid warranty: claimId={}, installedPartId={}, daysExpired={}, gracePeriod={}, warrantyType={}",
-                                id, requestDTO.getInstalledPartId(), daysExpired, gracePeriodDays, warrantyType);
-                        } else {
-                            throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + expirationDate +
-                                ". Cannot switch to expired part without paid warranty.");
-                        }
-                    } else {
-                        throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + expirationDate +
-                            " and grace period of " + gracePeriodDays + " days has passed. Cannot switch to expired part.");
-                    }
-                }
-            }
+            requireClaimWarranty(installedPart, installedPart.getVehicle(),
+                Boolean.TRUE.equals(claim.getIsPaidWarranty()), false);
 
             claim.setInstalledPart(installedPart);
         }
@@ -435,20 +289,20 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
     @Override
     @Transactional
     public WarrantyClaimResponseDTO updateClaimStatus(Long id, WarrantyClaimStatusUpdateRequestDTO requestDTO) {
-        WarrantyClaim claim = warrantyClaimRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", id));
-
-        if (!isValidStatusTransition(claim.getStatus(), requestDTO.getStatus())) {
-            throw new IllegalStateException("Invalid status transition from " + claim.getStatus() + " to " + requestDTO.getStatus());
-        }
-
-        claim.setStatus(requestDTO.getStatus());
-        if (requestDTO.getStatus() == WarrantyClaimStatus.COMPLETED) {
-            claim.setResolutionDate(LocalDateTime.now());
-        }
-
-        WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
-        return WarrantyClaimMapper.toResponseDTO(savedClaim);
+        WarrantyClaimStatus target = requestDTO.getStatus();
+        Set<WarrantyClaimStatus> allowedSources = WarrantyClaimStatusValidator.getAllowedSourceStatuses(target);
+
+        // Kiểm tra và đổi trạng thái trong MỘT câu UPDATE (state machine: WarrantyClaimStatusValidator)
+        int updated = allowedSources.isEmpty() ? 0
+            : target == WarrantyClaimStatus.COMPLETED
+                ? warrantyClaimRepository.resolveStatus(id, allowedSources, target, "", LocalDateTime.now())
+                : warrantyClaimRepository.transitionStatus(id, allowedSources, target, "");
+        requireClaimTransition(updated, id,
+            current -> "Invalid status transition from " + current + " to " + target);
+
+        WarrantyClaim updatedClaim = findClaimWithDetails(id);
+        publishLifecycleEvent(ClaimLifecycleEventType.STATUS_CHANGED, updatedClaim);
+        return WarrantyClaimMapper.toResponseDTO(updatedClaim);
     }
 
     /**
@@ -504,35 +358,36 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
     }
 
     /**
-     * Validate status transition theo state machine rules.
-     *
-     * @param current status hiện tại
-     * @param target status mục tiêu
-     * @return true nếu transition hợp lệ
+     * Xác nhận kết quả conditional update của claim: 0 dòng → ResourceNotFoundException nếu claim không tồn tại,
+     * ngược lại IllegalStateException với trạng thái hiện tại (chỉ đọc lại status trên nhánh lỗi).
      */
-    private boolean isValidStatusTransition(WarrantyClaimStatus current, WarrantyClaimStatus target) {
-        switch (current) {
-            case SUBMITTED:
-                // Free warranty: SUBMITTED → MANAGER_REVIEW
-                return target == WarrantyClaimStatus.MANAGER_REVIEW || target == WarrantyClaimStatus.REJECTED;
-
-            case PENDING_PAYMENT:
-                // Paid warranty: chờ thanh toán → đã xác nhận thanh toán
-                return target == WarrantyClaimStatus.PAYMENT_CONFIRMED || target == WarrantyClaimStatus.REJECTED;
-
-            case PAYMENT_CONFIRMED:
-                // Paid warranty: đã thanh toán → chuyển sang manager review
-                return target == WarrantyClaimStatus.MANAGER_REVIEW || target == WarrantyClaimStatus.REJECTED;
+    private void requireClaimTransition(int updatedRows, Long claimId, Function<WarrantyClaimStatus, String> conflictMessage) {
+        WarrantyClaimStatusValidator.TRANSITIONS.requireApplied(updatedRows,
+            () -> warrantyClaimRepository.findStatusById(claimId),
+            () -> new ResourceNotFoundException("WarrantyClaim", "id", claimId),
+            conflictMessage);
+    }
 
-            case MANAGER_REVIEW:
-                return target == WarrantyClaimStatus.PROCESSING || target == WarrantyClaimStatus.REJECTED;
+    /**
+     * Load claim sau khi cập nhật, kèm mọi quan hệ mà WarrantyClaimMapper đọc (1 query).
+     */
+    private WarrantyClaim findClaimWithDetails(Long claimId) {
+        return warrantyClaimRepository.findWithDetailsByWarrantyClaimId(claimId)
+            .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", claimId));
+    }
 
-            case PROCESSING:
-                return target == WarrantyClaimStatus.COMPLETED || target == WarrantyClaimStatus.REJECTED;
+    /**
+     * Publish sự kiện vòng đời claim; {@code ClaimEventStreamServiceImpl} chỉ gửi đi sau khi transaction commit.
+     */
+    private void publishLifecycleEvent(ClaimLifecycleEventType type, WarrantyClaim claim) {
+        eventPublisher.publishEvent(WarrantyClaimLifecycleEvent.of(type, claim));
+    }
 
-            default:
-                return false;
-        }
+    /**
+     * Phần nối vào description cho ghi chú tùy chọn (chuỗi rỗng nếu không có ghi chú).
+     */
+    private static String optionalNote(String label, String note) {
+        return note != null && !note.trim().isEmpty() ? "\n" + label + ": " + note : "";
     }
 
     /**
@@ -558,79 +413,59 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
 
         // Kiểm tra warranty expiration với grace period support
         // Theo business rules: Phải kiểm tra CẢ vehicle warranty VÀ part warranty (cả time VÀ mileage), áp dụng điều kiện nghiêm ngặt nhất
-        LocalDate today = LocalDate.now();
         LocalDate partExpirationDate = installedPart.getWarrantyExpirationDate();
         LocalDate vehicleExpirationDate = vehicle.getWarrantyEndDate();
-
-        // Lấy grace period từ Part (nếu có), fallback về default
         Part part = installedPart.getPart();
-        int gracePeriodDays = part != null && part.getGracePeriodDays() != null
-            ? part.getGracePeriodDays()
-            : DEFAULT_GRACE_PERIOD_DAYS;
-
-        // 1. Tính số ngày hết hạn theo THỜI GIAN
-        long partDaysExpired = partExpirationDate.isBefore(today) ? ChronoUnit.DAYS.between(partExpirationDate, today) : 0;
-        long vehicleDaysExpired = vehicleExpirationDate.isBefore(today) ? ChronoUnit.DAYS.between(vehicleExpirationDate, today) : 0;
-
-        // 2. Kiểm tra MILEAGE (số km)
+        int gracePeriodDays = resolveGracePeriodDays(part);
         int currentVehicleMileage = vehicle.getMileage();
-        int vehicleMileageLimit = DEFAULT_VEHICLE_MILEAGE_LIMIT;
-        boolean vehicleMileageExpired = currentVehicleMileage > vehicleMileageLimit;
-
-        // Part mileage check (nếu có extended warranty)
-        boolean partMileageExpired = false;
-        if (part.getHasExtendedWarranty() != null && part.getHasExtendedWarranty()) {
-            int mileageAtInstallation = installedPart.getMileageAtInstallation() != null ? installedPart.getMileageAtInstallation() : 0;
-            int mileageSinceInstallation = currentVehicleMileage - mileageAtInstallation;
-            Integer partMileageLimit = installedPart.getWarrantyMileageLimit() != null
+
+        // Part mileage chỉ xét với extended warranty
+        int partMileageLimit = WarrantyEligibilityEngine.NO_MILEAGE_LIMIT;
+        if (isExtendedPart(part)) {
+            Integer limit = installedPart.getWarrantyMileageLimit() != null
                 ? installedPart.getWarrantyMileageLimit()
                 : part.getDefaultWarrantyMileage();
-            if (partMileageLimit != null) {
-                partMileageExpired = mileageSinceInstallation > partMileageLimit;
+            if (limit != null) {
+                partMileageLimit = limit;
             }
         }
 
-        // 3. Áp dụng điều kiện nghiêm ngặt nhất
-        long maxDaysExpired = Math.max(partDaysExpired, vehicleDaysExpired);
-        boolean isExpiredByDate = maxDaysExpired > 0;
-        boolean isExpiredByMileage = vehicleMileageExpired || partMileageExpired;
-        boolean isExpired = isExpiredByDate || isExpiredByMileage;
-
-        if (isExpired) {
-            // Warranty đã hết hạn - kiểm tra grace period
-            // LƯU Ý: Grace period CHỈ áp dụng cho THỜI GIAN, KHÔNG áp dụng cho MILEAGE
-            // Nếu hết hạn do mileage → LUÔN LUÔN yêu cầu paid warranty
-            // Nếu hết hạn do time trong grace period → có thể paid warranty
-
-            if (isExpiredByMileage && !isExpiredByDate) {
-                // Chỉ hết hạn do mileage, time còn hiệu lực
-                if (requestDTO.getIsPaidWarranty() != null && requestDTO.getIsPaidWarranty()) {
-                    logger.info("SC_STAFF creating paid warranty claim (expired by mileage): installedPartId={}, vehicleMileage={}, limit={}",
-                        requestDTO.getInstalledPartId(), currentVehicleMileage, vehicleMileageLimit);
-                } else {
-                    throw new IllegalArgumentException("Warranty expired by mileage (" + currentVehicleMileage + " km > " + vehicleMileageLimit + " km)." +
+        WarrantyEligibilityEngine.Decision warranty = WarrantyEligibilityEngine.evaluate(
+            LocalDate.now().toEpochDay(),
+            partExpirationDate.toEpochDay(),
+            vehicleExpirationDate.toEpochDay(),
+            currentVehicleMileage,
+            installedPart.getMileageAtInstallation() != null ? installedPart.getMileageAtInstallation() : 0,
+            partMileageLimit,
+            DEFAULT_VEHICLE_MILEAGE_LIMIT,
+            gracePeriodDays);
+
+        // LƯU Ý: Grace period CHỈ áp dụng cho THỜI GIAN, KHÔNG áp dụng cho MILEAGE
+        // Nếu hết hạn do mileage → LUÔN LUÔN yêu cầu paid warranty
+        // Nếu hết hạn do time trong grace period → có thể paid warranty
+        boolean isPaidWarranty = Boolean.TRUE.equals(requestDTO.getIsPaidWarranty());
+        switch (warranty.eligibility()) {
+            case COVERED -> { }
+            case PAID_MILEAGE_EXCEEDED -> {
+                if (!isPaidWarranty) {
+                    throw new IllegalArgumentException("Warranty expired by mileage (" + currentVehicleMileage + " km > " + DEFAULT_VEHICLE_MILEAGE_LIMIT + " km)." +
                         " To create a claim, use paid warranty option (isPaidWarranty=true).");
                 }
-            } else if (maxDaysExpired <= gracePeriodDays) {
-                // Hết hạn do time NHƯNG còn trong grace period
-                if (requestDTO.getIsPaidWarranty() != null && requestDTO.getIsPaidWarranty()) {
-                    // Valid paid warranty claim trong grace period
-                    logger.info("SC_STAFF creating paid warranty claim in grace period: installedPartId={}, partDaysExpired={}, vehicleDaysExpired={}, maxDaysExpired={}, gracePeriod={}",
-                        requestDTO.getInstalledPartId(), partDaysExpired, vehicleDaysExpired, maxDaysExpired, gracePeriodDays);
-                } else {
-                    // Hết hạn nhưng không phải paid warranty
-                    String expiredEntity = vehicleDaysExpired > partDaysExpired ? "vehicle" : "part";
-                    LocalDate expiredDate = vehicleDaysExpired > partDaysExpired ? vehicleExpirationDate : partExpirationDate;
-                    throw new IllegalArgumentException("Warranty expired on " + expiredDate + " (" + expiredEntity + ")." +
+                logger.info("SC_STAFF creating paid warranty claim (expired by mileage): installedPartId={}, vehicleMileage={}, limit={}",
+                    requestDTO.getInstalledPartId(), currentVehicleMileage, DEFAULT_VEHICLE_MILEAGE_LIMIT);
+            }
+            case PAID_IN_GRACE_PERIOD -> {
+                if (!isPaidWarranty) {
+                    throw new IllegalArgumentException("Warranty expired on " + strictestExpirationDate(warranty, partExpirationDate, vehicleExpirationDate) +
+                        " (" + strictestExpiredEntity(warranty) + ")." +
                         " To create a claim, use paid warranty option (isPaidWarranty=true).");
                 }
-            } else {
-                // Quá grace period (theo TIME)
-                String expiredEntity = vehicleDaysExpired > partDaysExpired ? "vehicle" : "part";
-                LocalDate expiredDate = vehicleDaysExpired > partDaysExpired ? vehicleExpirationDate : partExpirationDate;
-                throw new IllegalArgumentException("Warranty expired on " + expiredDate + " (" + expiredEntity + ")" +
-                    " and grace period of " + gracePeriodDays + " days has passed (expired " + maxDaysExpired + " days ago). Cannot create claim.");
+                logger.info("SC_STAFF creating paid warranty claim in grace period: installedPartId={}, partDaysRemaining={}, vehicleDaysRemaining={}, maxDaysExpired={}, gracePeriod={}",
+                    requestDTO.getInstalledPartId(), warranty.partDaysRemaining(), warranty.vehicleDaysRemaining(), warranty.daysExpired(), gracePeriodDays);
             }
+            case GRACE_PERIOD_EXCEEDED -> throw new IllegalArgumentException("Warranty expired on " + strictestExpirationDate(warranty, partExpirationDate, vehicleExpirationDate) +
+                " (" + strictestExpiredEntity(warranty) + ")" +
+                " and grace period of " + gracePeriodDays + " days has passed (expired " + warranty.daysExpired() + " days ago). Cannot create claim.");
         }
 
         // Validation: Paid warranty must have warrantyFee > 0 (per business rules)
@@ -655,6 +490,7 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
         }
 
         WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
+        publishLifecycleEvent(ClaimLifecycleEventType.CREATED, savedClaim);
         return WarrantyClaimMapper.toResponseDTO(savedClaim);
     }
 
@@ -673,26 +509,18 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
     @Override
     @Transactional
     public WarrantyClaimResponseDTO adminAcceptClaim(Long claimId, String note) {
-        WarrantyClaim claim = warrantyClaimRepository.findById(claimId)
-            .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", claimId));
-
         // Accept claims from SUBMITTED (free warranty) or PAYMENT_CONFIRMED (paid warranty)
-        if (claim.getStatus() != WarrantyClaimStatus.SUBMITTED &&
-            claim.getStatus() != WarrantyClaimStatus.PAYMENT_CONFIRMED) {
-            throw new IllegalStateException(
-                "Claim must be in SUBMITTED (free warranty) or PAYMENT_CONFIRMED (paid warranty) status to accept. " +
-                "Current status: " + claim.getStatus());
-        }
-
-        claim.setStatus(WarrantyClaimStatus.MANAGER_REVIEW);
-
-        if (note != null && !note.trim().isEmpty()) {
-            claim.setDescription(claim.getDescription() + "\n[Admin Note]: " + note);
-        }
-
-        WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
-        logger.info("Admin accepted claim {} from status {} to MANAGER_REVIEW", claimId, claim.getStatus());
-        return WarrantyClaimMapper.toResponseDTO(savedClaim);
+        int updated = warrantyClaimRepository.transitionStatus(claimId,
+            WarrantyClaimStatusValidator.getAllowedSourceStatuses(WarrantyClaimStatus.MANAGER_REVIEW),
+            WarrantyClaimStatus.MANAGER_REVIEW, optionalNote("[Admin Note]", note));
+        requireClaimTransition(updated, claimId, current ->
+            "Claim must be in SUBMITTED (free warranty) or PAYMENT_CONFIRMED (paid warranty) status to accept. " +
+            "Current status: " + current);
+
+        logger.info("Admin accepted claim {} - status updated to MANAGER_REVIEW", claimId);
+        WarrantyClaim acceptedClaim = findClaimWithDetails(claimId);
+        publishLifecycleEvent(ClaimLifecycleEventType.ACCEPTED, acceptedClaim);
+        return WarrantyClaimMapper.toResponseDTO(acceptedClaim);
     }
 
     /**
@@ -708,21 +536,17 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
     @Override
     @Transactional
     public WarrantyClaimResponseDTO adminRejectClaim(Long claimId, String reason) {
-        WarrantyClaim claim = warrantyClaimRepository.findById(claimId)
-            .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", claimId));
+        // Cannot reject if already in final status (mọi trạng thái chưa kết thúc đều có thể chuyển sang REJECTED)
+        int updated = warrantyClaimRepository.resolveStatus(claimId,
+            WarrantyClaimStatusValidator.getAllowedSourceStatuses(WarrantyClaimStatus.REJECTED),
+            WarrantyClaimStatus.REJECTED, "\n[Admin Rejection]: " + reason, LocalDateTime.now());
+        requireClaimTransition(updated, claimId,
+            current -> "Cannot reject claim that is already in final status: " + current);
 
-        // Cannot reject if already in final status
-        if (claim.getStatus().isFinalStatus()) {
-            throw new IllegalStateException("Cannot reject claim that is already in final status: " + claim.getStatus());
-        }
-
-        claim.setStatus(WarrantyClaimStatus.REJECTED);
-        claim.setDescription(claim.getDescription() + "\n[Admin Rejection]: " + reason);
-        claim.setResolutionDate(LocalDateTime.now());
-
-        WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
         logger.info("Admin rejected claim {} with reason: {}", claimId, reason);
-        return WarrantyClaimMapper.toResponseDTO(savedClaim);
+        WarrantyClaim rejectedClaim = findClaimWithDetails(claimId);
+        publishLifecycleEvent(ClaimLifecycleEventType.REJECTED, rejectedClaim);
+        return WarrantyClaimMapper.toResponseDTO(rejectedClaim);
     }
 
     /**
@@ -737,19 +561,14 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
     @Override
     @Transactional
     public WarrantyClaimResponseDTO confirmPayment(Long claimId) {
-        WarrantyClaim claim = warrantyClaimRepository.findById(claimId)
-            .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", claimId));
-
-        if (claim.getStatus() != WarrantyClaimStatus.PENDING_PAYMENT) {
-            throw new IllegalStateException("Claim must be in PENDING_PAYMENT status to confirm payment. Current status: " + claim.getStatus());
-        }
-
-        claim.setStatus(WarrantyClaimStatus.PAYMENT_CONFIRMED);
+        int updated = warrantyClaimRepository.transitionStatus(claimId,
+            WarrantyClaimStatusValidator.getAllowedSourceStatuses(WarrantyClaimStatus.PAYMENT_CONFIRMED),
+            WarrantyClaimStatus.PAYMENT_CONFIRMED, "");
+        requireClaimTransition(updated, claimId,
+            current -> "Claim must be in PENDING_PAYMENT status to confirm payment. Current status: " + current);
 
-        WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
         logger.info("Payment confirmed for claim {} - status updated to PAYMENT_CONFIRMED", claimId);
-
-        return WarrantyClaimMapper.toResponseDTO(savedClaim);
+        return WarrantyClaimMapper.toResponseDTO(findClaimWithDetails(claimId));
     }
 
     /**
@@ -762,14 +581,14 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
      * @throws IllegalStateException nếu claim không ở status MANAGER_REVIEW
      */
     @Override
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public WarrantyClaimResponseDTO techStartProcessing(Long claimId, String note) {
-        WarrantyClaim claim = warrantyClaimRepository.findById(claimId)
-            .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", claimId));
-
-        if (claim.getStatus() != WarrantyClaimStatus.MANAGER_REVIEW) {
-            throw new IllegalStateException("Claim must be in MANAGER_REVIEW status to start processing. Current status: " + claim.getStatus());
-        }
+        // Đổi trạng thái trước bằng conditional update: nếu vượt giới hạn bên dưới, exception sẽ rollback cả bước này
+        int updated = warrantyClaimRepository.transitionStatus(claimId,
+            WarrantyClaimStatusValidator.getAllowedSourceStatuses(WarrantyClaimStatus.PROCESSING),
+            WarrantyClaimStatus.PROCESSING, optionalNote("[Tech Start]", note));
+        requireClaimTransition(updated, claimId,
+            current -> "Claim must be in MANAGER_REVIEW status to start processing. Current status: " + current);
 
         // Check daily claim limit for technician
         String username = SecurityUtil.getCurrentUsername()
@@ -783,35 +602,21 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
             Integer dailyLimit = currentUser.getServiceCenter().getDailyClaimLimitPerTech();
 
             if (dailyLimit != null && dailyLimit > 0) {
-                // Calculate start and end of today
-                LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
-                LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
-
-                // Count claims started by this user today
-                long claimsStartedToday = workLogRepository.countClaimsStartedByUserToday(
-                    currentUser.getUserId(),
-                    startOfDay,
-                    endOfDay
-                );
-
-                if (claimsStartedToday >= dailyLimit) {
-                    throw new IllegalStateException(
-                        String.format("Bạn đã đạt giới hạn xử lý claim trong ngày (%d/%d). Vui lòng thử lại vào ngày mai.",
-                            claimsStartedToday, dailyLimit)
-                    );
-                }
+                // Khóa dòng technician rồi đếm lại từ DB: node khác bắt đầu claim cho cùng technician phải chờ tới khi
+                // transaction này kết thúc, và READ_COMMITTED giúp lần đếm thấy work log node đó vừa commit
+                userRepository.findByIdForUpdate(currentUser.getUserId());
+                dailyClaimQuotaTracker.reload(currentUser.getUserId());
+
+                // Giữ suất nguyên tử (kiểm tra + tăng trong một bước); rollback sẽ trả lại suất
+                long claimsStartedToday = dailyClaimQuotaTracker.reserve(currentUser.getUserId(), dailyLimit);
 
                 logger.info("Technician {} has started {}/{} claims today",
                     username, claimsStartedToday, dailyLimit);
             }
         }
 
-        claim.setStatus(WarrantyClaimStatus.PROCESSING);
-        if (note != null && !note.trim().isEmpty()) {
-            claim.setDescription(claim.getDescription() + "\n[Tech Start]: " + note);
-        }
-
-        WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
+        WarrantyClaim savedClaim = findClaimWithDetails(claimId);
+        publishLifecycleEvent(ClaimLifecycleEventType.STARTED, savedClaim);
 
         // Create work log using already obtained currentUser
         try {
@@ -826,6 +631,8 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
             logger.info("Work log created for claim {} by user {} (ID: {})", claimId, username, currentUser.getUserId());
         } catch (Exception e) {
             logger.error("Failed to create work log for claim {}: {}", claimId, e.getMessage());
+            // Không có work log thì DB không tính claim này vào giới hạn: bỏ suất đã giữ, lần sau nạp lại từ DB
+            dailyClaimQuotaTracker.invalidate(currentUser.getUserId());
         }
 
         return WarrantyClaimMapper.toResponseDTO(savedClaim);
@@ -843,18 +650,14 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
     @Override
     @Transactional
     public WarrantyClaimResponseDTO techCompleteClaim(Long claimId, String completionNote) {
-        WarrantyClaim claim = warrantyClaimRepository.findById(claimId)
-            .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", claimId));
+        int updated = warrantyClaimRepository.resolveStatus(claimId,
+            WarrantyClaimStatusValidator.getAllowedSourceStatuses(WarrantyClaimStatus.COMPLETED),
+            WarrantyClaimStatus.COMPLETED, "\n[Tech Completion]: " + completionNote, LocalDateTime.now());
+        requireClaimTransition(updated, claimId,
+            current -> "Claim must be in PROCESSING status to complete. Current status: " + current);
 
-        if (claim.getStatus() != WarrantyClaimStatus.PROCESSING) {
-            throw new IllegalStateException("Claim must be in PROCESSING status to complete. Current status: " + claim.getStatus());
-        }
-
-        claim.setStatus(WarrantyClaimStatus.COMPLETED);
-        claim.setDescription(claim.getDescription() + "\n[Tech Completion]: " + completionNote);
-        claim.setResolutionDate(LocalDateTime.now());
-
-        WarrantyClaim savedClaim = warrantyClaimRepository.save(claim);
+        WarrantyClaim savedClaim = findClaimWithDetails(claimId);
+        publishLifecycleEvent(ClaimLifecycleEventType.COMPLETED, savedClaim);
 
         createWarrantyServiceHistory(savedClaim);
 
@@ -931,11 +734,12 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
      * @throws IllegalArgumentException nếu status không hợp lệ
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<WarrantyClaimResponseDTO> getClaimsByStatus(String status, Pageable pageable) {
         try {
             WarrantyClaimStatus claimStatus = WarrantyClaimStatus.valueOf(status.toUpperCase());
-            Page<WarrantyClaim> claimPage = warrantyClaimRepository.findByStatus(claimStatus, pageable);
-            List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOList(claimPage.getContent());
+            Page<WarrantyClaimListView> claimPage = warrantyClaimRepository.findListViewsByStatus(claimStatus, pageable);
+            List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOListFromViews(claimPage.getContent());
 
             return new PagedResponse<>(
                 responseDTOs,
@@ -958,12 +762,13 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
      * @return PagedResponse chứa danh sách WarrantyClaimResponseDTO
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<WarrantyClaimResponseDTO> getTechPendingClaims(Pageable pageable) {
-        Page<WarrantyClaim> claimPage = warrantyClaimRepository.findByStatusIn(
+        Page<WarrantyClaimListView> claimPage = warrantyClaimRepository.findListViewsByStatusIn(
             List.of(WarrantyClaimStatus.MANAGER_REVIEW, WarrantyClaimStatus.PROCESSING),
             pageable
         );
-        List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOList(claimPage.getContent());
+        List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOListFromViews(claimPage.getContent());
 
         return new PagedResponse<>(
             responseDTOs,
@@ -987,17 +792,49 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
     @Override
     @Transactional
     public WarrantyClaimResponseDTO assignClaimToMe(Long claimId, String username) {
-        WarrantyClaim claim = warrantyClaimRepository.findById(claimId)
-            .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", claimId));
-
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
 
-        claim.setAssignedTo(user);
+        // Conditional update: chỉ gán khi claim chưa thuộc về người khác (không read-modify-write)
+        if (warrantyClaimRepository.assignIfUnassigned(claimId, user) == 0) {
+            String assignee = warrantyClaimRepository.findAssigneeUsernameById(claimId)
+                .orElseThrow(() -> new ResourceNotFoundException("WarrantyClaim", "id", claimId));
+            throw new IllegalStateException("Claim is already assigned to " + assignee);
+        }
 
-        WarrantyClaim updatedClaim = warrantyClaimRepository.save(claim);
+        WarrantyClaim assignedClaim = findClaimWithDetails(claimId);
+        publishLifecycleEvent(ClaimLifecycleEventType.ASSIGNED, assignedClaim);
+        return WarrantyClaimMapper.toResponseDTO(assignedClaim);
+    }
 
-        return WarrantyClaimMapper.toResponseDTO(updatedClaim);
+    /**
+     * Technician nhận claim kế tiếp trong hàng đợi của trung tâm mình (claim MANAGER_REVIEW chưa gán, cũ nhất trước).
+     * <p>
+     * {@link ClaimDispatchQueue} trao cho mỗi request một ID ứng viên khác nhau (O(1), không tranh khóa dòng); việc gán
+     * vẫn là conditional update nên ID đã cũ (bị nhận/đổi trạng thái theo đường khác) chỉ bị bỏ qua, không bao giờ gán trùng.
+     *
+     * @param username username của technician
+     * @return claim vừa nhận, hoặc rỗng nếu hàng đợi trống
+     * @throws ResourceNotFoundException nếu user không tồn tại
+     */
+    @Override
+    @Transactional
+    public Optional<WarrantyClaimResponseDTO> assignNextClaimToMe(String username) {
+        User technician = userRepository.findByUsername(username)
+            .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
+        Long serviceCenterId = technician.getServiceCenter() != null
+            ? technician.getServiceCenter().getServiceCenterId() : null;
+
+        for (Long claimId = claimDispatchQueue.poll(serviceCenterId); claimId != null;
+             claimId = claimDispatchQueue.poll(serviceCenterId)) {
+            if (warrantyClaimRepository.dispatchIfUnassigned(claimId, WarrantyClaimStatus.MANAGER_REVIEW, technician) > 0) {
+                logger.info("📥 Dispatched claim {} to technician {}", claimId, username);
+                WarrantyClaim assignedClaim = findClaimWithDetails(claimId);
+                publishLifecycleEvent(ClaimLifecycleEventType.ASSIGNED, assignedClaim);
+                return Optional.of(WarrantyClaimMapper.toResponseDTO(assignedClaim));
+            }
+        }
+        return Optional.empty();
     }
 
     /**
@@ -1009,11 +846,12 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
      * @throws ResourceNotFoundException nếu user không tồn tại
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<WarrantyClaimResponseDTO> getMyAssignedClaims(String username, Pageable pageable) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
-        Page<WarrantyClaim> claimPage = warrantyClaimRepository.findByAssignedToUserId(user.getUserId(), pageable);
-        List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOList(claimPage.getContent());
+        Page<WarrantyClaimListView> claimPage = warrantyClaimRepository.findListViewsByAssignedToUserId(user.getUserId(), pageable);
+        List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOListFromViews(claimPage.getContent());
 
         return new PagedResponse<>(
             responseDTOs,
@@ -1035,6 +873,7 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
      * @throws ResourceNotFoundException nếu user hoặc customer profile không tồn tại
      */
     @Override
+    @Transactional(readOnly = true)
     public PagedResponse<WarrantyClaimResponseDTO> getMyWarrantyClaims(String username, Pageable pageable) {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
@@ -1042,18 +881,17 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
         Customer customer = Optional.ofNullable(user.getCustomer())
                 .orElseThrow(() -> new ResourceNotFoundException("Customer Profile", "for user", username));
 
-        Page<WarrantyClaim> claimPage = warrantyClaimRepository
-            .findByVehicleCustomerCustomerId(customer.getCustomerId(), pageable);
+        Page<WarrantyClaimListView> claimPage = warrantyClaimRepository
+            .findListViewsByCustomerId(customer.getCustomerId(), pageable);
 
-        List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOList(claimPage.getContent());
+        List<WarrantyClaimResponseDTO> responseDTOs = WarrantyClaimMapper.toResponseDTOListFromViews(claimPage.getContent());
 
-        // Check feedback status for each claim
-        responseDTOs.forEach(dto -> {
-            boolean hasFeedback = feedbackRepository
-                .findByWarrantyClaimWarrantyClaimId(dto.getWarrantyClaimId())
-                .isPresent();
-            dto.setHasFeedback(hasFeedback);
-        });
+        // Check feedback status cho cả trang trong 1 query
+        if (!responseDTOs.isEmpty()) {
+            Set<Long> claimIdsWithFeedback = new HashSet<>(feedbackRepository.findWarrantyClaimIdsWithFeedback(
+                responseDTOs.stream().map(WarrantyClaimResponseDTO::getWarrantyClaimId).collect(Collectors.toList())));
+            responseDTOs.forEach(dto -> dto.setHasFeedback(claimIdsWithFeedback.contains(dto.getWarrantyClaimId())));
+        }
 
         return new PagedResponse<>(
             responseDTOs,
@@ -1090,4 +928,75 @@ public class WarrantyClaimServiceImpl implements WarrantyClaimService {
 
         return WarrantyClaimMapper.toResponseDTO(claim);
     }
+
+    // ============= WARRANTY ELIGIBILITY HELPERS =============
+
+    /**
+     * Kiểm tra bảo hành khi tạo/cập nhật claim theo HIERARCHY WARRANTY MODEL:
+     * part extended xét CẢ hạn part VÀ hạn xe (strictest rule), part thường chỉ xét hạn xe; không xét km.
+     * Hết hạn nhưng còn trong grace period → chỉ cho phép paid warranty; quá grace period → từ chối.
+     *
+     * @param paidWarranty claim có phải paid warranty không
+     * @param creating     true khi tạo claim, false khi đổi installed part của claim
+     * @return quyết định bảo hành (dùng tiếp để tính phí)
+     * @throws IllegalArgumentException nếu không được phép tạo/cập nhật claim
+     */
+    private WarrantyEligibilityEngine.Decision requireClaimWarranty(InstalledPart installedPart, Vehicle vehicle,
+                                                                    boolean paidWarranty, boolean creating) {
+        Part part = installedPart.getPart();
+        boolean isExtendedPart = isExtendedPart(part);
+        int gracePeriodDays = resolveGracePeriodDays(part);
+
+        WarrantyEligibilityEngine.Decision warranty = WarrantyEligibilityEngine.evaluate(
+            LocalDate.now().toEpochDay(),
+            isExtendedPart ? installedPart.getWarrantyExpirationDate().toEpochDay() : WarrantyEligibilityEngine.NO_EXPIRY,
+            vehicle.getWarrantyEndDate().toEpochDay(),
+            0, 0,
+            WarrantyEligibilityEngine.NO_MILEAGE_LIMIT,
+            WarrantyEligibilityEngine.NO_MILEAGE_LIMIT,
+            gracePeriodDays);
+
+        if (warranty.isCovered()) {
+            return warranty;
+        }
+
+        // Chỉ dựng thông tin chi tiết khi đã hết hạn
+        boolean partIsStrictest = isExtendedPart && warranty.isPartStrictestByDate();
+        LocalDate expirationDate = partIsStrictest ? installedPart.getWarrantyExpirationDate() : vehicle.getWarrantyEndDate();
+        String warrantyType = !isExtendedPart ? "vehicle-level (standard part)"
+            : partIsStrictest ? "part-level (extended warranty)" : "vehicle-level (affecting extended part)";
+        long daysExpired = warranty.daysExpired();
+
+        if (warranty.eligibility() == WarrantyEligibilityEngine.Eligibility.GRACE_PERIOD_EXCEEDED) {
+            throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + expirationDate +
+                " and grace period of " + gracePeriodDays + " days has passed (" + daysExpired + " days expired). " +
+                (creating ? "Cannot create claim." : "Cannot switch to expired part."));
+        }
+        if (!paidWarranty) {
+            throw new IllegalArgumentException("Warranty (" + warrantyType + ") expired on " + expirationDate +
+                " (" + daysExpired + " days ago). " +
+                (creating ? "To create a claim, use paid warranty option (isPaidWarranty=true)." : "Cannot switch to expired part without paid warranty."));
+        }
+        logger.info("{} paid warranty claim in grace period: installedPartId={}, daysExpired={}, gracePeriod={}, appliedRule={}",
+            creating ? "Creating" : "Updating", installedPart.getInstalledPartId(), daysExpired, gracePeriodDays, warrantyType);
+        return warranty;
+    }
+
+    private static boolean isExtendedPart(Part part) {
+        return part != null && Boolean.TRUE.equals(part.getHasExtendedWarranty());
+    }
+
+    private static int resolveGracePeriodDays(Part part) {
+        // Lấy grace period từ Part (nếu có), fallback về default
+        return part != null && part.getGracePeriodDays() != null ? part.getGracePeriodDays() : DEFAULT_GRACE_PERIOD_DAYS;
+    }
+
+    private static LocalDate strictestExpirationDate(WarrantyEligibilityEngine.Decision warranty,
+                                                     LocalDate partExpirationDate, LocalDate vehicleExpirationDate) {
+        return warranty.isPartStrictestByDate() ? partExpirationDate : vehicleExpirationDate;
+    }
+
+    private static String strictestExpiredEntity(WarrantyEligibilityEngine.Decision warranty) {
+        return warranty.isPartStrictestByDate() ? "part" : "vehicle";
+    }
 }
@@ -0,0 +1,412 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.response.WarrantyExpiryProjectionRunResponseDTO;
+import com.swp391.warrantymanagement.dto.response.WarrantyExpirySummaryResponseDTO;
+import com.swp391.warrantymanagement.entity.InstalledPartWarrantySnapshot;
+import com.swp391.warrantymanagement.entity.WarrantyExpiryBucket;
+import com.swp391.warrantymanagement.entity.id.WarrantyExpiryBucketId;
+import com.swp391.warrantymanagement.enums.WarrantyExpiryScope;
+import com.swp391.warrantymanagement.enums.WarrantyExpirySubject;
+import com.swp391.warrantymanagement.repository.ScheduledJobLockRepository;
+import com.swp391.warrantymanagement.repository.WarrantyExpiryBucketRepository;
+import com.swp391.warrantymanagement.repository.WarrantyExpiryProjectionRepository;
+import com.swp391.warrantymanagement.repository.WarrantyExpiryProjectionRepository.InstalledPartRow;
+import com.swp391.warrantymanagement.repository.WarrantyExpiryProjectionRepository.VehicleRow;
+import com.swp391.warrantymanagement.service.WarrantyExpiryProjectionService;
+import com.swp391.warrantymanagement.util.WarrantyEligibilityEngine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation của WarrantyExpiryProjectionService.
+ * <p>
+ * <strong>Quy trình một lần dựng:</strong>
+ * <ol>
+ *     <li>Duyệt xe theo keyset ({@code vehicle_id > lastId}, {@code chunkSize} xe mỗi chunk). Với mỗi chunk đọc linh kiện
+ *     đang hoạt động của đúng khoảng ID đó. Service center của xe là trung tâm của tài khoản chủ xe
+ *     ({@code customer.user.serviceCenter}) - cùng trung tâm nhận claim tạo từ recall
+ *     ({@link RecallResponseServiceImpl}); xe của chủ không thuộc trung tâm nào chỉ được đếm ở ALL / CUSTOMER / PART.</li>
+ *     <li>Tính {@link com.swp391.warrantymanagement.enums.WarrantyStatus} của từng linh kiện bằng
+ *     {@link WarrantyEligibilityEngine} - cùng quy tắc với {@link WarrantyValidationServiceImpl}
+ *     (linh kiện extended: nghiêm ngặt nhất giữa part và xe; linh kiện thường: theo bảo hành xe) - và upsert theo
+ *     JDBC batch (transaction riêng mỗi chunk).</li>
+ *     <li>Đếm trong bộ nhớ số xe / linh kiện hết hạn trong từng cửa sổ theo (ALL, service center, customer, part);
+ *     chỉ những dòng nằm trong cửa sổ lớn nhất mới được đếm nên map nhỏ.</li>
+ *     <li>Transaction cuối: upsert bucket, xóa bucket và trạng thái không được chạm tới trong lần chạy này.</li>
+ * </ol>
+ * Ngày hết hạn dùng để xếp bucket giống các API "warranty-expiring" hiện có: {@code installed_parts.warranty_expiration_date}
+ * và {@code vehicles.warranty_end_date}, khoảng [hôm nay, hôm nay + N] tính cả hai đầu.
+ * <p>
+ * <strong>Nhiều node:</strong> cờ {@code running} chỉ chặn chạy chồng trong một JVM; giữa các node, lần chạy phải nhận
+ * khóa {@value #JOB_NAME} trong {@code scheduled_job_locks} (lease {@code warranty-expiry.projection.lock-lease-minutes},
+ * gia hạn sau mỗi chunk). Node không nhận được khóa bỏ qua lần chạy; node mất khóa giữa chừng (lease hết) dừng lại
+ * trước khi ghi bucket và xóa dòng cũ. Mốc {@code refreshed_at} luôn lớn hơn mốc đã lưu trong DB, nên việc xóa dòng cũ
+ * đúng cả khi lần chạy trước là của node khác.
+ * <p>
+ * <strong>Metrics:</strong> {@code warranty.expiry.projection.duration{outcome}},
+ * {@code warranty.expiry.projection.rows{table}} (số dòng của lần chạy thành công gần nhất),
+ * {@code warranty.expiry.projection.last.success} (epoch giây).
+ */
+@Service
+@RequiredArgsConstructor
+public class WarrantyExpiryProjectionServiceImpl implements WarrantyExpiryProjectionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarrantyExpiryProjectionServiceImpl.class);
+
+    private static final String ALL_SCOPE_KEY = "";
+
+    static final String JOB_NAME = "warranty-expiry-projection";
+
+    private final WarrantyExpiryProjectionRepository projectionRepository;
+    private final WarrantyExpiryBucketRepository bucketRepository;
+    private final ScheduledJobLockRepository jobLockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${warranty-expiry.projection.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${warranty-expiry.projection.windows:30,60,90}")
+    private int[] windows;
+
+    @Value("${warranty-expiry.projection.lock-lease-minutes:10}")
+    private long lockLeaseMinutes;
+
+    // Định danh node trong scheduled_job_locks.locked_by
+    private final String lockOwner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastVehicleRows = new AtomicLong();
+    private final AtomicLong lastInstalledPartRows = new AtomicLong();
+    private final AtomicLong lastBucketRows = new AtomicLong();
+    private final AtomicLong lastSuccessEpochSecond = new AtomicLong();
+    private LocalDateTime lastRefreshedAt; // Chỉ đọc/ghi khi giữ cờ running và khóa job
+    private Timer successTimer;
+    private Timer failureTimer;
+
+    @PostConstruct
+    void init() {
+        windows = Arrays.stream(windows).filter(days -> days >= 0).distinct().sorted().toArray();
+        if (windows.length == 0) {
+            throw new IllegalStateException("warranty-expiry.projection.windows must contain at least one window");
+        }
+        successTimer = meterRegistry.timer("warranty.expiry.projection.duration", "outcome", "success");
+        failureTimer = meterRegistry.timer("warranty.expiry.projection.duration", "outcome", "failure");
+        registerRowGauge("vehicles", lastVehicleRows);
+        registerRowGauge("installed_parts", lastInstalledPartRows);
+        registerRowGauge("buckets", lastBucketRows);
+        Gauge.builder("warranty.expiry.projection.last.success", lastSuccessEpochSecond, AtomicLong::get)
+                .description("Thời điểm (epoch giây) của lần dựng projection hết hạn bảo hành thành công gần nhất")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Dựng lại hằng đêm (mặc định 01:30, múi giờ ứng dụng).
+     */
+    @Scheduled(cron = "${warranty-expiry.projection.cron:0 30 1 * * *}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Dựng lần đầu khi bảng bucket chưa có dữ liệu (mới triển khai), để dashboard không phải chờ tới đêm.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIfMissing() {
+        try {
+            if (bucketRepository.findLastRefreshedAt() == null) {
+                logger.info("Warranty expiry projection is empty, building it now");
+                refresh();
+            }
+        } catch (RuntimeException e) {
+            logger.error("❌ Initial warranty expiry projection failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public WarrantyExpiryProjectionRunResponseDTO refresh() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Warranty expiry projection is already running, skipping");
+            return null;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (!jobLockRepository.tryAcquire(JOB_NAME, lockOwner, now, now.plusMinutes(lockLeaseMinutes))) {
+                logger.warn("Warranty expiry projection is running on another node, skipping");
+                return null;
+            }
+            try {
+                return refreshLocked();
+            } finally {
+                jobLockRepository.release(JOB_NAME, lockOwner, LocalDateTime.now());
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private WarrantyExpiryProjectionRunResponseDTO refreshLocked() {
+        long startNanos = System.nanoTime();
+        try {
+            WarrantyExpiryProjectionRunResponseDTO result = rebuild(LocalDate.now(), nextRefreshedAt());
+            long elapsedNanos = System.nanoTime() - startNanos;
+            successTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            result.setDurationMs(elapsedNanos / 1_000_000);
+            lastVehicleRows.set(result.getVehicleRows());
+            lastInstalledPartRows.set(result.getInstalledPartRows());
+            lastBucketRows.set(result.getBucketRows());
+            lastSuccessEpochSecond.set(System.currentTimeMillis() / 1000);
+            logger.info("✅ Warranty expiry projection built for {}: {} vehicles, {} installed parts, {} buckets, " +
+                            "{} stale rows removed ({} ms)", result.getAsOfDate(), result.getVehicleRows(),
+                    result.getInstalledPartRows(), result.getBucketRows(), result.getRemovedRows(), result.getDurationMs());
+            return result;
+        } catch (RuntimeException e) {
+            failureTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            logger.error("❌ Warranty expiry projection failed: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public WarrantyExpirySummaryResponseDTO getSummary(WarrantyExpiryScope scope, String scopeKey) {
+        String key = scope == WarrantyExpiryScope.ALL ? ALL_SCOPE_KEY : scopeKey;
+        if (key == null || (scope != WarrantyExpiryScope.ALL && key.isBlank())) {
+            throw new IllegalArgumentException("Scope key is required for scope " + scope);
+        }
+
+        Map<Integer, Long> vehicles = new TreeMap<>();
+        Map<Integer, Long> installedParts = new TreeMap<>();
+        for (int days : windows) {
+            vehicles.put(days, 0L);
+            installedParts.put(days, 0L);
+        }
+
+        WarrantyExpirySummaryResponseDTO summary = new WarrantyExpirySummaryResponseDTO();
+        for (WarrantyExpiryBucket bucket : bucketRepository.findByScope(scope, key.trim())) {
+            Map<Integer, Long> target = bucket.getId().getSubject() == WarrantyExpirySubject.VEHICLE ? vehicles : installedParts;
+            target.put(bucket.getId().getWindowDays(), bucket.getExpiringCount());
+            summary.setAsOfDate(bucket.getAsOfDate());
+            summary.setRefreshedAt(bucket.getRefreshedAt());
+        }
+        if (summary.getRefreshedAt() == null) {
+            // Phạm vi không có bucket nào (= 0 ở mọi cửa sổ): lấy thời điểm dựng chung
+            LocalDateTime lastRefreshedAt = bucketRepository.findLastRefreshedAt();
+            summary.setRefreshedAt(lastRefreshedAt);
+            summary.setAsOfDate(lastRefreshedAt != null ? lastRefreshedAt.toLocalDate() : null);
+        }
+        summary.setScope(scope);
+        summary.setScopeKey(key.trim());
+        summary.setVehiclesExpiring(vehicles);
+        summary.setInstalledPartsExpiring(installedParts);
+        return summary;
+    }
+
+    // ============= PROJECTION =============
+
+    private WarrantyExpiryProjectionRunResponseDTO rebuild(LocalDate asOfDate, LocalDateTime refreshedAt) {
+        ExpiryTally tally = new ExpiryTally(windows);
+        long todayEpochDay = asOfDate.toEpochDay();
+        long vehicleRows = 0;
+        long installedPartRows = 0;
+        long afterVehicleId = 0;
+
+        while (true) {
+            List<VehicleRow> vehicles = projectionRepository.findVehicles(afterVehicleId, chunkSize);
+            if (vehicles.isEmpty()) {
+                break;
+            }
+            long lastVehicleId = vehicles.get(vehicles.size() - 1).vehicleId();
+            List<InstalledPartWarrantySnapshot> snapshots =
+                    projectChunk(vehicles, afterVehicleId, lastVehicleId, todayEpochDay, asOfDate, refreshedAt, tally);
+            if (!snapshots.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> projectionRepository.upsertSnapshots(snapshots));
+            }
+            vehicleRows += vehicles.size();
+            installedPartRows += snapshots.size();
+            afterVehicleId = lastVehicleId;
+            extendLock();
+        }
+
+        List<WarrantyExpiryBucket> buckets = tally.toBuckets(asOfDate, refreshedAt);
+        Integer removedRows = transactionTemplate.execute(status -> {
+            projectionRepository.upsertBuckets(buckets);
+            return projectionRepository.deleteBucketsRefreshedBefore(refreshedAt)
+                    + projectionRepository.deleteSnapshotsRefreshedBefore(refreshedAt);
+        });
+
+        WarrantyExpiryProjectionRunResponseDTO result = new WarrantyExpiryProjectionRunResponseDTO();
+        result.setAsOfDate(asOfDate);
+        result.setRefreshedAt(refreshedAt);
+        result.setVehicleRows(vehicleRows);
+        result.setInstalledPartRows(installedPartRows);
+        result.setBucketRows(buckets.size());
+        result.setRemovedRows(removedRows != null ? removedRows : 0);
+        return result;
+    }
+
+    private List<InstalledPartWarrantySnapshot> projectChunk(List<VehicleRow> vehicles, long afterVehicleId,
+                                                             long lastVehicleId, long todayEpochDay, LocalDate asOfDate,
+                                                             LocalDateTime refreshedAt, ExpiryTally tally) {
+        Map<Long, VehicleRow> vehiclesById = new HashMap<>(vehicles.size() * 2);
+        for (VehicleRow vehicle : vehicles) {
+            vehiclesById.put(vehicle.vehicleId(), vehicle);
+            tally.add(WarrantyExpirySubject.VEHICLE, vehicle.warrantyEndDate().toEpochDay() - todayEpochDay,
+                    vehicle.serviceCenterId(), vehicle.customerId(), null);
+        }
+
+        List<InstalledPartRow> parts = projectionRepository.findActiveInstalledParts(afterVehicleId, lastVehicleId);
+        List<InstalledPartWarrantySnapshot> snapshots = new ArrayList<>(parts.size());
+        for (InstalledPartRow part : parts) {
+            VehicleRow vehicle = vehiclesById.get(part.vehicleId());
+            if (vehicle == null) {
+                continue; // Xe được tạo sau khi đọc chunk xe: lần chạy sau sẽ thấy
+            }
+            Long serviceCenterId = vehicle.serviceCenterId();
+            tally.add(WarrantyExpirySubject.INSTALLED_PART, part.warrantyExpirationDate().toEpochDay() - todayEpochDay,
+                    serviceCenterId, vehicle.customerId(), part.partId());
+
+            WarrantyEligibilityEngine.Decision decision = evaluate(part, vehicle, todayEpochDay);
+            snapshots.add(new InstalledPartWarrantySnapshot(part.installedPartId(), vehicle.vehicleId(),
+                    UUID.fromString(vehicle.customerId()), serviceCenterId, part.partId(), part.warrantyExpirationDate(),
+                    decision.status(), decision.daysRemaining(), asOfDate, refreshedAt));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Quy tắc bảo hành của {@link WarrantyValidationServiceImpl#validateInstalledPartWarranty} chỉ với các cột đã đọc:
+     * linh kiện extended xét cả part (ngày + km từ lúc lắp) và xe; linh kiện thường chỉ xét bảo hành xe.
+     */
+    static WarrantyEligibilityEngine.Decision evaluate(InstalledPartRow part, VehicleRow vehicle, long todayEpochDay) {
+        if (!part.hasExtendedWarranty()) {
+            return WarrantyEligibilityEngine.evaluate(todayEpochDay, WarrantyEligibilityEngine.NO_EXPIRY,
+                    vehicle.warrantyEndDate().toEpochDay(), vehicle.mileage(), 0,
+                    WarrantyEligibilityEngine.NO_MILEAGE_LIMIT,
+                    WarrantyValidationServiceImpl.DEFAULT_VEHICLE_MILEAGE_LIMIT, 0);
+        }
+        Integer partMileageLimit = part.warrantyMileageLimit() != null
+                ? part.warrantyMileageLimit()
+                : part.defaultWarrantyMileage();
+        return WarrantyEligibilityEngine.evaluate(todayEpochDay, part.warrantyExpirationDate().toEpochDay(),
+                vehicle.warrantyEndDate().toEpochDay(), vehicle.mileage(), part.mileageAtInstallation(),
+                partMileageLimit != null ? partMileageLimit : WarrantyEligibilityEngine.NO_MILEAGE_LIMIT,
+                WarrantyValidationServiceImpl.DEFAULT_VEHICLE_MILEAGE_LIMIT, 0);
+    }
+
+    /**
+     * Gia hạn khóa sau mỗi chunk; mất khóa nghĩa là node khác có thể đang dựng, nên dừng trước khi ghi bucket / xóa.
+     */
+    private void extendLock() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!jobLockRepository.extend(JOB_NAME, lockOwner, now, now.plusMinutes(lockLeaseMinutes))) {
+            throw new IllegalStateException("Lost the " + JOB_NAME + " lock (lease expired), aborting this run");
+        }
+    }
+
+    /**
+     * Mốc {@code refreshed_at} của lần chạy: cắt về giây để giá trị so sánh khi xóa dòng cũ trùng khít với giá trị DB
+     * đã lưu (không bị làm tròn), và luôn lớn hơn mốc của lần chạy trước - đọc từ DB vì lần trước có thể chạy ở node
+     * khác (lệch đồng hồ), và từ bộ nhớ cho hai lần chạy trong cùng một giây khi lần trước lỗi trước khi ghi bucket.
+     */
+    private LocalDateTime nextRefreshedAt() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime storedRefreshedAt = bucketRepository.findLastRefreshedAt();
+        for (LocalDateTime previous : new LocalDateTime[]{storedRefreshedAt, lastRefreshedAt}) {
+            if (previous != null && !now.isAfter(previous)) {
+                now = previous.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+            }
+        }
+        lastRefreshedAt = now;
+        return now;
+    }
+
+    private void registerRowGauge(String table, AtomicLong rows) {
+        Gauge.builder("warranty.expiry.projection.rows", rows, AtomicLong::get)
+                .tag("table", table)
+                .description("Số dòng của lần dựng projection hết hạn bảo hành thành công gần nhất")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bộ đếm trong bộ nhớ: mỗi phạm vi giữ số dòng theo cửa sổ NHỎ NHẤT chứa nó, cộng dồn khi xuất bucket.
+     */
+    private static final class ExpiryTally {
+
+        private record ScopeRef(WarrantyExpirySubject subject, WarrantyExpiryScope scope, String scopeKey) {
+        }
+
+        private final int[] windows;
+        private final Map<ScopeRef, long[]> counts = new HashMap<>();
+
+        ExpiryTally(int[] windows) {
+            this.windows = windows;
+            // ALL luôn có dòng (kể cả 0) để người đọc phân biệt "0" với "chưa dựng"
+            counts.put(new ScopeRef(WarrantyExpirySubject.VEHICLE, WarrantyExpiryScope.ALL, ALL_SCOPE_KEY),
+                    new long[windows.length]);
+            counts.put(new ScopeRef(WarrantyExpirySubject.INSTALLED_PART, WarrantyExpiryScope.ALL, ALL_SCOPE_KEY),
+                    new long[windows.length]);
+        }
+
+        void add(WarrantyExpirySubject subject, long daysUntilExpiry, Long serviceCenterId, String customerId, Long partId) {
+            if (daysUntilExpiry < 0 || daysUntilExpiry > windows[windows.length - 1]) {
+                return;
+            }
+            int window = 0;
+            while (daysUntilExpiry > windows[window]) {
+                window++;
+            }
+            increment(new ScopeRef(subject, WarrantyExpiryScope.ALL, ALL_SCOPE_KEY), window);
+            increment(new ScopeRef(subject, WarrantyExpiryScope.CUSTOMER, customerId), window);
+            if (serviceCenterId != null) {
+                increment(new ScopeRef(subject, WarrantyExpiryScope.SERVICE_CENTER, serviceCenterId.toString()), window);
+            }
+            if (partId != null) {
+                increment(new ScopeRef(subject, WarrantyExpiryScope.PART, partId.toString()), window);
+            }
+        }
+
+        private void increment(ScopeRef ref, int window) {
+            counts.computeIfAbsent(ref, key -> new long[windows.length])[window]++;
+        }
+
+        List<WarrantyExpiryBucket> toBuckets(LocalDate asOfDate, LocalDateTime refreshedAt) {
+            List<WarrantyExpiryBucket> buckets = new ArrayList<>(counts.size() * windows.length);
+            counts.forEach((ref, perWindow) -> {
+                long cumulative = 0;
+                for (int i = 0; i < windows.length; i++) {
+                    cumulative += perWindow[i];
+                    buckets.add(new WarrantyExpiryBucket(
+                            new WarrantyExpiryBucketId(ref.subject(), ref.scope(), ref.scopeKey(), windows[i]),
+                            cumulative, asOfDate, refreshedAt));
+                }
+            });
+            return buckets;
+        }
+    }
+}
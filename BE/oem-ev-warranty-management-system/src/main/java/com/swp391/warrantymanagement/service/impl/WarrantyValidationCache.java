@@ -0,0 +1,158 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.swp391.warrantymanagement.dto.projection.InstalledPartWarrantyStamp;
+import com.swp391.warrantymanagement.dto.response.WarrantyValidationResponseDTO;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * Cache kết quả kiểm tra bảo hành (single-item API của {@code WarrantyValidationServiceImpl}).
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Key = (loại kết quả, ngày hiện tại, mọi giá trị quyết định kết quả, chi phí sửa chữa ước tính với API tính
+ *     phí). Với xe: ID, VIN, tên, ngày bắt đầu / hết hạn bảo hành và số km. Với installed part:
+ *     {@link InstalledPartWarrantyStamp} (InstalledPart + Part + Vehicle). Service đã đọc các giá trị này ở mỗi
+ *     request (entity xe / query stamp), nên sửa dữ liệu ở bất kỳ node nào cũng làm đổi key; key cũ không còn được
+ *     tra tới và hết hạn theo TTL / kích thước. Không cần invalidate hay bộ đếm version trong bộ nhớ.</li>
+ *     <li>Kết quả luôn được lưu với key của đúng dữ liệu đã dùng để tính (xem {@link #put}).</li>
+ *     <li><strong>Cache tiết kiệm được gì:</strong> hit vẫn phải đọc key từ DB (entity xe theo PK / query stamp của
+ *     installed part), nên không bớt round-trip nào so với khi không có cache. Phần tiết kiệm là việc dựng kết quả: với
+ *     installed part là query fetch-join InstalledPart + Part + Vehicle và hydrate entity, với cả hai là tính trạng
+ *     thái và dựng DTO. Key rẻ hơn (một cột version) sẽ cần mọi đường ghi tăng version, kể cả UPDATE km bằng JDBC
+ *     của {@code VehicleMileageBulkRepository}; tree hiện chưa có cột này.</li>
+ *     <li>Metrics: {@code cache.gets{cache=warrantyValidation,result=hit|miss}}, {@code warranty.validation.cache.hit.ratio},
+ *     {@code warranty.validation.cache.bypass}.</li>
+ * </ul>
+ * DTO trong cache được dùng chung giữa các request: caller không được sửa đối tượng trả về.
+ */
+@Component
+@RequiredArgsConstructor
+public class WarrantyValidationCache {
+
+    static final String CACHE_NAME = "warrantyValidation";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${warranty-validation.cache.max-size:50000}")
+    private long maxSize;
+
+    @Value("${warranty-validation.cache.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private Cache<Key, WarrantyValidationResponseDTO> results;
+    private Counter bypassCounter;
+
+    /**
+     * Loại kết quả được cache.
+     */
+    public enum Kind {
+        VEHICLE, VEHICLE_FEE, INSTALLED_PART, INSTALLED_PART_FEE
+    }
+
+    /**
+     * Các giá trị của xe quyết định kết quả kiểm tra bảo hành xe.
+     */
+    private record VehicleStamp(Long vehicleId, String vehicleVin, String vehicleName,
+                                LocalDate warrantyStartDate, LocalDate warrantyEndDate, Integer mileage) {
+    }
+
+    /**
+     * Key của một kết quả; tạo bằng {@link #vehicleKey} hoặc {@link #installedPartKey}.
+     * {@code stamp} là {@code VehicleStamp} hoặc {@link InstalledPartWarrantyStamp} (record, so sánh theo giá trị).
+     */
+    public record Key(Kind kind, LocalDate day, Record stamp, BigDecimal repairCost) {
+    }
+
+    @PostConstruct
+    void init() {
+        results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, results, CACHE_NAME);
+        Gauge.builder("warranty.validation.cache.hit.ratio", results, cache -> cache.stats().hitRate())
+                .description("Tỷ lệ hit của cache kết quả kiểm tra bảo hành")
+                .register(meterRegistry);
+        bypassCounter = meterRegistry.counter("warranty.validation.cache.bypass");
+    }
+
+    public Key vehicleKey(Kind kind, Vehicle vehicle, BigDecimal repairCost) {
+        VehicleStamp stamp = new VehicleStamp(vehicle.getVehicleId(), vehicle.getVehicleVin(), vehicle.getVehicleName(),
+                vehicle.getWarrantyStartDate(), vehicle.getWarrantyEndDate(), vehicle.getMileage());
+        return new Key(kind, LocalDate.now(), stamp, normalize(repairCost));
+    }
+
+    public Key installedPartKey(Kind kind, InstalledPartWarrantyStamp stamp, BigDecimal repairCost) {
+        return new Key(kind, LocalDate.now(), normalizeFees(stamp), normalize(repairCost));
+    }
+
+    /**
+     * Trả kết quả trong cache hoặc tính bằng {@code loader} rồi lưu với {@code key}.
+     * Chỉ dùng khi {@code loader} tính từ đúng dữ liệu đã tạo {@code key}.
+     *
+     * @param key         key của kết quả
+     * @param bypassCache {@code true} = luôn tính lại (kết quả mới vẫn được lưu để làm mới cache)
+     * @param loader      tính kết quả từ dữ liệu đã load
+     */
+    public WarrantyValidationResponseDTO get(Key key, boolean bypassCache,
+                                             Supplier<WarrantyValidationResponseDTO> loader) {
+        WarrantyValidationResponseDTO cached = lookup(key, bypassCache);
+        if (cached != null) {
+            return cached;
+        }
+        WarrantyValidationResponseDTO response = loader.get();
+        put(key, response);
+        return response;
+    }
+
+    /**
+     * Kết quả trong cache, {@code null} khi miss hoặc {@code bypassCache}.
+     */
+    public WarrantyValidationResponseDTO lookup(Key key, boolean bypassCache) {
+        if (bypassCache) {
+            bypassCounter.increment();
+            return null;
+        }
+        return results.getIfPresent(key);
+    }
+
+    /**
+     * Lưu kết quả với key tạo từ dữ liệu đã dùng để tính. Nếu dữ liệu đổi giữa lúc đọc key và lúc load, kết quả mới
+     * nằm dưới key mới (chính là key các request sau sẽ tra), không bao giờ nằm dưới key của dữ liệu cũ.
+     */
+    public void put(Key key, WarrantyValidationResponseDTO response) {
+        results.put(key, response);
+    }
+
+    // 1000 và 1000.00 là cùng một chi phí
+    private static BigDecimal normalize(BigDecimal amount) {
+        return amount != null ? amount.stripTrailingZeros() : null;
+    }
+
+    // Stamp từ query và từ entity phải bằng nhau dù scale của phần trăm phí khác nhau
+    private static InstalledPartWarrantyStamp normalizeFees(InstalledPartWarrantyStamp stamp) {
+        return new InstalledPartWarrantyStamp(stamp.installedPartId(), stamp.installationDate(),
+                stamp.warrantyExpirationDate(), stamp.warrantyMileageLimit(), stamp.mileageAtInstallation(),
+                stamp.partId(), stamp.partName(), stamp.hasExtendedWarranty(), stamp.defaultWarrantyMileage(),
+                stamp.gracePeriodDays(), normalize(stamp.paidWarrantyFeePercentageMin()),
+                normalize(stamp.paidWarrantyFeePercentageMax()), stamp.vehicleId(), stamp.vehicleVin(),
+                stamp.vehicleName(), stamp.vehicleWarrantyEndDate(), stamp.vehicleMileage());
+    }
+}
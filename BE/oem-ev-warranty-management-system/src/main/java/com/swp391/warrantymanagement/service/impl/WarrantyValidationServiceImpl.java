@@ -1,5 +1,8 @@
 package com.swp391.warrantymanagement.service.impl;
 
+import com.swp391.warrantymanagement.dto.projection.InstalledPartWarrantyStamp;
+import com.swp391.warrantymanagement.dto.response.BulkWarrantyValidationItemDTO;
+import com.swp391.warrantymanagement.dto.response.BulkWarrantyValidationResponseDTO;
 import com.swp391.warrantymanagement.dto.response.WarrantyValidationResponseDTO;
 import com.swp391.warrantymanagement.entity.InstalledPart;
 import com.swp391.warrantymanagement.entity.Part;
@@ -7,16 +10,42 @@ import com.swp391.warrantymanagement.entity.Vehicle;
 import com.swp391.warrantymanagement.enums.WarrantyStatus;
 import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
 import com.swp391.warrantymanagement.repository.InstalledPartRepository;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.MileageSample;
 import com.swp391.warrantymanagement.repository.VehicleRepository;
+import com.swp391.warrantymanagement.service.VehicleMileageHistoryService;
 import com.swp391.warrantymanagement.service.WarrantyValidationService;
+import com.swp391.warrantymanagement.util.WarrantyEligibilityEngine;
+import com.swp391.warrantymanagement.util.WarrantyFeeCalculator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * Service implementation cho nghiệp vụ kiểm tra bảo hành (OPTION 2: HIERARCHY WARRANTY).
@@ -35,18 +64,40 @@ import java.time.temporal.ChronoUnit;
  *     <li>Vehicle warranty: Kiểm tra vehicle.warrantyEndDate VÀ vehicle.mileage</li>
  *     <li>Grace period & fee: Sử dụng config từ Part entity (linh kiện đắt = period dài, phí thấp)</li>
  * </ul>
+ * <p>
+ * <strong>Kiểm tra tại ngày:</strong> {@link #validateVehicleWarrantyAsOf} dùng cùng quy tắc với kiểm tra xe thông thường,
+ * với hôm nay = ngày cần đánh giá và km lấy từ {@link VehicleMileageHistoryService}.
+ * <p>
+ * <strong>Cache:</strong> kết quả của các API đơn lẻ đi qua {@link WarrantyValidationCache}; với installed part, key được
+ * đọc bằng một query projection và entity (kèm Part + Vehicle) chỉ được load khi cache miss.
+ * <p>
+ * <strong>Tra cứu hàng loạt:</strong> dữ liệu được load bằng một query {@code IN} (installed part fetch join Part + Vehicle)
+ * trong transaction của request; việc đánh giá (chỉ đọc field đã load, không lazy load) được chia thành các đoạn chạy
+ * song song trên một pool nhỏ cố định ({@code warranty-validation.bulk.threads}), thread của request xử lý đoạn đầu.
  */
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class WarrantyValidationServiceImpl implements WarrantyValidationService {
 
+    private static final Logger logger = LoggerFactory.getLogger(WarrantyValidationServiceImpl.class);
+
     private final VehicleRepository vehicleRepository;
     private final InstalledPartRepository installedPartRepository;
+    private final WarrantyValidationCache validationCache;
+    private final VehicleMileageHistoryService mileageHistoryService;
+
+    // Số phần tử tối thiểu mỗi đoạn đánh giá song song (nhỏ hơn thì chạy trực tiếp, không đáng chi phí chuyển thread)
+    private static final int BULK_MIN_CHUNK_SIZE = 128;
+
+    @Value("${warranty-validation.bulk.threads:4}")
+    private int bulkThreads;
+
+    private ExecutorService bulkExecutor;
 
     // ========== FALLBACK CONSTANTS (khi Part không có config) ==========
 
-    private static final int DEFAULT_VEHICLE_MILEAGE_LIMIT = 100_000;
+    static final int DEFAULT_VEHICLE_MILEAGE_LIMIT = 100_000; // Dùng chung với WarrantyExpiryProjectionServiceImpl
     private static final int DEFAULT_GRACE_PERIOD_DAYS = 180;
     private static final BigDecimal DEFAULT_MIN_FEE_PERCENTAGE = new BigDecimal("0.20");
     private static final BigDecimal DEFAULT_MAX_FEE_PERCENTAGE = new BigDecimal("0.50");
@@ -55,34 +106,248 @@ public class WarrantyValidationServiceImpl implements WarrantyValidationService
     // ========== PUBLIC METHODS ==========
 
     @Override
-    public WarrantyValidationResponseDTO validateVehicleWarranty(Long vehicleId) {
+    public WarrantyValidationResponseDTO validateVehicleWarranty(Long vehicleId, boolean bypassCache) {
         Vehicle vehicle = vehicleRepository.findById(vehicleId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy xe với ID: " + vehicleId));
 
-        return buildVehicleWarrantyValidationResponse(vehicle);
+        return validationCache.get(validationCache.vehicleKey(WarrantyValidationCache.Kind.VEHICLE, vehicle, null),
+                bypassCache, () -> buildVehicleWarrantyValidationResponse(vehicle));
     }
 
     @Override
-    public WarrantyValidationResponseDTO validateInstalledPartWarranty(Long installedPartId) {
-        InstalledPart installedPart = installedPartRepository.findById(installedPartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy linh kiện với ID: " + installedPartId));
+    public WarrantyValidationResponseDTO validateVehicleWarrantyAsOf(Long vehicleId, LocalDate asOfDate) {
+        if (asOfDate.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("asOfDate must not be in the future: " + asOfDate);
+        }
+        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy xe với ID: " + vehicleId));
+
+        // Km cuối ngày asOfDate; chưa có lịch sử thì km hiện tại là chặn trên (km không giảm)
+        Optional<MileageSample> sample = mileageHistoryService.findMileageAsOf(vehicleId, asOfDate.atTime(LocalTime.MAX));
+        int mileage = sample.map(MileageSample::mileage).orElse(vehicle.getMileage());
 
-        return buildPartWarrantyValidationResponse(installedPart);
+        WarrantyValidationResponseDTO response = buildVehicleWarrantyValidationResponse(vehicle, asOfDate, mileage);
+        response.setAsOfDate(asOfDate);
+        response.setMileageRecordedAt(sample.map(MileageSample::recordedAt).orElse(null));
+        return response;
     }
 
     @Override
-    public WarrantyValidationResponseDTO validateVehicleWarrantyByVin(String vehicleVin) {
+    public WarrantyValidationResponseDTO validateInstalledPartWarranty(Long installedPartId, boolean bypassCache) {
+        return getInstalledPartResult(WarrantyValidationCache.Kind.INSTALLED_PART, installedPartId, null, bypassCache,
+                this::buildPartWarrantyValidationResponse);
+    }
+
+    @Override
+    public WarrantyValidationResponseDTO validateVehicleWarrantyByVin(String vehicleVin, boolean bypassCache) {
         Vehicle vehicle = vehicleRepository.findByVehicleVin(vehicleVin)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy xe với VIN: " + vehicleVin));
 
-        return buildVehicleWarrantyValidationResponse(vehicle);
+        return validationCache.get(validationCache.vehicleKey(WarrantyValidationCache.Kind.VEHICLE, vehicle, null),
+                bypassCache, () -> buildVehicleWarrantyValidationResponse(vehicle));
     }
 
     @Override
-    public WarrantyValidationResponseDTO calculatePaidWarrantyFee(Long vehicleId, BigDecimal estimatedRepairCost) {
+    public WarrantyValidationResponseDTO calculatePaidWarrantyFee(Long vehicleId, BigDecimal estimatedRepairCost,
+                                                                  boolean bypassCache) {
         Vehicle vehicle = vehicleRepository.findById(vehicleId)
                 .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy xe với ID: " + vehicleId));
 
+        return validationCache.get(
+                validationCache.vehicleKey(WarrantyValidationCache.Kind.VEHICLE_FEE, vehicle, estimatedRepairCost),
+                bypassCache, () -> buildVehicleFeeResponse(vehicle, estimatedRepairCost));
+    }
+
+    @Override
+    public WarrantyValidationResponseDTO calculatePaidWarrantyFeeForPart(Long installedPartId, BigDecimal estimatedRepairCost,
+                                                                         boolean bypassCache) {
+        return getInstalledPartResult(WarrantyValidationCache.Kind.INSTALLED_PART_FEE, installedPartId, estimatedRepairCost,
+                bypassCache, installedPart -> buildPartFeeResponse(installedPart, estimatedRepairCost));
+    }
+
+    @Override
+    public BulkWarrantyValidationResponseDTO validateVehicleWarrantiesByVin(List<String> vehicleVins) {
+        Set<String> distinctVins = new HashSet<>();
+        for (String vin : vehicleVins) {
+            if (vin != null && !vin.isBlank()) {
+                distinctVins.add(vin.trim());
+            }
+        }
+        Map<String, Vehicle> vehiclesByVin = new HashMap<>();
+        if (!distinctVins.isEmpty()) {
+            for (Vehicle vehicle : vehicleRepository.findByVehicleVinIn(distinctVins)) {
+                // Không phân biệt hoa thường, giống collation của cột VIN trên MySQL
+                vehiclesByVin.put(vehicle.getVehicleVin().toUpperCase(Locale.ROOT), vehicle);
+            }
+        }
+
+        BulkWarrantyValidationResponseDTO response = evaluateInOrder(vehicleVins.size(), index -> {
+            String vin = vehicleVins.get(index);
+            return evaluateItem(index, vin, null, () -> {
+                if (vin == null || vin.isBlank()) {
+                    throw new IllegalArgumentException("VIN không được để trống");
+                }
+                Vehicle vehicle = vehiclesByVin.get(vin.trim().toUpperCase(Locale.ROOT));
+                if (vehicle == null) {
+                    throw new ResourceNotFoundException("Không tìm thấy xe với VIN: " + vin);
+                }
+                return buildVehicleWarrantyValidationResponse(vehicle);
+            });
+        });
+        logger.info("Bulk vehicle warranty validation: requested={}, found={}, failed={}",
+                response.getRequested(), vehiclesByVin.size(), response.getFailed());
+        return response;
+    }
+
+    @Override
+    public BulkWarrantyValidationResponseDTO validateInstalledPartWarranties(List<Long> installedPartIds) {
+        Set<Long> distinctIds = new HashSet<>(installedPartIds);
+        distinctIds.remove(null);
+        Map<Long, InstalledPart> installedPartsById = new HashMap<>();
+        if (!distinctIds.isEmpty()) {
+            for (InstalledPart installedPart : installedPartRepository.findAllWithPartAndVehicleByIdIn(distinctIds)) {
+                installedPartsById.put(installedPart.getInstalledPartId(), installedPart);
+            }
+        }
+
+        BulkWarrantyValidationResponseDTO response = evaluateInOrder(installedPartIds.size(), index -> {
+            Long installedPartId = installedPartIds.get(index);
+            return evaluateItem(index, null, installedPartId, () -> {
+                if (installedPartId == null) {
+                    throw new IllegalArgumentException("ID linh kiện không được để trống");
+                }
+                InstalledPart installedPart = installedPartsById.get(installedPartId);
+                if (installedPart == null) {
+                    throw new ResourceNotFoundException("Không tìm thấy linh kiện với ID: " + installedPartId);
+                }
+                return buildPartWarrantyValidationResponse(installedPart);
+            });
+        });
+        logger.info("Bulk installed part warranty validation: requested={}, found={}, failed={}",
+                response.getRequested(), installedPartsById.size(), response.getFailed());
+        return response;
+    }
+
+    @PostConstruct
+    void startBulkExecutor() {
+        AtomicInteger threadCounter = new AtomicInteger();
+        bulkExecutor = Executors.newFixedThreadPool(Math.max(1, bulkThreads), runnable -> {
+            Thread thread = new Thread(runnable, "warranty-validation-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopBulkExecutor() {
+        bulkExecutor.shutdownNow();
+    }
+
+    // ========== BULK HELPERS ==========
+
+    /**
+     * Đánh giá {@code size} phần tử, giữ nguyên thứ tự đầu vào. Chia thành tối đa {@code bulkThreads + 1} đoạn liên tiếp:
+     * các đoạn sau chạy trên pool, đoạn đầu chạy trên thread hiện tại.
+     */
+    private BulkWarrantyValidationResponseDTO evaluateInOrder(int size, IntFunction<BulkWarrantyValidationItemDTO> evaluator) {
+        BulkWarrantyValidationItemDTO[] items = new BulkWarrantyValidationItemDTO[size];
+        int chunks = Math.max(1, Math.min(bulkThreads + 1, size / BULK_MIN_CHUNK_SIZE));
+        int chunkSize = (size + chunks - 1) / chunks;
+
+        List<Future<?>> futures = new ArrayList<>(chunks - 1);
+        for (int from = chunkSize; from < size; from += chunkSize) {
+            int start = from;
+            int end = Math.min(size, from + chunkSize);
+            futures.add(bulkExecutor.submit(() -> evaluateRange(items, start, end, evaluator)));
+        }
+        evaluateRange(items, 0, Math.min(size, chunkSize), evaluator);
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Bulk warranty validation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Bulk warranty validation failed", e.getCause());
+        }
+
+        int succeeded = 0;
+        for (BulkWarrantyValidationItemDTO item : items) {
+            if (item.getSuccess()) {
+                succeeded++;
+            }
+        }
+        return BulkWarrantyValidationResponseDTO.builder()
+                .requested(size)
+                .succeeded(succeeded)
+                .failed(size - succeeded)
+                .results(Arrays.asList(items))
+                .build();
+    }
+
+    private static void evaluateRange(BulkWarrantyValidationItemDTO[] items, int from, int to,
+                                      IntFunction<BulkWarrantyValidationItemDTO> evaluator) {
+        for (int index = from; index < to; index++) {
+            items[index] = evaluator.apply(index);
+        }
+    }
+
+    /**
+     * Lỗi của một phần tử (không tìm thấy, dữ liệu thiếu, ...) chỉ đánh dấu phần tử đó là thất bại.
+     */
+    private static BulkWarrantyValidationItemDTO evaluateItem(int index, String vin, Long installedPartId,
+                                                              Supplier<WarrantyValidationResponseDTO> validation) {
+        BulkWarrantyValidationItemDTO.BulkWarrantyValidationItemDTOBuilder item = BulkWarrantyValidationItemDTO.builder()
+                .index(index)
+                .vin(vin)
+                .installedPartId(installedPartId);
+        try {
+            return item.success(true).validation(validation.get()).build();
+        } catch (RuntimeException e) {
+            return item.success(false).error(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()).build();
+        }
+    }
+
+    // ========== SINGLE-ITEM HELPERS ==========
+
+    /**
+     * Cache hit chỉ chạy query stamp; cache miss load entity (một fetch-join) và lưu kết quả với key của entity đã load.
+     */
+    private WarrantyValidationResponseDTO getInstalledPartResult(WarrantyValidationCache.Kind kind, Long installedPartId,
+                                                                 BigDecimal estimatedRepairCost, boolean bypassCache,
+                                                                 Function<InstalledPart, WarrantyValidationResponseDTO> builder) {
+        WarrantyValidationCache.Key key = validationCache.installedPartKey(kind, findInstalledPartStamp(installedPartId),
+                estimatedRepairCost);
+        WarrantyValidationResponseDTO cached = validationCache.lookup(key, bypassCache);
+        if (cached != null) {
+            return cached;
+        }
+        InstalledPart installedPart = loadInstalledPart(installedPartId);
+        WarrantyValidationResponseDTO response = builder.apply(installedPart);
+        validationCache.put(validationCache.installedPartKey(kind, InstalledPartWarrantyStamp.of(installedPart),
+                estimatedRepairCost), response);
+        return response;
+    }
+
+    /**
+     * Key cache của installed part (mọi giá trị quyết định kết quả) bằng một query projection, không load entity.
+     */
+    private InstalledPartWarrantyStamp findInstalledPartStamp(Long installedPartId) {
+        return installedPartRepository.findWarrantyStampById(installedPartId)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy linh kiện với ID: " + installedPartId));
+    }
+
+    /**
+     * Load installed part kèm Part + Vehicle trong một query (chỉ khi cache miss).
+     */
+    private InstalledPart loadInstalledPart(Long installedPartId) {
+        return installedPartRepository.findWithPartAndVehicleById(installedPartId)
+                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy linh kiện với ID: " + installedPartId));
+    }
+
+    private WarrantyValidationResponseDTO buildVehicleFeeResponse(Vehicle vehicle, BigDecimal estimatedRepairCost) {
         WarrantyValidationResponseDTO response = buildVehicleWarrantyValidationResponse(vehicle);
 
         if (response.getCanProvidePaidWarranty()) {
@@ -100,11 +365,7 @@ public class WarrantyValidationServiceImpl implements WarrantyValidationService
         return response;
     }
 
-    @Override
-    public WarrantyValidationResponseDTO calculatePaidWarrantyFeeForPart(Long installedPartId, BigDecimal estimatedRepairCost) {
-        InstalledPart installedPart = installedPartRepository.findById(installedPartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Không tìm thấy linh kiện với ID: " + installedPartId));
-
+    private WarrantyValidationResponseDTO buildPartFeeResponse(InstalledPart installedPart, BigDecimal estimatedRepairCost) {
         WarrantyValidationResponseDTO response = buildPartWarrantyValidationResponse(installedPart);
 
         if (response.getCanProvidePaidWarranty()) {
@@ -156,73 +417,45 @@ public class WarrantyValidationServiceImpl implements WarrantyValidationService
         Part part = installedPart.getPart();
         Vehicle vehicle = installedPart.getVehicle();
 
-        // ===== 1. KIỂM TRA PART WARRANTY =====
+        // ===== KIỂM TRA CẢ PART (ngày + km từ lúc lắp) VÀ VEHICLE (ngày + km), ÁP DỤNG ĐIỀU KIỆN NGHIÊM NGẶT NHẤT =====
         int currentMileage = vehicle.getMileage();
-        int mileageAtInstallation = installedPart.getMileageAtInstallation() != null ? installedPart.getMileageAtInstallation() : 0;
-        int mileageSinceInstallation = currentMileage - mileageAtInstallation;
-
         Integer partMileageLimit = installedPart.getWarrantyMileageLimit() != null
                 ? installedPart.getWarrantyMileageLimit()
                 : part.getDefaultWarrantyMileage();
-
         LocalDate partExpirationDate = installedPart.getWarrantyExpirationDate();
-        long partDaysRemaining = ChronoUnit.DAYS.between(today, partExpirationDate);
-        Integer partMileageRemaining = partMileageLimit != null ? partMileageLimit - mileageSinceInstallation : null;
-
-        WarrantyStatus partStatus = determinePartWarrantyStatus(
-                today,
-                partExpirationDate,
-                mileageSinceInstallation,
-                partMileageLimit
-        );
-
-        // ===== 2. KIỂM TRA VEHICLE WARRANTY =====
         LocalDate vehicleExpirationDate = vehicle.getWarrantyEndDate();
-        long vehicleDaysRemaining = ChronoUnit.DAYS.between(today, vehicleExpirationDate);
-        int vehicleMileageRemaining = DEFAULT_VEHICLE_MILEAGE_LIMIT - currentMileage;
+        int gracePeriod = part.getGracePeriodDays() != null ? part.getGracePeriodDays() : DEFAULT_GRACE_PERIOD_DAYS;
 
-        WarrantyStatus vehicleStatus = determineVehicleWarrantyStatus(
-                today,
-                vehicleExpirationDate,
+        WarrantyEligibilityEngine.Decision decision = WarrantyEligibilityEngine.evaluate(
+                today.toEpochDay(),
+                partExpirationDate.toEpochDay(),
+                vehicleExpirationDate.toEpochDay(),
                 currentMileage,
-                DEFAULT_VEHICLE_MILEAGE_LIMIT
+                installedPart.getMileageAtInstallation() != null ? installedPart.getMileageAtInstallation() : 0,
+                partMileageLimit != null ? partMileageLimit : WarrantyEligibilityEngine.NO_MILEAGE_LIMIT,
+                DEFAULT_VEHICLE_MILEAGE_LIMIT,
+                gracePeriod
         );
 
-        // ===== 3. ÁP DỤNG ĐIỀU KIỆN NGHIÊM NGẶT NHẤT =====
-        // Lấy status TỆ NHẤT (VALID < EXPIRED_MILEAGE < EXPIRED_DATE < EXPIRED_BOTH)
-        WarrantyStatus finalStatus = getStrictestStatus(partStatus, vehicleStatus);
-
-        // Lấy daysRemaining TỆ NHẤT (số âm lớn nhất = quá hạn lâu nhất)
-        long finalDaysRemaining = Math.min(partDaysRemaining, vehicleDaysRemaining);
-
-        // Lấy warrantyEndDate tương ứng với daysRemaining tệ nhất
-        LocalDate finalWarrantyEndDate = (partDaysRemaining <= vehicleDaysRemaining) ? partExpirationDate : vehicleExpirationDate;
-
-        // Lấy mileageRemaining TỆ NHẤT (số âm lớn nhất = vượt nhiều nhất)
-        // Luôn so sánh CẢ part và vehicle mileage
-        Integer finalMileageRemaining;
-        Integer finalMileageLimit;
-        if (partMileageRemaining != null) {
-            // So sánh part mileage với vehicle mileage, lấy TỆ NHẤT
-            finalMileageRemaining = Math.min(partMileageRemaining, vehicleMileageRemaining);
-            // Nếu vehicle tệ hơn, dùng vehicle limit, ngược lại dùng part limit
-            finalMileageLimit = (vehicleMileageRemaining < partMileageRemaining)
-                ? DEFAULT_VEHICLE_MILEAGE_LIMIT
-                : partMileageLimit;
-        } else {
-            // Nếu part không có mileage limit, chỉ dùng vehicle
-            finalMileageRemaining = vehicleMileageRemaining;
-            finalMileageLimit = DEFAULT_VEHICLE_MILEAGE_LIMIT;
-        }
+        // Status TỆ NHẤT (VALID < EXPIRED_MILEAGE < EXPIRED_DATE < EXPIRED_BOTH)
+        WarrantyStatus finalStatus = decision.status();
+        long partDaysRemaining = decision.partDaysRemaining();
+        long vehicleDaysRemaining = decision.vehicleDaysRemaining();
+        Integer partMileageRemaining = decision.isPartMileageTracked() ? decision.partMileageRemaining() : null;
+        int vehicleMileageRemaining = decision.vehicleMileageRemaining();
+
+        // daysRemaining / warrantyEndDate / mileage TỆ NHẤT (số âm lớn nhất = quá hạn/vượt nhiều nhất)
+        long finalDaysRemaining = decision.daysRemaining();
+        LocalDate finalWarrantyEndDate = decision.isPartStrictestByDate() ? partExpirationDate : vehicleExpirationDate;
+        Integer finalMileageRemaining = decision.mileageRemaining();
+        Integer finalMileageLimit = decision.isPartStrictestByMileage() ? partMileageLimit : DEFAULT_VEHICLE_MILEAGE_LIMIT;
 
-        // Grace period
-        int gracePeriod = part.getGracePeriodDays() != null ? part.getGracePeriodDays() : DEFAULT_GRACE_PERIOD_DAYS;
         boolean canProvidePaidWarranty = canProvidePaidWarranty(finalStatus, finalDaysRemaining, gracePeriod);
 
         // Build detailed expiration reasons
         String detailedReasons = buildDetailedExpirationReasons(
             finalStatus,
-            partStatus, vehicleStatus,
+            decision.partStatus(), decision.vehicleStatus(),
             partDaysRemaining, vehicleDaysRemaining,
             partMileageRemaining, vehicleMileageRemaining,
             partExpirationDate, vehicleExpirationDate
@@ -251,53 +484,6 @@ public class WarrantyValidationServiceImpl implements WarrantyValidationService
                 .build();
     }
 
-    /**
-     * Lấy warranty status NGHIÊM NGẶT NHẤT giữa part và vehicle.
-     * Priority: VALID < EXPIRED_MILEAGE < EXPIRED_DATE < EXPIRED_BOTH
-     */
-    private WarrantyStatus getStrictestStatus(WarrantyStatus partStatus, WarrantyStatus vehicleStatus) {
-        // Nếu một trong hai là EXPIRED_BOTH → return EXPIRED_BOTH
-        if (partStatus == WarrantyStatus.EXPIRED_BOTH || vehicleStatus == WarrantyStatus.EXPIRED_BOTH) {
-            return WarrantyStatus.EXPIRED_BOTH;
-        }
-
-        // Nếu một trong hai là EXPIRED_DATE
-        if (partStatus == WarrantyStatus.EXPIRED_DATE || vehicleStatus == WarrantyStatus.EXPIRED_DATE) {
-            // Nếu cái kia là EXPIRED_MILEAGE → return EXPIRED_BOTH
-            if (partStatus == WarrantyStatus.EXPIRED_MILEAGE || vehicleStatus == WarrantyStatus.EXPIRED_MILEAGE) {
-                return WarrantyStatus.EXPIRED_BOTH;
-            }
-            return WarrantyStatus.EXPIRED_DATE;
-        }
-
-        // Nếu một trong hai là EXPIRED_MILEAGE
-        if (partStatus == WarrantyStatus.EXPIRED_MILEAGE || vehicleStatus == WarrantyStatus.EXPIRED_MILEAGE) {
-            return WarrantyStatus.EXPIRED_MILEAGE;
-        }
-
-        // Cả hai đều VALID
-        return WarrantyStatus.VALID;
-    }
-
-    /**
-     * Xác định warranty status cho Part (extended warranty).
-     */
-    private WarrantyStatus determinePartWarrantyStatus(LocalDate today, LocalDate expirationDate,
-                                                       int mileageSinceInstallation, Integer mileageLimit) {
-        boolean dateExpired = today.isAfter(expirationDate);
-        boolean mileageExpired = mileageLimit != null && mileageSinceInstallation > mileageLimit;
-
-        if (!dateExpired && !mileageExpired) {
-            return WarrantyStatus.VALID;
-        } else if (dateExpired && mileageExpired) {
-            return WarrantyStatus.EXPIRED_BOTH;
-        } else if (dateExpired) {
-            return WarrantyStatus.EXPIRED_DATE;
-        } else {
-            return WarrantyStatus.EXPIRED_MILEAGE;
-        }
-    }
-
     // ========== HIERARCHY LOGIC: VEHICLE WARRANTY VALIDATION ==========
 
     /**
@@ -306,15 +492,20 @@ public class WarrantyValidationServiceImpl implements WarrantyValidationService
      * Áp dụng khi: {@code part.hasExtendedWarranty = false} hoặc kiểm tra vehicle-level
      */
     private WarrantyValidationResponseDTO buildVehicleWarrantyValidationResponse(Vehicle vehicle) {
-        LocalDate today = LocalDate.now();
+        return buildVehicleWarrantyValidationResponse(vehicle, LocalDate.now(), vehicle.getMileage());
+    }
 
+    /**
+     * Build response kiểm tra bảo hành xe tại ngày {@code today} với số km {@code mileage}.
+     */
+    private WarrantyValidationResponseDTO buildVehicleWarrantyValidationResponse(Vehicle vehicle, LocalDate today, int mileage) {
         long daysRemaining = ChronoUnit.DAYS.between(today, vehicle.getWarrantyEndDate());
-        int mileageRemaining = DEFAULT_VEHICLE_MILEAGE_LIMIT - vehicle.getMileage();
+        int mileageRemaining = DEFAULT_VEHICLE_MILEAGE_LIMIT - mileage;
 
         WarrantyStatus status = determineVehicleWarrantyStatus(
                 today,
                 vehicle.getWarrantyEndDate(),
-                vehicle.getMileage(),
+                mileage,
                 DEFAULT_VEHICLE_MILEAGE_LIMIT
         );
 
@@ -328,7 +519,7 @@ public class WarrantyValidationServiceImpl implements WarrantyValidationService
                 .warrantyStartDate(vehicle.getWarrantyStartDate())
                 .warrantyEndDate(vehicle.getWarrantyEndDate())
                 .daysRemaining(daysRemaining)
-                .currentMileage(vehicle.getMileage())
+                .currentMileage(mileage)
                 .mileageLimit(DEFAULT_VEHICLE_MILEAGE_LIMIT)
                 .mileageRemaining(mileageRemaining)
                 .vehicleId(vehicle.getVehicleId())
@@ -380,23 +571,9 @@ public class WarrantyValidationServiceImpl implements WarrantyValidationService
     private BigDecimal calculateWarrantyFee(Long daysRemaining, int gracePeriodDays,
                                            BigDecimal minFeePercentage, BigDecimal maxFeePercentage,
                                            BigDecimal estimatedRepairCost) {
-        if (estimatedRepairCost == null || estimatedRepairCost.compareTo(BigDecimal.ZERO) <= 0) {
-            return BASE_FEE;
-        }
-
-        long daysExpired = Math.abs(daysRemaining);
-
-        // Tính phần trăm phí dựa trên thời gian quá hạn
-        BigDecimal progressRatio = BigDecimal.valueOf(daysExpired)
-                .divide(BigDecimal.valueOf(gracePeriodDays), 4, RoundingMode.HALF_UP);
-
-        BigDecimal feePercentage = minFeePercentage.add(
-                maxFeePercentage.subtract(minFeePercentage).multiply(progressRatio)
-        );
-
-        BigDecimal calculatedFee = estimatedRepairCost.multiply(feePercentage);
-
-        return calculatedFee.max(BASE_FEE);
+        // Fixed-point: kết quả giống hệt chuỗi BigDecimal divide/multiply cũ
+        return WarrantyFeeCalculator.paidWarrantyFee(Math.abs(daysRemaining), gracePeriodDays,
+                minFeePercentage, maxFeePercentage, estimatedRepairCost, BASE_FEE);
     }
 
     /**
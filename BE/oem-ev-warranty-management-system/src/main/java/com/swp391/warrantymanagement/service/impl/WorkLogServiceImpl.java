@@ -2,6 +2,7 @@ package com.swp391.warrantymanagement.service.impl;
 
 import com.swp391.warrantymanagement.dto.request.WorkLogRequestDTO;
 import com.swp391.warrantymanagement.dto.response.WorkLogResponseDTO;
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
 import com.swp391.warrantymanagement.dto.response.PagedResponse;
 import com.swp391.warrantymanagement.dto.response.DailyClaimStatsResponseDTO;
 import com.swp391.warrantymanagement.entity.User;
@@ -9,17 +10,20 @@ import com.swp391.warrantymanagement.entity.WarrantyClaim;
 import com.swp391.warrantymanagement.entity.WorkLog;
 import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
 import com.swp391.warrantymanagement.mapper.WorkLogMapper;
+import com.swp391.warrantymanagement.repository.KeysetPaginator;
 import com.swp391.warrantymanagement.repository.UserRepository;
 import com.swp391.warrantymanagement.repository.WarrantyClaimRepository;
 import com.swp391.warrantymanagement.repository.WorkLogRepository;
 import com.swp391.warrantymanagement.service.WorkLogService;
+import jakarta.persistence.criteria.JoinType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -33,6 +37,8 @@ public class WorkLogServiceImpl implements WorkLogService {
     private final WorkLogRepository workLogRepository;
     private final UserRepository userRepository;
     private final WarrantyClaimRepository warrantyClaimRepository;
+    private final KeysetPaginator keysetPaginator;
+    private final DailyClaimQuotaTracker dailyClaimQuotaTracker;
 
     /**
      * Lấy tất cả work logs với pagination.
@@ -58,6 +64,31 @@ public class WorkLogServiceImpl implements WorkLogService {
         );
     }
 
+    /**
+     * Lấy tất cả work logs theo cursor (keyset pagination, không COUNT).
+     * User và claim được fetch join trong cùng query để map DTO không phát sinh N+1.
+     *
+     * @param sortBy    thuộc tính sắp xếp (workLogId, startTime, ...)
+     * @param direction hướng sắp xếp
+     * @param after     cursor trả về từ trang trước, {@code null} cho trang đầu
+     * @param size      số phần tử mỗi trang
+     * @return CursorResponse với work logs
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorResponse<WorkLogResponseDTO> getAllWorkLogsCursor(String sortBy, Sort.Direction direction,
+                                                                   String after, int size) {
+        Specification<WorkLog> fetchAssociations = (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("user", JoinType.LEFT).fetch("customer", JoinType.LEFT);
+                root.fetch("warrantyClaim", JoinType.LEFT);
+            }
+            return null;
+        };
+        return keysetPaginator.fetch(workLogRepository, WorkLog.class, fetchAssociations,
+                sortBy, direction, after, size, WorkLogMapper::toResponseDTOList);
+    }
+
     /**
      * Lấy work log theo ID.
      *
@@ -98,6 +129,7 @@ public class WorkLogServiceImpl implements WorkLogService {
 
         WorkLog workLog = WorkLogMapper.toEntity(requestDTO, user, warrantyClaim);
         WorkLog savedWorkLog = workLogRepository.save(workLog);
+        dailyClaimQuotaTracker.invalidate(user.getUserId());
 
         return WorkLogMapper.toResponseDTO(savedWorkLog);
     }
@@ -129,8 +161,11 @@ public class WorkLogServiceImpl implements WorkLogService {
             throw new IllegalArgumentException("End time must be after start time");
         }
 
+        Long previousUserId = existingWorkLog.getUser() != null ? existingWorkLog.getUser().getUserId() : null;
         WorkLogMapper.updateEntity(existingWorkLog, requestDTO, user, warrantyClaim);
         WorkLog updatedWorkLog = workLogRepository.save(existingWorkLog);
+        dailyClaimQuotaTracker.invalidate(previousUserId);
+        dailyClaimQuotaTracker.invalidate(user.getUserId());
 
         return WorkLogMapper.toResponseDTO(updatedWorkLog);
     }
@@ -144,11 +179,13 @@ public class WorkLogServiceImpl implements WorkLogService {
     @Override
     @Transactional
     public void deleteWorkLog(Long id) {
-        if (!workLogRepository.existsById(id)) {
-            throw new ResourceNotFoundException("WorkLog", "id", id);
-        }
+        WorkLog workLog = workLogRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("WorkLog", "id", id));
 
-        workLogRepository.deleteById(id);
+        workLogRepository.delete(workLog);
+        if (workLog.getUser() != null) {
+            dailyClaimQuotaTracker.invalidate(workLog.getUser().getUserId());
+        }
     }
 
     /**
@@ -229,16 +266,8 @@ public class WorkLogServiceImpl implements WorkLogService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
 
-        // Tính start và end của ngày hôm nay
-        LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1).minusSeconds(1);
-
-        // Đếm số claim đã bắt đầu hôm nay
-        long claimsStartedToday = workLogRepository.countClaimsStartedByUserToday(
-            user.getUserId(),
-            startOfDay,
-            endOfDay
-        );
+        // Đếm lại từ DB (claim có thể được bắt đầu ở node khác) và đồng bộ luôn bộ đếm in-memory của node này
+        long claimsStartedToday = dailyClaimQuotaTracker.reload(user.getUserId());
 
         // Lấy daily limit từ service center (nếu có)
         Integer dailyLimit = 10; // Default
@@ -0,0 +1,135 @@
+package com.swp391.warrantymanagement.util;
+
+import java.util.Arrays;
+
+/**
+ * Mã hóa chuỗi số đo công-tơ-mét (thời điểm, km) của một xe thành block nhị phân nhỏ gọn.
+ * <p>
+ * <strong>Định dạng:</strong> mỗi điểm là hai varint (7 bit / byte, bit cao = còn byte tiếp theo):
+ * <ol>
+ *     <li>Số giây kể từ điểm trước (điểm đầu: kể từ {@code baseSecond} của block) - không âm vì block chỉ được
+ *     nối thêm theo thứ tự thời gian.</li>
+ *     <li>Chênh lệch km so với điểm trước (điểm đầu: so với 0), mã hóa zigzag để điều chỉnh km giảm bằng tay
+ *     vẫn biểu diễn được.</li>
+ * </ol>
+ * Xe chạy đều (vài phút, vài km giữa hai điểm) tốn khoảng 3 byte mỗi điểm thay vì 12 byte (long + int).
+ * <p>
+ * Block không chứa số điểm hay điểm cuối - caller lưu riêng (cột của bảng) để nối thêm mà không phải giải mã.
+ * {@link Cursor} giải mã tuần tự, không tạo đối tượng cho từng điểm.
+ */
+public final class MileageSeriesCodec {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private MileageSeriesCodec() {
+        // Utility class: ngăn tạo instance
+    }
+
+    /**
+     * Nối một điểm vào cuối block.
+     *
+     * @param block           block hiện tại ({@code null} hoặc rỗng = block mới)
+     * @param previousSecond  thời điểm (epoch giây) của điểm cuối, hoặc {@code baseSecond} nếu block mới
+     * @param previousMileage km của điểm cuối, hoặc 0 nếu block mới
+     * @return block mới (mảng mới, block cũ không bị sửa)
+     * @throws IllegalArgumentException nếu điểm mới sớm hơn điểm cuối
+     */
+    public static byte[] append(byte[] block, long previousSecond, int previousMileage, long second, int mileage) {
+        long deltaSeconds = second - previousSecond;
+        if (deltaSeconds < 0) {
+            throw new IllegalArgumentException("Mileage points must be appended in time order");
+        }
+        long zigzagMileage = zigzag((long) mileage - previousMileage);
+
+        byte[] source = block != null ? block : EMPTY;
+        byte[] result = Arrays.copyOf(source, source.length + varintSize(deltaSeconds) + varintSize(zigzagMileage));
+        int offset = writeVarint(result, source.length, deltaSeconds);
+        writeVarint(result, offset, zigzagMileage);
+        return result;
+    }
+
+    /**
+     * Con trỏ giải mã tuần tự một block.
+     * <pre>
+     * Cursor cursor = new Cursor(data, baseSecond);
+     * while (cursor.next()) { use(cursor.second(), cursor.mileage()); }
+     * </pre>
+     */
+    public static final class Cursor {
+
+        private final byte[] data;
+        private int offset;
+        private long second;
+        private int mileage;
+
+        public Cursor(byte[] data, long baseSecond) {
+            this.data = data != null ? data : EMPTY;
+            this.second = baseSecond;
+        }
+
+        /**
+         * Chuyển sang điểm tiếp theo.
+         *
+         * @return {@code false} nếu đã hết block
+         */
+        public boolean next() {
+            if (offset >= data.length) {
+                return false;
+            }
+            second += readVarint();
+            mileage = (int) (mileage + unzigzag(readVarint()));
+            return true;
+        }
+
+        /** Thời điểm (epoch giây) của điểm hiện tại. */
+        public long second() {
+            return second;
+        }
+
+        /** Km của điểm hiện tại. */
+        public int mileage() {
+            return mileage;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (offset >= data.length || shift > 63) {
+                    throw new IllegalStateException("Corrupted mileage block");
+                }
+                b = data[offset++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] target, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            target[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,37 @@
+package com.swp391.warrantymanagement.util;
+
+import com.swp391.warrantymanagement.enums.PartRequestStatus;
+
+import java.util.Set;
+
+/**
+ * Bảng chuyển trạng thái của yêu cầu linh kiện ({@link PartRequestStatus}).
+ *
+ * <p>PENDING → APPROVED → SHIPPED → DELIVERED; từ PENDING có thể REJECTED (EVM_STAFF) hoặc CANCELLED (technician).
+ * Chiều ngược là điều kiện {@code status IN (...)} của các conditional update trong {@code PartRequestRepository}.</p>
+ */
+public final class PartRequestStatusValidator {
+
+    public static final StatusTransitionTable<PartRequestStatus> TRANSITIONS =
+            StatusTransitionTable.builder(PartRequestStatus.class)
+                    .allow(PartRequestStatus.PENDING,
+                            PartRequestStatus.APPROVED, PartRequestStatus.REJECTED, PartRequestStatus.CANCELLED)
+                    .allow(PartRequestStatus.APPROVED, PartRequestStatus.SHIPPED)
+                    .allow(PartRequestStatus.SHIPPED, PartRequestStatus.DELIVERED)
+                    // DELIVERED, REJECTED, CANCELLED -> (final)
+                    .build();
+
+    private PartRequestStatusValidator() {
+        // Utility class: ngăn tạo instance
+    }
+
+    /**
+     * Lấy tập trạng thái được phép chuyển sang một trạng thái đích.
+     *
+     * @param targetStatus trạng thái đích
+     * @return tập trạng thái nguồn (có thể rỗng, không null)
+     */
+    public static Set<PartRequestStatus> getAllowedSourceStatuses(PartRequestStatus targetStatus) {
+        return TRANSITIONS.allowedSources(targetStatus);
+    }
+}
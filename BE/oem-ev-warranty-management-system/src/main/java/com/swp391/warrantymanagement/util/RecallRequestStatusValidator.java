@@ -0,0 +1,38 @@
+package com.swp391.warrantymanagement.util;
+
+import com.swp391.warrantymanagement.enums.RecallRequestStatus;
+
+import java.util.Set;
+
+/**
+ * Bảng chuyển trạng thái của chiến dịch triệu hồi ({@link RecallRequestStatus}).
+ *
+ * <p>PENDING_ADMIN_APPROVAL → APPROVED_BY_ADMIN | REJECTED_BY_ADMIN; sau khi job fan-out xong
+ * APPROVED_BY_ADMIN → WAITING_CUSTOMER_CONFIRM | COMPLETED; WAITING_CUSTOMER_CONFIRM → COMPLETED.
+ * Các trạng thái legacy (deprecated) không có bước chuyển nào.</p>
+ */
+public final class RecallRequestStatusValidator {
+
+    public static final StatusTransitionTable<RecallRequestStatus> TRANSITIONS =
+            StatusTransitionTable.builder(RecallRequestStatus.class)
+                    .allow(RecallRequestStatus.PENDING_ADMIN_APPROVAL,
+                            RecallRequestStatus.APPROVED_BY_ADMIN, RecallRequestStatus.REJECTED_BY_ADMIN)
+                    .allow(RecallRequestStatus.APPROVED_BY_ADMIN,
+                            RecallRequestStatus.WAITING_CUSTOMER_CONFIRM, RecallRequestStatus.COMPLETED)
+                    .allow(RecallRequestStatus.WAITING_CUSTOMER_CONFIRM, RecallRequestStatus.COMPLETED)
+                    .build();
+
+    private RecallRequestStatusValidator() {
+        // Utility class: ngăn tạo instance
+    }
+
+    /**
+     * Lấy tập trạng thái được phép chuyển sang một trạng thái đích.
+     *
+     * @param targetStatus trạng thái đích
+     * @return tập trạng thái nguồn (có thể rỗng, không null)
+     */
+    public static Set<RecallRequestStatus> getAllowedSourceStatuses(RecallRequestStatus targetStatus) {
+        return TRANSITIONS.allowedSources(targetStatus);
+    }
+}
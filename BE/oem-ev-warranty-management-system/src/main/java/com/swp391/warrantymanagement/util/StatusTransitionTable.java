@@ -0,0 +1,122 @@
+package com.swp391.warrantymanagement.util;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bảng chuyển trạng thái (state machine) dùng chung cho các entity có {@code status} là enum.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Lưu cả chiều xuôi (from → các to) và chiều ngược (to → các from) bằng {@link EnumMap}/{@link EnumSet}
+ *     bất biến, an toàn khi truy cập đồng thời.</li>
+ *     <li>Chiều ngược ({@link #allowedSources}) là tham số {@code IN} cho conditional update
+ *     {@code UPDATE ... SET status = :to WHERE id = :id AND status IN (:from)}: database kiểm tra và đổi trạng thái
+ *     trong MỘT câu lệnh nên hai request đồng thời không thể cùng chuyển một bản ghi.</li>
+ *     <li>{@link #requireApplied} diễn giải số dòng bị ảnh hưởng: chỉ khi không có dòng nào được cập nhật mới đọc lại
+ *     trạng thái hiện tại để báo lỗi (không tìm thấy hoặc xung đột).</li>
+ * </ul>
+ *
+ * @param <S> enum trạng thái
+ */
+public final class StatusTransitionTable<S extends Enum<S>> {
+
+    private final Map<S, Set<S>> targetsBySource;
+    private final Map<S, Set<S>> sourcesByTarget;
+
+    private StatusTransitionTable(Class<S> statusType, Map<S, EnumSet<S>> transitions) {
+        Map<S, Set<S>> targets = new EnumMap<>(statusType);
+        Map<S, Set<S>> sources = new EnumMap<>(statusType);
+        for (S status : statusType.getEnumConstants()) {
+            targets.put(status, Collections.unmodifiableSet(transitions.getOrDefault(status, EnumSet.noneOf(statusType))));
+            sources.put(status, EnumSet.noneOf(statusType));
+        }
+        transitions.forEach((from, tos) -> tos.forEach(to -> sources.get(to).add(from)));
+        sources.replaceAll((to, from) -> Collections.unmodifiableSet(from));
+        this.targetsBySource = Collections.unmodifiableMap(targets);
+        this.sourcesByTarget = Collections.unmodifiableMap(sources);
+    }
+
+    public static <S extends Enum<S>> Builder<S> builder(Class<S> statusType) {
+        return new Builder<>(statusType);
+    }
+
+    /**
+     * Builder khai báo các bước chuyển hợp lệ.
+     */
+    public static final class Builder<S extends Enum<S>> {
+        private final Class<S> statusType;
+        private final Map<S, EnumSet<S>> transitions;
+
+        private Builder(Class<S> statusType) {
+            this.statusType = statusType;
+            this.transitions = new EnumMap<>(statusType);
+        }
+
+        /**
+         * Cho phép chuyển từ {@code from} sang từng trạng thái trong {@code to}.
+         */
+        @SafeVarargs
+        public final Builder<S> allow(S from, S... to) {
+            EnumSet<S> targets = transitions.computeIfAbsent(from, key -> EnumSet.noneOf(statusType));
+            Collections.addAll(targets, to);
+            return this;
+        }
+
+        public StatusTransitionTable<S> build() {
+            return new StatusTransitionTable<>(statusType, transitions);
+        }
+    }
+
+    /**
+     * Kiểm tra bước chuyển {@code from → to} có được khai báo hay không (giữ nguyên trạng thái không tính là chuyển).
+     */
+    public boolean isAllowed(S from, S to) {
+        return from != null && to != null && targetsBySource.get(from).contains(to);
+    }
+
+    /**
+     * Các trạng thái có thể chuyển tới từ {@code from} (rỗng nếu là trạng thái cuối).
+     */
+    public Set<S> allowedTargets(S from) {
+        return from == null ? Set.of() : targetsBySource.get(from);
+    }
+
+    /**
+     * Các trạng thái được phép chuyển sang {@code to} - dùng làm điều kiện {@code status IN (...)}.
+     */
+    public Set<S> allowedSources(S to) {
+        return to == null ? Set.of() : sourcesByTarget.get(to);
+    }
+
+    /**
+     * Trạng thái cuối: không có bước chuyển nào đi ra.
+     */
+    public boolean isFinal(S status) {
+        return status != null && targetsBySource.get(status).isEmpty();
+    }
+
+    /**
+     * Xác nhận kết quả của một conditional update.
+     *
+     * @param updatedRows     số dòng bị ảnh hưởng bởi {@code UPDATE ... WHERE id = ? AND status IN (...)}
+     * @param currentStatus   đọc trạng thái hiện tại (chỉ gọi khi không có dòng nào được cập nhật)
+     * @param notFound        exception khi bản ghi không tồn tại
+     * @param conflictMessage message của {@link IllegalStateException} theo trạng thái hiện tại
+     * @throws IllegalStateException nếu bản ghi tồn tại nhưng trạng thái hiện tại không cho phép bước chuyển
+     */
+    public void requireApplied(int updatedRows, Supplier<Optional<S>> currentStatus,
+                               Supplier<? extends RuntimeException> notFound, Function<S, String> conflictMessage) {
+        if (updatedRows > 0) {
+            return;
+        }
+        S current = currentStatus.get().orElseThrow(notFound);
+        throw new IllegalStateException(conflictMessage.apply(current));
+    }
+}
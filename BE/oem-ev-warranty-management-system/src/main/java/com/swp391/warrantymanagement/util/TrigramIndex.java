@@ -0,0 +1,434 @@
+package com.swp391.warrantymanagement.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index trigram in-memory cho tìm kiếm "chứa chuỗi" (tương đương {@code LOWER(col) LIKE '%term%'} trên nhiều cột),
+ * không phân biệt hoa thường và dấu tiếng Việt.
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Mỗi document là một key + vài field text (đã chuẩn hóa bằng {@link #normalize}) + một {@code tag} số dùng để lọc
+ *     (ví dụ roleId). Document được đánh số nội bộ tăng dần; posting list của mỗi trigram là mảng docId tăng dần.</li>
+ *     <li>Tìm kiếm term &ge; 3 ký tự: lấy posting list của mọi trigram trong term, duyệt list ngắn nhất và kiểm tra các list
+ *     còn lại bằng binary search, rồi xác nhận ứng viên bằng {@code contains} trên field (trigram chỉ là bộ lọc).
+ *     Term 1-2 ký tự quét toàn bộ document trong bộ nhớ.</li>
+ *     <li>Cập nhật = xóa mềm docId cũ + thêm docId mới; khi số docId đã xóa vượt số document còn sống, index được
+ *     đánh số lại (compact).</li>
+ *     <li>Xếp hạng: field trùng khớp hoàn toàn &gt; bắt đầu bằng term &gt; term ở đầu một từ &gt; chứa term; cùng mức thì
+ *     field đứng trước thắng, cuối cùng theo thứ tự thêm vào.</li>
+ *     <li>Thread-safe: tìm kiếm dùng read lock, thêm/xóa dùng write lock.</li>
+ * </ul>
+ *
+ * @param <K> kiểu khóa của document (ID entity)
+ */
+public final class TrigramIndex<K> {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Mức khớp của một field (nhỏ hơn = tốt hơn)
+    private static final int MATCH_EXACT = 0;
+    private static final int MATCH_PREFIX = 1;
+    private static final int MATCH_WORD_PREFIX = 2;
+    private static final int MATCH_CONTAINS = 3;
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<K, Integer> docIdByKey = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private Doc<K>[] docs = newDocArray(1024);
+    private int nextDocId;
+    private int liveCount;
+
+    private record Doc<K>(K key, long tag, String[] fields) {
+    }
+
+    /**
+     * Danh sách docId tăng dần (mảng int tự mở rộng, không boxing).
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int docId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            ids[size++] = docId;
+        }
+
+        boolean contains(int docId) {
+            return Arrays.binarySearch(ids, 0, size, docId) >= 0;
+        }
+    }
+
+    /**
+     * Một trang kết quả đã xếp hạng.
+     *
+     * @param keys  key của các document trong trang, theo thứ hạng
+     * @param total tổng số document khớp
+     */
+    public record Result<K>(List<K> keys, long total) {
+    }
+
+    /**
+     * Chuẩn hóa text để index/tìm kiếm: chữ thường, bỏ dấu tiếng Việt (kể cả đ → d), gộp khoảng trắng.
+     *
+     * @return chuỗi đã chuẩn hóa; chuỗi rỗng nếu {@code text} là {@code null}
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String folded = text;
+        if (!isAscii(text)) {
+            folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                    .replace('đ', 'd').replace('Đ', 'D');
+        }
+        return WHITESPACE.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Thêm hoặc thay thế document.
+     *
+     * @param key    khóa document
+     * @param tag    giá trị dùng để lọc khi tìm kiếm (ví dụ roleId), 0 nếu không dùng
+     * @param fields các field text theo thứ tự ưu tiên khi xếp hạng ({@code null} được bỏ qua)
+     */
+    public void put(K key, long tag, String... fields) {
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = normalize(fields[i]);
+        }
+        long[] grams = distinctTrigrams(normalized);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            int docId = nextDocId++;
+            if (docId == docs.length) {
+                docs = Arrays.copyOf(docs, docs.length * 2);
+            }
+            docs[docId] = new Doc<>(key, tag, normalized);
+            docIdByKey.put(key, docId);
+            liveCount++;
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Xóa document (không làm gì nếu không tồn tại).
+     */
+    public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Xóa toàn bộ document.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            docIdByKey.clear();
+            postings.clear();
+            docs = newDocArray(1024);
+            nextDocId = 0;
+            liveCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Số document đang có trong index.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tìm document có ít nhất một field chứa {@code term} (sau chuẩn hóa), đã xếp hạng.
+     *
+     * @param term      từ khóa
+     * @param tagFilter điều kiện trên tag, {@code null} = không lọc
+     * @param offset    vị trí bắt đầu của trang
+     * @param limit     số kết quả tối đa của trang
+     */
+    public Result<K> search(String term, LongPredicate tagFilter, long offset, int limit) {
+        String query = normalize(term);
+        if (query.isEmpty()) {
+            return new Result<>(List.of(), 0);
+        }
+        int wanted = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(0, offset) + Math.max(0, limit));
+
+        lock.readLock().lock();
+        try {
+            TopK top = new TopK(wanted);
+            long total = 0;
+            if (query.length() < 3) {
+                for (int docId = 0; docId < nextDocId; docId++) {
+                    total += collect(docId, query, tagFilter, top);
+                }
+            } else {
+                Postings[] lists = postingsFor(query);
+                if (lists.length > 0) {
+                    Postings smallest = lists[0];
+                    for (int i = 0; i < smallest.size; i++) {
+                        int docId = smallest.ids[i];
+                        if (containsAll(lists, docId)) {
+                            total += collect(docId, query, tagFilter, top);
+                        }
+                    }
+                }
+            }
+
+            long[] ranked = top.sorted();
+            List<K> keys = new ArrayList<>(Math.max(0, Math.min(limit, ranked.length)));
+            for (long i = Math.max(0, offset); i < ranked.length; i++) {
+                keys.add(docs[(int) ranked[(int) i]].key());
+            }
+            return new Result<>(keys, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== Internal =====
+
+    private int collect(int docId, String query, LongPredicate tagFilter, TopK top) {
+        Doc<K> doc = docs[docId];
+        if (doc == null || (tagFilter != null && !tagFilter.test(doc.tag()))) {
+            return 0;
+        }
+        int best = NO_MATCH;
+        String[] fields = doc.fields();
+        for (int i = 0; i < fields.length && best > i; i++) {
+            int match = matchLevel(fields[i], query);
+            if (match != NO_MATCH) {
+                best = Math.min(best, match * fields.length + i);
+            }
+        }
+        if (best == NO_MATCH) {
+            return 0;
+        }
+        top.offer(((long) best << 32) | docId);
+        return 1;
+    }
+
+    private static int matchLevel(String field, String query) {
+        int index = field.indexOf(query);
+        if (index < 0) {
+            return NO_MATCH;
+        }
+        if (index == 0) {
+            return field.length() == query.length() ? MATCH_EXACT : MATCH_PREFIX;
+        }
+        do {
+            if (!Character.isLetterOrDigit(field.charAt(index - 1))) {
+                return MATCH_WORD_PREFIX;
+            }
+            index = field.indexOf(query, index + 1);
+        } while (index > 0);
+        return MATCH_CONTAINS;
+    }
+
+    /**
+     * Posting list của các trigram trong query, ngắn nhất trước; mảng rỗng nếu có trigram không tồn tại.
+     */
+    private Postings[] postingsFor(String query) {
+        long[] grams = distinctTrigrams(new String[]{query});
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            Postings list = postings.get(grams[i]);
+            if (list == null) {
+                return new Postings[0];
+            }
+            lists[i] = list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        return lists;
+    }
+
+    private static boolean containsAll(Postings[] lists, int docId) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(docId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeLocked(K key) {
+        Integer docId = docIdByKey.remove(key);
+        if (docId == null) {
+            return;
+        }
+        // Posting list giữ docId cũ cho tới lần compact; doc null = đã xóa
+        docs[docId] = null;
+        liveCount--;
+        if (nextDocId - liveCount > Math.max(1024, liveCount)) {
+            compactLocked();
+        }
+    }
+
+    /**
+     * Đánh số lại document còn sống và dựng lại posting list.
+     */
+    private void compactLocked() {
+        Doc<K>[] live = newDocArray(Math.max(1024, liveCount * 2));
+        int count = 0;
+        for (int docId = 0; docId < nextDocId; docId++) {
+            if (docs[docId] != null) {
+                live[count++] = docs[docId];
+            }
+        }
+        docs = live;
+        nextDocId = count;
+        docIdByKey.clear();
+        postings.clear();
+        for (int docId = 0; docId < count; docId++) {
+            docIdByKey.put(docs[docId].key(), docId);
+            for (long gram : distinctTrigrams(docs[docId].fields())) {
+                postings.computeIfAbsent(gram, g -> new Postings()).add(docId);
+            }
+        }
+    }
+
+    private static long[] distinctTrigrams(String[] fields) {
+        int capacity = 0;
+        for (String field : fields) {
+            capacity += Math.max(0, field.length() - 2);
+        }
+        if (capacity == 0) {
+            return new long[0];
+        }
+        long[] grams = new long[capacity];
+        int count = 0;
+        for (String field : fields) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                grams[count++] = ((long) field.charAt(i) << 32) | ((long) field.charAt(i + 1) << 16) | field.charAt(i + 2);
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> Doc<K>[] newDocArray(int length) {
+        return (Doc<K>[]) new Doc[length];
+    }
+
+    /**
+     * Giữ {@code k} giá trị nhỏ nhất (score << 32 | docId) bằng max-heap trên mảng long, không boxing.
+     */
+    private static final class TopK {
+        private final int k;
+        private long[] heap = EMPTY_LONGS;
+        private int size;
+
+        private static final long[] EMPTY_LONGS = new long[0];
+
+        TopK(int k) {
+            this.k = k;
+        }
+
+        void offer(long value) {
+            if (k == 0) {
+                return;
+            }
+            if (size < k) {
+                if (size == heap.length) {
+                    heap = Arrays.copyOf(heap, Math.min(k, Math.max(16, size * 2)));
+                }
+                heap[size] = value;
+                siftUp(size++);
+            } else if (value < heap[0]) {
+                heap[0] = value;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * docId theo thứ hạng tăng dần.
+         */
+        long[] sorted() {
+            long[] values = Arrays.copyOf(heap, size);
+            Arrays.sort(values);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = values[i] & 0xFFFFFFFFL;
+            }
+            return values;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent] >= heap[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int left = 2 * index + 1;
+                if (left >= size) {
+                    return;
+                }
+                int largest = left + 1 < size && heap[left + 1] > heap[left] ? left + 1 : left;
+                if (heap[index] >= heap[largest]) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
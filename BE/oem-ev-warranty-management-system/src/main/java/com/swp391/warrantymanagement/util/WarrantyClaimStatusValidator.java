@@ -2,54 +2,42 @@ package com.swp391.warrantymanagement.util;
 
 import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
 
-import java.util.Collections;
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 /**
  * Trình tiện ích xác thực các bước chuyển trạng thái của yêu cầu bảo hành.
  *
  * <p>Sử dụng {@link WarrantyClaimStatus} (enum) để đảm bảo an toàn kiểu dữ liệu,
  * tránh lỗi chính tả và giới hạn trạng thái trong một tập hữu hạn rõ ràng.
- * Bảng chuyển trạng thái được lưu bằng {@link EnumMap} và được bất biến để an toàn khi truy cập đồng thời.</p>
+ * Bảng chuyển trạng thái là một {@link StatusTransitionTable} bất biến, an toàn khi truy cập đồng thời;
+ * chiều ngược ({@link #getAllowedSourceStatuses}) là điều kiện {@code status IN (...)} của các conditional update
+ * trong {@code WarrantyClaimRepository}.</p>
  */
 public final class WarrantyClaimStatusValidator {
 
     /**
-     * Bảng chuyển trạng thái hợp lệ.
-     *<p>
-     * <p>Key: trạng thái hiện tại. Value: danh sách trạng thái có thể chuyển tới.
-     * Map này là bất biến (unmodifiable) sau khi khởi tạo.</p>
+     * Bảng chuyển trạng thái hợp lệ (bất biến sau khi khởi tạo).
      */
-    private static final Map<WarrantyClaimStatus, List<WarrantyClaimStatus>> VALID_TRANSITIONS;
+    public static final StatusTransitionTable<WarrantyClaimStatus> TRANSITIONS =
+            StatusTransitionTable.builder(WarrantyClaimStatus.class)
+                    // Free warranty: SUBMITTED -> MANAGER_REVIEW | REJECTED
+                    .allow(WarrantyClaimStatus.SUBMITTED, WarrantyClaimStatus.MANAGER_REVIEW, WarrantyClaimStatus.REJECTED)
+                    // Paid warranty: PENDING_PAYMENT -> PAYMENT_CONFIRMED | REJECTED
+                    .allow(WarrantyClaimStatus.PENDING_PAYMENT, WarrantyClaimStatus.PAYMENT_CONFIRMED, WarrantyClaimStatus.REJECTED)
+                    // Paid warranty: PAYMENT_CONFIRMED -> MANAGER_REVIEW | REJECTED
+                    .allow(WarrantyClaimStatus.PAYMENT_CONFIRMED, WarrantyClaimStatus.MANAGER_REVIEW, WarrantyClaimStatus.REJECTED)
+                    // MANAGER_REVIEW -> PROCESSING | REJECTED
+                    .allow(WarrantyClaimStatus.MANAGER_REVIEW, WarrantyClaimStatus.PROCESSING, WarrantyClaimStatus.REJECTED)
+                    // PROCESSING -> COMPLETED | REJECTED
+                    .allow(WarrantyClaimStatus.PROCESSING, WarrantyClaimStatus.COMPLETED, WarrantyClaimStatus.REJECTED)
+                    // COMPLETED, REJECTED -> (final)
+                    .build();
 
     private WarrantyClaimStatusValidator() {
         // Utility class: ngăn tạo instance
     }
 
-    static {
-        Map<WarrantyClaimStatus, List<WarrantyClaimStatus>> map = new EnumMap<>(WarrantyClaimStatus.class);
-
-        // SUBMITTED -> MANAGER_REVIEW | REJECTED
-        map.put(WarrantyClaimStatus.SUBMITTED,
-                List.of(WarrantyClaimStatus.MANAGER_REVIEW, WarrantyClaimStatus.REJECTED));
-
-        // MANAGER_REVIEW -> PROCESSING | REJECTED
-        map.put(WarrantyClaimStatus.MANAGER_REVIEW,
-                List.of(WarrantyClaimStatus.PROCESSING, WarrantyClaimStatus.REJECTED));
-
-        // PROCESSING -> COMPLETED | REJECTED
-        map.put(WarrantyClaimStatus.PROCESSING,
-                List.of(WarrantyClaimStatus.COMPLETED, WarrantyClaimStatus.REJECTED));
-
-        // COMPLETED, REJECTED -> (final)
-        map.put(WarrantyClaimStatus.COMPLETED, List.of());
-        map.put(WarrantyClaimStatus.REJECTED, List.of());
-
-        VALID_TRANSITIONS = Collections.unmodifiableMap(map);
-    }
-
     /**
      * Kiểm tra một bước chuyển trạng thái có hợp lệ hay không.
      *
@@ -67,8 +55,7 @@ public final class WarrantyClaimStatusValidator {
             return true;
         }
 
-        List<WarrantyClaimStatus> allowedTransitions = VALID_TRANSITIONS.get(fromStatus);
-        return allowedTransitions != null && allowedTransitions.contains(toStatus);
+        return TRANSITIONS.isAllowed(fromStatus, toStatus);
     }
 
     /**
@@ -78,7 +65,17 @@ public final class WarrantyClaimStatusValidator {
      * @return danh sách trạng thái có thể chuyển tới (có thể rỗng, không null)
      */
     public static List<WarrantyClaimStatus> getAllowedNextStatuses(WarrantyClaimStatus currentStatus) {
-        return VALID_TRANSITIONS.getOrDefault(currentStatus, List.of());
+        return List.copyOf(TRANSITIONS.allowedTargets(currentStatus));
+    }
+
+    /**
+     * Lấy tập trạng thái được phép chuyển sang một trạng thái đích.
+     *
+     * @param targetStatus trạng thái đích
+     * @return tập trạng thái nguồn (có thể rỗng, không null)
+     */
+    public static Set<WarrantyClaimStatus> getAllowedSourceStatuses(WarrantyClaimStatus targetStatus) {
+        return TRANSITIONS.allowedSources(targetStatus);
     }
 
     /**
@@ -104,7 +101,6 @@ public final class WarrantyClaimStatusValidator {
      * @return true nếu là trạng thái cuối, ngược lại false
      */
     public static boolean isFinalStatus(WarrantyClaimStatus status) {
-        List<WarrantyClaimStatus> allowedTransitions = VALID_TRANSITIONS.get(status);
-        return allowedTransitions != null && allowedTransitions.isEmpty();
+        return TRANSITIONS.isFinal(status);
     }
 }
@@ -0,0 +1,190 @@
+package com.swp391.warrantymanagement.util;
+
+import com.swp391.warrantymanagement.enums.WarrantyStatus;
+
+/**
+ * Engine kiểm tra điều kiện bảo hành theo quy tắc NGHIÊM NGẶT NHẤT (part vs vehicle, thời gian vs km, grace period).
+ * <p>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Input gọn: ngày dạng epoch day ({@link java.time.LocalDate#toEpochDay()}), km dạng {@code int}.
+ *     Chiều nào không áp dụng thì truyền {@link #NO_EXPIRY} / {@link #NO_MILEAGE_LIMIT}
+ *     (ví dụ: part thường không xét hạn part, claim của customer không xét km).</li>
+ *     <li>Chỉ dùng phép tính số nguyên, không tạo String/LocalDate; kết quả là {@link Decision} chỉ chứa primitive,
+ *     các trạng thái suy ra từ bitmask nên không cấp phát thêm.</li>
+ *     <li>Message lỗi/log do call site tự dựng từ {@link Decision} - chỉ trên nhánh hết hạn.</li>
+ * </ul>
+ * Dùng chung cho tạo/cập nhật claim (customer, SC staff) và kiểm tra bảo hành linh kiện extended.
+ */
+public final class WarrantyEligibilityEngine {
+
+    /** Không xét hạn theo ngày cho chiều này. */
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+    /** Không xét giới hạn km cho chiều này. */
+    public static final int NO_MILEAGE_LIMIT = Integer.MAX_VALUE;
+
+    static final int PART_DATE_EXPIRED = 1;
+    static final int PART_MILEAGE_EXPIRED = 1 << 1;
+    static final int VEHICLE_DATE_EXPIRED = 1 << 2;
+    static final int VEHICLE_MILEAGE_EXPIRED = 1 << 3;
+    static final int PART_MILEAGE_TRACKED = 1 << 4;
+
+    private static final int DATE_EXPIRED = PART_DATE_EXPIRED | VEHICLE_DATE_EXPIRED;
+    private static final int MILEAGE_EXPIRED = PART_MILEAGE_EXPIRED | VEHICLE_MILEAGE_EXPIRED;
+    private static final int EXPIRED = DATE_EXPIRED | MILEAGE_EXPIRED;
+
+    private WarrantyEligibilityEngine() {
+        // Utility class: ngăn tạo instance
+    }
+
+    /**
+     * Quyết định cho claim sau khi áp dụng grace period.
+     * Grace period chỉ áp dụng cho THỜI GIAN; hết hạn chỉ do km thì luôn phải dùng paid warranty.
+     */
+    public enum Eligibility {
+        /** Còn bảo hành - claim miễn phí. */
+        COVERED,
+        /** Hết hạn chỉ theo km (thời gian còn hiệu lực) - chỉ cho phép paid warranty. */
+        PAID_MILEAGE_EXCEEDED,
+        /** Hết hạn theo thời gian nhưng còn trong grace period - chỉ cho phép paid warranty. */
+        PAID_IN_GRACE_PERIOD,
+        /** Quá grace period - không thể tạo claim. */
+        GRACE_PERIOD_EXCEEDED
+    }
+
+    /**
+     * Kết quả kiểm tra (chỉ primitive). Ngày còn lại của chiều không áp dụng là {@link Long#MAX_VALUE}
+     * nên không bao giờ là chiều nghiêm ngặt nhất.
+     */
+    public record Decision(int flags,
+                           long partDaysRemaining,
+                           long vehicleDaysRemaining,
+                           int partMileageRemaining,
+                           int vehicleMileageRemaining,
+                           int gracePeriodDays) {
+
+        public boolean isCovered() {
+            return (flags & EXPIRED) == 0;
+        }
+
+        public boolean isExpiredByDate() {
+            return (flags & DATE_EXPIRED) != 0;
+        }
+
+        public boolean isExpiredByMileage() {
+            return (flags & MILEAGE_EXPIRED) != 0;
+        }
+
+        /** Trạng thái tổng hợp (strictest) của part và vehicle. */
+        public WarrantyStatus status() {
+            return statusOf(isExpiredByDate(), isExpiredByMileage());
+        }
+
+        public WarrantyStatus partStatus() {
+            return statusOf((flags & PART_DATE_EXPIRED) != 0, (flags & PART_MILEAGE_EXPIRED) != 0);
+        }
+
+        public WarrantyStatus vehicleStatus() {
+            return statusOf((flags & VEHICLE_DATE_EXPIRED) != 0, (flags & VEHICLE_MILEAGE_EXPIRED) != 0);
+        }
+
+        /** Số ngày còn lại TỆ NHẤT (âm = đã quá hạn). */
+        public long daysRemaining() {
+            return Math.min(partDaysRemaining, vehicleDaysRemaining);
+        }
+
+        /** Số ngày quá hạn TỆ NHẤT, 0 nếu còn hạn theo thời gian. */
+        public long daysExpired() {
+            return Math.max(0, -daysRemaining());
+        }
+
+        /** true nếu hạn của part là hạn nghiêm ngặt nhất (hòa thì lấy part). */
+        public boolean isPartStrictestByDate() {
+            return partDaysRemaining <= vehicleDaysRemaining;
+        }
+
+        public boolean isPartMileageTracked() {
+            return (flags & PART_MILEAGE_TRACKED) != 0;
+        }
+
+        /** true nếu giới hạn km của part là nghiêm ngặt nhất (hòa thì lấy part). */
+        public boolean isPartStrictestByMileage() {
+            return isPartMileageTracked() && vehicleMileageRemaining >= partMileageRemaining;
+        }
+
+        /** Số km còn lại TỆ NHẤT trong các chiều có xét km. */
+        public int mileageRemaining() {
+            return isPartMileageTracked() ? Math.min(partMileageRemaining, vehicleMileageRemaining) : vehicleMileageRemaining;
+        }
+
+        public Eligibility eligibility() {
+            if (isCovered()) {
+                return Eligibility.COVERED;
+            }
+            if (!isExpiredByDate()) {
+                return Eligibility.PAID_MILEAGE_EXCEEDED;
+            }
+            return daysExpired() <= gracePeriodDays ? Eligibility.PAID_IN_GRACE_PERIOD : Eligibility.GRACE_PERIOD_EXCEEDED;
+        }
+    }
+
+    /**
+     * Kiểm tra bảo hành theo quy tắc nghiêm ngặt nhất.
+     *
+     * @param todayEpochDay          ngày kiểm tra (epoch day)
+     * @param partExpiryEpochDay     hạn bảo hành part, hoặc {@link #NO_EXPIRY}
+     * @param vehicleExpiryEpochDay  hạn bảo hành xe, hoặc {@link #NO_EXPIRY}
+     * @param currentMileage         odometer hiện tại của xe (km)
+     * @param mileageAtInstallation  odometer lúc lắp part (km)
+     * @param partMileageLimit       giới hạn km của part tính từ lúc lắp, hoặc {@link #NO_MILEAGE_LIMIT}
+     * @param vehicleMileageLimit    giới hạn km của xe, hoặc {@link #NO_MILEAGE_LIMIT}
+     * @param gracePeriodDays        grace period (ngày) cho bảo hành tính phí
+     */
+    public static Decision evaluate(long todayEpochDay, long partExpiryEpochDay, long vehicleExpiryEpochDay,
+                                    int currentMileage, int mileageAtInstallation,
+                                    int partMileageLimit, int vehicleMileageLimit, int gracePeriodDays) {
+        int flags = 0;
+        if (partExpiryEpochDay != NO_EXPIRY && todayEpochDay > partExpiryEpochDay) {
+            flags |= PART_DATE_EXPIRED;
+        }
+        if (vehicleExpiryEpochDay != NO_EXPIRY && todayEpochDay > vehicleExpiryEpochDay) {
+            flags |= VEHICLE_DATE_EXPIRED;
+        }
+
+        int partMileageRemaining = NO_MILEAGE_LIMIT;
+        if (partMileageLimit != NO_MILEAGE_LIMIT) {
+            int mileageSinceInstallation = currentMileage - mileageAtInstallation;
+            partMileageRemaining = partMileageLimit - mileageSinceInstallation;
+            flags |= PART_MILEAGE_TRACKED;
+            if (mileageSinceInstallation > partMileageLimit) {
+                flags |= PART_MILEAGE_EXPIRED;
+            }
+        }
+
+        int vehicleMileageRemaining = NO_MILEAGE_LIMIT;
+        if (vehicleMileageLimit != NO_MILEAGE_LIMIT) {
+            vehicleMileageRemaining = vehicleMileageLimit - currentMileage;
+            if (currentMileage > vehicleMileageLimit) {
+                flags |= VEHICLE_MILEAGE_EXPIRED;
+            }
+        }
+
+        return new Decision(flags,
+                daysRemaining(todayEpochDay, partExpiryEpochDay),
+                daysRemaining(todayEpochDay, vehicleExpiryEpochDay),
+                partMileageRemaining,
+                vehicleMileageRemaining,
+                gracePeriodDays);
+    }
+
+    private static long daysRemaining(long todayEpochDay, long expiryEpochDay) {
+        return expiryEpochDay == NO_EXPIRY ? Long.MAX_VALUE : expiryEpochDay - todayEpochDay;
+    }
+
+    private static WarrantyStatus statusOf(boolean dateExpired, boolean mileageExpired) {
+        if (dateExpired) {
+            return mileageExpired ? WarrantyStatus.EXPIRED_BOTH : WarrantyStatus.EXPIRED_DATE;
+        }
+        return mileageExpired ? WarrantyStatus.EXPIRED_MILEAGE : WarrantyStatus.VALID;
+    }
+}
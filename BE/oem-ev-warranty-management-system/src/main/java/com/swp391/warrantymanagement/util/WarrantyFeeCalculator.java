@@ -0,0 +1,293 @@
+package com.swp391.warrantymanagement.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Tính phí bảo hành tính phí (paid warranty) bằng số nguyên có scale cố định ({@code long} unscaled + scale),
+ * cho kết quả GIỐNG HỆT chuỗi phép tính {@link BigDecimal} cũ (cả giá trị lẫn scale).
+ * <p>
+ * <strong>Công thức:</strong>
+ * <ul>
+ *     <li>Tỷ lệ quá hạn: {@code ratio = daysExpired / gracePeriodDays}, làm tròn {@link RoundingMode#HALF_UP}
+ *     tới {@link #RATIO_SCALE} chữ số thập phân - bước làm tròn DUY NHẤT, mọi phép còn lại là chính xác.</li>
+ *     <li>Phí bảo hành ước tính (validation): {@code max(cost × (min + (max − min) × ratio), baseFee)},
+ *     với min/max là TỶ LỆ (0.20 = 20%).</li>
+ *     <li>Phí claim tự tính: {@code partPrice × (1 + markup / 100)}, với
+ *     {@code markup = min + (max − min) × min(ratio, 1)} tính theo PHẦN TRĂM (10.00 = 10%).</li>
+ * </ul>
+ * <strong>Thiết kế:</strong>
+ * <ul>
+ *     <li>Input {@link BigDecimal} được tách thành (unscaled, scale) một lần; phép nhân/cộng dùng
+ *     {@link Math#multiplyExact}/{@link Math#addExact}. Khi tràn {@code long}, scale âm/quá lớn hoặc grace period = 0,
+ *     fallback về đúng chuỗi {@link BigDecimal} cũ (kể cả exception) nên hành vi không đổi.</li>
+ *     <li>{@link #quoteFleet} báo giá cho cả đội xe trên các mảng primitive (tiền ở đơn vị nhỏ nhất, scale
+ *     {@link #MINOR_UNIT_SCALE} như cột tiền trong DB), không cấp phát object trong vòng lặp.</li>
+ * </ul>
+ */
+public final class WarrantyFeeCalculator {
+
+    /** Số chữ số thập phân của tỷ lệ quá hạn. */
+    public static final int RATIO_SCALE = 4;
+    /** Scale của tiền ở đơn vị nhỏ nhất (khớp {@code DECIMAL(10,2)} của các cột tiền). */
+    public static final int MINOR_UNIT_SCALE = 2;
+
+    private static final long RATIO_ONE = 10_000L;
+    // Giới hạn scale của input để mọi hệ số 10^n dùng tới đều nằm trong POW10
+    private static final int MAX_INPUT_SCALE = 6;
+    private static final long[] POW10 = new long[19];
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private WarrantyFeeCalculator() {
+        // Utility class: ngăn tạo instance
+    }
+
+    /**
+     * Tỷ lệ {@code daysExpired / gracePeriodDays} ở scale {@link #RATIO_SCALE} (10000 = 100%), làm tròn HALF_UP.
+     *
+     * @throws ArithmeticException nếu {@code gracePeriodDays = 0} hoặc tràn số
+     */
+    public static long expiredRatio(long daysExpired, int gracePeriodDays) {
+        if (gracePeriodDays == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return divideHalfUp(Math.multiplyExact(daysExpired, RATIO_ONE), gracePeriodDays);
+    }
+
+    /**
+     * Phí bảo hành tính phí ước tính: {@code max(cost × (min + (max − min) × ratio), baseFee)}.
+     * Trả về {@code baseFee} nếu chi phí sửa chữa không có hoặc {@code <= 0}.
+     *
+     * @param daysExpired          số ngày đã quá hạn (không âm)
+     * @param gracePeriodDays      grace period (ngày)
+     * @param minFeeFraction       tỷ lệ phí tối thiểu (0.20 = 20%)
+     * @param maxFeeFraction       tỷ lệ phí tối đa
+     * @param estimatedRepairCost  chi phí sửa chữa ước tính
+     * @param baseFee              phí sàn
+     */
+    public static BigDecimal paidWarrantyFee(long daysExpired, int gracePeriodDays,
+                                             BigDecimal minFeeFraction, BigDecimal maxFeeFraction,
+                                             BigDecimal estimatedRepairCost, BigDecimal baseFee) {
+        if (estimatedRepairCost == null || estimatedRepairCost.signum() <= 0) {
+            return baseFee;
+        }
+        if (gracePeriodDays != 0 && fits(minFeeFraction) && fits(maxFeeFraction)
+                && fits(estimatedRepairCost) && fits(baseFee)) {
+            try {
+                int feeScale = Math.max(minFeeFraction.scale(), maxFeeFraction.scale());
+                long min = unscaled(minFeeFraction, feeScale);
+                long range = Math.subtractExact(unscaled(maxFeeFraction, feeScale), min);
+                // feePercentage ở scale feeScale + RATIO_SCALE
+                long feePercentage = Math.addExact(Math.multiplyExact(min, RATIO_ONE),
+                        Math.multiplyExact(range, expiredRatio(daysExpired, gracePeriodDays)));
+
+                long fee = Math.multiplyExact(unscaled(estimatedRepairCost, estimatedRepairCost.scale()), feePercentage);
+                int scale = estimatedRepairCost.scale() + feeScale + RATIO_SCALE;
+                int baseScale = baseFee.scale();
+                long base = unscaled(baseFee, baseScale);
+                int cmp = scale >= baseScale
+                        ? Long.compare(fee, Math.multiplyExact(base, pow10(scale - baseScale)))
+                        : Long.compare(Math.multiplyExact(fee, pow10(baseScale - scale)), base);
+                return cmp >= 0 ? BigDecimal.valueOf(fee, scale) : baseFee;
+            } catch (ArithmeticException overflow) {
+                // Tràn long: dùng đường BigDecimal bên dưới
+            }
+        }
+        return legacyPaidWarrantyFee(daysExpired, gracePeriodDays, minFeeFraction, maxFeeFraction,
+                estimatedRepairCost, baseFee);
+    }
+
+    /**
+     * Phần trăm markup cho claim tính phí: {@code min + (max − min) × min(ratio, 1)} khi có {@code max > min}
+     * và đã quá hạn; ngược lại là {@code min}.
+     */
+    public static BigDecimal markupPercentage(BigDecimal minPercent, BigDecimal maxPercent,
+                                              long daysExpired, int gracePeriodDays) {
+        if (maxPercent == null || maxPercent.compareTo(minPercent) <= 0 || daysExpired <= 0) {
+            return minPercent;
+        }
+        if (gracePeriodDays != 0 && fits(minPercent) && fits(maxPercent)) {
+            try {
+                long ratio = expiredRatio(daysExpired, gracePeriodDays);
+                int ratioScale = RATIO_SCALE;
+                if (ratio > RATIO_ONE) {
+                    ratio = 1; // Cap 100% (BigDecimal.ONE có scale 0)
+                    ratioScale = 0;
+                }
+                int percentScale = Math.max(minPercent.scale(), maxPercent.scale());
+                long min = unscaled(minPercent, percentScale);
+                long range = Math.subtractExact(unscaled(maxPercent, percentScale), min);
+                long markup = Math.addExact(Math.multiplyExact(min, pow10(ratioScale)), Math.multiplyExact(range, ratio));
+                return BigDecimal.valueOf(markup, percentScale + ratioScale);
+            } catch (ArithmeticException overflow) {
+                // Tràn long: dùng đường BigDecimal bên dưới
+            }
+        }
+        return legacyMarkupPercentage(minPercent, maxPercent, daysExpired, gracePeriodDays);
+    }
+
+    /**
+     * Phí claim sau markup: {@code partPrice × (1 + markupPercentage / 100)}.
+     */
+    public static BigDecimal applyMarkup(BigDecimal partPrice, BigDecimal markupPercentage) {
+        if (fits(partPrice) && fits(markupPercentage)) {
+            try {
+                // markup / 100 chính xác: scale tăng 2 rồi bỏ bớt số 0 ở cuối, không thấp hơn scale của markup
+                long quotient = unscaled(markupPercentage, markupPercentage.scale());
+                int quotientScale = markupPercentage.scale();
+                if (quotient != 0) {
+                    quotientScale += 2;
+                    for (int i = 0; i < 2 && quotient % 10 == 0; i++) {
+                        quotient /= 10;
+                        quotientScale--;
+                    }
+                }
+                long factor = Math.addExact(pow10(quotientScale), quotient);
+                long fee = Math.multiplyExact(unscaled(partPrice, partPrice.scale()), factor);
+                return BigDecimal.valueOf(fee, partPrice.scale() + quotientScale);
+            } catch (ArithmeticException overflow) {
+                // Tràn long: dùng đường BigDecimal bên dưới
+            }
+        }
+        return partPrice.multiply(BigDecimal.ONE.add(markupPercentage.divide(HUNDRED)));
+    }
+
+    /**
+     * Biểu phí đã chuẩn hóa sang fixed-point, tạo một lần và dùng lại cho cả đội xe.
+     */
+    public static final class FeeSchedule {
+        private final BigDecimal minFeeFraction;
+        private final BigDecimal maxFeeFraction;
+        private final BigDecimal baseFee;
+        private final long minFeeScaled;
+        private final long feeRange;
+        private final int feeScale;
+        private final long baseFeeMinor;
+
+        private FeeSchedule(BigDecimal minFeeFraction, BigDecimal maxFeeFraction, BigDecimal baseFee) {
+            if (!fits(minFeeFraction) || !fits(maxFeeFraction)) {
+                throw new IllegalArgumentException("Fee percentage scale must be between 0 and " + MAX_INPUT_SCALE);
+            }
+            this.minFeeFraction = minFeeFraction;
+            this.maxFeeFraction = maxFeeFraction;
+            this.baseFee = baseFee;
+            this.feeScale = Math.max(minFeeFraction.scale(), maxFeeFraction.scale());
+            long min = unscaled(minFeeFraction, feeScale);
+            this.minFeeScaled = Math.multiplyExact(min, RATIO_ONE);
+            this.feeRange = Math.subtractExact(unscaled(maxFeeFraction, feeScale), min);
+            // Phí sàn phải biểu diễn được ở đơn vị nhỏ nhất (ArithmeticException nếu không)
+            this.baseFeeMinor = baseFee.setScale(MINOR_UNIT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        }
+    }
+
+    /**
+     * Tạo biểu phí cho {@link #quoteFleet}.
+     *
+     * @throws IllegalArgumentException nếu scale của tỷ lệ phí nằm ngoài khoảng hỗ trợ
+     * @throws ArithmeticException      nếu phí sàn không biểu diễn được ở scale {@link #MINOR_UNIT_SCALE}
+     */
+    public static FeeSchedule feeSchedule(BigDecimal minFeeFraction, BigDecimal maxFeeFraction, BigDecimal baseFee) {
+        return new FeeSchedule(minFeeFraction, maxFeeFraction, baseFee);
+    }
+
+    /**
+     * Báo giá phí bảo hành tính phí cho nhiều xe cùng lúc (cùng công thức với {@link #paidWarrantyFee}),
+     * kết quả làm tròn HALF_UP về đơn vị nhỏ nhất - giống giá trị được lưu vào cột {@code DECIMAL(10,2)}.
+     *
+     * @param schedule          biểu phí
+     * @param daysExpired       số ngày quá hạn của từng xe
+     * @param gracePeriodDays   grace period của từng xe
+     * @param repairCostMinor   chi phí sửa chữa ước tính (đơn vị nhỏ nhất, scale {@link #MINOR_UNIT_SCALE})
+     * @param feeMinorOut       mảng nhận kết quả (đơn vị nhỏ nhất)
+     * @throws IllegalArgumentException nếu các mảng không cùng độ dài
+     * @throws ArithmeticException      nếu có grace period = 0 với chi phí dương (giống đường BigDecimal)
+     *                                  hoặc phí vượt phạm vi {@code long}
+     */
+    public static void quoteFleet(FeeSchedule schedule, long[] daysExpired, int[] gracePeriodDays,
+                                  long[] repairCostMinor, long[] feeMinorOut) {
+        int n = daysExpired.length;
+        if (gracePeriodDays.length != n || repairCostMinor.length != n || feeMinorOut.length != n) {
+            throw new IllegalArgumentException("Fleet quote arrays must have the same length");
+        }
+        long roundingDivisor = pow10(schedule.feeScale + RATIO_SCALE);
+        for (int i = 0; i < n; i++) {
+            long cost = repairCostMinor[i];
+            if (cost <= 0) {
+                feeMinorOut[i] = schedule.baseFeeMinor;
+                continue;
+            }
+            long feeMinor;
+            try {
+                long feePercentage = Math.addExact(schedule.minFeeScaled,
+                        Math.multiplyExact(schedule.feeRange, expiredRatio(daysExpired[i], gracePeriodDays[i])));
+                feeMinor = divideHalfUp(Math.multiplyExact(cost, feePercentage), roundingDivisor);
+            } catch (ArithmeticException overflow) {
+                if (gracePeriodDays[i] == 0) {
+                    throw overflow;
+                }
+                feeMinor = legacyPaidWarrantyFee(daysExpired[i], gracePeriodDays[i], schedule.minFeeFraction,
+                        schedule.maxFeeFraction, BigDecimal.valueOf(cost, MINOR_UNIT_SCALE), schedule.baseFee)
+                        .setScale(MINOR_UNIT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            }
+            feeMinorOut[i] = Math.max(feeMinor, schedule.baseFeeMinor);
+        }
+    }
+
+    // ============= HELPER METHODS =============
+
+    /**
+     * Chia làm tròn HALF_UP (nửa đơn vị làm tròn ra xa 0), giống {@link RoundingMode#HALF_UP}.
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder != 0 && remainder >= Math.abs(divisor) - remainder) {
+            quotient += (dividend ^ divisor) < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+
+    private static boolean fits(BigDecimal value) {
+        return value.scale() >= 0 && value.scale() <= MAX_INPUT_SCALE && value.precision() <= 18;
+    }
+
+    /**
+     * Unscaled value của {@code value} khi đưa về {@code scale} (>= scale hiện tại).
+     */
+    private static long unscaled(BigDecimal value, int scale) {
+        return Math.multiplyExact(value.unscaledValue().longValue(), pow10(scale - value.scale()));
+    }
+
+    private static long pow10(int exponent) {
+        if (exponent >= POW10.length) {
+            throw new ArithmeticException("Scale out of range: " + exponent);
+        }
+        return POW10[exponent];
+    }
+
+    private static BigDecimal legacyPaidWarrantyFee(long daysExpired, int gracePeriodDays,
+                                                    BigDecimal minFeeFraction, BigDecimal maxFeeFraction,
+                                                    BigDecimal estimatedRepairCost, BigDecimal baseFee) {
+        BigDecimal progressRatio = BigDecimal.valueOf(daysExpired)
+                .divide(BigDecimal.valueOf(gracePeriodDays), RATIO_SCALE, RoundingMode.HALF_UP);
+        BigDecimal feePercentage = minFeeFraction.add(maxFeeFraction.subtract(minFeeFraction).multiply(progressRatio));
+        return estimatedRepairCost.multiply(feePercentage).max(baseFee);
+    }
+
+    private static BigDecimal legacyMarkupPercentage(BigDecimal minPercent, BigDecimal maxPercent,
+                                                     long daysExpired, int gracePeriodDays) {
+        BigDecimal expiredRatio = BigDecimal.valueOf(daysExpired)
+                .divide(BigDecimal.valueOf(gracePeriodDays), RATIO_SCALE, RoundingMode.HALF_UP);
+        if (expiredRatio.compareTo(BigDecimal.ONE) > 0) {
+            expiredRatio = BigDecimal.ONE;
+        }
+        return minPercent.add(maxPercent.subtract(minPercent).multiply(expiredRatio));
+    }
+}
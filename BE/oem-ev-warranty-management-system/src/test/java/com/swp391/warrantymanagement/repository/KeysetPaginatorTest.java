@@ -0,0 +1,242 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.dto.response.CursorResponse;
+import com.swp391.warrantymanagement.dto.response.WarrantyClaimResponseDTO;
+import com.swp391.warrantymanagement.dto.response.WorkLogResponseDTO;
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.entity.WarrantyClaim;
+import com.swp391.warrantymanagement.entity.WorkLog;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.mapper.WarrantyClaimMapper;
+import com.swp391.warrantymanagement.mapper.WorkLogMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Kiểm tra phân trang keyset: duyệt hết các trang theo cursor phải trả về đủ, đúng thứ tự, không trùng lặp
+ * (kể cả khi nhiều dòng có cùng giá trị sortBy), và mỗi trang chỉ tốn đúng 1 query (không COUNT, không N+1).
+ */
+@DataJpaTest
+@Import(KeysetPaginator.class)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.datasource.url=jdbc:h2:mem:keyset_paginator;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@DisplayName("KeysetPaginator")
+class KeysetPaginatorTest {
+
+    private static final int CLAIM_COUNT = 23;
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private KeysetPaginator keysetPaginator;
+
+    @Autowired
+    private WarrantyClaimRepository warrantyClaimRepository;
+
+    @Autowired
+    private WorkLogRepository workLogRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Role customerRole = persist(role("CUSTOMER"));
+        Role techRole = persist(role("SC_TECHNICIAN"));
+        User technician = persist(user("tech", techRole));
+
+        ServiceCenter serviceCenter = new ServiceCenter();
+        serviceCenter.setName("SC Quận 1");
+        serviceCenter.setAddress("1 Lê Lợi");
+        serviceCenter.setPhone("0280000001");
+        serviceCenter.setOpeningHours("8:00-17:00");
+        serviceCenter.setLatitude(new BigDecimal("10.776889"));
+        serviceCenter.setLongitude(new BigDecimal("106.700806"));
+        persist(serviceCenter);
+
+        Part part = new Part();
+        part.setPartName("Battery Pack");
+        part.setPartNumber("BAT-001");
+        part.setManufacturer("VinES");
+        part.setPrice(new BigDecimal("1000.00"));
+        persist(part);
+
+        for (int i = 0; i < CLAIM_COUNT; i++) {
+            Customer customer = new Customer();
+            customer.setCustomerId(UUID.randomUUID());
+            customer.setName("Customer " + i);
+            customer.setPhone("09" + String.format("%08d", i));
+            customer.setUser(persist(user("customer" + i, customerRole)));
+            persist(customer);
+
+            Vehicle vehicle = new Vehicle();
+            vehicle.setVehicleName("VF8 #" + i);
+            vehicle.setVehicleModel("VF8");
+            vehicle.setVehicleYear(2024);
+            vehicle.setVehicleVin("VIN" + String.format("%014d", i));
+            vehicle.setPurchaseDate(LocalDate.of(2024, 1, 1));
+            vehicle.setWarrantyStartDate(LocalDate.of(2024, 1, 1));
+            vehicle.setWarrantyEndDate(LocalDate.of(2034, 1, 1));
+            vehicle.setMileage(1000 + i);
+            vehicle.setCustomer(customer);
+            persist(vehicle);
+
+            InstalledPart installedPart = new InstalledPart();
+            installedPart.setPart(part);
+            installedPart.setVehicle(vehicle);
+            installedPart.setInstallationDate(LocalDate.of(2024, 1, 1));
+            installedPart.setWarrantyExpirationDate(LocalDate.of(2032, 1, 1));
+            installedPart.setMileageAtInstallation(0);
+            persist(installedPart);
+
+            WarrantyClaim claim = new WarrantyClaim();
+            // Chỉ 4 giá trị claimDate khác nhau: cursor phải dùng id làm tie-breaker để không bỏ sót/trùng dòng
+            claim.setClaimDate(BASE_TIME.plusHours(i % 4));
+            claim.setDescription("Battery degradation #" + i);
+            claim.setStatus(WarrantyClaimStatus.PROCESSING);
+            claim.setInstalledPart(installedPart);
+            claim.setVehicle(vehicle);
+            claim.setServiceCenter(serviceCenter);
+            claim.setAssignedTo(technician);
+            persist(claim);
+
+            WorkLog workLog = new WorkLog();
+            workLog.setStartTime(BASE_TIME.plusMinutes(i % 3));
+            workLog.setUser(technician);
+            workLog.setWarrantyClaim(claim);
+            persist(workLog);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Walking every claim page by cursor should return all rows in order with one query per page")
+    void claimsByClaimDateDesc_WalkAllPages() {
+        List<WarrantyClaim> expected = new ArrayList<>(warrantyClaimRepository.findAll());
+        expected.sort(Comparator.comparing(WarrantyClaim::getClaimDate)
+                .thenComparing(WarrantyClaim::getWarrantyClaimId).reversed());
+
+        List<Long> visited = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            entityManager.clear();
+            statistics.clear();
+            CursorResponse<WarrantyClaimResponseDTO> page = keysetPaginator.fetch(warrantyClaimRepository,
+                    WarrantyClaim.class, WarrantyClaimRepository.fetchResponseAssociations(), "claimDate", Sort.Direction.DESC, cursor, 5,
+                    WarrantyClaimMapper::toResponseDTOList);
+
+            assertThat(statistics.getPrepareStatementCount()).as("queries for page %d", pages).isEqualTo(1);
+            assertThat(page.getContent()).allSatisfy(dto -> {
+                assertThat(dto.getPartName()).isEqualTo("Battery Pack");
+                assertThat(dto.getCustomerEmail()).startsWith("customer");
+            });
+            page.getContent().forEach(dto -> visited.add(dto.getWarrantyClaimId()));
+            assertThat(page.isHasNext()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(5);
+        assertThat(visited).containsExactlyElementsOf(
+                expected.stream().map(WarrantyClaim::getWarrantyClaimId).toList());
+    }
+
+    @Test
+    @DisplayName("Walking work logs ascending should be complete and ordered")
+    void workLogsByStartTimeAsc_WalkAllPages() {
+        List<WorkLog> expected = new ArrayList<>(workLogRepository.findAll());
+        expected.sort(Comparator.comparing(WorkLog::getStartTime).thenComparing(WorkLog::getWorkLogId));
+
+        List<Long> visited = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorResponse<WorkLogResponseDTO> page = keysetPaginator.fetch(workLogRepository, WorkLog.class,
+                    null, "startTime", Sort.Direction.ASC, cursor, 7, WorkLogMapper::toResponseDTOList);
+            page.getContent().forEach(dto -> visited.add(dto.getWorkLogId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(visited).containsExactlyElementsOf(expected.stream().map(WorkLog::getWorkLogId).toList());
+    }
+
+    @Test
+    @DisplayName("Cursor must not be reused with another sort, and unknown or nullable sort properties are rejected")
+    void invalidCursorOrSort_Rejected() {
+        String cursor = keysetPaginator.fetch(workLogRepository, WorkLog.class, null, "startTime",
+                Sort.Direction.ASC, null, 5, WorkLogMapper::toResponseDTOList).getNextCursor();
+
+        assertThatThrownBy(() -> keysetPaginator.fetch(workLogRepository, WorkLog.class, null, "startTime",
+                Sort.Direction.DESC, cursor, 5, WorkLogMapper::toResponseDTOList))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> keysetPaginator.fetch(workLogRepository, WorkLog.class, null, "startTime",
+                Sort.Direction.ASC, "not-a-cursor!", 5, WorkLogMapper::toResponseDTOList))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> keysetPaginator.fetch(workLogRepository, WorkLog.class, null, "user",
+                Sort.Direction.ASC, null, 5, WorkLogMapper::toResponseDTOList))
+                .isInstanceOf(IllegalArgumentException.class);
+        // endTime nullable: dòng NULL sẽ bị bỏ qua khi so sánh keyset
+        assertThatThrownBy(() -> keysetPaginator.fetch(workLogRepository, WorkLog.class, null, "endTime",
+                Sort.Direction.ASC, null, 5, WorkLogMapper::toResponseDTOList))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("nullable");
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}secret");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,203 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.entity.WarrantyClaim;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.mapper.CustomerMapper;
+import com.swp391.warrantymanagement.mapper.VehicleMapper;
+import com.swp391.warrantymanagement.mapper.WarrantyClaimMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * So sánh lượng bộ nhớ cấp phát (bytes/trang) giữa read path cũ (entity managed -> mapper) và projection
+ * ({@code *ListView}) cho danh sách claim, vehicle, customer.
+ * <p>
+ * Seed 1.000 claim trên H2 in-memory. Mặc định bị tắt, chạy bằng:
+ * <pre>
+ * mvn test -Dtest=ListingProjectionAllocationBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.datasource.url=jdbc:h2:mem:listing_alloc_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Listing projection allocation benchmark")
+class ListingProjectionAllocationBenchmarkTest {
+
+    private static final int ROWS = 1_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private WarrantyClaimRepository warrantyClaimRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @BeforeEach
+    void seed() {
+        Role customerRole = persist(role("CUSTOMER"));
+        Role techRole = persist(role("SC_TECHNICIAN"));
+
+        ServiceCenter serviceCenter = new ServiceCenter();
+        serviceCenter.setName("SC Quận 1");
+        serviceCenter.setAddress("1 Lê Lợi");
+        serviceCenter.setPhone("0280000001");
+        serviceCenter.setOpeningHours("8:00-17:00");
+        serviceCenter.setLatitude(new BigDecimal("10.776889"));
+        serviceCenter.setLongitude(new BigDecimal("106.700806"));
+        persist(serviceCenter);
+
+        User technician = persist(user("tech", techRole));
+
+        Part part = new Part();
+        part.setPartName("Battery Pack");
+        part.setPartNumber("BAT-001");
+        part.setManufacturer("VinES");
+        part.setPrice(new BigDecimal("1000.00"));
+        persist(part);
+
+        for (int i = 0; i < ROWS; i++) {
+            Customer customer = new Customer();
+            customer.setCustomerId(UUID.randomUUID());
+            customer.setName("Customer " + i);
+            customer.setPhone("09" + String.format("%08d", i));
+            customer.setUser(persist(user("customer" + i, customerRole)));
+            persist(customer);
+
+            Vehicle vehicle = new Vehicle();
+            vehicle.setVehicleName("VF8 #" + i);
+            vehicle.setVehicleModel("VF8");
+            vehicle.setVehicleYear(2024);
+            vehicle.setVehicleVin("VIN" + String.format("%014d", i));
+            vehicle.setPurchaseDate(LocalDate.of(2024, 1, 1));
+            vehicle.setWarrantyStartDate(LocalDate.of(2024, 1, 1));
+            vehicle.setWarrantyEndDate(LocalDate.of(2034, 1, 1));
+            vehicle.setMileage(1000 + i);
+            vehicle.setCustomer(customer);
+            persist(vehicle);
+
+            InstalledPart installedPart = new InstalledPart();
+            installedPart.setPart(part);
+            installedPart.setVehicle(vehicle);
+            installedPart.setInstallationDate(LocalDate.of(2024, 1, 1));
+            installedPart.setWarrantyExpirationDate(LocalDate.of(2032, 1, 1));
+            installedPart.setMileageAtInstallation(0);
+            persist(installedPart);
+
+            WarrantyClaim claim = new WarrantyClaim();
+            claim.setClaimDate(LocalDateTime.now());
+            claim.setDescription("Battery degradation #" + i);
+            claim.setStatus(WarrantyClaimStatus.PROCESSING);
+            claim.setInstalledPart(installedPart);
+            claim.setVehicle(vehicle);
+            claim.setServiceCenter(serviceCenter);
+            claim.setAssignedTo(technician);
+            persist(claim);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void compareAllocatedBytesPerPage() {
+        Pageable claimPage = PageRequest.of(3, PAGE_SIZE, Sort.by("warrantyClaimId"));
+        Pageable vehiclePage = PageRequest.of(3, PAGE_SIZE, Sort.by("vehicleId"));
+        Pageable customerPage = PageRequest.of(3, PAGE_SIZE, Sort.by("name"));
+
+        long claimEntity = bytesPerPage(() -> WarrantyClaimMapper.toResponseDTOList(
+                warrantyClaimRepository.findAll(claimPage).getContent()));
+        long claimView = bytesPerPage(() -> WarrantyClaimMapper.toResponseDTOListFromViews(
+                warrantyClaimRepository.findAllListViews(claimPage).getContent()));
+        long vehicleEntity = bytesPerPage(() -> VehicleMapper.toResponseDTOList(
+                vehicleRepository.findAll(vehiclePage).getContent()));
+        long vehicleView = bytesPerPage(() -> VehicleMapper.toResponseDTOListFromViews(
+                vehicleRepository.findAllListViews(vehiclePage).getContent()));
+        long customerEntity = bytesPerPage(() -> CustomerMapper.toResponseDTOList(
+                customerRepository.findAll(customerPage).getContent()));
+        long customerView = bytesPerPage(() -> CustomerMapper.toResponseDTOListFromViews(
+                customerRepository.findAllListViews(customerPage).getContent()));
+
+        System.out.printf("claims    (page %d): entity %,d B/page, projection %,d B/page (%.1fx)%n",
+                PAGE_SIZE, claimEntity, claimView, (double) claimEntity / claimView);
+        System.out.printf("vehicles  (page %d): entity %,d B/page, projection %,d B/page (%.1fx)%n",
+                PAGE_SIZE, vehicleEntity, vehicleView, (double) vehicleEntity / vehicleView);
+        System.out.printf("customers (page %d): entity %,d B/page, projection %,d B/page (%.1fx)%n",
+                PAGE_SIZE, customerEntity, customerView, (double) customerEntity / customerView);
+
+        assertThat(claimView).isLessThan(claimEntity);
+        assertThat(vehicleView).isLessThan(vehicleEntity);
+        assertThat(customerView).isLessThan(customerEntity);
+    }
+
+    // Mỗi vòng lặp mô phỏng một request: persistence context rỗng lúc bắt đầu và bị clear lúc kết thúc
+    private long bytesPerPage(Runnable page) {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < ITERATIONS / 4; i++) { // warm-up
+            page.run();
+            entityManager.clear();
+        }
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            page.run();
+            entityManager.clear();
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}secret");
+        user.setRole(role);
+        return user;
+    }
+}
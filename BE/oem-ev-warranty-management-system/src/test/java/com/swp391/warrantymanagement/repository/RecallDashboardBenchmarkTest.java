@@ -0,0 +1,148 @@
+package com.swp391.warrantymanagement.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark cho {@code GET /api/recalls/progress}: một query {@code COUNT ... GROUP BY recall_request_id, status}
+ * trên recall_responses so với cách hiện tại: đọc bộ đếm {@code recall_campaign_stats} được cập nhật dần (O(campaign),
+ * không phụ thuộc số response).
+ * <p>
+ * Seed 500 campaign và 1.000.000 response trên H2 in-memory (MODE=MySQL). Mặc định bị tắt, chạy bằng:
+ * <pre>
+ * mvn test -Dtest=RecallDashboardBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Recall dashboard progress benchmark")
+class RecallDashboardBenchmarkTest {
+
+    private static final int CAMPAIGNS = 500;
+    private static final int RESPONSES = 1_000_000;
+    private static final String[] STATUSES = {"PENDING", "ACCEPTED", "DECLINED", "IN_PROGRESS", "COMPLETED"};
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void seed() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:recall_dashboard_bench;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE recall_requests (recall_request_id BIGINT PRIMARY KEY, status VARCHAR(40), reason VARCHAR(1000))");
+        jdbcTemplate.execute("CREATE TABLE recall_responses (recall_response_id BIGINT PRIMARY KEY, " +
+                "recall_request_id BIGINT NOT NULL, vehicle_id BIGINT NOT NULL, status VARCHAR(30) NOT NULL, " +
+                "customer_note VARCHAR(1000), created_at TIMESTAMP, responded_at TIMESTAMP, completed_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX uk_recall_response_request_vehicle ON recall_responses (recall_request_id, vehicle_id)");
+
+        List<Object[]> campaigns = new ArrayList<>(CAMPAIGNS);
+        for (long id = 1; id <= CAMPAIGNS; id++) {
+            campaigns.add(new Object[]{id, "WAITING_CUSTOMER_CONFIRM", "Battery cell defect #" + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO recall_requests VALUES (?, ?, ?)", campaigns);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (long id = 1; id <= RESPONSES; id++) {
+            batch.add(new Object[]{id, (id % CAMPAIGNS) + 1, id, STATUSES[(int) (id % STATUSES.length)], now});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO recall_responses (recall_response_id, recall_request_id, vehicle_id, status, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+
+        // Bộ đếm như RecallCampaignStatsService.rebuild dựng ra
+        jdbcTemplate.execute("CREATE TABLE recall_campaign_stats (recall_request_id BIGINT PRIMARY KEY, " +
+                "pending_count BIGINT NOT NULL, accepted_count BIGINT NOT NULL, declined_count BIGINT NOT NULL, " +
+                "in_progress_count BIGINT NOT NULL, completed_count BIGINT NOT NULL, updated_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO recall_campaign_stats SELECT recall_request_id, " +
+                "SUM(CASE WHEN status = 'PENDING' THEN 1 ELSE 0 END), SUM(CASE WHEN status = 'ACCEPTED' THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN status = 'DECLINED' THEN 1 ELSE 0 END), SUM(CASE WHEN status = 'IN_PROGRESS' THEN 1 ELSE 0 END), " +
+                "SUM(CASE WHEN status = 'COMPLETED' THEN 1 ELSE 0 END), CURRENT_TIMESTAMP " +
+                "FROM recall_responses GROUP BY recall_request_id");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void compareGroupedQueryWithStatsTable() {
+        // Warm-up một lần để JIT/H2 cache không làm lệch kết quả
+        groupedQuery();
+        statsTable();
+
+        long start = System.nanoTime();
+        Map<Long, Map<String, Long>> grouped = groupedQuery();
+        long groupedMs = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        Map<Long, Map<String, Long>> stats = statsTable();
+        long statsMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(stats).isEqualTo(grouped);
+        System.out.printf("[recall progress] %d campaigns / %,d responses: grouped query %,d ms, stats table %,d ms (%.1fx)%n",
+                CAMPAIGNS, RESPONSES, groupedMs, statsMs, (double) groupedMs / Math.max(1, statsMs));
+    }
+
+    /**
+     * Cách hiện tại ở mức SQL: danh sách campaign + một lần đọc bảng stats.
+     */
+    private Map<Long, Map<String, Long>> statsTable() {
+        Map<Long, Map<String, Long>> result = activeCampaigns();
+        jdbcTemplate.query("SELECT recall_request_id, pending_count, accepted_count, declined_count, in_progress_count, " +
+                        "completed_count FROM recall_campaign_stats",
+                rs -> {
+                    Map<String, Long> counts = result.get(rs.getLong(1));
+                    if (counts != null) {
+                        for (int i = 0; i < STATUSES.length; i++) {
+                            counts.put(STATUSES[i], rs.getLong(i + 2));
+                        }
+                    }
+                });
+        return result;
+    }
+
+    /**
+     * Cách trước khi có bảng stats: một query GROUP BY trên toàn bộ recall_responses.
+     */
+    private Map<Long, Map<String, Long>> groupedQuery() {
+        Map<Long, Map<String, Long>> result = activeCampaigns();
+        jdbcTemplate.query("SELECT recall_request_id, status, COUNT(*) FROM recall_responses GROUP BY recall_request_id, status",
+                rs -> {
+                    Map<String, Long> counts = result.get(rs.getLong(1));
+                    if (counts != null) {
+                        counts.put(rs.getString(2), rs.getLong(3));
+                    }
+                });
+        return result;
+    }
+
+    private Map<Long, Map<String, Long>> activeCampaigns() {
+        Map<Long, Map<String, Long>> result = new HashMap<>();
+        for (Long campaignId : jdbcTemplate.queryForList(
+                "SELECT recall_request_id FROM recall_requests WHERE status <> 'REJECTED_BY_ADMIN'", Long.class)) {
+            Map<String, Long> counts = new HashMap<>();
+            for (String status : STATUSES) {
+                counts.put(status, 0L);
+            }
+            result.put(campaignId, counts);
+        }
+        return result;
+    }
+}
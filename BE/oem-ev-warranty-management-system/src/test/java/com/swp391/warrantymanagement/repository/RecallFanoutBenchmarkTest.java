@@ -0,0 +1,152 @@
+package com.swp391.warrantymanagement.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark: fan-out RecallResponse theo vòng lặp cũ (N+1, kiểm tra trùng + insert từng dòng trong một transaction)
+ * so với pipeline set-based của {@link RecallResponseBulkRepository} (keyset + anti-join + INSERT nhiều dòng, commit theo chunk).
+ * <p>
+ * Chạy trên H2 in-memory (MODE=MySQL) nên chỉ dùng để so sánh tương đối. Mặc định bị tắt, chạy bằng:
+ * <pre>
+ * mvn test -Dtest=RecallFanoutBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Recall fan-out benchmark")
+class RecallFanoutBenchmarkTest {
+
+    private static final long PART_ID = 1L;
+    private static final long RECALL_ID = 1L;
+    private static final int CHUNK_SIZE = 1000;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private RecallResponseBulkRepository bulkRepository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:recall_bench;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        bulkRepository = new RecallResponseBulkRepository(jdbcTemplate);
+
+        jdbcTemplate.execute("CREATE TABLE vehicles (vehicle_id BIGINT PRIMARY KEY, vehicle_vin VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE installed_parts (installed_part_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "part_id BIGINT NOT NULL, vehicle_id BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_ip_vehicle ON installed_parts (vehicle_id, part_id)");
+        jdbcTemplate.execute("CREATE TABLE recall_responses (recall_response_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "recall_request_id BIGINT NOT NULL, vehicle_id BIGINT NOT NULL, status VARCHAR(30) NOT NULL, " +
+                "created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX uk_recall_response_request_vehicle ON recall_responses (recall_request_id, vehicle_id)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @ParameterizedTest(name = "{0} vehicles")
+    @ValueSource(ints = {10_000, 100_000})
+    void compareLegacyLoopWithSetBasedFanOut(int vehicleCount) {
+        seedVehicles(vehicleCount);
+
+        long legacyMs = time(this::legacyLoop);
+        assertThat(countResponses()).isEqualTo(vehicleCount);
+
+        jdbcTemplate.update("DELETE FROM recall_responses");
+
+        long setBasedMs = time(this::setBasedFanOut);
+        assertThat(countResponses()).isEqualTo(vehicleCount);
+        // Chạy lại một chunk đã có (lần chạy song song / retry): dòng trùng bị bỏ qua, không đếm
+        assertThat(bulkRepository.insertPendingResponses(RECALL_ID, List.of(1L, 2L), LocalDateTime.now())).isZero();
+        assertThat(countResponses()).isEqualTo(vehicleCount);
+
+        System.out.printf("[recall fan-out] %,d vehicles: legacy loop %,d ms, set-based %,d ms (%.1fx)%n",
+                vehicleCount, legacyMs, setBasedMs, (double) legacyMs / Math.max(1, setBasedMs));
+    }
+
+    /**
+     * Mô phỏng vòng lặp cũ ở mức SQL: load installed parts, lazy-load từng vehicle, kiểm tra trùng và insert từng dòng,
+     * tất cả trong một transaction.
+     */
+    private void legacyLoop() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> installedPartIds = jdbcTemplate.queryForList(
+                    "SELECT installed_part_id FROM installed_parts WHERE part_id = ?", Long.class, PART_ID);
+            Set<Long> vehicleIds = new LinkedHashSet<>();
+            for (Long installedPartId : installedPartIds) {
+                vehicleIds.add(jdbcTemplate.queryForObject(
+                        "SELECT v.vehicle_id FROM installed_parts ip JOIN vehicles v ON v.vehicle_id = ip.vehicle_id " +
+                        "WHERE ip.installed_part_id = ?", Long.class, installedPartId));
+            }
+            for (Long vehicleId : vehicleIds) {
+                Integer existing = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM recall_responses WHERE recall_request_id = ? AND vehicle_id = ?",
+                        Integer.class, RECALL_ID, vehicleId);
+                if (existing != null && existing == 0) {
+                    jdbcTemplate.update("INSERT INTO recall_responses (recall_request_id, vehicle_id, status, created_at) " +
+                            "VALUES (?, ?, 'PENDING', ?)", RECALL_ID, vehicleId, LocalDateTime.now());
+                }
+            }
+        });
+    }
+
+    /**
+     * Pipeline mới: cùng vòng chunk như RecallFanoutServiceImpl (không kèm progress record JPA).
+     */
+    private void setBasedFanOut() {
+        long[] lastVehicleId = {0L};
+        boolean hasMore = true;
+        while (hasMore) {
+            Integer inserted = transactionTemplate.execute(status -> {
+                List<Long> ids = bulkRepository.findVehicleIdsWithoutResponse(RECALL_ID, PART_ID, lastVehicleId[0], CHUNK_SIZE);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                lastVehicleId[0] = ids.get(ids.size() - 1);
+                return bulkRepository.insertPendingResponses(RECALL_ID, ids, LocalDateTime.now());
+            });
+            hasMore = inserted != null && inserted == CHUNK_SIZE;
+        }
+    }
+
+    private void seedVehicles(int vehicleCount) {
+        List<Object[]> vehicles = new ArrayList<>(vehicleCount);
+        List<Object[]> installedParts = new ArrayList<>(vehicleCount);
+        for (long id = 1; id <= vehicleCount; id++) {
+            vehicles.add(new Object[]{id, "VIN" + id});
+            installedParts.add(new Object[]{PART_ID, id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO vehicles (vehicle_id, vehicle_vin) VALUES (?, ?)", vehicles);
+        jdbcTemplate.batchUpdate("INSERT INTO installed_parts (part_id, vehicle_id) VALUES (?, ?)", installedParts);
+    }
+
+    private long countResponses() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM recall_responses", Long.class);
+        return count != null ? count : 0L;
+    }
+
+    private static long time(Runnable runnable) {
+        long start = System.nanoTime();
+        runnable.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
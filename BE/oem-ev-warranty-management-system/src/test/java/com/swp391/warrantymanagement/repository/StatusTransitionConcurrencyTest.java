@@ -0,0 +1,302 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.PartRequest;
+import com.swp391.warrantymanagement.entity.RecallRequest;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.entity.WarrantyClaim;
+import com.swp391.warrantymanagement.enums.PartRequestStatus;
+import com.swp391.warrantymanagement.enums.RecallRequestStatus;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.util.PartRequestStatusValidator;
+import com.swp391.warrantymanagement.util.RecallRequestStatusValidator;
+import com.swp391.warrantymanagement.util.WarrantyClaimStatusValidator;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stress test cho các conditional update {@code UPDATE ... WHERE id = ? AND status IN (...)}:
+ * nhiều thread (mỗi thread một transaction) cùng bấm một bước chuyển trên cùng bản ghi thì đúng MỘT thread thắng,
+ * không có cập nhật nào bị ghi đè (lost update).
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.datasource.url=jdbc:h2:mem:status_transition;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@DisplayName("Conditional status transitions under concurrency")
+class StatusTransitionConcurrencyTest {
+
+    private static final int RECORDS = 25;
+    private static final int THREADS = 8;
+    // Mỗi test seed dữ liệu mới trên cùng database: số điện thoại (unique) lấy theo lượt seed
+    private static final AtomicInteger SEED_ROUND = new AtomicInteger();
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WarrantyClaimRepository warrantyClaimRepository;
+
+    @Autowired
+    private PartRequestRepository partRequestRepository;
+
+    @Autowired
+    private RecallRequestRepository recallRequestRepository;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<Long> claimIds = new ArrayList<>();
+    private final List<Long> partRequestIds = new ArrayList<>();
+    private final List<Long> recallRequestIds = new ArrayList<>();
+    private Long evmStaffId;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        int round = SEED_ROUND.incrementAndGet();
+        transactionTemplate.executeWithoutResult(status -> {
+            Role techRole = persist(role("SC_TECHNICIAN_" + suffix));
+            Role customerRole = persist(role("CUSTOMER_" + suffix));
+            User technician = persist(user("tech_" + suffix, techRole));
+            User evmStaff = persist(user("evm_" + suffix, techRole));
+            evmStaffId = evmStaff.getUserId();
+
+            ServiceCenter serviceCenter = new ServiceCenter();
+            serviceCenter.setName("SC " + suffix);
+            serviceCenter.setAddress("1 Lê Lợi");
+            serviceCenter.setPhone(String.format("028%07d", round));
+            serviceCenter.setOpeningHours("8:00-17:00");
+            serviceCenter.setLatitude(new BigDecimal("10.776889"));
+            serviceCenter.setLongitude(new BigDecimal("106.700806"));
+            persist(serviceCenter);
+
+            Part part = new Part();
+            part.setPartName("Battery Pack");
+            part.setPartNumber("BAT-" + suffix);
+            part.setManufacturer("VinES");
+            part.setPrice(new BigDecimal("1000.00"));
+            persist(part);
+
+            for (int i = 0; i < RECORDS; i++) {
+                Customer customer = new Customer();
+                customer.setCustomerId(UUID.randomUUID());
+                customer.setName("Customer " + i);
+                customer.setPhone(String.format("09%02d%06d", round, i));
+                customer.setUser(persist(user("customer" + i + "_" + suffix, customerRole)));
+                persist(customer);
+
+                Vehicle vehicle = new Vehicle();
+                vehicle.setVehicleName("VF8 #" + i);
+                vehicle.setVehicleModel("VF8");
+                vehicle.setVehicleYear(2024);
+                vehicle.setVehicleVin(suffix + String.format("%09d", i));
+                vehicle.setPurchaseDate(LocalDate.of(2024, 1, 1));
+                vehicle.setWarrantyStartDate(LocalDate.of(2024, 1, 1));
+                vehicle.setWarrantyEndDate(LocalDate.of(2034, 1, 1));
+                vehicle.setMileage(1000 + i);
+                vehicle.setCustomer(customer);
+                persist(vehicle);
+
+                InstalledPart installedPart = new InstalledPart();
+                installedPart.setPart(part);
+                installedPart.setVehicle(vehicle);
+                installedPart.setInstallationDate(LocalDate.of(2024, 1, 1));
+                installedPart.setWarrantyExpirationDate(LocalDate.of(2032, 1, 1));
+                installedPart.setMileageAtInstallation(0);
+                persist(installedPart);
+
+                WarrantyClaim claim = new WarrantyClaim();
+                claim.setClaimDate(LocalDateTime.now());
+                claim.setDescription("Battery degradation #" + i);
+                claim.setStatus(WarrantyClaimStatus.SUBMITTED);
+                claim.setInstalledPart(installedPart);
+                claim.setVehicle(vehicle);
+                claim.setServiceCenter(serviceCenter);
+                persist(claim);
+                claimIds.add(claim.getWarrantyClaimId());
+
+                PartRequest partRequest = new PartRequest();
+                partRequest.setRequestDate(LocalDateTime.now());
+                partRequest.setIssueDescription("Cell imbalance #" + i);
+                partRequest.setStatus(PartRequestStatus.PENDING);
+                partRequest.setWarrantyClaim(claim);
+                partRequest.setFaultyPart(part);
+                partRequest.setRequestedBy(technician);
+                partRequest.setServiceCenter(serviceCenter);
+                persist(partRequest);
+                partRequestIds.add(partRequest.getRequestId());
+
+                RecallRequest recall = new RecallRequest();
+                recall.setPart(part);
+                recall.setStatus(RecallRequestStatus.PENDING_ADMIN_APPROVAL);
+                recall.setReason("Thermal runaway risk #" + i);
+                recall.setCreatedBy(technician);
+                recall.setCreatedAt(LocalDateTime.now());
+                persist(recall);
+                recallRequestIds.add(recall.getRecallRequestId());
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Concurrent admin accepts: exactly one wins per claim and only its note is appended")
+    void concurrentClaimAccept_ExactlyOneWinner() throws Exception {
+        AtomicIntegerArray wins = race(claimIds.size(), thread -> index -> warrantyClaimRepository.transitionStatus(
+                claimIds.get(index),
+                WarrantyClaimStatusValidator.getAllowedSourceStatuses(WarrantyClaimStatus.MANAGER_REVIEW),
+                WarrantyClaimStatus.MANAGER_REVIEW, "\n[Admin Note]: thread " + thread));
+
+        for (int i = 0; i < claimIds.size(); i++) {
+            assertThat(wins.get(i)).as("winners for claim %d", claimIds.get(i)).isEqualTo(1);
+            WarrantyClaim claim = warrantyClaimRepository.findById(claimIds.get(i)).orElseThrow();
+            assertThat(claim.getStatus()).isEqualTo(WarrantyClaimStatus.MANAGER_REVIEW);
+            assertThat(claim.getDescription().split("\\[Admin Note]", -1)).hasSize(2);
+        }
+    }
+
+    @Test
+    @DisplayName("Approve racing cancel on a part request: exactly one wins and the row reflects the winner")
+    void concurrentPartRequestApproveAndCancel_ExactlyOneWinner() throws Exception {
+        User evmStaff = transactionTemplate.execute(status -> entityManager.find(User.class, evmStaffId));
+        AtomicIntegerArray wins = race(partRequestIds.size(), thread -> index -> thread % 2 == 0
+                ? partRequestRepository.approve(partRequestIds.get(index),
+                        PartRequestStatusValidator.getAllowedSourceStatuses(PartRequestStatus.APPROVED),
+                        PartRequestStatus.APPROVED, evmStaff, LocalDateTime.now(), "approved by thread " + thread)
+                : partRequestRepository.transitionStatus(partRequestIds.get(index),
+                        PartRequestStatusValidator.getAllowedSourceStatuses(PartRequestStatus.CANCELLED),
+                        PartRequestStatus.CANCELLED));
+
+        for (int i = 0; i < partRequestIds.size(); i++) {
+            assertThat(wins.get(i)).as("winners for part request %d", partRequestIds.get(i)).isEqualTo(1);
+            PartRequest request = partRequestRepository.findById(partRequestIds.get(i)).orElseThrow();
+            assertThat(request.getStatus()).isIn(PartRequestStatus.APPROVED, PartRequestStatus.CANCELLED);
+            if (request.getStatus() == PartRequestStatus.APPROVED) {
+                assertThat(request.getApprovedDate()).isNotNull();
+                assertThat(request.getNotes()).startsWith("approved by thread ");
+            } else {
+                assertThat(request.getApprovedDate()).isNull();
+                assertThat(request.getNotes()).isNull();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Approve racing reject on a recall campaign: exactly one decision is recorded")
+    void concurrentRecallApproveAndReject_ExactlyOneWinner() throws Exception {
+        User admin = transactionTemplate.execute(status -> entityManager.find(User.class, evmStaffId));
+        AtomicIntegerArray wins = race(recallRequestIds.size(), thread -> index -> {
+            RecallRequestStatus target = thread % 2 == 0
+                    ? RecallRequestStatus.APPROVED_BY_ADMIN : RecallRequestStatus.REJECTED_BY_ADMIN;
+            return recallRequestRepository.decide(recallRequestIds.get(index),
+                    RecallRequestStatusValidator.getAllowedSourceStatuses(target), target,
+                    target.name() + " by thread " + thread, admin, LocalDateTime.now());
+        });
+
+        for (int i = 0; i < recallRequestIds.size(); i++) {
+            assertThat(wins.get(i)).as("winners for recall %d", recallRequestIds.get(i)).isEqualTo(1);
+            RecallRequest recall = recallRequestRepository.findById(recallRequestIds.get(i)).orElseThrow();
+            assertThat(recall.getAdminNote()).startsWith(recall.getStatus().name() + " by thread ");
+        }
+    }
+
+    @Test
+    @DisplayName("Rejected transitions report the current status without touching the row")
+    void invalidTransition_ReportsConflict() {
+        Long claimId = claimIds.get(0);
+        int updated = transactionTemplate.execute(status -> warrantyClaimRepository.resolveStatus(claimId,
+                WarrantyClaimStatusValidator.getAllowedSourceStatuses(WarrantyClaimStatus.COMPLETED),
+                WarrantyClaimStatus.COMPLETED, "\n[Tech Completion]: done", LocalDateTime.now()));
+        assertThat(updated).isZero();
+        assertThat(warrantyClaimRepository.findStatusById(claimId)).contains(WarrantyClaimStatus.SUBMITTED);
+        assertThat(warrantyClaimRepository.findStatusById(-1L)).isEmpty();
+    }
+
+    /**
+     * Chạy {@link #THREADS} thread cùng lúc; mỗi thread duyệt mọi bản ghi (thứ tự lệch nhau để tăng va chạm),
+     * mỗi lần cập nhật là một transaction riêng. Trả về số lần cập nhật thành công theo bản ghi.
+     */
+    private AtomicIntegerArray race(int records, IntFunction<IntFunction<Integer>> attemptsByThread) throws Exception {
+        AtomicIntegerArray wins = new AtomicIntegerArray(records);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                IntFunction<Integer> attempt = attemptsByThread.apply(thread);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < records; n++) {
+                        int index = (n + thread) % records;
+                        Integer updated = transactionTemplate.execute(status -> attempt.apply(index));
+                        wins.addAndGet(index, updated);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return wins;
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}secret");
+        user.setRole(role);
+        return user;
+    }
+}
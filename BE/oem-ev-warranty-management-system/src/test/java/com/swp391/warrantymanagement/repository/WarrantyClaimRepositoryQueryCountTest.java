@@ -0,0 +1,218 @@
+package com.swp391.warrantymanagement.repository;
+
+import com.swp391.warrantymanagement.dto.projection.WarrantyClaimListView;
+import com.swp391.warrantymanagement.dto.response.WarrantyClaimResponseDTO;
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.entity.WarrantyClaim;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.mapper.WarrantyClaimMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiểm tra số query của các read path danh sách claim (projection WarrantyClaimListView) và chi tiết claim
+ * (WarrantyClaim.RESPONSE_GRAPH).
+ * <p>
+ * Trước đây mỗi dòng kéo thêm tới 6 lazy select khi map sang DTO (trang 20 dòng > 100 query);
+ * giờ mỗi trang cố định 2 query (dữ liệu + count) bất kể kích thước trang.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.datasource.url=jdbc:h2:mem:claim_query_count;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@DisplayName("WarrantyClaimRepository query count")
+class WarrantyClaimRepositoryQueryCountTest {
+
+    private static final int CLAIM_COUNT = 60;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private WarrantyClaimRepository warrantyClaimRepository;
+
+    private Statistics statistics;
+    private User technician;
+    private UUID firstCustomerId;
+
+    @BeforeEach
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Role customerRole = persist(role("CUSTOMER"));
+        Role techRole = persist(role("SC_TECHNICIAN"));
+
+        ServiceCenter serviceCenter = new ServiceCenter();
+        serviceCenter.setName("SC Quận 1");
+        serviceCenter.setAddress("1 Lê Lợi");
+        serviceCenter.setPhone("0280000001");
+        serviceCenter.setOpeningHours("8:00-17:00");
+        serviceCenter.setLatitude(new BigDecimal("10.776889"));
+        serviceCenter.setLongitude(new BigDecimal("106.700806"));
+        persist(serviceCenter);
+
+        technician = persist(user("tech", techRole));
+        User otherTechnician = persist(user("tech2", techRole));
+
+        Part part = new Part();
+        part.setPartName("Battery Pack");
+        part.setPartNumber("BAT-001");
+        part.setManufacturer("VinES");
+        part.setPrice(new BigDecimal("1000.00"));
+        persist(part);
+
+        for (int i = 0; i < CLAIM_COUNT; i++) {
+            // Mỗi claim một customer/xe riêng để lazy loading (nếu còn) không được cache trong persistence context
+            Customer customer = new Customer();
+            customer.setCustomerId(UUID.randomUUID());
+            customer.setName("Customer " + i);
+            customer.setPhone("09" + String.format("%08d", i));
+            customer.setUser(persist(user("customer" + i, customerRole)));
+            persist(customer);
+            if (i == 0) {
+                firstCustomerId = customer.getCustomerId();
+            }
+
+            Vehicle vehicle = new Vehicle();
+            vehicle.setVehicleName("VF8 #" + i);
+            vehicle.setVehicleModel("VF8");
+            vehicle.setVehicleYear(2024);
+            vehicle.setVehicleVin("VIN" + String.format("%014d", i));
+            vehicle.setPurchaseDate(LocalDate.of(2024, 1, 1));
+            vehicle.setWarrantyStartDate(LocalDate.of(2024, 1, 1));
+            vehicle.setWarrantyEndDate(LocalDate.of(2034, 1, 1));
+            vehicle.setMileage(1000 + i);
+            vehicle.setCustomer(customer);
+            persist(vehicle);
+
+            InstalledPart installedPart = new InstalledPart();
+            installedPart.setPart(part);
+            installedPart.setVehicle(vehicle);
+            installedPart.setInstallationDate(LocalDate.of(2024, 1, 1));
+            installedPart.setWarrantyExpirationDate(LocalDate.of(2032, 1, 1));
+            installedPart.setMileageAtInstallation(0);
+            persist(installedPart);
+
+            WarrantyClaim claim = new WarrantyClaim();
+            claim.setClaimDate(LocalDateTime.now());
+            claim.setDescription("Battery degradation #" + i);
+            claim.setStatus(i % 2 == 0 ? WarrantyClaimStatus.MANAGER_REVIEW : WarrantyClaimStatus.PROCESSING);
+            claim.setInstalledPart(installedPart);
+            claim.setVehicle(vehicle);
+            claim.setServiceCenter(serviceCenter);
+            claim.setAssignedTo(i % 3 == 0 ? otherTechnician : technician);
+            persist(claim);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("All listing read paths should issue 2 queries per page regardless of page size")
+    void listingReadPaths_UseFixedQueryCount() {
+        List<WarrantyClaimStatus> pending = List.of(WarrantyClaimStatus.MANAGER_REVIEW, WarrantyClaimStatus.PROCESSING);
+
+        for (int pageSize : new int[]{5, 20}) {
+            Pageable pageable = PageRequest.of(0, pageSize, Sort.by("warrantyClaimId"));
+
+            assertQueryCount(pageSize, 2, p -> warrantyClaimRepository.findAllListViews(p), pageable);
+            assertQueryCount(pageSize, 2, p -> warrantyClaimRepository
+                    .findListViewsByStatus(WarrantyClaimStatus.PROCESSING, p), pageable);
+            assertQueryCount(pageSize, 2, p -> warrantyClaimRepository.findListViewsByStatusIn(pending, p), pageable);
+            assertQueryCount(pageSize, 2, p -> warrantyClaimRepository
+                    .findListViewsByAssignedToUserId(technician.getUserId(), p), pageable);
+        }
+        // Customer chỉ có 1 claim: trang chưa đầy nên Spring Data bỏ qua count query
+        assertQueryCount(1, 1, p -> warrantyClaimRepository
+                .findListViewsByCustomerId(firstCustomerId, p), PageRequest.of(0, 10));
+    }
+
+    @Test
+    @DisplayName("Claim detail should load every mapped association in a single query")
+    void findWithDetailsByWarrantyClaimId_UsesSingleQuery() {
+        Long claimId = warrantyClaimRepository.findAll().get(0).getWarrantyClaimId();
+        entityManager.clear();
+        statistics.clear();
+
+        WarrantyClaimResponseDTO dto = WarrantyClaimMapper.toResponseDTO(
+                warrantyClaimRepository.findWithDetailsByWarrantyClaimId(claimId).orElseThrow());
+
+        assertThat(dto.getCustomerEmail()).startsWith("customer");
+        assertThat(dto.getAssignedToUsername()).startsWith("tech");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void assertQueryCount(int expectedRows, long expectedQueries,
+                                  Function<Pageable, Page<WarrantyClaimListView>> query, Pageable pageable) {
+        entityManager.clear();
+        statistics.clear();
+
+        List<WarrantyClaimResponseDTO> dtos = WarrantyClaimMapper.toResponseDTOListFromViews(
+                query.apply(pageable).getContent());
+
+        assertThat(dtos).hasSize(expectedRows);
+        assertThat(dtos).allSatisfy(dto -> {
+            assertThat(dto.getPartName()).isEqualTo("Battery Pack");
+            assertThat(dto.getCustomerEmail()).startsWith("customer");
+            assertThat(dto.getAssignedToUsername()).startsWith("tech");
+            assertThat(dto.getServiceCenterName()).isEqualTo("SC Quận 1");
+            assertThat(dto.getVehicleYear()).isEqualTo(2024);
+        });
+        assertThat(statistics.getPrepareStatementCount())
+                .as("queries for page size %d", pageable.getPageSize())
+                .isEqualTo(expectedQueries);
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}secret");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,319 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.response.WarrantyClaimResponseDTO;
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.entity.WarrantyClaim;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.repository.KeysetPaginator;
+import com.swp391.warrantymanagement.repository.UserRepository;
+import com.swp391.warrantymanagement.repository.WarrantyClaimRepository;
+import com.swp391.warrantymanagement.service.WarrantyClaimService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Nhận việc đồng thời qua {@link WarrantyClaimService#assignNextClaimToMe}: nhiều kỹ thuật viên của hai trung tâm
+ * cùng rút claim cho tới khi hàng đợi trống; không claim nào bị gán hai lần và mỗi người chỉ nhận claim của trung tâm mình.
+ * <p>
+ * Benchmark so sánh thông lượng với cách cũ (đọc trang {@code /tech-pending} rồi {@code assignClaimToMe} ghi đè) bị tắt
+ * mặc định, chạy bằng:
+ * <pre>
+ * mvn test -Dtest=ClaimDispatchConcurrencyTest -Dbenchmark=true
+ * </pre>
+ */
+@DataJpaTest
+@Import({WarrantyClaimServiceImpl.class, ClaimDispatchQueue.class, DailyClaimQuotaTracker.class, KeysetPaginator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.datasource.url=jdbc:h2:mem:claim_dispatch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@DisplayName("Technician claim dispatch under concurrency")
+class ClaimDispatchConcurrencyTest {
+
+    private static final int CENTERS = 2;
+    private static final int TECHNICIANS_PER_CENTER = 10;
+    private static final int CLAIMS_PER_CENTER = 80;
+    // Mỗi test seed dữ liệu mới trên cùng database: số điện thoại (unique) lấy theo lượt seed
+    private static final AtomicInteger SEED_ROUND = new AtomicInteger();
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WarrantyClaimService warrantyClaimService;
+
+    @Autowired
+    private WarrantyClaimRepository warrantyClaimRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private TransactionTemplate transactionTemplate;
+    private final Map<String, Long> centerByTechnician = new HashMap<>();
+    private final Map<Long, Long> centerByClaim = new HashMap<>();
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Các test trước có thể để lại claim chờ nhận: đóng hết để hàng đợi chỉ chứa dữ liệu của test này
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createQuery("UPDATE WarrantyClaim wc SET wc.status = :done WHERE wc.status = :pending")
+                .setParameter("done", WarrantyClaimStatus.COMPLETED)
+                .setParameter("pending", WarrantyClaimStatus.MANAGER_REVIEW)
+                .executeUpdate());
+        centerByTechnician.clear();
+        centerByClaim.clear();
+
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        int round = SEED_ROUND.incrementAndGet();
+        transactionTemplate.executeWithoutResult(status -> {
+            Role techRole = persist(role("SC_TECHNICIAN_" + suffix));
+            Role customerRole = persist(role("CUSTOMER_" + suffix));
+
+            Part part = new Part();
+            part.setPartName("Battery Pack");
+            part.setPartNumber("BAT-" + suffix);
+            part.setManufacturer("VinES");
+            part.setPrice(new BigDecimal("1000.00"));
+            persist(part);
+
+            for (int c = 0; c < CENTERS; c++) {
+                ServiceCenter serviceCenter = new ServiceCenter();
+                serviceCenter.setName("SC " + c + " " + suffix);
+                serviceCenter.setAddress(c + " Lê Lợi");
+                serviceCenter.setPhone(String.format("028%03d%04d", round, c));
+                serviceCenter.setOpeningHours("8:00-17:00");
+                serviceCenter.setLatitude(new BigDecimal("10.776889"));
+                serviceCenter.setLongitude(new BigDecimal("106.700806"));
+                persist(serviceCenter);
+
+                for (int t = 0; t < TECHNICIANS_PER_CENTER; t++) {
+                    User technician = user("tech" + c + "_" + t + "_" + suffix, techRole);
+                    technician.setServiceCenter(serviceCenter);
+                    persist(technician);
+                    centerByTechnician.put(technician.getUsername(), serviceCenter.getServiceCenterId());
+                }
+
+                for (int i = 0; i < CLAIMS_PER_CENTER; i++) {
+                    Customer customer = new Customer();
+                    customer.setCustomerId(UUID.randomUUID());
+                    customer.setName("Customer " + c + "-" + i);
+                    customer.setPhone(String.format("09%02d%d%05d", round, c, i));
+                    customer.setUser(persist(user("customer" + c + "_" + i + "_" + suffix, customerRole)));
+                    persist(customer);
+
+                    Vehicle vehicle = new Vehicle();
+                    vehicle.setVehicleName("VF8 #" + i);
+                    vehicle.setVehicleModel("VF8");
+                    vehicle.setVehicleYear(2024);
+                    vehicle.setVehicleVin(suffix + c + String.format("%08d", i));
+                    vehicle.setPurchaseDate(LocalDate.of(2024, 1, 1));
+                    vehicle.setWarrantyStartDate(LocalDate.of(2024, 1, 1));
+                    vehicle.setWarrantyEndDate(LocalDate.of(2034, 1, 1));
+                    vehicle.setMileage(1000 + i);
+                    vehicle.setCustomer(customer);
+                    persist(vehicle);
+
+                    InstalledPart installedPart = new InstalledPart();
+                    installedPart.setPart(part);
+                    installedPart.setVehicle(vehicle);
+                    installedPart.setInstallationDate(LocalDate.of(2024, 1, 1));
+                    installedPart.setWarrantyExpirationDate(LocalDate.of(2032, 1, 1));
+                    installedPart.setMileageAtInstallation(0);
+                    persist(installedPart);
+
+                    WarrantyClaim claim = new WarrantyClaim();
+                    claim.setClaimDate(LocalDateTime.of(2025, 1, 1, 8, 0).plusMinutes(i));
+                    claim.setDescription("Battery degradation #" + i);
+                    claim.setStatus(WarrantyClaimStatus.MANAGER_REVIEW);
+                    claim.setInstalledPart(installedPart);
+                    claim.setVehicle(vehicle);
+                    claim.setServiceCenter(serviceCenter);
+                    persist(claim);
+                    centerByClaim.put(claim.getWarrantyClaimId(), serviceCenter.getServiceCenterId());
+                }
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Concurrent technicians drain their center queues without double assignment")
+    void assignNextClaimToMe_NeverDoubleAssigns() throws Exception {
+        DrainResult result = drain(username -> warrantyClaimService.assignNextClaimToMe(username)
+                .map(WarrantyClaimResponseDTO::getWarrantyClaimId));
+
+        assertThat(result.claimsByTechnician().values().stream().mapToInt(List::size).sum())
+                .isEqualTo(centerByClaim.size());
+        Map<Long, String> technicianByClaim = new HashMap<>();
+        result.claimsByTechnician().forEach((username, claimIds) -> claimIds.forEach(claimId -> {
+            assertThat(technicianByClaim.put(claimId, username)).as("claim %d dispatched twice", claimId).isNull();
+            assertThat(centerByClaim.get(claimId)).isEqualTo(centerByTechnician.get(username));
+        }));
+        assertThat(technicianByClaim.keySet()).isEqualTo(centerByClaim.keySet());
+
+        transactionTemplate.executeWithoutResult(status -> technicianByClaim.forEach((claimId, username) ->
+                assertThat(warrantyClaimRepository.findById(claimId).orElseThrow().getAssignedTo().getUsername())
+                        .isEqualTo(username)));
+        assertThat(warrantyClaimService.assignNextClaimToMe(centerByTechnician.keySet().iterator().next())).isEmpty();
+        System.out.printf("Claim dispatch: %d claims, %d technicians, %.0f claims/s%n",
+                centerByClaim.size(), centerByTechnician.size(), result.claimsPerSecond());
+    }
+
+    @Test
+    @DisplayName("Assigning a claim that belongs to someone else is rejected")
+    void assignClaimToMe_AlreadyAssigned_Rejected() {
+        String first = centerByTechnician.keySet().iterator().next();
+        String second = centerByTechnician.keySet().stream().filter(name -> !name.equals(first)).findFirst().orElseThrow();
+        Long claimId = centerByClaim.keySet().iterator().next();
+
+        assertThat(warrantyClaimService.assignClaimToMe(claimId, first).getAssignedToUsername()).isEqualTo(first);
+        assertThat(warrantyClaimService.assignClaimToMe(claimId, first).getAssignedToUsername()).isEqualTo(first);
+        assertThatThrownBy(() -> warrantyClaimService.assignClaimToMe(claimId, second))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(first);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: legacy read-then-assign vs dispatch queue")
+    void benchmarkLegacyVersusDispatch() throws Exception {
+        // Cách cũ: mỗi kỹ thuật viên đọc claim chưa gán đầu tiên trên /tech-pending rồi read-modify-write assignedTo
+        DrainResult legacy = drain(username -> transactionTemplate.execute(status -> {
+            Long centerId = centerByTechnician.get(username);
+            Optional<WarrantyClaim> head = warrantyClaimRepository.findAll(PageRequest.of(0, 20, Sort.by("claimDate")))
+                    .stream()
+                    .filter(claim -> claim.getStatus() == WarrantyClaimStatus.MANAGER_REVIEW && claim.getAssignedTo() == null
+                            && claim.getServiceCenter().getServiceCenterId().equals(centerId))
+                    .findFirst()
+                    .or(() -> warrantyClaimRepository.findByStatus(WarrantyClaimStatus.MANAGER_REVIEW).stream()
+                            .filter(claim -> claim.getAssignedTo() == null
+                                    && claim.getServiceCenter().getServiceCenterId().equals(centerId))
+                            .findFirst());
+            head.ifPresent(claim -> {
+                claim.setAssignedTo(userRepository.findByUsername(username).orElseThrow());
+                warrantyClaimRepository.save(claim);
+            });
+            return head.map(WarrantyClaim::getWarrantyClaimId);
+        }));
+        long legacyDuplicates = legacy.duplicateAssignments();
+
+        seed();
+        DrainResult dispatch = drain(username -> warrantyClaimService.assignNextClaimToMe(username)
+                .map(WarrantyClaimResponseDTO::getWarrantyClaimId));
+
+        System.out.printf("Claim pickup (%d technicians, %d claims): legacy %.0f claims/s, %d double-assigned | "
+                        + "dispatch %.0f claims/s, %d double-assigned%n",
+                centerByTechnician.size(), centerByClaim.size(), legacy.claimsPerSecond(), legacyDuplicates,
+                dispatch.claimsPerSecond(), dispatch.duplicateAssignments());
+        assertThat(dispatch.duplicateAssignments()).isZero();
+    }
+
+    private record DrainResult(Map<String, List<Long>> claimsByTechnician, double claimsPerSecond) {
+
+        /** Số lần một claim được "trao" cho hơn một người (người trước bị ghi đè). */
+        long duplicateAssignments() {
+            Map<Long, Integer> counts = new HashMap<>();
+            claimsByTechnician.values().forEach(ids -> ids.forEach(id -> counts.merge(id, 1, Integer::sum)));
+            return counts.values().stream().mapToLong(count -> count - 1).sum();
+        }
+    }
+
+    /**
+     * Mọi kỹ thuật viên xuất phát cùng lúc và gọi {@code pickup} tới khi hàng đợi của họ trống.
+     */
+    private DrainResult drain(Function<String, Optional<Long>> pickup) throws Exception {
+        Map<String, List<Long>> claimsByTechnician = new ConcurrentHashMap<>();
+        CyclicBarrier start = new CyclicBarrier(centerByTechnician.size() + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(centerByTechnician.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String username : centerByTechnician.keySet()) {
+                futures.add(executor.submit(() -> {
+                    ConcurrentLinkedQueue<Long> picked = new ConcurrentLinkedQueue<>();
+                    start.await();
+                    for (Optional<Long> next = pickup.apply(username); next.isPresent(); next = pickup.apply(username)) {
+                        picked.add(next.get());
+                    }
+                    claimsByTechnician.put(username, List.copyOf(picked));
+                    return null;
+                }));
+            }
+            start.await();
+            long begin = System.nanoTime();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            int total = claimsByTechnician.values().stream().mapToInt(List::size).sum();
+            return new DrainResult(claimsByTechnician, total / (elapsed / 1_000_000_000.0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static Role role(String name) {
+        Role role = new Role();
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{noop}secret");
+        user.setRole(role);
+        return user;
+    }
+}
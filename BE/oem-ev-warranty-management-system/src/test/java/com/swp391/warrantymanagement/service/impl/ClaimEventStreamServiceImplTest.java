@@ -0,0 +1,266 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.enums.ClaimLifecycleEventType;
+import com.swp391.warrantymanagement.enums.WarrantyClaimStatus;
+import com.swp391.warrantymanagement.event.WarrantyClaimLifecycleEvent;
+import com.swp391.warrantymanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stream sự kiện claim: mỗi user chỉ nhận sự kiện của role/service center mình, và mỗi sự kiện được serialize một lần
+ * rồi dùng chung frame cho mọi subscriber.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ClaimEventStreamServiceImpl Tests")
+class ClaimEventStreamServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private ClaimEventStreamServiceImpl streamService;
+    private final Map<String, RecordingEmitter> emitters = new HashMap<>();
+    private String subscribing;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        streamService = new ClaimEventStreamServiceImpl(userRepository, objectMapper) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.put(subscribing, emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(streamService, "senderThreads", 2);
+        ReflectionTestUtils.setField(streamService, "maxPendingPerSubscriber", 8);
+        ReflectionTestUtils.setField(streamService, "sendTimeoutMs", 30_000L);
+        streamService.startSenders();
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Events are filtered by role, service center and assignee")
+    void events_FilteredPerSubscriber() throws Exception {
+        subscribe("admin", 1L, "ADMIN", null);
+        subscribe("tech1", 2L, "SC_TECHNICIAN", 10L);
+        subscribe("tech2", 3L, "SC_TECHNICIAN", 20L);
+        subscribe("floating", 4L, "SC_STAFF", null);
+
+        streamService.onClaimLifecycleEvent(event(101L, 10L, null, ClaimLifecycleEventType.ACCEPTED));
+        streamService.onClaimLifecycleEvent(event(102L, 20L, 2L, ClaimLifecycleEventType.ASSIGNED));
+        streamService.onClaimLifecycleEvent(event(103L, 20L, 4L, ClaimLifecycleEventType.ASSIGNED));
+        streamService.onClaimLifecycleEvent(event(999L, null, null, ClaimLifecycleEventType.CREATED)); // mọi người nhận
+
+        assertThat(receivedClaims("admin")).containsExactly(101L, 102L, 103L, 999L);
+        assertThat(receivedClaims("tech1")).containsExactly(101L, 102L, 999L);
+        assertThat(receivedClaims("tech2")).containsExactly(102L, 103L, 999L);
+        // Không thuộc trung tâm nào: chỉ claim được gán cho mình và claim chưa có trung tâm
+        assertThat(receivedClaims("floating")).containsExactly(103L, 999L);
+    }
+
+    @Test
+    @DisplayName("Each event is serialized once and the same frame is shared by all subscribers")
+    void events_SerializedOnce() throws Exception {
+        subscribe("admin", 1L, "ADMIN", null);
+        subscribe("evm", 2L, "EVM_STAFF", null);
+
+        streamService.onClaimLifecycleEvent(event(101L, 10L, 2L, ClaimLifecycleEventType.STARTED));
+
+        Set<ResponseBodyEmitter.DataWithMediaType> adminFrame = emitters.get("admin").frames.poll(5, TimeUnit.SECONDS);
+        Set<ResponseBodyEmitter.DataWithMediaType> evmFrame = emitters.get("evm").frames.poll(5, TimeUnit.SECONDS);
+        assertThat(adminFrame).isSameAs(evmFrame);
+        assertThat(render(adminFrame))
+                .contains("event:STARTED")
+                .contains("\"claimId\":101")
+                .contains("\"status\":\"PROCESSING\"")
+                .contains("\"assignedToUserId\":2");
+    }
+
+    @Test
+    @DisplayName("Subscribers that fail to receive are dropped")
+    void events_BrokenSubscriberRemoved() throws Exception {
+        subscribe("admin", 1L, "ADMIN", null);
+        subscribe("gone", 2L, "ADMIN", null);
+        emitters.get("gone").broken = true;
+
+        streamService.onClaimLifecycleEvent(event(101L, 10L, null, ClaimLifecycleEventType.CREATED));
+        streamService.onClaimLifecycleEvent(event(999L, null, null, ClaimLifecycleEventType.CREATED));
+
+        assertThat(receivedClaims("admin")).containsExactly(101L, 999L);
+        awaitSubscriberCount(1);
+        assertThat(emitters.get("gone").completed).isTrue();
+    }
+
+    @Test
+    @DisplayName("A slow subscriber is dropped when its queue fills, without delaying the others")
+    void events_SlowSubscriberDropped() throws Exception {
+        subscribe("admin", 1L, "ADMIN", null);
+        ReflectionTestUtils.setField(streamService, "maxPendingPerSubscriber", 2);
+        subscribe("slow", 2L, "ADMIN", null);
+        RecordingEmitter slow = emitters.get("slow");
+        slow.blocked = new CountDownLatch(1);
+
+        // 1 frame đang ghi (bị treo) + 2 frame trong hàng đợi, frame thứ 4 làm tràn
+        streamService.onClaimLifecycleEvent(event(101L, 10L, null, ClaimLifecycleEventType.CREATED));
+        assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        for (long claimId = 102; claimId <= 104; claimId++) {
+            streamService.onClaimLifecycleEvent(event(claimId, 10L, null, ClaimLifecycleEventType.CREATED));
+        }
+        streamService.onClaimLifecycleEvent(event(999L, null, null, ClaimLifecycleEventType.CREATED));
+
+        assertThat(receivedClaims("admin")).containsExactly(101L, 102L, 103L, 104L, 999L);
+        assertThat(streamService.getSubscriberCount()).isEqualTo(1);
+        slow.blocked.countDown();
+        assertThat(slow.completedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(slow.frames).hasSize(1); // Hàng đợi bị bỏ khi client bị loại
+    }
+
+    @Test
+    @DisplayName("Heartbeats reach idle subscribers, and a send stuck past the timeout drops the subscriber")
+    void heartbeat_SentAndStuckSendDropped() throws Exception {
+        subscribe("admin", 1L, "ADMIN", null);
+        subscribe("stuck", 2L, "ADMIN", null);
+        RecordingEmitter stuck = emitters.get("stuck");
+        stuck.blocked = new CountDownLatch(1);
+
+        streamService.sendHeartbeats();
+        assertThat(render(emitters.get("admin").frames.poll(5, TimeUnit.SECONDS))).contains(":heartbeat");
+        assertThat(stuck.sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        ReflectionTestUtils.setField(streamService, "sendTimeoutMs", 0L);
+        Thread.sleep(5);
+        streamService.sendHeartbeats();
+        assertThat(streamService.getSubscriberCount()).isEqualTo(1);
+        stuck.blocked.countDown();
+        assertThat(stuck.completedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void subscribe(String username, Long userId, String roleName, Long serviceCenterId) {
+        Role role = new Role();
+        role.setRoleName(roleName);
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername(username);
+        user.setRole(role);
+        if (serviceCenterId != null) {
+            ServiceCenter serviceCenter = new ServiceCenter();
+            serviceCenter.setServiceCenterId(serviceCenterId);
+            user.setServiceCenter(serviceCenter);
+        }
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        subscribing = username;
+        streamService.subscribe(username);
+        emitters.get(username).frames.clear(); // Bỏ comment "connected"
+    }
+
+    /**
+     * Claim ID đã nhận, đến hết sự kiện 999 (mỗi subscriber nhận theo đúng thứ tự publish).
+     */
+    private List<Long> receivedClaims(String username) throws InterruptedException {
+        List<Long> claimIds = new ArrayList<>();
+        long claimId;
+        do {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = emitters.get(username).frames.poll(5, TimeUnit.SECONDS);
+            assertThat(frame).as("frame for %s", username).isNotNull();
+            String text = render(frame);
+            int start = text.indexOf("\"claimId\":") + "\"claimId\":".length();
+            claimId = Long.parseLong(text.substring(start, text.indexOf(',', start)));
+            claimIds.add(claimId);
+        } while (claimId != 999L);
+        return claimIds;
+    }
+
+    private void awaitSubscriberCount(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (streamService.getSubscriberCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(streamService.getSubscriberCount()).isEqualTo(expected);
+    }
+
+    private static String render(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        return frame.stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining());
+    }
+
+    private static WarrantyClaimLifecycleEvent event(Long claimId, Long serviceCenterId, Long assigneeId,
+                                                     ClaimLifecycleEventType type) {
+        WarrantyClaimStatus status = switch (type) {
+            case ACCEPTED, ASSIGNED -> WarrantyClaimStatus.MANAGER_REVIEW;
+            case STARTED -> WarrantyClaimStatus.PROCESSING;
+            case COMPLETED -> WarrantyClaimStatus.COMPLETED;
+            case REJECTED -> WarrantyClaimStatus.REJECTED;
+            default -> WarrantyClaimStatus.SUBMITTED;
+        };
+        return new WarrantyClaimLifecycleEvent(type, claimId, status, serviceCenterId, assigneeId, LocalDateTime.now());
+    }
+
+    /**
+     * Emitter ghi lại từng frame được gửi (theo đúng instance Set nhận được); {@code blocked} giả lập client chậm.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> frames = new LinkedBlockingQueue<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch completedLatch = new CountDownLatch(1);
+        private volatile boolean broken;
+        private volatile boolean completed;
+        private volatile CountDownLatch blocked;
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws java.io.IOException {
+            if (broken) {
+                throw new java.io.IOException("Broken pipe");
+            }
+            frames.add(items);
+            sending.countDown();
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            completedLatch.countDown();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.repository.WorkLogRepository;
+import com.swp391.warrantymanagement.util.DateTimeUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bộ đếm giới hạn claim/ngày của technician: giới hạn phải đúng khi nhiều request bắt đầu xử lý cùng lúc,
+ * mỗi technician chỉ nạp từ DB một lần mỗi ngày, và bộ đếm chuyển sang ngày mới lúc nửa đêm giờ Việt Nam.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DailyClaimQuotaTracker Tests")
+class DailyClaimQuotaTrackerTest {
+
+    private static final int THREADS = 16;
+    private static final LocalDate TODAY = LocalDate.of(2025, 10, 17);
+
+    @Mock
+    private WorkLogRepository workLogRepository;
+
+    @InjectMocks
+    private DailyClaimQuotaTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker.setClock(clockAt(TODAY.atTime(9, 0)));
+    }
+
+    @Test
+    @DisplayName("Concurrent starts never exceed the daily limit and seed from the DB once")
+    void reserve_Concurrent_LimitHolds() throws Exception {
+        when(workLogRepository.countClaimsStartedByUserToday(eq(1L), any(), any())).thenReturn(3L);
+        int dailyLimit = 10;
+
+        int[] results = race(THREADS * 8, () -> tracker.reserve(1L, dailyLimit));
+
+        assertThat(results[0]).as("accepted").isEqualTo(dailyLimit - 3);
+        assertThat(results[1]).as("rejected").isEqualTo(THREADS * 8 - (dailyLimit - 3));
+        assertThat(tracker.startedToday(1L)).isEqualTo(dailyLimit);
+        verify(workLogRepository, times(1)).countClaimsStartedByUserToday(eq(1L), any(), any());
+    }
+
+    @Test
+    @DisplayName("Each technician is limited independently under concurrency")
+    void reserve_ManyTechnicians_IndependentLimits() throws Exception {
+        when(workLogRepository.countClaimsStartedByUserToday(anyLong(), any(), any())).thenReturn(0L);
+        int technicians = 40;
+        int dailyLimit = 5;
+        AtomicInteger next = new AtomicInteger();
+
+        int[] results = race(technicians * dailyLimit * 3,
+                () -> tracker.reserve((long) (next.getAndIncrement() % technicians), dailyLimit));
+
+        assertThat(results[0]).isEqualTo(technicians * dailyLimit);
+        for (long userId = 0; userId < technicians; userId++) {
+            assertThat(tracker.startedToday(userId)).isEqualTo(dailyLimit);
+        }
+    }
+
+    @Test
+    @DisplayName("A rolled back start gives its slot back")
+    void reserve_RolledBack_ReleasesSlot() {
+        when(workLogRepository.countClaimsStartedByUserToday(eq(1L), any(), any())).thenReturn(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(tracker.reserve(1L, 2)).isEqualTo(2);
+            assertThatThrownBy(() -> tracker.reserve(1L, 2))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("(2/2)");
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(tracker.startedToday(1L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Counters reset at local midnight and reseed from the new day's work logs")
+    void reserve_AfterMidnight_StartsNewDay() {
+        LocalDate tomorrow = TODAY.plusDays(1);
+        when(workLogRepository.countClaimsStartedByUserToday(eq(1L), eq(TODAY.atStartOfDay()), any())).thenReturn(2L);
+        when(workLogRepository.countClaimsStartedByUserToday(eq(1L), eq(tomorrow.atStartOfDay()), any())).thenReturn(0L);
+
+        tracker.setClock(clockAt(TODAY.atTime(23, 59, 59)));
+        assertThatThrownBy(() -> tracker.reserve(1L, 2)).isInstanceOf(IllegalStateException.class);
+
+        tracker.setClock(clockAt(tomorrow.atStartOfDay()));
+        assertThat(tracker.reserve(1L, 2)).isEqualTo(1);
+        verify(workLogRepository).countClaimsStartedByUserToday(1L, tomorrow.atStartOfDay(),
+                tomorrow.atStartOfDay().plusDays(1).minusSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Invalidation reseeds the counter from the DB")
+    void invalidate_Reseeds() {
+        when(workLogRepository.countClaimsStartedByUserToday(eq(1L), any(), any())).thenReturn(1L, 4L);
+
+        assertThat(tracker.startedToday(1L)).isEqualTo(1);
+        tracker.invalidate(1L);
+        assertThat(tracker.startedToday(1L)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Reload picks up claims started on another node before reserving")
+    void reload_SeesOtherNodes() {
+        when(workLogRepository.countClaimsStartedByUserToday(eq(1L), any(), any())).thenReturn(1L, 3L);
+        assertThat(tracker.reserve(1L, 3)).isEqualTo(2);
+
+        // Node khác đã bắt đầu thêm claim: DB có 3, cache của node này vẫn là 2
+        assertThat(tracker.reload(1L)).isEqualTo(3);
+        assertThatThrownBy(() -> tracker.reserve(1L, 3)).isInstanceOf(IllegalStateException.class);
+        assertThat(tracker.startedToday(1L)).isEqualTo(3);
+    }
+
+    /**
+     * Chạy {@code attempts} lần {@code reserve} trên {@link #THREADS} thread xuất phát cùng lúc.
+     *
+     * @return {số lần được chấp nhận, số lần bị từ chối}
+     */
+    private int[] race(int attempts, Runnable reserve) throws Exception {
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attempts / THREADS; i++) {
+                        try {
+                            reserve.run();
+                            accepted.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return new int[]{accepted.get(), rejected.get()};
+    }
+
+    private static Clock clockAt(LocalDateTime localDateTime) {
+        return Clock.fixed(localDateTime.atZone(DateTimeUtil.VIETNAM_ZONE).toInstant(), DateTimeUtil.VIETNAM_ZONE);
+    }
+}
@@ -0,0 +1,182 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.projection.CustomerListView;
+import com.swp391.warrantymanagement.dto.projection.VehicleListView;
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.ServiceHistory;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link FullTextSearchIndex} trên H2: thay đổi commit qua Hibernate (listener post-commit) có mặt ở lần tìm kiếm kế
+ * tiếp, kể cả lan truyền User → Customer và Vehicle → ServiceHistory; thay đổi không đi qua listener (như từ node khác)
+ * xuất hiện sau lượt đối soát.
+ */
+@DataJpaTest
+@Import(FullTextSearchIndex.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.datasource.url=jdbc:h2:mem:search_index;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "search-index.enabled=true"
+})
+@DisplayName("FullTextSearchIndex Tests")
+class FullTextSearchIndexTest {
+
+    private static final Pageable PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private FullTextSearchIndex searchIndex;
+
+    private TransactionTemplate transactionTemplate;
+    private String suffix;
+    private Long userId;
+    private UUID customerId;
+    private Long vehicleId;
+    private Long serviceHistoryId;
+    private Long partId;
+
+    @BeforeEach
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        suffix = UUID.randomUUID().toString().substring(0, 8);
+        transactionTemplate.executeWithoutResult(status -> {
+            Role role = new Role();
+            role.setRoleName("CUSTOMER_" + suffix);
+            entityManager.persist(role);
+
+            User user = new User();
+            user.setUsername("owner" + suffix);
+            user.setEmail("owner" + suffix + "@example.com");
+            user.setPassword("{noop}secret");
+            user.setRole(role);
+            entityManager.persist(user);
+            userId = user.getUserId();
+
+            Customer customer = new Customer();
+            customer.setCustomerId(UUID.randomUUID());
+            customer.setName("Nguyễn Văn " + suffix);
+            customer.setPhone(suffix.substring(0, 8));
+            customer.setUser(user);
+            entityManager.persist(customer);
+            customerId = customer.getCustomerId();
+
+            Vehicle vehicle = new Vehicle();
+            vehicle.setVehicleName("VF8 " + suffix);
+            vehicle.setVehicleModel("VF8");
+            vehicle.setVehicleYear(2024);
+            vehicle.setVehicleVin("VIN" + suffix);
+            vehicle.setPurchaseDate(LocalDate.of(2024, 1, 1));
+            vehicle.setWarrantyStartDate(LocalDate.of(2024, 1, 1));
+            vehicle.setWarrantyEndDate(LocalDate.of(2034, 1, 1));
+            vehicle.setMileage(1000);
+            vehicle.setCustomer(customer);
+            entityManager.persist(vehicle);
+            vehicleId = vehicle.getVehicleId();
+
+            ServiceHistory serviceHistory = new ServiceHistory();
+            serviceHistory.setServiceDate(LocalDate.of(2025, 1, 1));
+            serviceHistory.setServiceType("Bảo dưỡng định kỳ");
+            serviceHistory.setVehicle(vehicle);
+            entityManager.persist(serviceHistory);
+            serviceHistoryId = serviceHistory.getServiceHistoryId();
+
+            Part part = new Part();
+            part.setPartName("Pin " + suffix);
+            part.setPartNumber("BAT-" + suffix);
+            part.setManufacturer("VinES");
+            part.setPrice(new BigDecimal("1000.00"));
+            entityManager.persist(part);
+            partId = part.getPartId();
+        });
+    }
+
+    @Test
+    @DisplayName("Committed Hibernate changes show up on the next search, including user→customer and vehicle→history")
+    void search_AppliesPendingChangesFromListener() {
+        // Lần tìm đầu tiên nạp index (dữ liệu seed có mặt dù commit trước khi nạp)
+        assertThat(searchIndex.searchCustomers("owner" + suffix, PAGE).getContent())
+                .extracting(CustomerListView::customerId).containsExactly(customerId);
+
+        transactionTemplate.executeWithoutResult(status ->
+                entityManager.find(User.class, userId).setEmail("renamed" + suffix + "@example.com"));
+        transactionTemplate.executeWithoutResult(status ->
+                entityManager.find(Vehicle.class, vehicleId).setVehicleVin("NEWVIN" + suffix));
+
+        // User đổi email → customer của user được làm mới
+        assertThat(searchIndex.searchCustomers("renamed" + suffix, PAGE).getContent())
+                .extracting(CustomerListView::customerId).containsExactly(customerId);
+        assertThat(searchIndex.searchCustomers("owner" + suffix + "@", PAGE).getContent()).isEmpty();
+        // Vehicle đổi VIN → xe và service history của xe được làm mới
+        assertThat(searchIndex.searchVehicles("newvin" + suffix, PAGE).getContent())
+                .extracting(VehicleListView::vehicleId).containsExactly(vehicleId);
+        assertThat(searchIndex.searchServiceHistories("newvin" + suffix, PAGE).getContent())
+                .extracting(ServiceHistory::getServiceHistoryId).containsExactly(serviceHistoryId);
+
+        // Insert và delete
+        Long addedPartId = transactionTemplate.execute(status -> {
+            Part part = new Part();
+            part.setPartName("Bộ sạc " + suffix);
+            part.setPartNumber("CHG-" + suffix);
+            part.setManufacturer("VinES");
+            part.setPrice(new BigDecimal("200.00"));
+            entityManager.persist(part);
+            return part.getPartId();
+        });
+        assertThat(searchIndex.searchParts("bo sac " + suffix, PAGE).getContent())
+                .extracting(Part::getPartId).containsExactly(addedPartId);
+        transactionTemplate.executeWithoutResult(status -> entityManager.remove(entityManager.find(Part.class, addedPartId)));
+        assertThat(searchIndex.searchParts("bo sac " + suffix, PAGE).getTotalElements()).isZero();
+    }
+
+    @Test
+    @DisplayName("Changes that bypass the listener (another node) show up after reconcile")
+    void reconcile_PicksUpChangesMadeElsewhere() {
+        assertThat(searchIndex.searchParts("pin " + suffix, PAGE).getContent())
+                .extracting(Part::getPartId).containsExactly(partId);
+
+        // Native SQL không đi qua Hibernate listener: giống thay đổi commit ở node khác
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createNativeQuery("UPDATE parts SET part_name = ? WHERE part_id = ?")
+                .setParameter(1, "Phanh " + suffix)
+                .setParameter(2, partId)
+                .executeUpdate());
+        assertThat(searchIndex.searchParts("phanh " + suffix, PAGE).getTotalElements()).isZero();
+
+        searchIndex.reconcile();
+
+        assertThat(searchIndex.searchParts("phanh " + suffix, PAGE).getContent())
+                .extracting(Part::getPartId).containsExactly(partId);
+        assertThat(searchIndex.searchParts("pin " + suffix, PAGE).getTotalElements()).isZero();
+    }
+}
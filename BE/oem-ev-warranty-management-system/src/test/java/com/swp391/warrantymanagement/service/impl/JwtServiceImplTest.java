@@ -0,0 +1,80 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache claims đã xác thực: token lặp lại không phải verify lại, và số entry luôn bị giới hạn.
+ */
+@DisplayName("JwtServiceImpl Tests")
+class JwtServiceImplTest {
+
+    private static final int MAX_SIZE = 50;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JwtServiceImpl jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtServiceImpl(meterRegistry);
+        ReflectionTestUtils.setField(jwtService, "secretKey", Base64.getEncoder()
+                .encodeToString("test-secret-key-with-at-least-256-bits!!".getBytes(StandardCharsets.UTF_8)));
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", MAX_SIZE);
+        jwtService.initClaimsCache();
+    }
+
+    @Test
+    @DisplayName("A repeated token is served from cache")
+    void verifyToken_CachedUntilExpiry() {
+        String token = jwtService.generateToken(user(1L));
+
+        JwtService.VerifiedToken first = jwtService.verifyToken(token);
+        assertThat(jwtService.verifyToken(token)).isSameAs(first);
+        assertThat(first.getUserId()).isEqualTo(1L);
+        assertThat(first.getRole()).isEqualTo("SC_STAFF");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "jwtClaims").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("The cache never grows past jwt.claims-cache.max-size")
+    void verifyToken_BoundedSize() {
+        List<String> tokens = new ArrayList<>();
+        for (long userId = 1; userId <= MAX_SIZE * 4; userId++) {
+            String token = jwtService.generateToken(user(userId));
+            tokens.add(token);
+            jwtService.verifyToken(token);
+        }
+
+        Cache<?, ?> cache = (Cache<?, ?>) ReflectionTestUtils.getField(jwtService, "verifiedTokenCache");
+        cache.cleanUp();
+        assertThat(cache.estimatedSize()).isLessThanOrEqualTo(MAX_SIZE);
+        // Token bị loại khỏi cache vẫn được verify lại bình thường
+        assertThat(jwtService.verifyToken(tokens.get(0)).getUserId()).isEqualTo(1L);
+    }
+
+    private static User user(Long id) {
+        Role role = new Role();
+        role.setRoleName("SC_STAFF");
+        User user = new User();
+        user.setUserId(id);
+        user.setUsername("user" + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,389 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.swp391.warrantymanagement.dto.request.MileageIngestionRequestDTO;
+import com.swp391.warrantymanagement.dto.request.MileageReadingDTO;
+import com.swp391.warrantymanagement.dto.response.MileageIngestionResponseDTO;
+import com.swp391.warrantymanagement.dto.response.MileageReadingRejectionDTO;
+import com.swp391.warrantymanagement.enums.MileageReadingRejectionReason;
+import com.swp391.warrantymanagement.repository.VehicleMileageBulkRepository;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.MileageSample;
+import com.swp391.warrantymanagement.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Ingest số km trên H2 (MODE=MySQL): gom về số đo mới nhất mỗi xe, từ chối km giảm (trong bộ nhớ và bằng điều kiện
+ * của câu UPDATE), ghi đồng thời từ nhiều thread vẫn cho km đơn điệu, và số đo đã ghi đi vào lịch sử km.
+ */
+@DisplayName("MileageIngestionServiceImpl Tests")
+class MileageIngestionServiceImplTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.now().minusDays(1);
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private VehicleMileageHistoryServiceImpl historyService;
+    private MileageIngestionServiceImpl ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:mileage_ingestion;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE vehicles (vehicle_id BIGINT PRIMARY KEY, vehicle_vin VARCHAR(50) NOT NULL UNIQUE, " +
+                "mileage INT NOT NULL)");
+        jdbcTemplate.execute(VehicleMileageHistoryServiceImplTest.CREATE_HISTORY_TABLE_SQL);
+
+        meterRegistry = new SimpleMeterRegistry();
+        historyService = new VehicleMileageHistoryServiceImpl(
+                new VehicleMileageHistoryRepository(jdbcTemplate), mock(VehicleRepository.class));
+        ingestionService = new MileageIngestionServiceImpl(
+                new VehicleMileageBulkRepository(jdbcTemplate),
+                historyService,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                meterRegistry);
+        ReflectionTestUtils.setField(ingestionService, "batchSize", 64);
+        ReflectionTestUtils.setField(ingestionService, "maxPending", 100_000);
+        ReflectionTestUtils.setField(ingestionService, "maxClockSkewSeconds", 300L);
+        ReflectionTestUtils.setField(ingestionService, "highWaterMaxSize", 100_000L);
+        ReflectionTestUtils.setField(ingestionService, "maxPendingHistory", 100_000);
+        ingestionService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Out-of-order readings should coalesce to the latest reading per vehicle in one flush")
+    void ingest_CoalescesToLatestReading() {
+        seedVehicles(200, 1_000);
+        Random random = new Random(20261017L);
+        List<MileageReadingDTO> readings = new ArrayList<>();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int vehicle = 1; vehicle <= 200; vehicle++) {
+            int mileage = 1_000;
+            for (int step = 0; step < 20; step++) {
+                mileage += random.nextInt(50);
+                readings.add(new MileageReadingDTO(vin(vehicle), mileage, BASE_TIME.plusMinutes(step)));
+            }
+            expected.put(vin(vehicle), mileage);
+        }
+        Collections.shuffle(readings, random);
+        // VIN không phân biệt hoa thường, có khoảng trắng
+        readings.add(new MileageReadingDTO("  " + vin(1).toLowerCase() + " ", 500, BASE_TIME.minusHours(1)));
+
+        MileageIngestionResponseDTO response = ingestionService.ingest(readings);
+
+        assertThat(response.getReceived()).isEqualTo(readings.size());
+        assertThat(response.getRejected()).isZero();
+        assertThat(response.getAccepted() + response.getSuperseded()).isEqualTo(readings.size());
+        assertThat(ingestionService.pendingCount()).isEqualTo(200);
+
+        assertThat(ingestionService.flush()).isEqualTo(200);
+        assertThat(ingestionService.pendingCount()).isZero();
+        assertThat(loadMileages()).isEqualTo(expected);
+        assertThat(meterRegistry.get("vehicle.mileage.ingestion.flush").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Regressions should be rejected in memory, after flush and by the UPDATE guard")
+    void ingest_RejectsRegressions() {
+        seedVehicles(3, 1_000);
+        jdbcTemplate.update("UPDATE vehicles SET mileage = 90000 WHERE vehicle_vin = ?", vin(3));
+
+        MileageIngestionResponseDTO first = ingestionService.ingest(List.of(
+                new MileageReadingDTO(vin(1), 5_000, BASE_TIME.plusHours(2)),
+                new MileageReadingDTO(vin(1), 4_000, BASE_TIME.plusHours(3)),   // mới hơn nhưng km thấp hơn
+                new MileageReadingDTO(vin(1), 6_000, BASE_TIME.plusHours(1)),   // cũ hơn nhưng km cao hơn
+                new MileageReadingDTO(vin(1), 4_500, BASE_TIME.plusHours(1)),   // đến trễ, nhất quán
+                new MileageReadingDTO(vin(2), -1, BASE_TIME),
+                new MileageReadingDTO(" ", 10, BASE_TIME),
+                new MileageReadingDTO(vin(2), 2_000, LocalDateTime.now().plusDays(1)),
+                new MileageReadingDTO(vin(3), 2_000, BASE_TIME),                // DB đã 90,000 km
+                new MileageReadingDTO("UNKNOWN-VIN", 10, BASE_TIME)));
+
+        assertThat(first.getAccepted()).isEqualTo(3);
+        assertThat(first.getSuperseded()).isEqualTo(1);
+        assertThat(first.getRejections())
+                .extracting(MileageReadingRejectionDTO::getIndex, MileageReadingRejectionDTO::getReason)
+                .containsExactly(
+                        tuple(1, MileageReadingRejectionReason.REGRESSION),
+                        tuple(2, MileageReadingRejectionReason.REGRESSION),
+                        tuple(4, MileageReadingRejectionReason.INVALID),
+                        tuple(5, MileageReadingRejectionReason.INVALID),
+                        tuple(6, MileageReadingRejectionReason.FUTURE_TIMESTAMP));
+
+        assertThat(ingestionService.flush()).isEqualTo(1);
+        assertThat(loadMileages()).containsEntry(vin(1), 5_000).containsEntry(vin(3), 90_000);
+        assertThat(meterRegistry.get("vehicle.mileage.ingestion.flush.skipped").counter().count()).isEqualTo(2.0);
+
+        // Sau flush, số đo đã ghi vẫn là mốc để từ chối km giảm
+        MileageIngestionResponseDTO second = ingestionService.ingest(List.of(
+                new MileageReadingDTO(vin(1), 4_999, BASE_TIME.plusHours(4)),
+                new MileageReadingDTO(vin(1), 5_100, BASE_TIME.plusHours(4))));
+        assertThat(second.getRejections()).extracting(MileageReadingRejectionDTO::getReason)
+                .containsExactly(MileageReadingRejectionReason.REGRESSION);
+        assertThat(ingestionService.flush()).isEqualTo(1);
+        assertThat(loadMileages()).containsEntry(vin(1), 5_100);
+
+        // Lịch sử km (job riêng): chỉ các số đo đã ghi vào vehicles, theo thời điểm đo
+        assertThat(historyService.findMileageAsOf(1L, BASE_TIME.plusHours(5))).isEmpty();
+        assertThat(ingestionService.pendingHistoryCount()).isEqualTo(2);
+        assertThat(ingestionService.flushHistory()).isEqualTo(2);
+        assertThat(ingestionService.pendingHistoryCount()).isZero();
+        assertThat(historyService.findMileageAsOf(1L, BASE_TIME.plusHours(3)))
+                .map(MileageSample::mileage).contains(5_000);
+        assertThat(historyService.findMileageAsOf(1L, BASE_TIME.plusHours(5)))
+                .map(MileageSample::mileage).contains(5_100);
+        assertThat(historyService.findMileageAsOf(1L, BASE_TIME.plusHours(1))).isEmpty();
+        assertThat(historyService.findMileageAsOf(3L, BASE_TIME.plusHours(5))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("New vehicles should be rejected with BUFFER_FULL once max-pending is reached")
+    void ingest_RejectsWhenBufferFull() {
+        ReflectionTestUtils.setField(ingestionService, "maxPending", 2);
+
+        MileageIngestionResponseDTO response = ingestionService.ingest(List.of(
+                new MileageReadingDTO(vin(1), 10, BASE_TIME),
+                new MileageReadingDTO(vin(2), 10, BASE_TIME),
+                new MileageReadingDTO(vin(3), 10, BASE_TIME),
+                new MileageReadingDTO(vin(1), 20, BASE_TIME.plusMinutes(1)))); // xe đã có trong bộ đệm
+
+        assertThat(response.getAccepted()).isEqualTo(3);
+        assertThat(response.getRejections()).extracting(MileageReadingRejectionDTO::getReason)
+                .containsExactly(MileageReadingRejectionReason.BUFFER_FULL);
+    }
+
+    @Test
+    @DisplayName("Concurrent ingestion with interleaved flushes should persist each vehicle's maximum mileage")
+    void ingest_ConcurrentWithFlushes() throws Exception {
+        int vehicleCount = 500;
+        seedVehicles(vehicleCount, 0);
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            List<Map<String, Integer>> maxima = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Map<String, Integer> maximum = new HashMap<>();
+                maxima.add(maximum);
+                producers.add(executor.submit(() -> {
+                    Random random = new Random(thread);
+                    for (int batch = 0; batch < 50; batch++) {
+                        List<MileageReadingDTO> readings = new ArrayList<>();
+                        for (int i = 0; i < 200; i++) {
+                            int vehicle = 1 + random.nextInt(vehicleCount);
+                            // Km tăng theo thời gian: mọi số đo đều nhất quán, không bị coi là giảm
+                            int minute = batch * 1_000 + thread * 200 + i;
+                            readings.add(new MileageReadingDTO(vin(vehicle), minute, BASE_TIME.plusSeconds(minute)));
+                            maximum.merge(vin(vehicle), minute, Math::max);
+                        }
+                        assertThat(ingestionService.ingest(readings).getRejected()).isZero();
+                    }
+                }));
+            }
+            Future<?> flusher = executor.submit(() -> {
+                while (producers.stream().anyMatch(future -> !future.isDone())) {
+                    ingestionService.flush();
+                }
+            });
+            Future<?> historyFlusher = executor.submit(() -> {
+                while (!flusher.isDone()) {
+                    ingestionService.flushHistory();
+                }
+            });
+            for (Future<?> producer : producers) {
+                producer.get();
+            }
+            flusher.get();
+            historyFlusher.get();
+            ingestionService.flush();
+            ingestionService.flushHistory();
+
+            Map<String, Integer> expected = new HashMap<>();
+            for (Map<String, Integer> maximum : maxima) {
+                maximum.forEach((vin, mileage) -> expected.merge(vin, mileage, Math::max));
+            }
+            Map<String, Integer> actual = loadMileages();
+            actual.values().removeIf(mileage -> mileage == 0);
+            assertThat(actual).isEqualTo(expected);
+            assertThat(ingestionService.pendingCount()).isZero();
+            // Lịch sử ghi song song với flush km vẫn giữ thứ tự thời gian: điểm cuối là km cao nhất
+            for (int vehicle = 1; vehicle <= vehicleCount; vehicle++) {
+                Integer mileage = expected.get(vin(vehicle));
+                assertThat(historyService.findMileageAsOf((long) vehicle, LocalDateTime.now()).map(MileageSample::mileage))
+                        .as("vehicle %d", vehicle)
+                        .isEqualTo(Optional.ofNullable(mileage));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Benchmark (opt-in): parse JSON + ingest từ nhiều thread, flush xuống H2 và ghi lịch sử (job riêng).
+     * Kiểm tra flush theo kịp 50,000 số đo/s: số xe của một chu kỳ flush được ghi xong trong một chu kỳ (trung vị 3 lần).
+     * Chạy: {@code mvn test -Dtest=MileageIngestionServiceImplTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: ingestion throughput vs the 50k readings/s target")
+    void benchmark_IngestionThroughput() throws Exception {
+        int vehicleCount = 50_000;
+        int threads = 4;
+        int batchesPerThread = 100;
+        int batchSize = MileageIngestionRequestDTO.MAX_ITEMS;
+        seedVehicles(vehicleCount, 0);
+        ReflectionTestUtils.setField(ingestionService, "batchSize", 1000);
+
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        LocalDateTime baseTime = LocalDateTime.now().minusDays(30); // 100 batch x 5000 giây < 30 ngày
+        List<List<byte[]>> payloads = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(t);
+            List<byte[]> batches = new ArrayList<>();
+            payloads.add(batches);
+            for (int b = 0; b < batchesPerThread; b++) {
+                List<MileageReadingDTO> readings = new ArrayList<>(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    int second = b * batchSize + i;
+                    readings.add(new MileageReadingDTO(vin(1 + random.nextInt(vehicleCount)), second,
+                            baseTime.plusSeconds(second)));
+                }
+                MileageIngestionRequestDTO request = new MileageIngestionRequestDTO();
+                request.setReadings(readings);
+                batches.add(objectMapper.writeValueAsBytes(request));
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long startNanos = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<byte[]> batches = payloads.get(t);
+                futures.add(executor.submit(() -> {
+                    for (byte[] payload : batches) {
+                        MileageIngestionRequestDTO request = objectMapper.readValue(payload, MileageIngestionRequestDTO.class);
+                        ingestionService.ingest(request.getReadings());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double ingestSeconds = (System.nanoTime() - startNanos) / 1e9;
+        long readings = (long) threads * batchesPerThread * batchSize;
+
+        int pending = ingestionService.pendingCount();
+        long flushStart = System.nanoTime();
+        int updated = ingestionService.flush();
+        double flushSeconds = (System.nanoTime() - flushStart) / 1e9;
+        long historyStart = System.nanoTime();
+        int recorded = ingestionService.flushHistory();
+        double historySeconds = (System.nanoTime() - historyStart) / 1e9;
+
+        // Trạng thái ổn định: số đo của một chu kỳ flush (2 giây ở 50,000 số đo/s) phải ghi xong trong một chu kỳ,
+        // nếu không pending tăng dần tới max-pending và số đo bị từ chối BUFFER_FULL
+        long flushIntervalMillis = 2_000;
+        int intervalReadings = (int) (50_000 * flushIntervalMillis / 1_000);
+        int intervals = 3;
+        Random random = new Random(threads);
+        int[] intervalPending = new int[intervals];
+        int[] intervalUpdated = new int[intervals];
+        double[] intervalSeconds = new double[intervals];
+        for (int round = 0; round < intervals; round++) {
+            List<MileageReadingDTO> interval = new ArrayList<>(intervalReadings);
+            for (int i = 0; i < intervalReadings; i++) {
+                int second = batchesPerThread * batchSize + round * intervalReadings + i;
+                interval.add(new MileageReadingDTO(vin(1 + random.nextInt(vehicleCount)), second, baseTime.plusSeconds(second)));
+            }
+            for (int from = 0; from < interval.size(); from += batchSize) {
+                ingestionService.ingest(interval.subList(from, Math.min(from + batchSize, interval.size())));
+            }
+            intervalPending[round] = ingestionService.pendingCount();
+            long intervalStart = System.nanoTime();
+            intervalUpdated[round] = ingestionService.flush();
+            intervalSeconds[round] = (System.nanoTime() - intervalStart) / 1e9;
+            ingestionService.flushHistory();
+        }
+        double[] sortedSeconds = intervalSeconds.clone();
+        Arrays.sort(sortedSeconds);
+        double medianSeconds = sortedSeconds[intervals / 2];
+
+        System.out.printf("Mileage ingestion: %d readings, %d threads, parse+ingest %.2f s = %,.0f readings/s (target 50,000)%n",
+                readings, threads, ingestSeconds, readings / ingestSeconds);
+        System.out.printf("Mileage flush (cold): %d pending vehicles -> %d updated in %.2f s (H2) = %,.0f rows/s%n",
+                pending, updated, flushSeconds, updated / flushSeconds);
+        System.out.printf("Mileage history (separate job): %d readings -> %d points in %.2f s (H2) = %,.0f points/s%n",
+                updated, recorded, historySeconds, recorded / historySeconds);
+        for (int round = 0; round < intervals; round++) {
+            System.out.printf("Mileage flush (interval %d at 50,000 readings/s): %d pending vehicles -> %d updated in %.2f s "
+                            + "(H2, budget %.1f s) = %,.0f rows/s%n",
+                    round + 1, intervalPending[round], intervalUpdated[round], intervalSeconds[round],
+                    flushIntervalMillis / 1e3, intervalUpdated[round] / intervalSeconds[round]);
+        }
+        assertThat(updated).isEqualTo(pending);
+        assertThat(recorded).isEqualTo(updated);
+        assertThat(intervalUpdated).isEqualTo(intervalPending);
+        assertThat(medianSeconds * 1_000).isLessThan(flushIntervalMillis);
+    }
+
+    private void seedVehicles(int count, int mileage) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int vehicle = 1; vehicle <= count; vehicle++) {
+            rows.add(new Object[]{(long) vehicle, vin(vehicle), mileage});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO vehicles (vehicle_id, vehicle_vin, mileage) VALUES (?, ?, ?)", rows);
+    }
+
+    private Map<String, Integer> loadMileages() {
+        Map<String, Integer> mileages = new HashMap<>();
+        jdbcTemplate.query("SELECT vehicle_vin, mileage FROM vehicles",
+                rs -> {
+                    mileages.put(rs.getString("vehicle_vin"), rs.getInt("mileage"));
+                });
+        return mileages;
+    }
+
+    private static String vin(int vehicle) {
+        return String.format("VF8TEST%010d", vehicle);
+    }
+}
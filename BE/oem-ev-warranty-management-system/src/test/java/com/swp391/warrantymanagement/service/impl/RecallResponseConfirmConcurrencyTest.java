@@ -0,0 +1,205 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.request.RecallResponseConfirmDTO;
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.RecallCampaignStats;
+import com.swp391.warrantymanagement.entity.RecallRequest;
+import com.swp391.warrantymanagement.entity.RecallResponse;
+import com.swp391.warrantymanagement.entity.Role;
+import com.swp391.warrantymanagement.entity.User;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.enums.RecallRequestStatus;
+import com.swp391.warrantymanagement.enums.RecallResponseStatus;
+import com.swp391.warrantymanagement.repository.RecallCampaignStatsRepository;
+import com.swp391.warrantymanagement.repository.RecallRequestRepository;
+import com.swp391.warrantymanagement.repository.RecallResponseRepository;
+import com.swp391.warrantymanagement.service.RecallResponseService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Xác nhận đồng thời cùng một RecallResponse (ACCEPT lẫn DECLINE): đúng một lần thành công, bộ đếm pending chỉ giảm
+ * một, campaign không COMPLETED sớm và response DECLINED không có claim đi kèm.
+ */
+@DataJpaTest
+@Import({RecallResponseServiceImpl.class, RecallCampaignStatsServiceImpl.class, TechnicianAssignmentEngine.class,
+        DailyClaimQuotaTracker.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.datasource.url=jdbc:h2:mem:recall_confirm;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;LOCK_TIMEOUT=10000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@DisplayName("Concurrent recall response confirmation")
+class RecallResponseConfirmConcurrencyTest {
+
+    private static final int CONFIRMERS = 8;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecallResponseService recallResponseService;
+
+    @Autowired
+    private RecallResponseRepository recallResponseRepository;
+
+    @Autowired
+    private RecallRequestRepository recallRequestRepository;
+
+    @Autowired
+    private RecallCampaignStatsRepository recallCampaignStatsRepository;
+
+    @Test
+    @DisplayName("Racing ACCEPT and DECLINE on one response count a single transition")
+    void customerConfirmResponse_ConcurrentConfirmsCountedOnce() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        List<Long> responseIds = new ArrayList<>();
+        Long recallRequestId = transactionTemplate.execute(status -> {
+            Role role = new Role();
+            role.setRoleName("CUSTOMER_" + suffix);
+            entityManager.persist(role);
+
+            User owner = new User();
+            owner.setUsername("owner_" + suffix);
+            owner.setEmail("owner_" + suffix + "@example.com");
+            owner.setPassword("{noop}secret");
+            owner.setRole(role);
+            entityManager.persist(owner);
+
+            Customer customer = new Customer();
+            customer.setCustomerId(UUID.randomUUID());
+            customer.setName("Owner");
+            customer.setPhone("0901234567");
+            customer.setUser(owner);
+            entityManager.persist(customer);
+
+            Part part = new Part();
+            part.setPartName("Battery Pack");
+            part.setPartNumber("BAT-" + suffix);
+            part.setManufacturer("VinES");
+            part.setPrice(new BigDecimal("1000.00"));
+            entityManager.persist(part);
+
+            RecallRequest recallRequest = new RecallRequest();
+            recallRequest.setPart(part);
+            recallRequest.setReason("Cell defect");
+            recallRequest.setStatus(RecallRequestStatus.WAITING_CUSTOMER_CONFIRM);
+            recallRequest.setCreatedBy(owner);
+            recallRequest.setCreatedAt(LocalDateTime.now());
+            entityManager.persist(recallRequest);
+
+            // Hai xe: campaign chỉ COMPLETED khi CẢ HAI đã phản hồi
+            for (int i = 0; i < 2; i++) {
+                Vehicle vehicle = new Vehicle();
+                vehicle.setVehicleName("VF8 #" + i);
+                vehicle.setVehicleModel("VF8");
+                vehicle.setVehicleYear(2024);
+                vehicle.setVehicleVin(suffix + String.format("%08d", i));
+                vehicle.setPurchaseDate(LocalDate.of(2024, 1, 1));
+                vehicle.setWarrantyStartDate(LocalDate.of(2024, 1, 1));
+                vehicle.setWarrantyEndDate(LocalDate.of(2034, 1, 1));
+                vehicle.setMileage(1000);
+                vehicle.setCustomer(customer);
+                entityManager.persist(vehicle);
+
+                InstalledPart installedPart = new InstalledPart();
+                installedPart.setPart(part);
+                installedPart.setVehicle(vehicle);
+                installedPart.setInstallationDate(LocalDate.of(2024, 1, 1));
+                installedPart.setWarrantyExpirationDate(LocalDate.of(2032, 1, 1));
+                installedPart.setMileageAtInstallation(0);
+                entityManager.persist(installedPart);
+
+                RecallResponse response = new RecallResponse();
+                response.setRecallRequest(recallRequest);
+                response.setVehicle(vehicle);
+                response.setStatus(RecallResponseStatus.PENDING);
+                response.setCreatedAt(LocalDateTime.now());
+                entityManager.persist(response);
+                responseIds.add(response.getRecallResponseId());
+            }
+
+            RecallCampaignStats stats = new RecallCampaignStats(recallRequest.getRecallRequestId());
+            stats.increment(RecallResponseStatus.PENDING, 2);
+            entityManager.persist(stats);
+            return recallRequest.getRecallRequestId();
+        });
+
+        Long responseId = responseIds.get(0);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(CONFIRMERS);
+        ExecutorService executor = Executors.newFixedThreadPool(CONFIRMERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CONFIRMERS; i++) {
+                RecallResponseConfirmDTO dto = new RecallResponseConfirmDTO();
+                dto.setAccepted(i % 2 == 0);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        recallResponseService.customerConfirmResponse(responseId, dto, "owner_" + suffix);
+                        succeeded.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(succeeded.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(CONFIRMERS - 1);
+        transactionTemplate.executeWithoutResult(status -> {
+            RecallResponse response = recallResponseRepository.findById(responseId).orElseThrow();
+            RecallCampaignStats stats = recallCampaignStatsRepository.findById(recallRequestId).orElseThrow();
+            assertThat(stats.getPendingCount()).isEqualTo(1);
+            assertThat(stats.getTotalCount()).isEqualTo(2);
+            assertThat(stats.getCount(response.getStatus())).isEqualTo(1);
+            assertThat(recallRequestRepository.findById(recallRequestId).orElseThrow().getStatus())
+                    .isEqualTo(RecallRequestStatus.WAITING_CUSTOMER_CONFIRM);
+
+            long claims = entityManager.createQuery(
+                            "SELECT COUNT(wc) FROM WarrantyClaim wc WHERE wc.recallResponse.recallResponseId = :id", Long.class)
+                    .setParameter("id", responseId)
+                    .getSingleResult();
+            assertThat(claims).isEqualTo(response.getStatus() == RecallResponseStatus.DECLINED ? 0 : 1);
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.repository.ServiceCenterRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ServiceCenterGeoIndex: kết quả phải trùng với brute-force Haversine trên toàn bộ tập điểm,
+ * kể cả gần kinh tuyến 180° và vùng cực.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ServiceCenterGeoIndex Tests")
+class ServiceCenterGeoIndexTest {
+
+    private static final int CENTER_COUNT = 2000;
+
+    @Mock
+    private ServiceCenterRepository serviceCenterRepository;
+
+    private ServiceCenterGeoIndex geoIndex;
+    private final List<double[]> points = new ArrayList<>(); // {id, lat, lon}
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= CENTER_COUNT; id++) {
+            // Một nửa tập trung quanh Việt Nam, một nửa rải khắp địa cầu
+            double lat = id % 2 == 0 ? 8 + random.nextDouble() * 15 : -90 + random.nextDouble() * 180;
+            double lon = id % 2 == 0 ? 102 + random.nextDouble() * 8 : -180 + random.nextDouble() * 360;
+            BigDecimal latitude = BigDecimal.valueOf(lat).setScale(6, RoundingMode.HALF_UP);
+            BigDecimal longitude = BigDecimal.valueOf(lon).setScale(6, RoundingMode.HALF_UP);
+            rows.add(new Object[]{id, latitude, longitude});
+            points.add(new double[]{id, latitude.doubleValue(), longitude.doubleValue()});
+        }
+        when(serviceCenterRepository.findAllCoordinates()).thenReturn(rows);
+
+        geoIndex = new ServiceCenterGeoIndex(serviceCenterRepository);
+        ReflectionTestUtils.setField(geoIndex, "cellSizeDegrees", 0.5);
+        geoIndex.reload();
+    }
+
+    @Test
+    @DisplayName("Radius query should match brute-force Haversine")
+    void findWithinRadius_MatchesBruteForce() {
+        double[][] queries = {{10.762622, 106.660172, 50}, {21.0285, 105.8542, 300}, {0, 179.9, 800},
+                {89.5, 10, 500}, {-89.9, -120, 2000}, {45, -179.99, 5000}};
+        for (double[] q : queries) {
+            List<Long> expected = bruteForce(q[0], q[1]).stream()
+                    .filter(p -> p[1] <= q[2])
+                    .map(p -> (long) p[0])
+                    .toList();
+
+            List<Long> actual = geoIndex.findWithinRadius(q[0], q[1], q[2]).stream()
+                    .map(ServiceCenterGeoIndex.Neighbor::getServiceCenterId)
+                    .toList();
+
+            assertThat(actual).as("query %s", Arrays.toString(q)).isEqualTo(expected);
+        }
+        verify(serviceCenterRepository, times(1)).findAllCoordinates();
+    }
+
+    @Test
+    @DisplayName("k-nearest query should match brute-force Haversine")
+    void findNearest_MatchesBruteForce() {
+        double[][] queries = {{10.762622, 106.660172}, {-33.86, 151.2}, {70, -179.5}};
+        for (double[] q : queries) {
+            List<Long> expected = bruteForce(q[0], q[1]).stream()
+                    .limit(10)
+                    .map(p -> (long) p[0])
+                    .toList();
+
+            List<Long> actual = geoIndex.findNearest(q[0], q[1], 10).stream()
+                    .map(ServiceCenterGeoIndex.Neighbor::getServiceCenterId)
+                    .toList();
+
+            assertThat(actual).isEqualTo(expected);
+        }
+        assertThat(geoIndex.findAllOrderedByDistance(0, 0).stream().map(ServiceCenterGeoIndex.Neighbor::getServiceCenterId))
+                .containsExactlyElementsOf(bruteForce(0, 0).stream().map(p -> (long) p[0]).toList());
+    }
+
+    // {id, distanceKm} sắp xếp theo khoảng cách
+    private List<double[]> bruteForce(double lat, double lon) {
+        List<double[]> result = new ArrayList<>();
+        for (double[] p : points) {
+            result.add(new double[]{p[0], ServiceCenterGeoIndex.haversineKm(lat, lon, p[1], p[2])});
+        }
+        result.sort(Comparator.comparingDouble(p -> p[1]));
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.response.ServiceCenterResponseDTO;
+import com.swp391.warrantymanagement.entity.ServiceCenter;
+import com.swp391.warrantymanagement.repository.ServiceCenterRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ServiceCenterServiceImpl statistics enrichment.
+ * <p>
+ * Số query thống kê trên mỗi lời gọi: trước đây 4 query cho mỗi center (200 center = 800 query),
+ * giờ cố định 2 grouped query bất kể số center.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ServiceCenterServiceImpl Statistics Tests")
+class ServiceCenterServiceImplTest {
+
+    private static final int CENTER_COUNT = 200;
+
+    @Mock
+    private ServiceCenterRepository serviceCenterRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ServiceCenterGeoIndex geoIndex;
+
+    @InjectMocks
+    private ServiceCenterServiceImpl serviceCenterService;
+
+    @Test
+    @DisplayName("Near-location search over 200 centers should load entities once and run 2 statistics queries")
+    void findServiceCentersNearLocation_UsesGroupedStatisticsQueries() {
+        // Arrange
+        List<ServiceCenter> centers = new ArrayList<>();
+        List<ServiceCenterGeoIndex.Neighbor> neighbors = new ArrayList<>();
+        for (long id = 1; id <= CENTER_COUNT; id++) {
+            ServiceCenter center = new ServiceCenter();
+            center.setServiceCenterId(id);
+            center.setName("SC " + id);
+            centers.add(center);
+            neighbors.add(new ServiceCenterGeoIndex.Neighbor(id, id * 0.1));
+        }
+        Collections.reverse(centers); // findAllById không đảm bảo thứ tự
+        when(geoIndex.findWithinRadius(anyDouble(), anyDouble(), anyDouble())).thenReturn(neighbors);
+        when(serviceCenterRepository.findAllById(anyCollection())).thenReturn(centers);
+        when(serviceCenterRepository.countStaffGroupedByServiceCenter(anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 5L}));
+        when(serviceCenterRepository.getClaimStatisticsGroupedByServiceCenter(anyCollection(), anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 12L, 3L, 4.5}));
+
+        // Act
+        List<ServiceCenterResponseDTO> result = serviceCenterService.findServiceCentersNearLocation(
+                new BigDecimal("10.762622"), new BigDecimal("106.660172"), 50.0);
+
+        // Assert - thứ tự và thống kê
+        assertThat(result).hasSize(CENTER_COUNT);
+        assertThat(result.get(0).getServiceCenterId()).isEqualTo(1L);
+        assertThat(result.get(0).getTotalStaff()).isEqualTo(5);
+        assertThat(result.get(0).getTotalClaims()).isEqualTo(12);
+        assertThat(result.get(0).getActiveClaims()).isEqualTo(3);
+        assertThat(result.get(0).getAverageRating()).isEqualTo(4.5);
+        assertThat(result.get(1).getServiceCenterId()).isEqualTo(2L);
+        assertThat(result.get(1).getTotalStaff()).isZero();
+        assertThat(result.get(1).getTotalClaims()).isZero();
+        assertThat(result.get(1).getAverageRating()).isEqualTo(0.0);
+
+        // Assert - số query
+        verify(serviceCenterRepository, times(1)).countStaffGroupedByServiceCenter(anyCollection());
+        verify(serviceCenterRepository, times(1)).getClaimStatisticsGroupedByServiceCenter(anyCollection(), anyCollection());
+        verify(serviceCenterRepository, never()).countStaffByServiceCenter(anyLong());
+        verify(serviceCenterRepository, never()).countClaimsByServiceCenter(anyLong());
+        verify(serviceCenterRepository, never()).countActiveClaimsByServiceCenter(anyLong());
+        verify(serviceCenterRepository, times(1)).findAllById(anyCollection());
+        verifyNoMoreInteractions(serviceCenterRepository);
+    }
+}
@@ -0,0 +1,158 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.projection.TechnicianLoadView;
+import com.swp391.warrantymanagement.repository.UserRepository;
+import com.swp391.warrantymanagement.repository.WorkLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bộ chọn technician cho claim recall: claim phải được chia đều theo tải, technician hết suất trong ngày bị xếp sau,
+ * và mỗi service center chỉ tốn một query dù có hàng nghìn claim.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TechnicianAssignmentEngine Tests")
+class TechnicianAssignmentEngineTest {
+
+    private static final Long CENTER_ID = 1L;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private WorkLogRepository workLogRepository;
+
+    private DailyClaimQuotaTracker tracker;
+    private TechnicianAssignmentEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new DailyClaimQuotaTracker(workLogRepository);
+        engine = new TechnicianAssignmentEngine(userRepository, tracker);
+        ReflectionTestUtils.setField(engine, "refreshSeconds", 300L);
+    }
+
+    @Test
+    @DisplayName("Claims go to the least-loaded technician and even out the load")
+    void pickTechnician_BalancesOpenClaims() {
+        stubCenter(CENTER_ID, List.of(
+                new TechnicianLoadView(10L, 5L, 0L),
+                new TechnicianLoadView(11L, 0L, 0L),
+                new TechnicianLoadView(12L, 2L, 0L)));
+
+        Map<Long, Long> picks = new HashMap<>();
+        for (int i = 0; i < 9; i++) {
+            engine.pickTechnician(CENTER_ID, 10).ifPresent(id -> picks.merge(id, 1L, Long::sum));
+        }
+
+        // Tải cuối cùng: 10 → 5+1, 11 → 0+5, 12 → 2+3 (hòa thì userId nhỏ hơn trước)
+        assertThat(picks).containsEntry(10L, 1L).containsEntry(11L, 5L).containsEntry(12L, 3L);
+        verify(userRepository, times(1)).findTechnicianLoads(eq(CENTER_ID), any(), any(), any(), any());
+        verify(workLogRepository, never()).countClaimsStartedByUserToday(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Technicians out of today's quota are picked only when nobody has headroom")
+    void pickTechnician_SaturatedLast() {
+        stubCenter(CENTER_ID, List.of(
+                new TechnicianLoadView(10L, 0L, 3L),
+                new TechnicianLoadView(11L, 4L, 1L)));
+
+        assertThat(engine.pickTechnician(CENTER_ID, 3)).contains(11L);
+
+        // Technician 11 tự bắt đầu xử lý 2 claim → hết suất; engine phát hiện khi lấy đỉnh heap
+        tracker.reserve(11L, 3);
+        tracker.reserve(11L, 3);
+        assertThat(engine.pickTechnician(CENTER_ID, 3)).contains(10L);
+    }
+
+    @Test
+    @DisplayName("A center without technicians yields no assignee")
+    void pickTechnician_NoTechnicians() {
+        stubCenter(CENTER_ID, List.of());
+
+        assertThat(engine.pickTechnician(CENTER_ID, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A technician removed from the center is not picked after invalidate")
+    void invalidate_ReloadsCenter() {
+        when(userRepository.findTechnicianLoads(eq(CENTER_ID), any(), any(), any(), any()))
+                .thenReturn(List.of(new TechnicianLoadView(10L, 0L, 0L), new TechnicianLoadView(11L, 3L, 0L)))
+                .thenReturn(List.of(new TechnicianLoadView(11L, 3L, 0L)));
+
+        assertThat(engine.pickTechnician(CENTER_ID, 10)).contains(10L);
+        engine.invalidate(CENTER_ID);
+
+        assertThat(engine.pickTechnician(CENTER_ID, 10)).contains(11L);
+        verify(userRepository, times(2)).findTechnicianLoads(eq(CENTER_ID), any(), any(), any(), any());
+    }
+
+    /**
+     * Mô phỏng một đợt recall: {@code centers} trung tâm x {@code techsPerCenter} technician, {@code claims} claim phân
+     * ngẫu nhiên vào các trung tâm. So sánh với cách quét từng ứng viên (2 query mỗi technician mỗi claim).
+     * Chạy: {@code mvn test -Dtest=TechnicianAssignmentEngineTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: recall burst assignment")
+    void benchmark_RecallBurst() {
+        int centers = 50;
+        int techsPerCenter = 40;
+        int claims = 200_000;
+        int dailyLimit = 10;
+        Random random = new Random(7);
+        for (long center = 1; center <= centers; center++) {
+            List<TechnicianLoadView> loads = new ArrayList<>();
+            for (int t = 0; t < techsPerCenter; t++) {
+                loads.add(new TechnicianLoadView(center * 1000 + t, (long) random.nextInt(8),
+                        (long) random.nextInt(dailyLimit + 1)));
+            }
+            stubCenter(center, loads);
+        }
+
+        Map<Long, Long> assigned = new HashMap<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < claims; i++) {
+            long center = 1 + random.nextInt(centers);
+            engine.pickTechnician(center, dailyLimit).ifPresent(id -> assigned.merge(id, 1L, Long::sum));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LongSummaryStatistics spread = assigned.values().stream().mapToLong(Long::longValue).summaryStatistics();
+        long naiveQueries = (long) claims * techsPerCenter * 2;
+        System.out.printf("Recall burst (%d centers x %d technicians, %d claims): %.0f picks/s, "
+                        + "claims per technician min %d / max %d | queries: engine %d vs naive scan %d%n",
+                centers, techsPerCenter, claims, claims / seconds, spread.getMin(), spread.getMax(), centers, naiveQueries);
+
+        assertThat(spread.getSum()).isEqualTo(claims);
+        verify(userRepository, times(centers)).findTechnicianLoads(any(), any(), any(), any(), any());
+    }
+
+    private void stubCenter(Long centerId, List<TechnicianLoadView> loads) {
+        when(userRepository.findTechnicianLoads(eq(centerId), eq(TechnicianAssignmentEngine.TECHNICIAN_ROLE),
+                eq(TechnicianAssignmentEngine.OPEN_STATUSES), any(), any())).thenReturn(loads);
+    }
+}
@@ -0,0 +1,187 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.response.MileageHistoryPointDTO;
+import com.swp391.warrantymanagement.dto.response.MileageHistoryResponseDTO;
+import com.swp391.warrantymanagement.exception.ResourceNotFoundException;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.MileageSample;
+import com.swp391.warrantymanagement.repository.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lịch sử km nén trên H2 (MODE=MySQL): tra "km tại T" và truy vấn khoảng khớp với oracle là danh sách điểm thô,
+ * qua nhiều block, điều chỉnh km giảm bằng tay, số đo đến trễ và số đo không đổi km.
+ */
+@DisplayName("VehicleMileageHistoryServiceImpl Tests")
+class VehicleMileageHistoryServiceImplTest {
+
+    static final String CREATE_HISTORY_TABLE_SQL =
+            "CREATE TABLE vehicle_mileage_history_blocks (vehicle_id BIGINT NOT NULL, block_start TIMESTAMP(6) NOT NULL, " +
+            "point_count INT NOT NULL, last_recorded_at TIMESTAMP(6) NOT NULL, " +
+            "last_mileage INT NOT NULL, data BLOB NOT NULL, PRIMARY KEY (vehicle_id, block_start))";
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 5, 20, 8, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private VehicleRepository vehicleRepository;
+    private VehicleMileageHistoryServiceImpl historyService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:mileage_history;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE vehicles (vehicle_id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("INSERT INTO vehicles (vehicle_id) VALUES (1), (2), (3), (4), (5), (6), (7), (8)");
+        jdbcTemplate.execute(CREATE_HISTORY_TABLE_SQL);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        vehicleRepository = mock(VehicleRepository.class);
+        historyService = new VehicleMileageHistoryServiceImpl(new VehicleMileageHistoryRepository(jdbcTemplate), vehicleRepository);
+        ReflectionTestUtils.setField(historyService, "maxRangePoints", 100_000);
+        ReflectionTestUtils.setField(historyService, "maxBlockPoints", 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("As-of and range queries should match the raw point list across many blocks")
+    void queries_MatchRawPoints() {
+        when(vehicleRepository.existsById(anyLong())).thenReturn(true);
+        SplittableRandom random = new SplittableRandom(20261017L);
+        int vehicleCount = 8;
+        Map<Long, List<MileageSample>> stored = new HashMap<>();
+        List<List<MileageSample>> timelines = new ArrayList<>();
+        for (long vehicleId = 1; vehicleId <= vehicleCount; vehicleId++) {
+            List<MileageSample> timeline = new ArrayList<>();
+            LocalDateTime at = START.plusSeconds(random.nextInt(3_600));
+            int mileage = random.nextInt(50_000);
+            while (at.isBefore(START.plusMonths(4))) {
+                int step = random.nextInt(10);
+                // Thỉnh thoảng điều chỉnh giảm bằng tay (zigzag), thường là không đổi hoặc tăng
+                mileage = random.nextInt(200) == 0 ? Math.max(0, mileage - 500) : mileage + (step < 3 ? 0 : step);
+                timeline.add(new MileageSample(vehicleId, mileage, at.plusNanos(random.nextInt(1_000_000_000))));
+                at = at.plusSeconds(1 + random.nextInt(20_000));
+            }
+            timelines.add(timeline);
+            List<MileageSample> points = new ArrayList<>();
+            for (MileageSample sample : timeline) {
+                if (points.isEmpty() || points.get(points.size() - 1).mileage() != sample.mileage()) {
+                    points.add(new MileageSample(vehicleId, sample.mileage(), sample.recordedAt().withNano(0)));
+                }
+            }
+            stored.put(vehicleId, points);
+        }
+
+        // Ghi theo lô trộn nhiều xe, như từ luồng ingest
+        int[] cursors = new int[vehicleCount];
+        int written = 0;
+        boolean remaining = true;
+        while (remaining) {
+            remaining = false;
+            List<MileageSample> batch = new ArrayList<>();
+            for (int v = 0; v < vehicleCount; v++) {
+                int take = random.nextInt(4);
+                List<MileageSample> timeline = timelines.get(v);
+                for (int i = 0; i < take && cursors[v] < timeline.size(); i++) {
+                    batch.add(timeline.get(cursors[v]++));
+                }
+                remaining |= cursors[v] < timeline.size();
+            }
+            written += transactionTemplate.execute(status -> historyService.record(batch));
+        }
+        assertThat(written).isEqualTo(stored.values().stream().mapToInt(List::size).sum());
+
+        for (long vehicleId = 1; vehicleId <= vehicleCount; vehicleId++) {
+            List<MileageSample> points = stored.get(vehicleId);
+            for (int i = 0; i < 100; i++) {
+                LocalDateTime at = START.plusSeconds(random.nextLong(130L * 24 * 3_600)).plusNanos(random.nextInt(1_000_000_000));
+                MileageSample expected = null;
+                for (MileageSample point : points) {
+                    if (point.recordedAt().isAfter(at)) {
+                        break;
+                    }
+                    expected = point;
+                }
+                assertThat(historyService.findMileageAsOf(vehicleId, at).orElse(null)).as("vehicle %d at %s", vehicleId, at)
+                        .isEqualTo(expected);
+            }
+            for (int i = 0; i < 20; i++) {
+                LocalDateTime from = START.plusSeconds(random.nextLong(120L * 24 * 3_600)).plusNanos(random.nextInt(1_000_000_000));
+                LocalDateTime to = from.plusSeconds(random.nextLong(40L * 24 * 3_600));
+                List<Integer> expected = points.stream()
+                        .filter(point -> !point.recordedAt().isBefore(from) && !point.recordedAt().isAfter(to))
+                        .map(MileageSample::mileage)
+                        .toList();
+                MileageHistoryResponseDTO history = historyService.getMileageHistory(vehicleId, from, to);
+                assertThat(history.getPoints()).extracting(MileageHistoryPointDTO::getMileage).containsExactlyElementsOf(expected);
+                assertThat(history.getTruncated()).isFalse();
+            }
+        }
+
+        // Block đầy (64 điểm) thì mở block mới: chi phí ghi mỗi điểm bị chặn, vẫn nén còn vài byte mỗi điểm
+        for (long vehicleId = 1; vehicleId <= vehicleCount; vehicleId++) {
+            List<Integer> pointCounts = jdbcTemplate.queryForList(
+                    "SELECT point_count FROM vehicle_mileage_history_blocks WHERE vehicle_id = ? ORDER BY block_start",
+                    Integer.class, vehicleId);
+            int points = stored.get(vehicleId).size();
+            assertThat(pointCounts).hasSize((points + 63) / 64);
+            assertThat(pointCounts.subList(0, pointCounts.size() - 1)).containsOnly(64);
+        }
+        Long bytes = jdbcTemplate.queryForObject("SELECT SUM(LENGTH(data)) FROM vehicle_mileage_history_blocks", Long.class);
+        assertThat((double) bytes / written).isLessThan(5.0);
+    }
+
+    @Test
+    @DisplayName("Late, unchanged and truncated samples are handled without rewriting history")
+    void record_IsAppendOnly() {
+        when(vehicleRepository.existsById(1L)).thenReturn(true);
+        when(vehicleRepository.existsById(2L)).thenReturn(false);
+        ReflectionTestUtils.setField(historyService, "maxRangePoints", 2);
+
+        int written = transactionTemplate.execute(status -> historyService.record(List.of(
+                new MileageSample(1L, 100, START),
+                new MileageSample(1L, 100, START.plusMinutes(5)),     // không đổi km
+                new MileageSample(1L, 120, START.plusMinutes(10)),
+                new MileageSample(1L, 130, START.plusMinutes(20)))));
+        int late = transactionTemplate.execute(status -> historyService.record(List.of(
+                new MileageSample(1L, 110, START.plusMinutes(7)))));   // đến trễ
+
+        assertThat(written).isEqualTo(3);
+        assertThat(late).isZero();
+        assertThat(historyService.findMileageAsOf(1L, START.plusMinutes(9)))
+                .map(MileageSample::mileage).contains(100);
+        MileageHistoryResponseDTO history = historyService.getMileageHistory(1L, START, START.plusHours(1));
+        assertThat(history.getPoints()).extracting(MileageHistoryPointDTO::getMileage).containsExactly(100, 120);
+        assertThat(history.getTruncated()).isTrue();
+
+        assertThatThrownBy(() -> historyService.getMileageHistory(1L, START.plusHours(1), START))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> historyService.getMileageHistory(2L, START, START.plusHours(1)))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -0,0 +1,324 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.projection.InstalledPartWarrantyStamp;
+import com.swp391.warrantymanagement.dto.response.WarrantyExpiryProjectionRunResponseDTO;
+import com.swp391.warrantymanagement.dto.response.WarrantyValidationResponseDTO;
+import com.swp391.warrantymanagement.entity.Customer;
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.enums.WarrantyStatus;
+import com.swp391.warrantymanagement.repository.InstalledPartRepository;
+import com.swp391.warrantymanagement.repository.VehicleRepository;
+import com.swp391.warrantymanagement.repository.ScheduledJobLockRepository;
+import com.swp391.warrantymanagement.repository.WarrantyExpiryBucketRepository;
+import com.swp391.warrantymanagement.repository.WarrantyExpiryProjectionRepository;
+import com.swp391.warrantymanagement.service.VehicleMileageHistoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Projection hết hạn bảo hành trên H2 (MODE=MySQL): bucket khớp với cách lọc ad hoc cũ
+ * ({@code warranty_expiration_date BETWEEN today AND today + N AND is_active}), WarrantyStatus tính sẵn khớp với
+ * API kiểm tra bảo hành, và lần chạy sau ghi đè / xóa dòng cũ.
+ */
+@DisplayName("WarrantyExpiryProjectionServiceImpl Tests")
+class WarrantyExpiryProjectionServiceImplTest {
+
+    private static final int[] WINDOWS = {30, 60, 90};
+    private static final String[] CUSTOMERS = {
+            UUID.randomUUID().toString(), UUID.randomUUID().toString(), UUID.randomUUID().toString()};
+    // Service center của tài khoản từng chủ xe (chủ cuối cùng không thuộc trung tâm nào)
+    private static final Long[] CUSTOMER_SERVICE_CENTERS = {1L, 2L, null};
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private WarrantyExpiryProjectionServiceImpl projectionService;
+
+    private final Map<Long, Vehicle> vehicles = new HashMap<>();
+    private final Map<Long, InstalledPart> installedParts = new HashMap<>();
+    private final Map<Long, Long> ownerServiceCenter = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:expiry_projection;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE vehicles (vehicle_id BIGINT PRIMARY KEY, customer_id VARCHAR(36) NOT NULL, " +
+                "warranty_end_date DATE NOT NULL, mileage INT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE parts (part_id BIGINT PRIMARY KEY, has_extended_warranty BOOLEAN NOT NULL, " +
+                "default_warranty_mileage INT)");
+        jdbcTemplate.execute("CREATE TABLE installed_parts (installed_part_id BIGINT PRIMARY KEY, vehicle_id BIGINT NOT NULL, " +
+                "part_id BIGINT NOT NULL, warranty_expiration_date DATE NOT NULL, mileage_at_installation INT NOT NULL, " +
+                "warranty_mileage_limit INT, is_active BOOLEAN NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE users (user_id BIGINT PRIMARY KEY, service_center_id BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE customers (customer_id VARCHAR(36) PRIMARY KEY, user_id BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE installed_part_warranty_status (installed_part_id BIGINT PRIMARY KEY, " +
+                "vehicle_id BIGINT NOT NULL, customer_id VARCHAR(36) NOT NULL, service_center_id BIGINT, part_id BIGINT NOT NULL, " +
+                "warranty_expiration_date DATE NOT NULL, warranty_status VARCHAR(30) NOT NULL, days_remaining BIGINT NOT NULL, " +
+                "as_of_date DATE NOT NULL, refreshed_at TIMESTAMP(6) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE warranty_expiry_buckets (subject VARCHAR(20) NOT NULL, scope VARCHAR(20) NOT NULL, " +
+                "scope_key VARCHAR(36) NOT NULL, window_days INT NOT NULL, expiring_count BIGINT NOT NULL, " +
+                "as_of_date DATE NOT NULL, refreshed_at TIMESTAMP(6) NOT NULL, PRIMARY KEY (subject, scope, scope_key, window_days))");
+        jdbcTemplate.execute("CREATE TABLE scheduled_job_locks (job_name VARCHAR(64) PRIMARY KEY, " +
+                "locked_until TIMESTAMP(6) NOT NULL, locked_at TIMESTAMP(6) NOT NULL, locked_by VARCHAR(255) NOT NULL)");
+
+        meterRegistry = new SimpleMeterRegistry();
+        projectionService = new WarrantyExpiryProjectionServiceImpl(
+                new WarrantyExpiryProjectionRepository(jdbcTemplate),
+                mock(WarrantyExpiryBucketRepository.class),
+                new ScheduledJobLockRepository(jdbcTemplate),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                meterRegistry);
+        ReflectionTestUtils.setField(projectionService, "chunkSize", 64);
+        ReflectionTestUtils.setField(projectionService, "windows", new int[]{90, 30, 60});
+        ReflectionTestUtils.setField(projectionService, "lockLeaseMinutes", 10L);
+        projectionService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    @DisplayName("Buckets should equal the ad hoc date-range counts per scope and statuses the validation API")
+    void refresh_MatchesAdHocQueriesAndValidation() {
+        seed(new SplittableRandom(20261017L), 300);
+
+        WarrantyExpiryProjectionRunResponseDTO result = projectionService.refresh();
+
+        long activeParts = installedParts.values().stream().filter(InstalledPart::getIsActive).count();
+        assertThat(result.getVehicleRows()).isEqualTo(vehicles.size());
+        assertThat(result.getInstalledPartRows()).isEqualTo(activeParts);
+        assertBucketsMatchAdHocCounts();
+        assertStatusesMatchValidation();
+
+        assertThat(meterRegistry.get("warranty.expiry.projection.duration").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("warranty.expiry.projection.rows").tag("table", "installed_parts").gauge().value())
+                .isEqualTo(activeParts);
+    }
+
+    @Test
+    @DisplayName("A second run overwrites changed rows and removes deactivated parts and emptied buckets")
+    void refresh_SecondRunReplacesStaleRows() {
+        seed(new SplittableRandom(7L), 200);
+        projectionService.refresh();
+
+        // Gỡ một linh kiện, dời hạn của xe / linh kiện khác ra ngoài mọi cửa sổ
+        InstalledPart removed = installedParts.values().stream().filter(InstalledPart::getIsActive).findFirst().orElseThrow();
+        removed.setIsActive(false);
+        jdbcTemplate.update("UPDATE installed_parts SET is_active = FALSE WHERE installed_part_id = ?", removed.getInstalledPartId());
+        LocalDate farAway = LocalDate.now().plusYears(3);
+        for (InstalledPart part : installedParts.values()) {
+            part.setWarrantyExpirationDate(farAway);
+        }
+        jdbcTemplate.update("UPDATE installed_parts SET warranty_expiration_date = ?", Date.valueOf(farAway));
+
+        WarrantyExpiryProjectionRunResponseDTO second = projectionService.refresh();
+
+        assertThat(second.getRemovedRows()).isPositive();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM installed_part_warranty_status WHERE installed_part_id = ?",
+                Long.class, removed.getInstalledPartId())).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warranty_expiry_buckets WHERE subject = 'INSTALLED_PART' " +
+                "AND scope <> 'ALL'", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(refreshed_at) FROM installed_part_warranty_status", Timestamp.class)
+                .toLocalDateTime()).isEqualTo(second.getRefreshedAt());
+        assertBucketsMatchAdHocCounts();
+        assertStatusesMatchValidation();
+    }
+
+    @Test
+    @DisplayName("A run is skipped while another node holds the job lock and proceeds once its lease has expired")
+    void refresh_SkippedWhileAnotherNodeHoldsTheLock() {
+        seed(new SplittableRandom(11L), 50);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO scheduled_job_locks VALUES (?, ?, ?, ?)", WarrantyExpiryProjectionServiceImpl.JOB_NAME,
+                Timestamp.valueOf(now.plusMinutes(5)), Timestamp.valueOf(now), "other-node");
+
+        assertThat(projectionService.refresh()).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM warranty_expiry_buckets", Long.class)).isZero();
+
+        jdbcTemplate.update("UPDATE scheduled_job_locks SET locked_until = ?", Timestamp.valueOf(now.minusSeconds(1)));
+        assertThat(projectionService.refresh()).isNotNull();
+        assertBucketsMatchAdHocCounts();
+        // Khóa được trả ngay khi chạy xong
+        assertThat(jdbcTemplate.queryForObject("SELECT locked_until FROM scheduled_job_locks", Timestamp.class)
+                .toLocalDateTime()).isBeforeOrEqualTo(LocalDateTime.now());
+        assertThat(jdbcTemplate.queryForObject("SELECT locked_by FROM scheduled_job_locks", String.class))
+                .isNotEqualTo("other-node");
+    }
+
+    // ============= ORACLES =============
+
+    private void assertBucketsMatchAdHocCounts() {
+        LocalDate today = LocalDate.now();
+        Map<String, Long> actual = new HashMap<>();
+        jdbcTemplate.query("SELECT subject, scope, scope_key, window_days, expiring_count FROM warranty_expiry_buckets",
+                rs -> {
+                    actual.put(bucketKey(rs.getString(1), rs.getString(2), rs.getString(3), rs.getInt(4)), rs.getLong(5));
+                });
+
+        Map<String, Long> expected = new HashMap<>();
+        for (int days : WINDOWS) {
+            LocalDate cutoff = today.plusDays(days);
+            for (Vehicle vehicle : vehicles.values()) {
+                if (!vehicle.getWarrantyEndDate().isBefore(today) && !vehicle.getWarrantyEndDate().isAfter(cutoff)) {
+                    String customerId = vehicle.getCustomer().getCustomerId().toString();
+                    expected.merge(bucketKey("VEHICLE", "ALL", "", days), 1L, Long::sum);
+                    expected.merge(bucketKey("VEHICLE", "CUSTOMER", customerId, days), 1L, Long::sum);
+                    Long serviceCenterId = ownerServiceCenter.get(vehicle.getVehicleId());
+                    if (serviceCenterId != null) {
+                        expected.merge(bucketKey("VEHICLE", "SERVICE_CENTER", serviceCenterId.toString(), days), 1L, Long::sum);
+                    }
+                }
+            }
+            for (InstalledPart part : installedParts.values()) {
+                LocalDate expiration = part.getWarrantyExpirationDate();
+                if (part.getIsActive() && !expiration.isBefore(today) && !expiration.isAfter(cutoff)) {
+                    Vehicle vehicle = part.getVehicle();
+                    expected.merge(bucketKey("INSTALLED_PART", "ALL", "", days), 1L, Long::sum);
+                    expected.merge(bucketKey("INSTALLED_PART", "CUSTOMER",
+                            vehicle.getCustomer().getCustomerId().toString(), days), 1L, Long::sum);
+                    expected.merge(bucketKey("INSTALLED_PART", "PART", part.getPart().getPartId().toString(), days), 1L, Long::sum);
+                    Long serviceCenterId = ownerServiceCenter.get(vehicle.getVehicleId());
+                    if (serviceCenterId != null) {
+                        expected.merge(bucketKey("INSTALLED_PART", "SERVICE_CENTER", serviceCenterId.toString(), days), 1L, Long::sum);
+                    }
+                }
+            }
+        }
+
+        // Bucket không có dòng = 0; dòng có mặt với giá trị 0 chỉ được phép khi oracle cũng là 0
+        actual.forEach((key, count) -> assertThat(count).as(key).isEqualTo(expected.getOrDefault(key, 0L)));
+        expected.forEach((key, count) -> assertThat(actual.get(key)).as(key).isEqualTo(count));
+        for (int days : WINDOWS) {
+            assertThat(actual).containsKey(bucketKey("VEHICLE", "ALL", "", days));
+            assertThat(actual).containsKey(bucketKey("INSTALLED_PART", "ALL", "", days));
+        }
+    }
+
+    private void assertStatusesMatchValidation() {
+        VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+        InstalledPartRepository installedPartRepository = mock(InstalledPartRepository.class);
+        when(installedPartRepository.findWarrantyStampById(anyLong())).thenAnswer(invocation -> {
+            InstalledPart part = installedParts.get(invocation.<Long>getArgument(0));
+            return Optional.of(InstalledPartWarrantyStamp.of(part));
+        });
+        when(installedPartRepository.findWithPartAndVehicleById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(installedParts.get(invocation.<Long>getArgument(0))));
+        WarrantyValidationCache cache = new WarrantyValidationCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxSize", 10L);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 1L);
+        cache.init();
+        WarrantyValidationServiceImpl validationService =
+                new WarrantyValidationServiceImpl(vehicleRepository, installedPartRepository, cache,
+                        mock(VehicleMileageHistoryService.class));
+
+        List<Object[]> rows = jdbcTemplate.query("SELECT installed_part_id, warranty_status, days_remaining, " +
+                        "service_center_id, customer_id FROM installed_part_warranty_status",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getLong(3),
+                        (Long) rs.getObject(4, Long.class), rs.getString(5)});
+        assertThat(rows).hasSize((int) installedParts.values().stream().filter(InstalledPart::getIsActive).count());
+        for (Object[] row : rows) {
+            InstalledPart part = installedParts.get((Long) row[0]);
+            WarrantyValidationResponseDTO validation = validationService.validateInstalledPartWarranty(part.getInstalledPartId(), true);
+            assertThat(WarrantyStatus.valueOf((String) row[1])).as("part %s", row[0]).isEqualTo(validation.getWarrantyStatus());
+            assertThat((Long) row[2]).as("part %s", row[0]).isEqualTo(validation.getDaysRemaining());
+            assertThat((Long) row[3]).isEqualTo(ownerServiceCenter.get(part.getVehicle().getVehicleId()));
+            assertThat((String) row[4]).isEqualTo(part.getVehicle().getCustomer().getCustomerId().toString());
+        }
+    }
+
+    private static String bucketKey(String subject, String scope, String scopeKey, int days) {
+        return subject + "|" + scope + "|" + scopeKey + "|" + days;
+    }
+
+    // ============= DATA =============
+
+    private void seed(SplittableRandom random, int vehicleCount) {
+        LocalDate today = LocalDate.now();
+        List<Part> parts = new ArrayList<>();
+        for (long partId = 1; partId <= 4; partId++) {
+            Part part = new Part();
+            part.setPartId(partId);
+            part.setPartName("Part " + partId);
+            part.setHasExtendedWarranty(partId <= 2);
+            part.setDefaultWarrantyMileage(partId == 1 ? 150_000 : null);
+            parts.add(part);
+            jdbcTemplate.update("INSERT INTO parts VALUES (?, ?, ?)", partId, part.getHasExtendedWarranty(),
+                    part.getDefaultWarrantyMileage());
+        }
+
+        for (int i = 0; i < CUSTOMERS.length; i++) {
+            jdbcTemplate.update("INSERT INTO users VALUES (?, ?)", i + 1L, CUSTOMER_SERVICE_CENTERS[i]);
+            jdbcTemplate.update("INSERT INTO customers VALUES (?, ?)", CUSTOMERS[i], i + 1L);
+        }
+
+        long installedPartId = 1;
+        for (long vehicleId = 1; vehicleId <= vehicleCount; vehicleId++) {
+            int owner = random.nextInt(CUSTOMERS.length);
+            Customer customer = new Customer();
+            customer.setCustomerId(UUID.fromString(CUSTOMERS[owner]));
+            Vehicle vehicle = new Vehicle();
+            vehicle.setVehicleId(vehicleId * 3); // ID thưa như sau khi xóa xe
+            vehicle.setVehicleVin("VIN-" + vehicleId);
+            vehicle.setCustomer(customer);
+            vehicle.setWarrantyStartDate(today.minusYears(5));
+            vehicle.setWarrantyEndDate(today.plusDays(random.nextInt(-120, 240)));
+            vehicle.setMileage(random.nextInt(0, 130_000));
+            vehicles.put(vehicle.getVehicleId(), vehicle);
+            jdbcTemplate.update("INSERT INTO vehicles VALUES (?, ?, ?, ?)", vehicle.getVehicleId(),
+                    customer.getCustomerId().toString(), Date.valueOf(vehicle.getWarrantyEndDate()), vehicle.getMileage());
+
+            if (CUSTOMER_SERVICE_CENTERS[owner] != null) {
+                ownerServiceCenter.put(vehicle.getVehicleId(), CUSTOMER_SERVICE_CENTERS[owner]);
+            }
+
+            int partCount = random.nextInt(0, 5);
+            for (int i = 0; i < partCount; i++) {
+                Part part = parts.get(random.nextInt(parts.size()));
+                InstalledPart installedPart = new InstalledPart();
+                installedPart.setInstalledPartId(installedPartId++);
+                installedPart.setPart(part);
+                installedPart.setVehicle(vehicle);
+                installedPart.setInstallationDate(today.minusYears(2));
+                installedPart.setWarrantyExpirationDate(today.plusDays(random.nextInt(-60, 200)));
+                installedPart.setMileageAtInstallation(random.nextInt(0, Math.max(1, vehicle.getMileage())));
+                installedPart.setWarrantyMileageLimit(random.nextBoolean() ? random.nextInt(10_000, 60_000) : null);
+                installedPart.setIsActive(random.nextInt(8) != 0);
+                installedParts.put(installedPart.getInstalledPartId(), installedPart);
+                jdbcTemplate.update("INSERT INTO installed_parts VALUES (?, ?, ?, ?, ?, ?, ?)",
+                        installedPart.getInstalledPartId(), vehicle.getVehicleId(), part.getPartId(),
+                        Date.valueOf(installedPart.getWarrantyExpirationDate()), installedPart.getMileageAtInstallation(),
+                        installedPart.getWarrantyMileageLimit(), installedPart.getIsActive());
+            }
+        }
+    }
+}
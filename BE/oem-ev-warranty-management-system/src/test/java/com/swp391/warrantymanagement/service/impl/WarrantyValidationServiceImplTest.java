@@ -0,0 +1,340 @@
+package com.swp391.warrantymanagement.service.impl;
+
+import com.swp391.warrantymanagement.dto.projection.InstalledPartWarrantyStamp;
+import com.swp391.warrantymanagement.dto.response.BulkWarrantyValidationItemDTO;
+import com.swp391.warrantymanagement.dto.response.BulkWarrantyValidationResponseDTO;
+import com.swp391.warrantymanagement.dto.response.WarrantyValidationResponseDTO;
+import com.swp391.warrantymanagement.entity.InstalledPart;
+import com.swp391.warrantymanagement.entity.Part;
+import com.swp391.warrantymanagement.entity.Vehicle;
+import com.swp391.warrantymanagement.enums.WarrantyStatus;
+import com.swp391.warrantymanagement.repository.InstalledPartRepository;
+import com.swp391.warrantymanagement.repository.VehicleMileageHistoryRepository.MileageSample;
+import com.swp391.warrantymanagement.repository.VehicleRepository;
+import com.swp391.warrantymanagement.service.VehicleMileageHistoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tra cứu bảo hành hàng loạt: một query cho cả danh sách, kết quả đúng thứ tự đầu vào, lỗi theo từng dòng,
+ * và nội dung từng dòng giống hệt API tra cứu đơn lẻ. Cache kết quả của API đơn lẻ: hit khi dữ liệu không đổi,
+ * miss khi số km / version thay đổi, và có thể bỏ qua theo request.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WarrantyValidationServiceImpl Tests")
+class WarrantyValidationServiceImplTest {
+
+    @Mock
+    private VehicleRepository vehicleRepository;
+
+    @Mock
+    private InstalledPartRepository installedPartRepository;
+
+    @Mock
+    private VehicleMileageHistoryService mileageHistoryService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WarrantyValidationCache validationCache;
+    private WarrantyValidationServiceImpl validationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        validationCache = new WarrantyValidationCache(meterRegistry);
+        ReflectionTestUtils.setField(validationCache, "maxSize", 1_000L);
+        ReflectionTestUtils.setField(validationCache, "ttlMinutes", 10L);
+        validationCache.init();
+        validationService = new WarrantyValidationServiceImpl(vehicleRepository, installedPartRepository, validationCache,
+                mileageHistoryService);
+        ReflectionTestUtils.setField(validationService, "bulkThreads", 4);
+        validationService.startBulkExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        validationService.stopBulkExecutor();
+    }
+
+    @Test
+    @DisplayName("Results keep input order, with per-item errors for blank and unknown VINs")
+    void validateVehicleWarrantiesByVin_InputOrderAndItemErrors() {
+        Vehicle valid = vehicle(1L, "VIN-A", LocalDate.now().plusYears(1), 20_000);
+        Vehicle expired = vehicle(2L, "VIN-B", LocalDate.now().minusDays(30), 20_000);
+        when(vehicleRepository.findByVehicleVinIn(anyCollection())).thenReturn(List.of(valid, expired));
+
+        BulkWarrantyValidationResponseDTO response = validationService.validateVehicleWarrantiesByVin(
+                Arrays.asList("VIN-B", "missing", "vin-a", " ", null, "VIN-B"));
+
+        assertThat(response.getRequested()).isEqualTo(6);
+        assertThat(response.getSucceeded()).isEqualTo(3);
+        assertThat(response.getFailed()).isEqualTo(3);
+        List<BulkWarrantyValidationItemDTO> results = response.getResults();
+        assertThat(results).extracting(BulkWarrantyValidationItemDTO::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(results).extracting(BulkWarrantyValidationItemDTO::getSuccess)
+                .containsExactly(true, false, true, false, false, true);
+        assertThat(results.get(0).getValidation().getWarrantyStatus()).isEqualTo(WarrantyStatus.EXPIRED_DATE);
+        assertThat(results.get(1).getError()).contains("missing");
+        assertThat(results.get(2).getValidation().getVehicleId()).isEqualTo(1L);
+        assertThat(results.get(5).getValidation().getVehicleId()).isEqualTo(2L);
+
+        verify(vehicleRepository, times(1)).findByVehicleVinIn(anyCollection());
+        verify(vehicleRepository, never()).findByVehicleVin(anyString());
+    }
+
+    @Test
+    @DisplayName("Large batches are split across workers and still match the single-item API")
+    void validateVehicleWarrantiesByVin_ParallelMatchesSingle() {
+        int size = 1_000;
+        List<Vehicle> vehicles = new ArrayList<>();
+        List<String> vins = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Vehicle vehicle = vehicle((long) i, "VIN-" + i, LocalDate.now().plusDays(i - 500), 95_000 + i * 10);
+            vehicles.add(vehicle);
+            vins.add(vehicle.getVehicleVin());
+        }
+        when(vehicleRepository.findByVehicleVinIn(anyCollection())).thenReturn(vehicles);
+
+        BulkWarrantyValidationResponseDTO response = validationService.validateVehicleWarrantiesByVin(vins);
+
+        assertThat(response.getSucceeded()).isEqualTo(size);
+        for (int i = 0; i < size; i += 37) {
+            when(vehicleRepository.findByVehicleVin(vins.get(i))).thenReturn(Optional.of(vehicles.get(i)));
+            WarrantyValidationResponseDTO single = validationService.validateVehicleWarrantyByVin(vins.get(i), true);
+            assertThat(response.getResults().get(i).getValidation()).usingRecursiveComparison().isEqualTo(single);
+        }
+    }
+
+    @Test
+    @DisplayName("Installed parts are loaded with one fetch-join query")
+    void validateInstalledPartWarranties_SingleQuery() {
+        Vehicle vehicle = vehicle(1L, "VIN-A", LocalDate.now().plusYears(2), 10_000);
+        InstalledPart battery = installedPart(10L, vehicle, true, LocalDate.now().minusDays(5));
+        InstalledPart mirror = installedPart(11L, vehicle, false, LocalDate.now().plusYears(1));
+        when(installedPartRepository.findAllWithPartAndVehicleByIdIn(anyCollection())).thenReturn(List.of(battery, mirror));
+
+        BulkWarrantyValidationResponseDTO response = validationService.validateInstalledPartWarranties(
+                Arrays.asList(11L, 99L, 10L));
+
+        assertThat(response.getResults()).extracting(BulkWarrantyValidationItemDTO::getInstalledPartId)
+                .containsExactly(11L, 99L, 10L);
+        assertThat(response.getResults().get(0).getValidation().getWarrantyStatus()).isEqualTo(WarrantyStatus.VALID);
+        assertThat(response.getResults().get(1).getSuccess()).isFalse();
+        assertThat(response.getResults().get(2).getValidation().getWarrantyStatus()).isEqualTo(WarrantyStatus.EXPIRED_DATE);
+        verify(installedPartRepository, times(1)).findAllWithPartAndVehicleByIdIn(anyCollection());
+        verify(installedPartRepository, never()).findById(10L);
+    }
+
+    @Test
+    @DisplayName("Repeated lookups are served from cache until mileage or vehicle data changes")
+    void validateVehicleWarranty_CachedUntilMileageOrVehicleChanges() {
+        Vehicle vehicle = vehicle(1L, "VIN-A", LocalDate.now().plusYears(1), 20_000);
+        when(vehicleRepository.findById(1L)).thenReturn(Optional.of(vehicle));
+
+        WarrantyValidationResponseDTO first = validationService.validateVehicleWarranty(1L, false);
+        assertThat(validationService.validateVehicleWarranty(1L, false)).isSameAs(first);
+
+        // Km thay đổi (ví dụ cập nhật odometer) → key khác, tính lại
+        vehicle.setMileage(20_500);
+        WarrantyValidationResponseDTO afterMileage = validationService.validateVehicleWarranty(1L, false);
+        assertThat(afterMileage).isNotSameAs(first);
+        assertThat(afterMileage.getCurrentMileage()).isEqualTo(20_500);
+
+        // Xe bị sửa (ví dụ đổi warrantyEndDate, kể cả ở node khác) → key khác, tính lại
+        vehicle.setWarrantyEndDate(LocalDate.now().minusDays(1));
+        WarrantyValidationResponseDTO afterEdit = validationService.validateVehicleWarranty(1L, false);
+        assertThat(afterEdit.getWarrantyStatus()).isEqualTo(WarrantyStatus.EXPIRED_DATE);
+        assertThat(validationService.validateVehicleWarranty(1L, false)).isSameAs(afterEdit);
+
+        // 5 lookup: 2 hit, 3 miss
+        assertThat(meterRegistry.get("warranty.validation.cache.hit.ratio").gauge().value()).isEqualTo(0.4);
+    }
+
+    @Test
+    @DisplayName("bypassCache recomputes, and fee results are keyed by repair cost")
+    void calculatePaidWarrantyFee_BypassAndCostKey() {
+        Vehicle vehicle = vehicle(1L, "VIN-A", LocalDate.now().minusDays(30), 20_000);
+        when(vehicleRepository.findById(1L)).thenReturn(Optional.of(vehicle));
+
+        WarrantyValidationResponseDTO fee = validationService.calculatePaidWarrantyFee(1L, new BigDecimal("10000000"), false);
+        assertThat(validationService.calculatePaidWarrantyFee(1L, new BigDecimal("10000000.00"), false)).isSameAs(fee);
+        assertThat(validationService.calculatePaidWarrantyFee(1L, new BigDecimal("20000000"), false).getEstimatedWarrantyFee())
+                .isGreaterThan(fee.getEstimatedWarrantyFee());
+        // Kết quả kiểm tra thường không dùng chung entry với kết quả tính phí
+        assertThat(validationService.validateVehicleWarranty(1L, false).getEstimatedWarrantyFee()).isNull();
+
+        WarrantyValidationResponseDTO bypassed = validationService.calculatePaidWarrantyFee(1L, new BigDecimal("10000000"), true);
+        assertThat(bypassed).isNotSameAs(fee);
+        assertThat(bypassed.getEstimatedWarrantyFee()).isEqualByComparingTo(fee.getEstimatedWarrantyFee());
+        assertThat(meterRegistry.get("warranty.validation.cache.bypass").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Installed part hits only run the stamp query; part edits change the key")
+    void validateInstalledPartWarranty_StampQueryOnHit() {
+        Vehicle vehicle = vehicle(1L, "VIN-A", LocalDate.now().plusYears(2), 10_000);
+        InstalledPart battery = installedPart(10L, vehicle, true, LocalDate.now().plusYears(1));
+        when(installedPartRepository.findWarrantyStampById(10L))
+                .thenAnswer(invocation -> Optional.of(InstalledPartWarrantyStamp.of(battery)));
+        when(installedPartRepository.findWithPartAndVehicleById(10L)).thenReturn(Optional.of(battery));
+
+        WarrantyValidationResponseDTO first = validationService.validateInstalledPartWarranty(10L, false);
+        assertThat(validationService.validateInstalledPartWarranty(10L, false)).isSameAs(first);
+        verify(installedPartRepository, times(1)).findWithPartAndVehicleById(10L);
+
+        // Part bị sửa (ví dụ đổi thời gian ân hạn, kể cả ở node khác) → stamp khác, tính lại
+        battery.getPart().setGracePeriodDays(30);
+        assertThat(validationService.validateInstalledPartWarranty(10L, false)).isNotSameAs(first);
+        verify(installedPartRepository, times(2)).findWithPartAndVehicleById(10L);
+        verify(installedPartRepository, never()).findById(10L);
+    }
+
+    @Test
+    @DisplayName("A result computed after a concurrent edit is cached under the edited data's key")
+    void validateInstalledPartWarranty_ChangeBetweenQueriesUsesLoadedKey() {
+        Vehicle vehicle = vehicle(1L, "VIN-A", LocalDate.now().plusYears(2), 10_000);
+        InstalledPart battery = installedPart(10L, vehicle, true, LocalDate.now().plusYears(1));
+        InstalledPartWarrantyStamp before = InstalledPartWarrantyStamp.of(battery);
+        // Một request khác commit giữa query stamp và query entity
+        battery.setWarrantyExpirationDate(LocalDate.now().minusDays(1));
+        InstalledPartWarrantyStamp after = InstalledPartWarrantyStamp.of(battery);
+        when(installedPartRepository.findWarrantyStampById(10L))
+                .thenReturn(Optional.of(before), Optional.of(after), Optional.of(before));
+        when(installedPartRepository.findWithPartAndVehicleById(10L)).thenReturn(Optional.of(battery));
+
+        WarrantyValidationResponseDTO computed = validationService.validateInstalledPartWarranty(10L, false);
+        assertThat(validationService.validateInstalledPartWarranty(10L, false)).isSameAs(computed);
+        // Key của dữ liệu cũ không bao giờ trỏ tới kết quả của dữ liệu mới
+        assertThat(validationService.validateInstalledPartWarranty(10L, false)).isNotSameAs(computed);
+        verify(installedPartRepository, times(2)).findWithPartAndVehicleById(10L);
+    }
+
+    @Test
+    @DisplayName("As-of validation uses the historical mileage and the given date")
+    void validateVehicleWarrantyAsOf_UsesMileageHistory() {
+        // Hôm nay đã vượt giới hạn km, nhưng vào ngày hỏng hóc thì chưa
+        LocalDate failureDate = LocalDate.now().minusMonths(2);
+        Vehicle vehicle = vehicle(1L, "VIN-A", LocalDate.now().plusYears(1), 120_000);
+        when(vehicleRepository.findById(1L)).thenReturn(Optional.of(vehicle));
+        LocalDateTime recordedAt = failureDate.atTime(17, 45);
+        when(mileageHistoryService.findMileageAsOf(1L, failureDate.atTime(LocalTime.MAX)))
+                .thenReturn(Optional.of(new MileageSample(1L, 98_500, recordedAt)));
+
+        WarrantyValidationResponseDTO response = validationService.validateVehicleWarrantyAsOf(1L, failureDate);
+
+        assertThat(response.getWarrantyStatus()).isEqualTo(WarrantyStatus.VALID);
+        assertThat(response.getCurrentMileage()).isEqualTo(98_500);
+        assertThat(response.getMileageRemaining()).isEqualTo(1_500);
+        assertThat(response.getDaysRemaining())
+                .isEqualTo(ChronoUnit.DAYS.between(failureDate, vehicle.getWarrantyEndDate()));
+        assertThat(response.getAsOfDate()).isEqualTo(failureDate);
+        assertThat(response.getMileageRecordedAt()).isEqualTo(recordedAt);
+        assertThat(validationService.validateVehicleWarranty(1L, true).getWarrantyStatus())
+                .isEqualTo(WarrantyStatus.EXPIRED_MILEAGE);
+    }
+
+    @Test
+    @DisplayName("As-of validation falls back to the current mileage without history and rejects future dates")
+    void validateVehicleWarrantyAsOf_FallbackAndFutureDate() {
+        LocalDate date = LocalDate.now().minusDays(10);
+        Vehicle vehicle = vehicle(1L, "VIN-A", LocalDate.now().minusDays(5), 120_000);
+        when(vehicleRepository.findById(1L)).thenReturn(Optional.of(vehicle));
+        when(mileageHistoryService.findMileageAsOf(1L, date.atTime(LocalTime.MAX))).thenReturn(Optional.empty());
+
+        WarrantyValidationResponseDTO response = validationService.validateVehicleWarrantyAsOf(1L, date);
+
+        // Hạn theo ngày còn 5 ngày tại thời điểm đó, km hiện tại (chặn trên) đã vượt giới hạn
+        assertThat(response.getWarrantyStatus()).isEqualTo(WarrantyStatus.EXPIRED_MILEAGE);
+        assertThat(response.getDaysRemaining()).isEqualTo(5);
+        assertThat(response.getCurrentMileage()).isEqualTo(120_000);
+        assertThat(response.getMileageRecordedAt()).isNull();
+        assertThatThrownBy(() -> validationService.validateVehicleWarrantyAsOf(1L, LocalDate.now().plusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Thời gian đánh giá 1000 VIN (phần chạy trong service, repository đã mock).
+     * Chạy: {@code mvn test -Dtest=WarrantyValidationServiceImplTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: 1000 VINs")
+    void benchmark_ThousandVins() {
+        int size = 1_000;
+        List<Vehicle> vehicles = new ArrayList<>();
+        List<String> vins = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Vehicle vehicle = vehicle((long) i, "VIN-" + i, LocalDate.now().plusDays(i - 500), 95_000 + i * 10);
+            vehicles.add(vehicle);
+            vins.add(vehicle.getVehicleVin());
+        }
+        when(vehicleRepository.findByVehicleVinIn(anyCollection())).thenReturn(vehicles);
+
+        for (int i = 0; i < 200; i++) {
+            validationService.validateVehicleWarrantiesByVin(vins);
+        }
+        int rounds = 500;
+        long[] nanos = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            validationService.validateVehicleWarrantiesByVin(vins);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("Bulk validation of %d VINs (evaluation only, %d workers + caller): p50 %.2f ms, p99 %.2f ms%n",
+                size, 4, nanos[rounds / 2] / 1e6, nanos[rounds * 99 / 100] / 1e6);
+    }
+
+    private static Vehicle vehicle(Long id, String vin, LocalDate warrantyEndDate, int mileage) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setVehicleId(id);
+        vehicle.setVehicleVin(vin);
+        vehicle.setVehicleName("VF8 " + id);
+        vehicle.setWarrantyStartDate(warrantyEndDate.minusYears(5));
+        vehicle.setWarrantyEndDate(warrantyEndDate);
+        vehicle.setMileage(mileage);
+        return vehicle;
+    }
+
+    private static InstalledPart installedPart(Long id, Vehicle vehicle, boolean extendedWarranty, LocalDate expiration) {
+        Part part = new Part();
+        part.setPartId(id * 100);
+        part.setPartName(extendedWarranty ? "Battery" : "Mirror");
+        part.setHasExtendedWarranty(extendedWarranty);
+        part.setDefaultWarrantyMileage(150_000);
+        InstalledPart installedPart = new InstalledPart();
+        installedPart.setInstalledPartId(id);
+        installedPart.setPart(part);
+        installedPart.setVehicle(vehicle);
+        installedPart.setInstallationDate(expiration.minusYears(8));
+        installedPart.setWarrantyExpirationDate(expiration);
+        installedPart.setMileageAtInstallation(0);
+        return installedPart;
+    }
+}
@@ -0,0 +1,116 @@
+package com.swp391.warrantymanagement.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Độ trễ tìm kiếm chung trên 1 triệu dòng (3 field mỗi dòng, giống customer: name, phone, email):
+ * {@link TrigramIndex} so với quét tuần tự {@code contains} trên text đã chuẩn hóa (cận dưới của
+ * {@code LOWER(col) LIKE '%term%'}, vốn còn phải đọc dòng từ đĩa và tính {@code LOWER} mỗi lần).
+ * <p>
+ * Mặc định bị tắt, chạy bằng:
+ * <pre>
+ * mvn test -Dtest=TrigramIndexBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("TrigramIndex benchmark")
+class TrigramIndexBenchmarkTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int QUERIES = 2_000;
+    private static final int PAGE_SIZE = 20;
+    private static final String[] FAMILY = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng"};
+    private static final String[] MIDDLE = {"Văn", "Thị", "Minh", "Đức", "Ngọc", "Thanh", "Quốc", "Hữu"};
+    private static final String[] GIVEN = {"An", "Bình", "Cường", "Dũng", "Hương", "Khoa", "Linh", "Nam", "Phúc", "Trang"};
+
+    @Test
+    void compareIndexAndSequentialScan() {
+        SplittableRandom random = new SplittableRandom(1L);
+        String[][] rows = new String[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            String name = FAMILY[random.nextInt(FAMILY.length)] + " " + MIDDLE[random.nextInt(MIDDLE.length)] + " "
+                    + GIVEN[random.nextInt(GIVEN.length)];
+            rows[i] = new String[]{name, String.format("09%08d", random.nextInt(100_000_000)), "user" + i + "@gmail.com"};
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long buildStart = System.nanoTime();
+        TrigramIndex<Integer> index = new TrigramIndex<>();
+        for (int i = 0; i < ROWS; i++) {
+            index.put(i, 0, rows[i]);
+        }
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        System.gc();
+        long indexBytes = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+
+        // Bản chuẩn hóa sẵn cho phép quét tuần tự (không tính chi phí LOWER/bỏ dấu mỗi truy vấn)
+        String[][] normalized = new String[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            normalized[i] = new String[]{TrigramIndex.normalize(rows[i][0]), rows[i][1], rows[i][2]};
+        }
+
+        String[] terms = new String[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            terms[q] = switch (q % 4) {
+                case 0 -> "user" + random.nextInt(ROWS);                    // email gần như duy nhất
+                case 1 -> String.format("%04d", random.nextInt(10_000));    // đoạn số điện thoại
+                case 2 -> TrigramIndex.normalize(GIVEN[random.nextInt(GIVEN.length)]) + "@"; // không khớp
+                default -> "duc " + GIVEN[random.nextInt(GIVEN.length)];   // tên không dấu, nhiều kết quả
+            };
+        }
+
+        // Warm-up
+        for (int q = 0; q < 200; q++) {
+            index.search(terms[q], null, 0, PAGE_SIZE);
+        }
+        long[] indexNanos = new long[QUERIES];
+        long indexMatches = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            long start = System.nanoTime();
+            indexMatches += index.search(terms[q], null, 0, PAGE_SIZE).total();
+            indexNanos[q] = System.nanoTime() - start;
+        }
+
+        int scanQueries = 200;
+        long[] scanNanos = new long[scanQueries];
+        long scanMatches = 0;
+        long expectedMatches = 0;
+        for (int q = 0; q < scanQueries; q++) {
+            String needle = TrigramIndex.normalize(terms[q]);
+            long start = System.nanoTime();
+            long matches = 0;
+            for (String[] fields : normalized) {
+                if (fields[0].contains(needle) || fields[1].contains(needle) || fields[2].contains(needle)) {
+                    matches++;
+                }
+            }
+            scanNanos[q] = System.nanoTime() - start;
+            scanMatches += matches;
+            expectedMatches += index.search(terms[q], null, 0, PAGE_SIZE).total();
+        }
+
+        System.out.printf("Full-text search over %d rows: build %d ms, index ~%d MB | index p50 %.3f ms, p99 %.3f ms "
+                        + "(%d queries) | sequential scan p50 %.1f ms, p99 %.1f ms (%d queries)%n",
+                ROWS, buildMillis, indexBytes / (1024 * 1024),
+                percentile(indexNanos, 50) / 1e6, percentile(indexNanos, 99) / 1e6, QUERIES,
+                percentile(scanNanos, 50) / 1e6, percentile(scanNanos, 99) / 1e6, scanQueries);
+
+        assertThat(scanMatches).isEqualTo(expectedMatches);
+        assertThat(indexMatches).isPositive();
+    }
+
+    private static long percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+}
@@ -0,0 +1,157 @@
+package com.swp391.warrantymanagement.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parity giữa {@link TrigramIndex} và cách lọc cũ {@code LOWER(col) LIKE '%term%'} (oracle: quét tuần tự với
+ * {@code contains} trên text đã bỏ dấu), kèm các ca xếp hạng, cập nhật/xóa và lọc theo tag.
+ */
+@DisplayName("TrigramIndex parity")
+class TrigramIndexParityTest {
+
+    private static final String[] WORDS = {
+            "Nguyễn", "Trần", "Lê", "Phạm", "Đặng", "Văn", "Thị", "Minh", "Đức", "Hương", "VinFast", "VF8", "VF9",
+            "pin", "động cơ", "bộ sạc", "màn hình", "phanh", "LFP-2024", "Hà Nội", "Đà Nẵng", "gmail.com", "0912"
+    };
+
+    @Test
+    @DisplayName("Matches should equal a sequential diacritic-insensitive contains scan")
+    void search_MatchesSequentialScan() {
+        SplittableRandom random = new SplittableRandom(20251017L);
+        TrigramIndex<Long> index = new TrigramIndex<>();
+        Map<Long, String[]> rows = new HashMap<>();
+        for (long id = 1; id <= 5_000; id++) {
+            String[] fields = {randomText(random), randomText(random), random.nextInt(10) == 0 ? null : randomText(random)};
+            rows.put(id, fields);
+            index.put(id, id % 3, fields);
+        }
+        // Cập nhật và xóa một phần để đi qua nhánh xóa mềm
+        for (long id = 1; id <= 5_000; id += 7) {
+            String[] fields = {randomText(random), randomText(random), randomText(random)};
+            rows.put(id, fields);
+            index.put(id, id % 3, fields);
+        }
+        for (long id = 2; id <= 5_000; id += 11) {
+            rows.remove(id);
+            index.remove(id);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            String term = randomTerm(random);
+            Long tag = random.nextBoolean() ? null : (long) random.nextInt(3);
+            List<Long> expected = new ArrayList<>();
+            rows.forEach((id, fields) -> {
+                if ((tag == null || id % 3 == tag) && legacyMatches(fields, term)) {
+                    expected.add(id);
+                }
+            });
+
+            TrigramIndex.Result<Long> result = index.search(term, tag == null ? null : value -> value == tag, 0, Integer.MAX_VALUE - 16);
+            assertThat(result.total()).as("term=%s tag=%s", term, tag).isEqualTo(expected.size());
+            assertThat(result.keys()).as("term=%s tag=%s", term, tag).containsExactlyInAnyOrderElementsOf(expected);
+        }
+        assertThat(index.size()).isEqualTo(rows.size());
+    }
+
+    @Test
+    @DisplayName("Search should ignore Vietnamese diacritics and case")
+    void search_IgnoresDiacritics() {
+        TrigramIndex<Long> index = new TrigramIndex<>();
+        index.put(1L, 0, "Nguyễn Văn Đức", "0912345678", "duc@gmail.com");
+        index.put(2L, 0, "Trần Thị Hương", "0987654321", "huong@gmail.com");
+
+        assertThat(index.search("nguyen van duc", null, 0, 10).keys()).containsExactly(1L);
+        assertThat(index.search("ĐỨC", null, 0, 10).keys()).containsExactly(1L);
+        assertThat(index.search("Hương", null, 0, 10).keys()).containsExactly(2L);
+        assertThat(index.search("gmail", null, 0, 10).total()).isEqualTo(2);
+        assertThat(index.search("xyz", null, 0, 10).keys()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Exact and prefix matches rank before word-prefix and substring matches")
+    void search_RanksByMatchQuality() {
+        TrigramIndex<Long> index = new TrigramIndex<>();
+        index.put(1L, 0, "Bộ sạc pin", "");               // term ở đầu một từ
+        index.put(2L, 0, "Spin motor", "");               // chứa (giữa từ)
+        index.put(3L, 0, "Pin", "");                      // trùng khớp hoàn toàn
+        index.put(4L, 0, "Pin LFP 75kWh", "");            // bắt đầu bằng term
+        index.put(5L, 0, "Động cơ", "Pin dự phòng");     // bắt đầu bằng term ở field 1
+
+        assertThat(index.search("pin", null, 0, 10).keys()).containsExactly(3L, 4L, 5L, 1L, 2L);
+        // Phân trang trên thứ hạng
+        TrigramIndex.Result<Long> page = index.search("pin", null, 2, 2);
+        assertThat(page.keys()).containsExactly(5L, 1L);
+        assertThat(page.total()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Updates replace old text, removals and compaction keep results consistent")
+    void putAndRemove_KeepIndexConsistent() {
+        TrigramIndex<Long> index = new TrigramIndex<>();
+        index.put(1L, 0, "VinFast VF8");
+        index.put(1L, 0, "VinFast VF9");
+        assertThat(index.search("vf8", null, 0, 10).keys()).isEmpty();
+        assertThat(index.search("vf9", null, 0, 10).keys()).containsExactly(1L);
+
+        // Đủ nhiều lần xóa để kích hoạt compact
+        for (long id = 2; id < 5_000; id++) {
+            index.put(id, 0, "Part " + id);
+        }
+        for (long id = 2; id < 4_990; id++) {
+            index.remove(id);
+        }
+        assertThat(index.size()).isEqualTo(11);
+        assertThat(index.search("part", null, 0, 100).total()).isEqualTo(10);
+        assertThat(index.search("part 4995", null, 0, 10).keys()).containsExactly(4995L);
+        assertThat(index.search("vf9", null, 0, 10).keys()).containsExactly(1L);
+    }
+
+    /**
+     * Oracle: {@code LOWER(field) LIKE '%term%'} trên từng field, sau khi bỏ dấu như collation không dấu.
+     */
+    private static boolean legacyMatches(String[] fields, String term) {
+        String needle = TrigramIndex.normalize(term);
+        for (String field : fields) {
+            if (field != null && TrigramIndex.normalize(field).contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String randomText(SplittableRandom random) {
+        StringBuilder text = new StringBuilder();
+        int words = 1 + random.nextInt(4);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextInt(4) == 0) {
+                text.append(random.nextInt(100));
+            }
+        }
+        return text.toString();
+    }
+
+    private static String randomTerm(SplittableRandom random) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        int start = random.nextInt(word.length());
+        int end = Math.min(word.length(), start + 1 + random.nextInt(6));
+        String term = word.substring(start, end);
+        if (term.isBlank()) {
+            term = word; // Term rỗng sau chuẩn hóa không được tìm kiếm
+        }
+        return random.nextBoolean() ? term.toUpperCase(Locale.ROOT) : term;
+    }
+}
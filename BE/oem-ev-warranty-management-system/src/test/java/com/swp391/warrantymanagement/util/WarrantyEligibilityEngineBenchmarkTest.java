@@ -0,0 +1,96 @@
+package com.swp391.warrantymanagement.util;
+
+import com.swp391.warrantymanagement.util.WarrantyEligibilityEngine.Decision;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * So sánh thời gian (ns/op) và bộ nhớ cấp phát (bytes/op) giữa logic strictest-rule cũ (LocalDate + ChronoUnit,
+ * boxing Integer) và {@link WarrantyEligibilityEngine} trên cùng tập input (chủ yếu còn bảo hành - valid path).
+ * <p>
+ * Mặc định bị tắt, chạy bằng:
+ * <pre>
+ * mvn test -Dtest=WarrantyEligibilityEngineBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("WarrantyEligibilityEngine benchmark")
+class WarrantyEligibilityEngineBenchmarkTest {
+
+    private static final int INPUTS = 4_096;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 1_000;
+    private static final int VEHICLE_MILEAGE_LIMIT = 100_000;
+
+    @Test
+    void compareLegacyAndEngine() {
+        WarrantyEligibilityEngineParityTest.Input[] inputs = new WarrantyEligibilityEngineParityTest.Input[INPUTS];
+        long[][] compact = new long[INPUTS][];
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < INPUTS; i++) {
+            WarrantyEligibilityEngineParityTest.Input in = WarrantyEligibilityEngineParityTest.randomInput(random);
+            // 90% input còn bảo hành để đo valid path
+            if (i % 10 != 0) {
+                in = new WarrantyEligibilityEngineParityTest.Input(in.today(), in.today().plusDays(365),
+                        in.today().plusDays(730), 20_000, 5_000, 50_000, true, in.grace());
+            }
+            inputs[i] = in;
+            compact[i] = new long[]{in.today().toEpochDay(), in.partExpiry().toEpochDay(), in.vehicleExpiry().toEpochDay(),
+                    in.mileage(), in.mileageAtInstallation() != null ? in.mileageAtInstallation() : 0,
+                    in.partMileageLimit() != null ? in.partMileageLimit() : WarrantyEligibilityEngine.NO_MILEAGE_LIMIT,
+                    in.grace()};
+        }
+
+        Result legacy = measure(round -> {
+            long checksum = 0;
+            for (WarrantyEligibilityEngineParityTest.Input in : inputs) {
+                WarrantyEligibilityEngineParityTest.LegacyValidation v =
+                        WarrantyEligibilityEngineParityTest.legacyExtendedValidation(in);
+                checksum += v.finalDaysRemaining() + v.finalStatus().ordinal() + v.finalMileageRemaining();
+            }
+            return checksum;
+        });
+        Result engine = measure(round -> {
+            long checksum = 0;
+            for (long[] c : compact) {
+                Decision d = WarrantyEligibilityEngine.evaluate(c[0], c[1], c[2], (int) c[3], (int) c[4], (int) c[5],
+                        VEHICLE_MILEAGE_LIMIT, (int) c[6]);
+                checksum += d.daysRemaining() + d.status().ordinal() + d.mileageRemaining();
+            }
+            return checksum;
+        });
+
+        System.out.printf("Warranty eligibility: legacy %.1f ns/op, %.1f B/op | engine %.1f ns/op, %.1f B/op%n",
+                legacy.nanosPerOp(), legacy.bytesPerOp(), engine.nanosPerOp(), engine.bytesPerOp());
+        assertThat(engine.checksum()).isEqualTo(legacy.checksum());
+    }
+
+    private record Result(double nanosPerOp, double bytesPerOp, long checksum) {
+    }
+
+    private static Result measure(ToLongFunction<Integer> round) {
+        long checksum = 0;
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            checksum += round.applyAsLong(r);
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        checksum = 0;
+        long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int r = 0; r < MEASURED_ROUNDS; r++) {
+            checksum += round.applyAsLong(r);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+        double ops = (double) MEASURED_ROUNDS * INPUTS;
+        return new Result(elapsed / ops, bytes / ops, checksum);
+    }
+}
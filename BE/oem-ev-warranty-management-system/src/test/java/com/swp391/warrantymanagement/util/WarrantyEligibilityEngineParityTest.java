@@ -0,0 +1,301 @@
+package com.swp391.warrantymanagement.util;
+
+import com.swp391.warrantymanagement.enums.WarrantyStatus;
+import com.swp391.warrantymanagement.util.WarrantyEligibilityEngine.Decision;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parity giữa {@link WarrantyEligibilityEngine} và logic strictest-rule cũ (LocalDate + ChronoUnit) từng được copy ở
+ * createClaim/updateClaim, createClaimBySCStaff và buildExtendedPartWarrantyResponse.
+ * <p>
+ * Các hàm {@code legacy*} bên dưới là bản sao nguyên văn phần quyết định của code cũ, dùng làm oracle.
+ * Input ngẫu nhiên (seed cố định) tập trung quanh các biên: hết hạn đúng hôm nay, đúng ngày cuối grace period,
+ * km đúng bằng giới hạn, part và xe hết hạn cùng ngày.
+ */
+@DisplayName("WarrantyEligibilityEngine parity")
+class WarrantyEligibilityEngineParityTest {
+
+    private static final int ITERATIONS = 1_000_000;
+    private static final int VEHICLE_MILEAGE_LIMIT = 100_000;
+    private static final LocalDate BASE_DAY = LocalDate.of(2025, 6, 15);
+
+    enum Outcome { FREE, PAID_MILEAGE, PAID_GRACE, REJECTED }
+
+    record Input(LocalDate today, LocalDate partExpiry, LocalDate vehicleExpiry, int mileage,
+                         Integer mileageAtInstallation, Integer partMileageLimit, boolean extended, int grace) {
+    }
+
+    @Test
+    @DisplayName("Customer claim rule (createClaim/updateClaim) should match the legacy decision")
+    void customerClaimRule_MatchesLegacy() {
+        SplittableRandom random = new SplittableRandom(20250615L);
+        for (int i = 0; i < ITERATIONS; i++) {
+            Input in = randomInput(random);
+            Decision decision = WarrantyEligibilityEngine.evaluate(in.today().toEpochDay(),
+                    in.extended() ? in.partExpiry().toEpochDay() : WarrantyEligibilityEngine.NO_EXPIRY,
+                    in.vehicleExpiry().toEpochDay(), 0, 0,
+                    WarrantyEligibilityEngine.NO_MILEAGE_LIMIT, WarrantyEligibilityEngine.NO_MILEAGE_LIMIT, in.grace());
+
+            LegacyCustomer legacy = legacyCustomerClaim(in);
+            assertThat(outcome(decision)).as("outcome %s", in).isEqualTo(legacy.outcome());
+            if (legacy.outcome() != Outcome.FREE) {
+                boolean partIsStrictest = in.extended() && decision.isPartStrictestByDate();
+                assertThat(partIsStrictest ? in.partExpiry() : in.vehicleExpiry()).as("expiry %s", in).isEqualTo(legacy.expirationDate());
+                assertThat(decision.daysExpired()).as("daysExpired %s", in).isEqualTo(legacy.daysExpired());
+            }
+            assertThat(decision.daysExpired()).as("fee daysExpired %s", in).isEqualTo(legacyFeeDaysExpired(in));
+        }
+    }
+
+    @Test
+    @DisplayName("SC staff claim rule (createClaimBySCStaff) should match the legacy decision")
+    void staffClaimRule_MatchesLegacy() {
+        SplittableRandom random = new SplittableRandom(42L);
+        for (int i = 0; i < ITERATIONS; i++) {
+            Input in = randomInput(random);
+            Integer partLimit = in.extended() ? in.partMileageLimit() : null;
+            Decision decision = WarrantyEligibilityEngine.evaluate(in.today().toEpochDay(),
+                    in.partExpiry().toEpochDay(), in.vehicleExpiry().toEpochDay(), in.mileage(),
+                    in.mileageAtInstallation() != null ? in.mileageAtInstallation() : 0,
+                    partLimit != null ? partLimit : WarrantyEligibilityEngine.NO_MILEAGE_LIMIT,
+                    VEHICLE_MILEAGE_LIMIT, in.grace());
+
+            LegacyStaff legacy = legacyStaffClaim(in);
+            assertThat(outcome(decision)).as("outcome %s", in).isEqualTo(legacy.outcome());
+            if (legacy.outcome() == Outcome.PAID_GRACE || legacy.outcome() == Outcome.REJECTED) {
+                assertThat(decision.isPartStrictestByDate() ? "part" : "vehicle").as("entity %s", in).isEqualTo(legacy.expiredEntity());
+                assertThat(decision.daysExpired()).as("daysExpired %s", in).isEqualTo(legacy.maxDaysExpired());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Extended part validation should match the legacy response fields")
+    void extendedPartValidation_MatchesLegacy() {
+        SplittableRandom random = new SplittableRandom(7L);
+        for (int i = 0; i < ITERATIONS; i++) {
+            Input in = randomInput(random);
+            Decision decision = WarrantyEligibilityEngine.evaluate(in.today().toEpochDay(),
+                    in.partExpiry().toEpochDay(), in.vehicleExpiry().toEpochDay(), in.mileage(),
+                    in.mileageAtInstallation() != null ? in.mileageAtInstallation() : 0,
+                    in.partMileageLimit() != null ? in.partMileageLimit() : WarrantyEligibilityEngine.NO_MILEAGE_LIMIT,
+                    VEHICLE_MILEAGE_LIMIT, in.grace());
+
+            LegacyValidation legacy = legacyExtendedValidation(in);
+            assertThat(decision.status()).as("status %s", in).isEqualTo(legacy.finalStatus());
+            assertThat(decision.partStatus()).as("partStatus %s", in).isEqualTo(legacy.partStatus());
+            assertThat(decision.vehicleStatus()).as("vehicleStatus %s", in).isEqualTo(legacy.vehicleStatus());
+            assertThat(decision.daysRemaining()).as("daysRemaining %s", in).isEqualTo(legacy.finalDaysRemaining());
+            assertThat(decision.partDaysRemaining()).as("partDaysRemaining %s", in).isEqualTo(legacy.partDaysRemaining());
+            assertThat(decision.isPartStrictestByDate() ? in.partExpiry() : in.vehicleExpiry())
+                    .as("endDate %s", in).isEqualTo(legacy.finalWarrantyEndDate());
+            assertThat(decision.isPartMileageTracked() ? decision.partMileageRemaining() : null)
+                    .as("partMileageRemaining %s", in).isEqualTo(legacy.partMileageRemaining());
+            assertThat(decision.mileageRemaining()).as("mileageRemaining %s", in).isEqualTo(legacy.finalMileageRemaining());
+            assertThat(decision.isPartStrictestByMileage() ? in.partMileageLimit() : Integer.valueOf(VEHICLE_MILEAGE_LIMIT))
+                    .as("mileageLimit %s", in).isEqualTo(legacy.finalMileageLimit());
+        }
+    }
+
+    // ============= INPUT GENERATION =============
+
+    static Input randomInput(SplittableRandom random) {
+        LocalDate today = BASE_DAY.plusDays(random.nextInt(-400, 400));
+        int grace = random.nextInt(4) == 0 ? 180 : random.nextInt(0, 400);
+        LocalDate partExpiry = nearBoundary(random, today, grace);
+        LocalDate vehicleExpiry = random.nextInt(8) == 0 ? partExpiry : nearBoundary(random, today, grace);
+
+        int mileageLimit = random.nextInt(3) == 0 ? 50_000 : random.nextInt(10_000, 200_000);
+        Integer partMileageLimit = random.nextInt(5) == 0 ? null : mileageLimit;
+        Integer mileageAtInstallation = random.nextInt(6) == 0 ? null : random.nextInt(0, 80_000);
+        int mileage = switch (random.nextInt(4)) {
+            case 0 -> VEHICLE_MILEAGE_LIMIT + random.nextInt(-2, 3);
+            case 1 -> (mileageAtInstallation != null ? mileageAtInstallation : 0) + mileageLimit + random.nextInt(-2, 3);
+            default -> random.nextInt(0, 250_000);
+        };
+        return new Input(today, partExpiry, vehicleExpiry, mileage, mileageAtInstallation, partMileageLimit,
+                random.nextBoolean(), grace);
+    }
+
+    private static LocalDate nearBoundary(SplittableRandom random, LocalDate today, int grace) {
+        return switch (random.nextInt(4)) {
+            case 0 -> today.plusDays(random.nextInt(-2, 3));
+            case 1 -> today.minusDays(grace + random.nextInt(-2, 3));
+            default -> today.plusDays(random.nextInt(-3 * Math.max(grace, 1), 3_000));
+        };
+    }
+
+    private static Outcome outcome(Decision decision) {
+        return switch (decision.eligibility()) {
+            case COVERED -> Outcome.FREE;
+            case PAID_MILEAGE_EXCEEDED -> Outcome.PAID_MILEAGE;
+            case PAID_IN_GRACE_PERIOD -> Outcome.PAID_GRACE;
+            case GRACE_PERIOD_EXCEEDED -> Outcome.REJECTED;
+        };
+    }
+
+    // ============= LEGACY ORACLES (logic cũ, giữ nguyên) =============
+
+    private record LegacyCustomer(Outcome outcome, LocalDate expirationDate, long daysExpired) {
+    }
+
+    private static LegacyCustomer legacyCustomerClaim(Input in) {
+        LocalDate today = in.today();
+        int gracePeriodDays = in.grace();
+        if (in.extended()) {
+            LocalDate partExpirationDate = in.partExpiry();
+            long partDaysRemaining = ChronoUnit.DAYS.between(today, partExpirationDate);
+            LocalDate vehicleExpirationDate = in.vehicleExpiry();
+            long vehicleDaysRemaining = ChronoUnit.DAYS.between(today, vehicleExpirationDate);
+            long finalDaysRemaining = Math.min(partDaysRemaining, vehicleDaysRemaining);
+            boolean isPartExpiredWorse = partDaysRemaining <= vehicleDaysRemaining;
+            LocalDate finalExpirationDate = isPartExpiredWorse ? partExpirationDate : vehicleExpirationDate;
+            if (finalDaysRemaining < 0) {
+                long daysExpired = Math.abs(finalDaysRemaining);
+                return new LegacyCustomer(daysExpired <= gracePeriodDays ? Outcome.PAID_GRACE : Outcome.REJECTED,
+                        finalExpirationDate, daysExpired);
+            }
+            return new LegacyCustomer(Outcome.FREE, null, 0);
+        }
+        LocalDate expirationDate = in.vehicleExpiry();
+        if (expirationDate.isBefore(today)) {
+            long daysExpired = ChronoUnit.DAYS.between(expirationDate, today);
+            return new LegacyCustomer(daysExpired <= gracePeriodDays ? Outcome.PAID_GRACE : Outcome.REJECTED,
+                    expirationDate, daysExpired);
+        }
+        return new LegacyCustomer(Outcome.FREE, null, 0);
+    }
+
+    /** Số ngày quá hạn dùng cho dynamic markup trong createClaim (0 = không áp dụng markup động). */
+    private static long legacyFeeDaysExpired(Input in) {
+        LocalDate today = in.today();
+        LocalDate partExp = in.partExpiry();
+        LocalDate vehExp = in.vehicleExpiry();
+        LocalDate expirationDate = in.extended() ?
+                (Math.min(ChronoUnit.DAYS.between(today, partExp), ChronoUnit.DAYS.between(today, vehExp)) <= 0 ?
+                        (ChronoUnit.DAYS.between(today, partExp) <= ChronoUnit.DAYS.between(today, vehExp) ?
+                                partExp : vehExp) : null)
+                : vehExp;
+        if (expirationDate != null && expirationDate.isBefore(today)) {
+            return ChronoUnit.DAYS.between(expirationDate, today);
+        }
+        return 0;
+    }
+
+    private record LegacyStaff(Outcome outcome, String expiredEntity, long maxDaysExpired) {
+    }
+
+    private static LegacyStaff legacyStaffClaim(Input in) {
+        LocalDate today = in.today();
+        LocalDate partExpirationDate = in.partExpiry();
+        LocalDate vehicleExpirationDate = in.vehicleExpiry();
+        int gracePeriodDays = in.grace();
+
+        long partDaysExpired = partExpirationDate.isBefore(today) ? ChronoUnit.DAYS.between(partExpirationDate, today) : 0;
+        long vehicleDaysExpired = vehicleExpirationDate.isBefore(today) ? ChronoUnit.DAYS.between(vehicleExpirationDate, today) : 0;
+
+        int currentVehicleMileage = in.mileage();
+        boolean vehicleMileageExpired = currentVehicleMileage > VEHICLE_MILEAGE_LIMIT;
+        boolean partMileageExpired = false;
+        if (in.extended()) {
+            int mileageAtInstallation = in.mileageAtInstallation() != null ? in.mileageAtInstallation() : 0;
+            int mileageSinceInstallation = currentVehicleMileage - mileageAtInstallation;
+            Integer partMileageLimit = in.partMileageLimit();
+            if (partMileageLimit != null) {
+                partMileageExpired = mileageSinceInstallation > partMileageLimit;
+            }
+        }
+
+        long maxDaysExpired = Math.max(partDaysExpired, vehicleDaysExpired);
+        boolean isExpiredByDate = maxDaysExpired > 0;
+        boolean isExpiredByMileage = vehicleMileageExpired || partMileageExpired;
+        String expiredEntity = vehicleDaysExpired > partDaysExpired ? "vehicle" : "part";
+        if (!(isExpiredByDate || isExpiredByMileage)) {
+            return new LegacyStaff(Outcome.FREE, expiredEntity, maxDaysExpired);
+        }
+        if (isExpiredByMileage && !isExpiredByDate) {
+            return new LegacyStaff(Outcome.PAID_MILEAGE, expiredEntity, maxDaysExpired);
+        }
+        if (maxDaysExpired <= gracePeriodDays) {
+            return new LegacyStaff(Outcome.PAID_GRACE, expiredEntity, maxDaysExpired);
+        }
+        return new LegacyStaff(Outcome.REJECTED, expiredEntity, maxDaysExpired);
+    }
+
+    record LegacyValidation(WarrantyStatus finalStatus, WarrantyStatus partStatus, WarrantyStatus vehicleStatus,
+                                    long finalDaysRemaining, long partDaysRemaining, LocalDate finalWarrantyEndDate,
+                                    Integer partMileageRemaining, Integer finalMileageRemaining,
+                                    Integer finalMileageLimit) {
+    }
+
+    static LegacyValidation legacyExtendedValidation(Input in) {
+        LocalDate today = in.today();
+        int currentMileage = in.mileage();
+        int mileageAtInstallation = in.mileageAtInstallation() != null ? in.mileageAtInstallation() : 0;
+        int mileageSinceInstallation = currentMileage - mileageAtInstallation;
+        Integer partMileageLimit = in.partMileageLimit();
+
+        LocalDate partExpirationDate = in.partExpiry();
+        long partDaysRemaining = ChronoUnit.DAYS.between(today, partExpirationDate);
+        Integer partMileageRemaining = partMileageLimit != null ? partMileageLimit - mileageSinceInstallation : null;
+        WarrantyStatus partStatus = legacyStatus(today.isAfter(partExpirationDate),
+                partMileageLimit != null && mileageSinceInstallation > partMileageLimit);
+
+        LocalDate vehicleExpirationDate = in.vehicleExpiry();
+        long vehicleDaysRemaining = ChronoUnit.DAYS.between(today, vehicleExpirationDate);
+        int vehicleMileageRemaining = VEHICLE_MILEAGE_LIMIT - currentMileage;
+        WarrantyStatus vehicleStatus = legacyStatus(today.isAfter(vehicleExpirationDate),
+                currentMileage > VEHICLE_MILEAGE_LIMIT);
+
+        WarrantyStatus finalStatus = legacyStrictestStatus(partStatus, vehicleStatus);
+        long finalDaysRemaining = Math.min(partDaysRemaining, vehicleDaysRemaining);
+        LocalDate finalWarrantyEndDate = (partDaysRemaining <= vehicleDaysRemaining) ? partExpirationDate : vehicleExpirationDate;
+
+        Integer finalMileageRemaining;
+        Integer finalMileageLimit;
+        if (partMileageRemaining != null) {
+            finalMileageRemaining = Math.min(partMileageRemaining, vehicleMileageRemaining);
+            finalMileageLimit = (vehicleMileageRemaining < partMileageRemaining) ? VEHICLE_MILEAGE_LIMIT : partMileageLimit;
+        } else {
+            finalMileageRemaining = vehicleMileageRemaining;
+            finalMileageLimit = VEHICLE_MILEAGE_LIMIT;
+        }
+        return new LegacyValidation(finalStatus, partStatus, vehicleStatus, finalDaysRemaining, partDaysRemaining,
+                finalWarrantyEndDate, partMileageRemaining, finalMileageRemaining, finalMileageLimit);
+    }
+
+    private static WarrantyStatus legacyStatus(boolean dateExpired, boolean mileageExpired) {
+        if (!dateExpired && !mileageExpired) {
+            return WarrantyStatus.VALID;
+        } else if (dateExpired && mileageExpired) {
+            return WarrantyStatus.EXPIRED_BOTH;
+        } else if (dateExpired) {
+            return WarrantyStatus.EXPIRED_DATE;
+        } else {
+            return WarrantyStatus.EXPIRED_MILEAGE;
+        }
+    }
+
+    private static WarrantyStatus legacyStrictestStatus(WarrantyStatus partStatus, WarrantyStatus vehicleStatus) {
+        if (partStatus == WarrantyStatus.EXPIRED_BOTH || vehicleStatus == WarrantyStatus.EXPIRED_BOTH) {
+            return WarrantyStatus.EXPIRED_BOTH;
+        }
+        if (partStatus == WarrantyStatus.EXPIRED_DATE || vehicleStatus == WarrantyStatus.EXPIRED_DATE) {
+            if (partStatus == WarrantyStatus.EXPIRED_MILEAGE || vehicleStatus == WarrantyStatus.EXPIRED_MILEAGE) {
+                return WarrantyStatus.EXPIRED_BOTH;
+            }
+            return WarrantyStatus.EXPIRED_DATE;
+        }
+        if (partStatus == WarrantyStatus.EXPIRED_MILEAGE || vehicleStatus == WarrantyStatus.EXPIRED_MILEAGE) {
+            return WarrantyStatus.EXPIRED_MILEAGE;
+        }
+        return WarrantyStatus.VALID;
+    }
+}
@@ -0,0 +1,106 @@
+package com.swp391.warrantymanagement.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * So sánh thời gian (ns/op) và bộ nhớ cấp phát (bytes/op) khi báo giá phí bảo hành tính phí cho cả đội xe:
+ * chuỗi {@link BigDecimal} cũ, {@link WarrantyFeeCalculator#paidWarrantyFee} từng xe và
+ * {@link WarrantyFeeCalculator#quoteFleet} trên mảng.
+ * <p>
+ * Mặc định bị tắt, chạy bằng:
+ * <pre>
+ * mvn test -Dtest=WarrantyFeeCalculatorBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("WarrantyFeeCalculator benchmark")
+class WarrantyFeeCalculatorBenchmarkTest {
+
+    private static final int INPUTS = 4_096;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 1_000;
+    private static final BigDecimal MIN_FEE = new BigDecimal("0.20");
+    private static final BigDecimal MAX_FEE = new BigDecimal("0.50");
+    private static final BigDecimal BASE_FEE = new BigDecimal("500000");
+
+    @Test
+    void compareLegacyAndFixedPoint() {
+        long[] days = new long[INPUTS];
+        int[] graces = new int[INPUTS];
+        long[] costsMinor = new long[INPUTS];
+        BigDecimal[] costs = new BigDecimal[INPUTS];
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < INPUTS; i++) {
+            graces[i] = 30 + random.nextInt(60);
+            days[i] = random.nextInt(graces[i] + 1);
+            costsMinor[i] = random.nextLong(100_000_00L, 50_000_000_00L);
+            costs[i] = BigDecimal.valueOf(costsMinor[i], WarrantyFeeCalculator.MINOR_UNIT_SCALE);
+        }
+        WarrantyFeeCalculator.FeeSchedule schedule = WarrantyFeeCalculator.feeSchedule(MIN_FEE, MAX_FEE, BASE_FEE);
+        long[] fees = new long[INPUTS];
+
+        Result legacy = measure(round -> {
+            long checksum = 0;
+            for (int i = 0; i < INPUTS; i++) {
+                BigDecimal ratio = BigDecimal.valueOf(days[i]).divide(BigDecimal.valueOf(graces[i]), 4, RoundingMode.HALF_UP);
+                BigDecimal fee = costs[i].multiply(MIN_FEE.add(MAX_FEE.subtract(MIN_FEE).multiply(ratio))).max(BASE_FEE);
+                checksum += fee.setScale(WarrantyFeeCalculator.MINOR_UNIT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+            }
+            return checksum;
+        });
+        Result single = measure(round -> {
+            long checksum = 0;
+            for (int i = 0; i < INPUTS; i++) {
+                BigDecimal fee = WarrantyFeeCalculator.paidWarrantyFee(days[i], graces[i], MIN_FEE, MAX_FEE, costs[i], BASE_FEE);
+                checksum += fee.setScale(WarrantyFeeCalculator.MINOR_UNIT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+            }
+            return checksum;
+        });
+        Result fleet = measure(round -> {
+            WarrantyFeeCalculator.quoteFleet(schedule, days, graces, costsMinor, fees);
+            long checksum = 0;
+            for (long fee : fees) {
+                checksum += fee;
+            }
+            return checksum;
+        });
+
+        System.out.printf("Paid warranty fee: legacy %.1f ns/op, %.1f B/op | single %.1f ns/op, %.1f B/op | fleet %.1f ns/op, %.1f B/op%n",
+                legacy.nanosPerOp(), legacy.bytesPerOp(), single.nanosPerOp(), single.bytesPerOp(),
+                fleet.nanosPerOp(), fleet.bytesPerOp());
+        assertThat(single.checksum()).isEqualTo(legacy.checksum());
+        assertThat(fleet.checksum()).isEqualTo(legacy.checksum());
+    }
+
+    private record Result(double nanosPerOp, double bytesPerOp, long checksum) {
+    }
+
+    private static Result measure(ToLongFunction<Integer> round) {
+        long checksum = 0;
+        for (int r = 0; r < WARMUP_ROUNDS; r++) {
+            checksum += round.applyAsLong(r);
+        }
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        checksum = 0;
+        long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int r = 0; r < MEASURED_ROUNDS; r++) {
+            checksum += round.applyAsLong(r);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+        double ops = (double) MEASURED_ROUNDS * INPUTS;
+        return new Result(elapsed / ops, bytes / ops, checksum);
+    }
+}
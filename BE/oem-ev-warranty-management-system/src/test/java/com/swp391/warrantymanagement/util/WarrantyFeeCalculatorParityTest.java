@@ -0,0 +1,200 @@
+package com.swp391.warrantymanagement.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Parity giữa {@link WarrantyFeeCalculator} và chuỗi phép tính {@link BigDecimal} cũ ở
+ * {@code WarrantyClaimServiceImpl.createClaim} (markup) và {@code WarrantyValidationServiceImpl.calculateWarrantyFee}.
+ * <p>
+ * Các hàm {@code legacy*} là bản sao nguyên văn code cũ, dùng làm oracle. So sánh bằng {@link BigDecimal#equals}
+ * (cả giá trị lẫn scale). Input ngẫu nhiên (seed cố định) gồm các ca làm tròn đúng nửa (ví dụ grace = 32, số ngày lẻ),
+ * quá grace period (cap 100%), scale khác nhau và số rất lớn để đi vào nhánh fallback.
+ */
+@DisplayName("WarrantyFeeCalculator parity")
+class WarrantyFeeCalculatorParityTest {
+
+    private static final int ITERATIONS = 1_000_000;
+    private static final BigDecimal BASE_FEE = new BigDecimal("500000");
+    // Grace period chia hết cho 2^5 tạo ra phần dư đúng một nửa khi nhân với 10^4
+    private static final int[] TIE_GRACE_PERIODS = {32, 64, 96, 160, 320, 480, 800};
+
+    @Test
+    @DisplayName("Validation fee should equal the legacy BigDecimal fee (value and scale)")
+    void paidWarrantyFee_MatchesLegacy() {
+        SplittableRandom random = new SplittableRandom(20251017L);
+        for (int i = 0; i < ITERATIONS; i++) {
+            int grace = randomGrace(random);
+            long daysRemaining = -randomDaysExpired(random, grace) * (random.nextInt(10) == 0 ? -1 : 1);
+            BigDecimal min = randomDecimal(random, 0, 100, 2);
+            BigDecimal max = random.nextInt(5) == 0 ? min : randomDecimal(random, 0, 100, 2);
+            BigDecimal cost = random.nextInt(20) == 0 ? null : randomAmount(random);
+
+            BigDecimal expected = legacyCalculateWarrantyFee(daysRemaining, grace, min, max, cost);
+            BigDecimal actual = WarrantyFeeCalculator.paidWarrantyFee(Math.abs(daysRemaining), grace, min, max, cost, BASE_FEE);
+            assertThat(actual).as("days=%d grace=%d min=%s max=%s cost=%s", daysRemaining, grace, min, max, cost)
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("Claim markup fee should equal the legacy BigDecimal fee (value and scale)")
+    void markupFee_MatchesLegacy() {
+        SplittableRandom random = new SplittableRandom(7L);
+        for (int i = 0; i < ITERATIONS; i++) {
+            int grace = randomGrace(random);
+            long daysExpired = random.nextInt(4) == 0 ? 0 : randomDaysExpired(random, grace);
+            BigDecimal partPrice = randomAmount(random);
+            BigDecimal min = randomDecimal(random, 0, 10_000, 2);
+            BigDecimal max = random.nextInt(5) == 0 ? null : randomDecimal(random, 0, 10_000, 2);
+
+            BigDecimal markup = WarrantyFeeCalculator.markupPercentage(min, max, daysExpired, grace);
+            BigDecimal actual = WarrantyFeeCalculator.applyMarkup(partPrice, markup);
+            assertThat(actual).as("days=%d grace=%d min=%s max=%s price=%s", daysExpired, grace, min, max, partPrice)
+                    .isEqualTo(legacyMarkupFee(partPrice, min, max, daysExpired, grace));
+        }
+    }
+
+    @Test
+    @DisplayName("Fleet quote should equal the legacy fee rounded to minor units")
+    void quoteFleet_MatchesLegacy() {
+        SplittableRandom random = new SplittableRandom(99L);
+        int fleetSize = 10_000;
+        for (int round = 0; round < ITERATIONS / fleetSize; round++) {
+            BigDecimal min = BigDecimal.valueOf(random.nextInt(101), 2);
+            BigDecimal max = BigDecimal.valueOf(random.nextInt(101), 2);
+            WarrantyFeeCalculator.FeeSchedule schedule = WarrantyFeeCalculator.feeSchedule(min, max, BASE_FEE);
+
+            long[] days = new long[fleetSize];
+            int[] graces = new int[fleetSize];
+            long[] costs = new long[fleetSize];
+            for (int i = 0; i < fleetSize; i++) {
+                graces[i] = randomGrace(random);
+                days[i] = Math.min(randomDaysExpired(random, graces[i]), 100_000); // Phí phải nằm trong phạm vi long
+                costs[i] = switch (random.nextInt(50)) {
+                    case 0 -> -random.nextLong(1_000);                  // Không có chi phí: phí sàn
+                    case 1 -> random.nextLong(9_000_000_000_000L, 10_000_000_000_000L); // Tràn phép nhân: fallback
+                    default -> random.nextLong(1, 9_000_000_000_000L);
+                };
+            }
+            long[] fees = new long[fleetSize];
+            WarrantyFeeCalculator.quoteFleet(schedule, days, graces, costs, fees);
+
+            for (int i = 0; i < fleetSize; i++) {
+                BigDecimal expected = legacyCalculateWarrantyFee(-days[i], graces[i], min, max,
+                        BigDecimal.valueOf(costs[i], WarrantyFeeCalculator.MINOR_UNIT_SCALE))
+                        .setScale(WarrantyFeeCalculator.MINOR_UNIT_SCALE, RoundingMode.HALF_UP);
+                assertThat(BigDecimal.valueOf(fees[i], WarrantyFeeCalculator.MINOR_UNIT_SCALE))
+                        .as("days=%d grace=%d min=%s max=%s cost=%d", days[i], graces[i], min, max, costs[i])
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Zero grace period should fail like the BigDecimal division")
+    void zeroGracePeriod_ThrowsArithmeticException() {
+        BigDecimal min = new BigDecimal("0.20");
+        BigDecimal max = new BigDecimal("0.50");
+        assertThatThrownBy(() -> legacyCalculateWarrantyFee(-5, 0, min, max, BigDecimal.TEN))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> WarrantyFeeCalculator.paidWarrantyFee(5, 0, min, max, BigDecimal.TEN, BASE_FEE))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> WarrantyFeeCalculator.quoteFleet(WarrantyFeeCalculator.feeSchedule(min, max, BASE_FEE),
+                new long[]{5}, new int[]{0}, new long[]{1_000}, new long[1]))
+                .isInstanceOf(ArithmeticException.class);
+        assertThat(WarrantyFeeCalculator.paidWarrantyFee(5, 0, min, max, BigDecimal.ZERO, BASE_FEE)).isSameAs(BASE_FEE);
+    }
+
+    // ============= RANDOM INPUTS =============
+
+    private static int randomGrace(SplittableRandom random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> TIE_GRACE_PERIODS[random.nextInt(TIE_GRACE_PERIODS.length)];
+            case 1 -> 1 + random.nextInt(10);
+            default -> 1 + random.nextInt(1_000);
+        };
+    }
+
+    private static long randomDaysExpired(SplittableRandom random, int grace) {
+        return switch (random.nextInt(5)) {
+            case 0 -> grace;                                  // Đúng ngày cuối grace period
+            case 1 -> 2L * random.nextInt(grace) + 1;         // Số lẻ: làm tròn đúng nửa với grace chia hết cho 32
+            case 2 -> grace + 1 + random.nextInt(1_000);      // Quá grace period (ratio > 1)
+            case 3 -> random.nextInt(20) == 0 ? Long.MAX_VALUE / 1_000 : random.nextInt(100_000); // Tràn khi nhân 10^4
+            default -> random.nextInt(grace + 1);
+        };
+    }
+
+    /** Số dương ngẫu nhiên với scale 0..maxScale (hoặc scale lạ để đi vào nhánh fallback). */
+    private static BigDecimal randomDecimal(SplittableRandom random, int minUnscaled, int maxUnscaled, int maxScale) {
+        long unscaled = minUnscaled + random.nextInt(maxUnscaled - minUnscaled + 1);
+        return switch (random.nextInt(50)) {
+            case 0 -> BigDecimal.valueOf(unscaled, -1);      // Scale âm
+            case 1 -> BigDecimal.valueOf(unscaled, 12);      // Scale lớn
+            default -> BigDecimal.valueOf(unscaled, random.nextInt(maxScale + 1));
+        };
+    }
+
+    private static BigDecimal randomAmount(SplittableRandom random) {
+        return switch (random.nextInt(20)) {
+            case 0 -> BigDecimal.valueOf(random.nextLong(1, Long.MAX_VALUE), random.nextInt(3)); // Tràn long
+            case 1 -> BigDecimal.valueOf(1 + random.nextInt(100), random.nextInt(3));            // Dưới phí sàn
+            default -> BigDecimal.valueOf(random.nextLong(1, 100_000_000_000L), random.nextInt(4));
+        };
+    }
+
+    // ============= LEGACY ORACLES (copy nguyên văn) =============
+
+    /** WarrantyValidationServiceImpl.calculateWarrantyFee trước khi dùng WarrantyFeeCalculator. */
+    private static BigDecimal legacyCalculateWarrantyFee(long daysRemaining, int gracePeriodDays,
+                                                         BigDecimal minFeePercentage, BigDecimal maxFeePercentage,
+                                                         BigDecimal estimatedRepairCost) {
+        if (estimatedRepairCost == null || estimatedRepairCost.compareTo(BigDecimal.ZERO) <= 0) {
+            return BASE_FEE;
+        }
+
+        long daysExpired = Math.abs(daysRemaining);
+
+        BigDecimal progressRatio = BigDecimal.valueOf(daysExpired)
+                .divide(BigDecimal.valueOf(gracePeriodDays), 4, RoundingMode.HALF_UP);
+
+        BigDecimal feePercentage = minFeePercentage.add(
+                maxFeePercentage.subtract(minFeePercentage).multiply(progressRatio)
+        );
+
+        BigDecimal calculatedFee = estimatedRepairCost.multiply(feePercentage);
+
+        return calculatedFee.max(BASE_FEE);
+    }
+
+    /** Phần markup trong WarrantyClaimServiceImpl.createClaim trước khi dùng WarrantyFeeCalculator. */
+    @SuppressWarnings("deprecation")
+    private static BigDecimal legacyMarkupFee(BigDecimal partPrice, BigDecimal minPercentage, BigDecimal maxPercentage,
+                                              long daysExpired, int gracePeriodDays) {
+        BigDecimal markupPercentage = minPercentage;
+        if (maxPercentage != null && maxPercentage.compareTo(minPercentage) > 0) {
+            if (daysExpired > 0) {
+                BigDecimal minPercent = minPercentage;
+                BigDecimal maxPercent = maxPercentage;
+                BigDecimal percentRange = maxPercent.subtract(minPercent);
+
+                BigDecimal expiredRatio = BigDecimal.valueOf(daysExpired)
+                        .divide(BigDecimal.valueOf(gracePeriodDays), 4, BigDecimal.ROUND_HALF_UP);
+                if (expiredRatio.compareTo(BigDecimal.ONE) > 0) {
+                    expiredRatio = BigDecimal.ONE;
+                }
+
+                markupPercentage = minPercent.add(percentRange.multiply(expiredRatio));
+            }
+        }
+        return partPrice.multiply(BigDecimal.ONE.add(markupPercentage.divide(BigDecimal.valueOf(100))));
+    }
+}
@@ -39,6 +39,7 @@ CREATE TABLE users (
     password VARCHAR(255) NOT NULL,
     address NVARCHAR(255),
     created_at TIMESTAMP NOT NULL,
+    token_version INT DEFAULT 0 NOT NULL,
     role_id BIGINT NOT NULL,
     service_center_id BIGINT,
     FOREIGN KEY (role_id) REFERENCES roles(role_id),